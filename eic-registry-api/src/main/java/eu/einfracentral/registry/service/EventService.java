@@ -137,6 +137,16 @@ public interface EventService extends ResourceService<Event, Authentication> {
      */
     Event setScheduledFavourite(String serviceId, Float value) throws ResourceNotFoundException, NumberParseException;
 
+    /**
+     * Add a batch of scheduled Events of the same type, one for each Service. Events of non-existing
+     * Services are skipped.
+     *
+     * @param eventType     the Event type
+     * @param serviceValues the Event value of each Service id
+     * @return the added Events
+     */
+    List<Event> addScheduledEvents(String eventType, Map<String, Float> serviceValues);
+
     /**
      * Get an aggregate of Visits on a specific Service.
      *
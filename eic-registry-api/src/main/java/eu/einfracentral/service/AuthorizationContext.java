@@ -0,0 +1,38 @@
+package eu.einfracentral.service;
+
+import org.springframework.security.core.Authentication;
+
+import java.util.Collection;
+
+/**
+ * Authorization checks of the current request, answered from the Providers and Catalogues administered
+ * by the authenticated user, which are resolved once per request.
+ */
+public interface AuthorizationContext {
+
+    /**
+     *
+     * @param auth
+     * @param providerId
+     * @param catalogueId
+     * @return whether the user is an admin of the Provider
+     */
+    boolean isProviderAdmin(Authentication auth, String providerId, String catalogueId);
+
+    /**
+     *
+     * @param auth
+     * @param providerIds the Resource Organisation and Resource Providers of a Resource
+     * @param catalogueId
+     * @return whether the user is an admin of any of the Providers
+     */
+    boolean isAnyProviderAdmin(Authentication auth, Collection<String> providerIds, String catalogueId);
+
+    /**
+     *
+     * @param auth
+     * @param catalogueId
+     * @return whether the user is an admin of the Catalogue
+     */
+    boolean isCatalogueAdmin(Authentication auth, String catalogueId);
+}
@@ -0,0 +1,23 @@
+package eu.einfracentral.service;
+
+import eu.einfracentral.dto.CacheStatistics;
+
+import java.util.List;
+
+public interface CacheStatisticsService {
+
+    /**
+     * Get the statistics of all the application caches.
+     *
+     * @return {@link List}&lt;{@link CacheStatistics}&gt;
+     */
+    List<CacheStatistics> getStatistics();
+
+    /**
+     * Get the statistics of a specific cache.
+     *
+     * @param cacheName the name of the cache
+     * @return {@link CacheStatistics} or null if the cache does not exist
+     */
+    CacheStatistics getStatistics(String cacheName);
+}
@@ -7,6 +7,7 @@ import javax.validation.constraints.NotNull;
 import java.lang.reflect.InvocationTargetException;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 public interface GenericResourceService {
     /**
@@ -44,6 +45,29 @@ public interface GenericResourceService {
      */
     <T> Browsing<T> getResultsWithoutFacets(FacetFilter filter);
 
+    /**
+     * Streams all the resources matching the filter, unbounded by the index 'max_result_window'.
+     * Resources are retrieved and deserialized lazily in pages, ordered by id. The 'from', 'quantity'
+     * and 'orderBy' of the filter are ignored.
+     *
+     * @param filter
+     * @return
+     * @param <T>
+     */
+    <T> Stream<T> getResultsStream(FacetFilter filter);
+
+    /**
+     * Retrieves the resources with the given ids with a single search, in the order of the ids. Ids without a
+     * matching resource are skipped. The resource type of the filter may be a comma-separated list of resource
+     * types, to look the ids up in all of them at once.
+     *
+     * @param filter the resource type(s) and any additional filters
+     * @param ids    the resource ids
+     * @return
+     * @param <T>
+     */
+    <T> List<T> getResultsByIds(FacetFilter filter, List<String> ids);
+
     /**
      *
      * @param paging
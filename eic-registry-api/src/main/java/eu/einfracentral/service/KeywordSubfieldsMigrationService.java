@@ -0,0 +1,22 @@
+package eu.einfracentral.service;
+
+import java.util.List;
+import java.util.Map;
+
+public interface KeywordSubfieldsMigrationService {
+
+    /**
+     * Get the fields with populated keyword subfields, per resource type index and alias.
+     *
+     * @return {@link Map}&lt;{@link String}, {@link List}&lt;{@link String}&gt;&gt;
+     */
+    Map<String, List<String>> getReadyFields();
+
+    /**
+     * Starts adding the keyword subfields to the resource type indices and re-indexing their documents in the
+     * background. The indices stay open, as the subfields only use built-in analysis.
+     *
+     * @return false if a migration is already running
+     */
+    boolean migrate();
+}
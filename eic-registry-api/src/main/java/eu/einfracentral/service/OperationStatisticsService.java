@@ -0,0 +1,22 @@
+package eu.einfracentral.service;
+
+import eu.einfracentral.dto.OperationStatistics;
+
+import java.util.List;
+
+public interface OperationStatisticsService {
+
+    /**
+     * Get the name of the component whose operations are measured, e.g. 'http' or 'mail'.
+     *
+     * @return the name of the component
+     */
+    String getComponent();
+
+    /**
+     * Get the counts and latency of the operations of the component, per target, executor or queue.
+     *
+     * @return {@link List}&lt;{@link OperationStatistics}&gt;
+     */
+    List<OperationStatistics> getStatistics();
+}
@@ -0,0 +1,102 @@
+package eu.einfracentral.dto;
+
+public class CacheStatistics {
+
+    private String name;
+    private long size;
+    private long hitCount;
+    private long missCount;
+    private double hitRate;
+    private long evictionCount;
+    private long loadCount;
+    private double averageLoadTimeMillis;
+    private long secondLevelHitCount;
+    private long secondLevelMissCount;
+
+    public CacheStatistics() {
+    }
+
+    public CacheStatistics(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public void setHitCount(long hitCount) {
+        this.hitCount = hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public void setMissCount(long missCount) {
+        this.missCount = missCount;
+    }
+
+    public double getHitRate() {
+        return hitRate;
+    }
+
+    public void setHitRate(double hitRate) {
+        this.hitRate = hitRate;
+    }
+
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    public void setEvictionCount(long evictionCount) {
+        this.evictionCount = evictionCount;
+    }
+
+    public long getLoadCount() {
+        return loadCount;
+    }
+
+    public void setLoadCount(long loadCount) {
+        this.loadCount = loadCount;
+    }
+
+    public double getAverageLoadTimeMillis() {
+        return averageLoadTimeMillis;
+    }
+
+    public void setAverageLoadTimeMillis(double averageLoadTimeMillis) {
+        this.averageLoadTimeMillis = averageLoadTimeMillis;
+    }
+
+    public long getSecondLevelHitCount() {
+        return secondLevelHitCount;
+    }
+
+    public void setSecondLevelHitCount(long secondLevelHitCount) {
+        this.secondLevelHitCount = secondLevelHitCount;
+    }
+
+    public long getSecondLevelMissCount() {
+        return secondLevelMissCount;
+    }
+
+    public void setSecondLevelMissCount(long secondLevelMissCount) {
+        this.secondLevelMissCount = secondLevelMissCount;
+    }
+}
@@ -0,0 +1,60 @@
+package eu.einfracentral.dto;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class OperationStatistics {
+
+    private String name;
+    private Map<String, Long> counts = new LinkedHashMap<>();
+    private double averageLatencyMillis;
+    private long maxLatencyMillis;
+
+    public OperationStatistics() {
+    }
+
+    public OperationStatistics(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Map<String, Long> getCounts() {
+        return counts;
+    }
+
+    public void setCounts(Map<String, Long> counts) {
+        this.counts = counts;
+    }
+
+    public long getCount(String name) {
+        Long count = counts.get(name);
+        return count != null ? count : 0;
+    }
+
+    public void setCount(String name, long count) {
+        counts.put(name, count);
+    }
+
+    public double getAverageLatencyMillis() {
+        return averageLatencyMillis;
+    }
+
+    public void setAverageLatencyMillis(double averageLatencyMillis) {
+        this.averageLatencyMillis = averageLatencyMillis;
+    }
+
+    public long getMaxLatencyMillis() {
+        return maxLatencyMillis;
+    }
+
+    public void setMaxLatencyMillis(long maxLatencyMillis) {
+        this.maxLatencyMillis = maxLatencyMillis;
+    }
+}
@@ -0,0 +1,43 @@
+package eu.einfracentral.controllers;
+
+import eu.einfracentral.dto.CacheStatistics;
+import eu.einfracentral.exception.ResourceNotFoundException;
+import eu.einfracentral.service.CacheStatisticsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("cache")
+public class CacheController {
+
+    private final CacheStatisticsService cacheStatisticsService;
+
+    @Autowired
+    CacheController(CacheStatisticsService cacheStatisticsService) {
+        this.cacheStatisticsService = cacheStatisticsService;
+    }
+
+    @GetMapping(path = "statistics", produces = {MediaType.APPLICATION_JSON_VALUE})
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public ResponseEntity<List<CacheStatistics>> getStatistics() {
+        return ResponseEntity.ok(cacheStatisticsService.getStatistics());
+    }
+
+    @GetMapping(path = "statistics/{name}", produces = {MediaType.APPLICATION_JSON_VALUE})
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public ResponseEntity<CacheStatistics> getStatistics(@PathVariable("name") String name) {
+        CacheStatistics statistics = cacheStatisticsService.getStatistics(name);
+        if (statistics == null) {
+            throw new ResourceNotFoundException(String.format("Cache '%s' does not exist", name));
+        }
+        return ResponseEntity.ok(statistics);
+    }
+}
@@ -0,0 +1,39 @@
+package eu.einfracentral.controllers;
+
+import eu.einfracentral.service.KeywordSubfieldsMigrationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("search/keywordSubfields")
+public class KeywordSubfieldsController {
+
+    private final KeywordSubfieldsMigrationService keywordSubfieldsMigrationService;
+
+    @Autowired
+    KeywordSubfieldsController(KeywordSubfieldsMigrationService keywordSubfieldsMigrationService) {
+        this.keywordSubfieldsMigrationService = keywordSubfieldsMigrationService;
+    }
+
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE})
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public ResponseEntity<Map<String, List<String>>> getReadyFields() {
+        return ResponseEntity.ok(keywordSubfieldsMigrationService.getReadyFields());
+    }
+
+    @PostMapping(path = "migrate")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public ResponseEntity<Void> migrate() {
+        return new ResponseEntity<>(keywordSubfieldsMigrationService.migrate() ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT);
+    }
+}
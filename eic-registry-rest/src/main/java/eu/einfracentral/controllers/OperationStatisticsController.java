@@ -0,0 +1,51 @@
+package eu.einfracentral.controllers;
+
+import eu.einfracentral.dto.OperationStatistics;
+import eu.einfracentral.exception.ResourceNotFoundException;
+import eu.einfracentral.service.OperationStatisticsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@RestController
+@RequestMapping("operations")
+public class OperationStatisticsController {
+
+    private final Map<String, OperationStatisticsService> services = new TreeMap<>();
+
+    @Autowired
+    OperationStatisticsController(List<OperationStatisticsService> services) {
+        for (OperationStatisticsService service : services) {
+            this.services.put(service.getComponent(), service);
+        }
+    }
+
+    @GetMapping(path = "statistics", produces = {MediaType.APPLICATION_JSON_VALUE})
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public ResponseEntity<Map<String, List<OperationStatistics>>> getStatistics() {
+        Map<String, List<OperationStatistics>> statistics = new TreeMap<>();
+        for (OperationStatisticsService service : services.values()) {
+            statistics.put(service.getComponent(), service.getStatistics());
+        }
+        return ResponseEntity.ok(statistics);
+    }
+
+    @GetMapping(path = "statistics/{component}", produces = {MediaType.APPLICATION_JSON_VALUE})
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public ResponseEntity<List<OperationStatistics>> getStatistics(@PathVariable("component") String component) {
+        OperationStatisticsService service = services.get(component);
+        if (service == null) {
+            throw new ResourceNotFoundException(String.format("Component '%s' does not exist", component));
+        }
+        return ResponseEntity.ok(service.getStatistics());
+    }
+}
@@ -1,7 +1,7 @@
 package eu.einfracentral.controllers.publicresources;
 
-import eu.einfracentral.exception.ResourceNotFoundException;
 import eu.einfracentral.service.GenericResourceService;
+import eu.openminted.registry.core.domain.FacetFilter;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiImplicitParam;
 import io.swagger.annotations.ApiImplicitParams;
@@ -11,7 +11,7 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -33,15 +33,9 @@ public class PublicController {
     @GetMapping(path = "public/resources/{ids}", produces = {MediaType.APPLICATION_JSON_VALUE})
     public ResponseEntity<List<?>> getSomeResources(@PathVariable("ids") String[] ids) {
         String[] resourceTypeNames = new String[]{"service", "training_resource"};
-        List<?> someResources = new ArrayList<>();
-        for (String id : ids) {
-            for (String resourceType : resourceTypeNames) {
-                try {
-                    someResources.add(genericResourceService.get(resourceType, id));
-                } catch (ResourceNotFoundException e) {
-                }
-            }
-        }
+        FacetFilter ff = new FacetFilter();
+        ff.setResourceType(String.join(",", resourceTypeNames));
+        List<?> someResources = genericResourceService.getResultsByIds(ff, Arrays.asList(ids));
         List<?> ret = someResources.stream().map(r -> ((eu.einfracentral.domain.Bundle<?>) r).getPayload()).collect(Collectors.toList());
         return new ResponseEntity<>(ret, HttpStatus.OK);
     }
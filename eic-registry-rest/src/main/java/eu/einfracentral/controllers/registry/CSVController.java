@@ -1,118 +1,94 @@
 package eu.einfracentral.controllers.registry;
 
-import com.google.gson.Gson;
+import eu.einfracentral.domain.Bundle;
 import eu.einfracentral.domain.ProviderBundle;
 import eu.einfracentral.domain.ServiceBundle;
-import eu.einfracentral.registry.service.ProviderService;
-import eu.einfracentral.registry.service.ServiceBundleService;
+import eu.einfracentral.service.GenericResourceService;
+import eu.einfracentral.utils.CsvExporter;
 import eu.openminted.registry.core.domain.FacetFilter;
-import eu.openminted.registry.core.domain.Paging;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.json.CDL;
-import org.json.JSONArray;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import springfox.documentation.annotations.ApiIgnore;
 
 import javax.servlet.http.HttpServletResponse;
-import java.util.List;
+import java.io.IOException;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("exportToCSV")
 public class CSVController {
 
     private static Logger logger = LogManager.getLogger(CSVController.class);
-    private final ServiceBundleService<ServiceBundle> serviceBundleService;
-    private final ProviderService<ProviderBundle, Authentication> providerService;
+    private final GenericResourceService genericResourceService;
 
-    @Value("${elastic.index.max_result_window:10000}")
-    private int maxQuantity;
+    private static final CsvExporter<ServiceBundle> SERVICE_EXPORTER = bundleColumns(new CsvExporter<ServiceBundle>()
+            .column("id", ServiceBundle::getId)
+            .column("name", bundle -> bundle.getService().getName()))
+            .column("status", ServiceBundle::getStatus)
+            .column("resourceExtras", ServiceBundle::getResourceExtras);
+
+    private static final CsvExporter<ProviderBundle> PROVIDER_EXPORTER = bundleColumns(new CsvExporter<ProviderBundle>()
+            .column("id", ProviderBundle::getId)
+            .column("abbreviation", bundle -> bundle.getProvider().getAbbreviation())
+            .column("name", bundle -> bundle.getProvider().getName()))
+            .column("status", ProviderBundle::getStatus)
+            .column("templateStatus", ProviderBundle::getTemplateStatus)
+            .column("transferContactInformation", ProviderBundle::getTransferContactInformation);
 
     @Autowired
-    CSVController(ServiceBundleService<ServiceBundle> service, ProviderService<ProviderBundle, Authentication> provider) {
-        this.serviceBundleService = service;
-        this.providerService = provider;
+    CSVController(GenericResourceService genericResourceService) {
+        this.genericResourceService = genericResourceService;
     }
 
     // Downloads a csv file with Service entries
     @GetMapping(path = "services", produces = {MediaType.APPLICATION_OCTET_STREAM_VALUE})
     @PreAuthorize("hasRole('ROLE_ADMIN') or hasRole('ROLE_EPOT')")
-    public ResponseEntity<String> servicesToCSV(@ApiIgnore Authentication auth, HttpServletResponse response) {
-        FacetFilter ff = new FacetFilter();
-        ff.setQuantity(maxQuantity);
-        Paging<ServiceBundle> serviceBundles = serviceBundleService.getAll(ff, auth);
-        String csvData = listServicesToCSV(serviceBundles.getResults());
-        response.setHeader("Content-disposition", "attachment; filename=" + "services.csv");
-        return ResponseEntity.ok(csvData);
+    public void servicesToCSV(@RequestParam(defaultValue = "false") boolean gzip,
+                              @ApiIgnore Authentication auth, HttpServletResponse response) throws IOException {
+        export("service", "services", SERVICE_EXPORTER, gzip, response);
     }
 
     // Downloads a csv file with Provider entries
     @GetMapping(path = "providers", produces = {MediaType.APPLICATION_OCTET_STREAM_VALUE})
     @PreAuthorize("hasRole('ROLE_ADMIN') or hasRole('ROLE_EPOT')")
-    public ResponseEntity<String> providersToCSV(@ApiIgnore Authentication auth, HttpServletResponse response) {
-        FacetFilter ff = new FacetFilter();
-        ff.setQuantity(maxQuantity);
-        Paging<ProviderBundle> providers = providerService.getAll(ff, auth);
-        String csvData = listProvidersToCSV(providers.getResults());
-        response.setHeader("Content-disposition", "attachment; filename=" + "providers.csv");
-        return ResponseEntity.ok(csvData);
-    }
-
-    private static String listToCSV(List<?> list) {
-        String json = new Gson().toJson(list);
-        JSONArray results = new JSONArray(json);
-        return CDL.toString(results);
-    }
-
-    private static String listProvidersToCSV(List<ProviderBundle> list) {
-        String resultCsv = listToCSV(list);
-        String[] rows = resultCsv.split("\n");
-        String[] header = rows[0].split(",");
-        rows[0] = "id;abbreviation;name;" + String.join(";", header);
-        for (int i = 1; i < rows.length; i++) {
-            rows[i] = replaceDelimiters(rows[i], ',', ';');
-            rows[i] = String.format("%s;%s;%s;%s", list.get(i - 1).getId(), list.get(i - 1).getProvider().getAbbreviation(),
-                    list.get(i - 1).getProvider().getName(), rows[i]);
-        }
-        return String.join("\n", rows);
+    public void providersToCSV(@RequestParam(defaultValue = "false") boolean gzip,
+                               @ApiIgnore Authentication auth, HttpServletResponse response) throws IOException {
+        export("provider", "providers", PROVIDER_EXPORTER, gzip, response);
     }
 
-    private static String listServicesToCSV(List<ServiceBundle> list) {
-        String resultCsv = listToCSV(list);
-        String[] rows = resultCsv.split("\n");
-        String[] header = rows[0].split(",");
-        rows[0] = "id;name;" + String.join(";", header);
-        for (int i = 1; i < rows.length; i++) {
-            rows[i] = replaceDelimiters(rows[i], ',', ';');
-            rows[i] = String.format("%s;%s;%s", list.get(i - 1).getId(), list.get(i - 1).getService().getName(), rows[i]);
+    // Writes the rows directly to the response while the resources are retrieved page by page
+    private <T> void export(String resourceType, String fileName, CsvExporter<T> exporter, boolean gzip,
+                            HttpServletResponse response) throws IOException {
+        FacetFilter ff = new FacetFilter();
+        ff.setResourceType(resourceType);
+        response.setContentType(gzip ? "application/gzip" : MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        response.setHeader("Content-disposition", "attachment; filename=" + fileName + (gzip ? ".csv.gz" : ".csv"));
+        try (Stream<T> resources = genericResourceService.getResultsStream(ff)) {
+            long rows = exporter.write(resources, response.getOutputStream(), gzip);
+            logger.info("Exported {} rows of '{}' to CSV", rows, resourceType);
         }
-        return String.join("\n", rows);
     }
 
-    private static String replaceDelimiters(String row, char delimiter, char newDelimiter) {
-        char[] rowInChars = row.toCharArray();
-
-        // when encountering "{ treat it as a field opening and do not replace symbols as delimiters
-        // instead wait for the closing counterpart }" and after that replace all delimiters found.
-        boolean openedField = false;
-        for (int i = 1; i < row.length(); i++) {
-            if (!openedField && rowInChars[i - 1] == '"' && rowInChars[i] == '{') {
-                openedField = true;
-            } else if (openedField && rowInChars[i - 1] == '}' && rowInChars[i] == '"') {
-                openedField = false;
-            } else if (!openedField && rowInChars[i] == delimiter) {
-                rowInChars[i] = newDelimiter;
-            }
-        }
-
-        return new String(rowInChars);
+    // Columns of the fields common to all Bundles, after the columns of each resource type
+    private static <T extends Bundle<?>> CsvExporter<T> bundleColumns(CsvExporter<T> exporter) {
+        return exporter
+                .column("payload", Bundle::getPayload)
+                .column("metadata", Bundle::getMetadata)
+                .column("active", Bundle::isActive)
+                .column("suspended", Bundle::isSuspended)
+                .column("identifiers", Bundle::getIdentifiers)
+                .column("migrationStatus", Bundle::getMigrationStatus)
+                .column("loggingInfo", Bundle::getLoggingInfo)
+                .column("latestAuditInfo", Bundle::getLatestAuditInfo)
+                .column("latestOnboardingInfo", Bundle::getLatestOnboardingInfo)
+                .column("latestUpdateInfo", Bundle::getLatestUpdateInfo);
     }
 }
@@ -2,6 +2,7 @@ package eu.einfracentral.controllers.registry;
 
 import eu.einfracentral.domain.*;
 import eu.einfracentral.service.AuthoritiesMapper;
+import eu.einfracentral.service.AuthorizationContext;
 import eu.einfracentral.service.SecurityService;
 import eu.openminted.registry.core.domain.Paging;
 import org.apache.logging.log4j.LogManager;
@@ -18,21 +19,26 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 @ControllerAdvice
 public class SecureResponseAdvice<T> implements ResponseBodyAdvice<T> {
 
     private final SecurityService securityService;
     private final AuthoritiesMapper authoritiesMapper;
+    private final AuthorizationContext authorizationContext;
 
     private final String epotEmail;
 
     @Autowired
     public SecureResponseAdvice(SecurityService securityService, AuthoritiesMapper authoritiesMapper,
+                                AuthorizationContext authorizationContext,
                                 @Value("${project.registration.email:registration@catalogue.eu}") String epotEmail) {
         this.securityService = securityService;
         this.authoritiesMapper = authoritiesMapper;
+        this.authorizationContext = authorizationContext;
         this.epotEmail = epotEmail;
     }
 
@@ -90,7 +96,7 @@ public class SecureResponseAdvice<T> implements ResponseBodyAdvice<T> {
     }
 
     private void modifyService(T service, Authentication auth) {
-        if (!this.securityService.isResourceProviderAdmin(auth, ((Service) service).getId(), ((Service) service).getCatalogueId())) {
+        if (!isResourceProviderAdmin(auth, ((Service) service).getResourceOrganisation(), ((Service) service).getResourceProviders(), ((Service) service).getCatalogueId())) {
             ((Service) service).setMainContact(null);
             ((Service) service).setSecurityContactEmail(null);
         }
@@ -103,7 +109,8 @@ public class SecureResponseAdvice<T> implements ResponseBodyAdvice<T> {
         modifyLoggingInfo((T) ((ServiceBundle) serviceBundle).getLatestUpdateInfo());
         modifyLoggingInfo((T) ((ServiceBundle) serviceBundle).getLatestOnboardingInfo());
 
-        if (!this.securityService.isResourceProviderAdmin(auth, ((ServiceBundle) serviceBundle).getId(), ((ServiceBundle) serviceBundle).getService().getCatalogueId())) {
+        Service service = ((ServiceBundle) serviceBundle).getService();
+        if (!isResourceProviderAdmin(auth, service.getResourceOrganisation(), service.getResourceProviders(), service.getCatalogueId())) {
             ((ServiceBundle) serviceBundle).getService().setMainContact(null);
             ((ServiceBundle) serviceBundle).getService().setSecurityContactEmail(null);
             ((ServiceBundle) serviceBundle).getMetadata().setTerms(null);
@@ -111,7 +118,7 @@ public class SecureResponseAdvice<T> implements ResponseBodyAdvice<T> {
     }
 
     private void modifyTrainingResource(T trainingResource, Authentication auth) {
-        if (!this.securityService.isResourceProviderAdmin(auth, ((TrainingResource) trainingResource).getId(), ((TrainingResource) trainingResource).getCatalogueId())) {
+        if (!isResourceProviderAdmin(auth, ((TrainingResource) trainingResource).getResourceOrganisation(), ((TrainingResource) trainingResource).getResourceProviders(), ((TrainingResource) trainingResource).getCatalogueId())) {
             ((TrainingResource) trainingResource).setContact(null);
         }
     }
@@ -123,7 +130,8 @@ public class SecureResponseAdvice<T> implements ResponseBodyAdvice<T> {
         modifyLoggingInfo((T) ((TrainingResourceBundle) trainingResourceBundle).getLatestUpdateInfo());
         modifyLoggingInfo((T) ((TrainingResourceBundle) trainingResourceBundle).getLatestOnboardingInfo());
 
-        if (!this.securityService.isResourceProviderAdmin(auth, ((TrainingResourceBundle) trainingResourceBundle).getId(), ((TrainingResourceBundle) trainingResourceBundle).getTrainingResource().getCatalogueId())) {
+        TrainingResource trainingResource = ((TrainingResourceBundle) trainingResourceBundle).getTrainingResource();
+        if (!isResourceProviderAdmin(auth, trainingResource.getResourceOrganisation(), trainingResource.getResourceProviders(), trainingResource.getCatalogueId())) {
             ((TrainingResourceBundle) trainingResourceBundle).getTrainingResource().setContact(null);
             ((TrainingResourceBundle) trainingResourceBundle).getMetadata().setTerms(null);
         }
@@ -136,13 +144,14 @@ public class SecureResponseAdvice<T> implements ResponseBodyAdvice<T> {
         modifyLoggingInfo((T) ((InteroperabilityRecordBundle) interoperabilityRecordBundle).getLatestUpdateInfo());
         modifyLoggingInfo((T) ((InteroperabilityRecordBundle) interoperabilityRecordBundle).getLatestOnboardingInfo());
 
-        if (!this.securityService.isResourceProviderAdmin(auth, ((InteroperabilityRecordBundle) interoperabilityRecordBundle).getId(), ((InteroperabilityRecordBundle) interoperabilityRecordBundle).getInteroperabilityRecord().getCatalogueId())) {
+        InteroperabilityRecord interoperabilityRecord = ((InteroperabilityRecordBundle) interoperabilityRecordBundle).getInteroperabilityRecord();
+        if (!isResourceProviderAdmin(auth, interoperabilityRecord.getProviderId(), null, interoperabilityRecord.getCatalogueId())) {
             ((InteroperabilityRecordBundle) interoperabilityRecordBundle).getMetadata().setTerms(null);
         }
     }
 
     private void modifyProvider(T provider, Authentication auth) {
-        if (!this.securityService.isProviderAdmin(auth, ((Provider) provider).getId(), ((Provider) provider).getCatalogueId())) {
+        if (!this.authorizationContext.isProviderAdmin(auth, ((Provider) provider).getId(), ((Provider) provider).getCatalogueId())) {
             ((Provider) provider).setMainContact(null);
             ((Provider) provider).setUsers(null);
         }
@@ -155,7 +164,7 @@ public class SecureResponseAdvice<T> implements ResponseBodyAdvice<T> {
         modifyLoggingInfo((T) ((ProviderBundle) bundle).getLatestUpdateInfo());
         modifyLoggingInfo((T) ((ProviderBundle) bundle).getLatestOnboardingInfo());
 
-        if (!this.securityService.isProviderAdmin(auth, ((ProviderBundle) bundle).getId(), ((Bundle<Provider>) bundle).getPayload().getCatalogueId())) {
+        if (!this.authorizationContext.isProviderAdmin(auth, ((ProviderBundle) bundle).getId(), ((Bundle<Provider>) bundle).getPayload().getCatalogueId())) {
             ((ProviderBundle) bundle).getProvider().setMainContact(null);
             ((ProviderBundle) bundle).getProvider().setUsers(null);
             ((ProviderBundle) bundle).getMetadata().setTerms(null);
@@ -163,7 +172,7 @@ public class SecureResponseAdvice<T> implements ResponseBodyAdvice<T> {
     }
 
     private void modifyCatalogue(T catalogue, Authentication auth) {
-        if (!this.securityService.isCatalogueAdmin(auth, ((Catalogue) catalogue).getId(), true)) {
+        if (!this.authorizationContext.isCatalogueAdmin(auth, ((Catalogue) catalogue).getId())) {
             ((Catalogue) catalogue).setMainContact(null);
             ((Catalogue) catalogue).setUsers(null);
         }
@@ -176,13 +185,23 @@ public class SecureResponseAdvice<T> implements ResponseBodyAdvice<T> {
         modifyLoggingInfo((T) ((CatalogueBundle) bundle).getLatestUpdateInfo());
         modifyLoggingInfo((T) ((CatalogueBundle) bundle).getLatestOnboardingInfo());
 
-        if (!this.securityService.isCatalogueAdmin(auth, ((CatalogueBundle) bundle).getId(), true)) {
+        if (!this.authorizationContext.isCatalogueAdmin(auth, ((CatalogueBundle) bundle).getId())) {
             ((CatalogueBundle) bundle).getCatalogue().setMainContact(null);
             ((CatalogueBundle) bundle).getCatalogue().setUsers(null);
             ((CatalogueBundle) bundle).getMetadata().setTerms(null);
         }
     }
 
+    private boolean isResourceProviderAdmin(Authentication auth, String resourceOrganisation,
+                                            List<String> resourceProviders, String catalogueId) {
+        List<String> providerIds = new ArrayList<>();
+        providerIds.add(resourceOrganisation);
+        if (resourceProviders != null) {
+            providerIds.addAll(resourceProviders);
+        }
+        return this.authorizationContext.isAnyProviderAdmin(auth, providerIds, catalogueId);
+    }
+
     private void modifyLoggingInfo(T loggingInfo) {
         if (loggingInfo != null) {
             if (authoritiesMapper.isAdmin(((LoggingInfo) loggingInfo).getUserEmail())) {
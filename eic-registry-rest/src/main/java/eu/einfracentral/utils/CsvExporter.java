@@ -0,0 +1,111 @@
+package eu.einfracentral.utils;
+
+import com.google.gson.Gson;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes resources as CSV rows, one at a time, according to a declared column schema.
+ * <p>
+ * Strings, numbers and booleans are written as they are, any other value as JSON.
+ * Values containing the delimiter, quotes or line breaks are quoted.
+ *
+ * @param <T> the type of the exported resources
+ */
+public class CsvExporter<T> {
+
+    private static final char DELIMITER = ';';
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Gson gson = new Gson();
+    private final List<String> headers = new ArrayList<>();
+    private final List<Function<T, ?>> extractors = new ArrayList<>();
+
+    /**
+     * Appends a column to the schema.
+     *
+     * @param header    the header of the column
+     * @param extractor returns the value of the column for a resource
+     * @return this exporter
+     */
+    public CsvExporter<T> column(String header, Function<T, ?> extractor) {
+        headers.add(header);
+        extractors.add(extractor);
+        return this;
+    }
+
+    /**
+     * Writes the header and a row for every resource of the stream to the output stream,
+     * optionally compressed with gzip. The output stream is not closed.
+     *
+     * @param resources    the resources to export
+     * @param outputStream the output stream
+     * @param gzip         whether to compress the output
+     * @return the number of rows written
+     * @throws IOException
+     */
+    public long write(Stream<T> resources, OutputStream outputStream, boolean gzip) throws IOException {
+        GZIPOutputStream gzipOutputStream = gzip ? new GZIPOutputStream(outputStream, BUFFER_SIZE) : null;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(gzip ? gzipOutputStream : outputStream,
+                StandardCharsets.UTF_8), BUFFER_SIZE);
+        writeRow(writer, headers);
+        long rows = 0;
+        Iterator<T> iterator = resources.iterator();
+        while (iterator.hasNext()) {
+            T resource = iterator.next();
+            List<Object> values = new ArrayList<>(extractors.size());
+            for (Function<T, ?> extractor : extractors) {
+                values.add(extractor.apply(resource));
+            }
+            writeRow(writer, values);
+            rows++;
+        }
+        writer.flush();
+        if (gzipOutputStream != null) {
+            gzipOutputStream.finish();
+        }
+        return rows;
+    }
+
+    private void writeRow(Writer writer, List<?> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                writer.write(DELIMITER);
+            }
+            writeValue(writer, values.get(i));
+        }
+        writer.write('\n');
+    }
+
+    private void writeValue(Writer writer, Object value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        String text;
+        if (value instanceof String || value instanceof Number || value instanceof Boolean) {
+            text = value.toString();
+        } else {
+            text = gson.toJson(value);
+        }
+        if (text.indexOf(DELIMITER) < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            writer.write(text);
+            return;
+        }
+        writer.write('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                writer.write('"');
+            }
+            writer.write(c);
+        }
+        writer.write('"');
+    }
+}
@@ -1,21 +1,28 @@
 package eu.einfracentral.config;
 
-import com.google.common.cache.CacheBuilder;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import eu.einfracentral.config.cache.InMemorySecondLevelCacheStore;
+import eu.einfracentral.config.cache.SecondLevelCacheStore;
+import eu.einfracentral.config.cache.TieredCache;
+import eu.einfracentral.config.cache.TieredCacheManager;
+import eu.openminted.registry.core.domain.Paging;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.springframework.cache.CacheManager;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.concurrent.ConcurrentMapCache;
-import org.springframework.cache.support.SimpleCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.web.client.RestTemplate;
 
 import java.io.IOException;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.time.Duration;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 @Configuration
@@ -25,8 +32,6 @@ public class CacheConfig {
 
     public static final String CACHE_PROVIDERS = "providers";
     public static final String CACHE_VOCABULARIES = "vocabularies";
-    public static final String CACHE_VOCABULARY_MAP = "vocabulary_map";
-    public static final String CACHE_VOCABULARY_TREE = "vocabulary_tree";
     public static final String CACHE_FEATURED = "featuredServices";
     public static final String CACHE_EVENTS = "events";
     public static final String CACHE_SERVICE_EVENTS = "service_events";
@@ -34,36 +39,89 @@ public class CacheConfig {
 
     protected RestTemplate restTemplate;
 
+    private final Environment environment;
+    private final ObjectProvider<SecondLevelCacheStore> secondLevelCacheStores;
+
+    public CacheConfig(Environment environment, ObjectProvider<SecondLevelCacheStore> secondLevelCacheStores) {
+        this.environment = environment;
+        this.secondLevelCacheStores = secondLevelCacheStores;
+    }
+
+    /**
+     * Creates the application caches. Every cache can be tuned using the properties
+     * <ul>
+     *     <li>{@code cache.<name>.maximumSize}: maximum number of entries</li>
+     *     <li>{@code cache.<name>.maximumWeight}: maximum total weight, where the weight of an entry is the
+     *     number of results it holds (replaces {@code maximumSize})</li>
+     *     <li>{@code cache.<name>.expireAfterWrite}: ISO-8601 duration (e.g. PT10M)</li>
+     *     <li>{@code cache.<name>.secondLevel}: whether to use the second tier (default true)</li>
+     * </ul>
+     * The second tier is enabled using {@code cache.secondLevel.enabled}; the embedded one holds at most
+     * {@code cache.secondLevel.maximumSize} entries per cache.
+     */
     @Bean
-    public CacheManager cacheManager() {
-        SimpleCacheManager cacheManager = new SimpleCacheManager();
+    public TieredCacheManager cacheManager() {
+        TieredCacheManager cacheManager = new TieredCacheManager();
+        SecondLevelCacheStore secondLevel = null;
+        if (environment.getProperty("cache.secondLevel.enabled", Boolean.class, false)) {
+            secondLevel = secondLevelCacheStores.getIfAvailable(() -> new InMemorySecondLevelCacheStore(
+                    environment.getProperty("cache.secondLevel.maximumSize", Long.class, 10000L)));
+            logger.info("Using second level cache store [{}]", secondLevel.getClass().getName());
+        }
 
         cacheManager.setCaches(Arrays.asList(
-
-                new ConcurrentMapCache(CACHE_VISITS,
-                        CacheBuilder.newBuilder().expireAfterWrite(10, TimeUnit.MINUTES).maximumSize(2000).build().asMap(), false),
-                new ConcurrentMapCache(CACHE_FEATURED,
-                        CacheBuilder.newBuilder().expireAfterWrite(1, TimeUnit.HOURS).maximumSize(5).build().asMap(), false),
-                new ConcurrentMapCache(CACHE_PROVIDERS,
-                        CacheBuilder.newBuilder().expireAfterWrite(12, TimeUnit.HOURS).maximumSize(10).build().asMap(), false),
-                new ConcurrentMapCache(CACHE_EVENTS,
-                        CacheBuilder.newBuilder().expireAfterWrite(1, TimeUnit.HOURS).maximumSize(1000).build().asMap(), false),
-                new ConcurrentMapCache(CACHE_SERVICE_EVENTS,
-                        CacheBuilder.newBuilder().expireAfterWrite(12, TimeUnit.HOURS).maximumSize(1000).build().asMap(), false),
-                new ConcurrentMapCache(CACHE_VOCABULARIES,
-                        CacheBuilder.newBuilder().expireAfterWrite(12, TimeUnit.HOURS).maximumSize(50).build().asMap(), false),
-                new ConcurrentMapCache(CACHE_VOCABULARY_MAP,
-                        CacheBuilder.newBuilder().expireAfterWrite(12, TimeUnit.HOURS).maximumSize(50).build().asMap(), false),
-                new ConcurrentMapCache(CACHE_VOCABULARY_TREE,
-                        CacheBuilder.newBuilder().expireAfterWrite(12, TimeUnit.HOURS).maximumSize(50).build().asMap(), false),
+                createCache(CACHE_VISITS, 2000L, Duration.ofMinutes(10), secondLevel),
+                createCache(CACHE_FEATURED, 5L, Duration.ofHours(1), secondLevel),
+                createCache(CACHE_PROVIDERS, 1000L, Duration.ofHours(12), secondLevel),
+                createCache(CACHE_EVENTS, 1000L, Duration.ofHours(1), secondLevel),
+                createCache(CACHE_SERVICE_EVENTS, 1000L, Duration.ofHours(12), secondLevel),
+                createCache(CACHE_VOCABULARIES, 50L, Duration.ofHours(12), secondLevel),
 
                 // NEEDED FOR registry-core
-                new ConcurrentMapCache("resourceTypes"),
-                new ConcurrentMapCache("resourceTypesIndexFields")
+                createCache("resourceTypes", null, null, null),
+                createCache("resourceTypesIndexFields", null, null, null)
         ));
         return cacheManager;
     }
 
+    private TieredCache createCache(String name, Long defaultMaximumSize, Duration defaultExpireAfterWrite,
+                                    SecondLevelCacheStore secondLevel) {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder().recordStats();
+
+        Long maximumWeight = environment.getProperty(String.format("cache.%s.maximumWeight", name), Long.class);
+        Long maximumSize = environment.getProperty(String.format("cache.%s.maximumSize", name), Long.class, defaultMaximumSize);
+        if (maximumWeight != null) {
+            builder.maximumWeight(maximumWeight).weigher((Object key, Object value) -> weigh(value));
+        } else if (maximumSize != null) {
+            builder.maximumSize(maximumSize);
+        }
+
+        String expireAfterWrite = environment.getProperty(String.format("cache.%s.expireAfterWrite", name));
+        Duration timeToLive = expireAfterWrite != null ? Duration.parse(expireAfterWrite) : defaultExpireAfterWrite;
+        if (timeToLive != null) {
+            builder.expireAfterWrite(timeToLive.toMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        if (!environment.getProperty(String.format("cache.%s.secondLevel", name), Boolean.class, true)) {
+            secondLevel = null;
+        }
+        logger.debug("Creating cache '{}' [maximumSize: {}, maximumWeight: {}, expireAfterWrite: {}, secondLevel: {}]",
+                name, maximumSize, maximumWeight, timeToLive, secondLevel != null);
+        return new TieredCache(name, builder.build(), secondLevel, timeToLive);
+    }
+
+    private static int weigh(Object value) {
+        if (value instanceof Collection) {
+            return 1 + ((Collection<?>) value).size();
+        } else if (value instanceof Map) {
+            return 1 + ((Map<?, ?>) value).size();
+        } else if (value instanceof Paging) {
+            Paging<?> paging = (Paging<?>) value;
+            return 1 + (paging.getResults() != null ? paging.getResults().size() : 0);
+        }
+        return 1;
+    }
+
     //    @Scheduled(initialDelay = 0, fixedRate = 120000) //run every 2 min
     @Scheduled(cron = "0 0 12 ? * *") // At 12:00:00pm every day
     public void updateCache() throws IOException, InterruptedException {
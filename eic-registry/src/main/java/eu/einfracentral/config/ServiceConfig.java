@@ -1,5 +1,7 @@
 package eu.einfracentral.config;
 
+import eu.einfracentral.config.async.AsyncConfig;
+import eu.einfracentral.config.http.HttpClientConfig;
 import eu.einfracentral.domain.*;
 import eu.einfracentral.domain.ResourceInteroperabilityRecordBundle;
 import eu.einfracentral.domain.interoperabilityRecord.configurationTemplates.ConfigurationTemplate;
@@ -20,9 +22,7 @@ import org.springframework.session.web.http.DefaultCookieSerializer;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
-import java.io.File;
 import java.io.IOException;
-import java.util.Objects;
 import java.util.Random;
 
 @Configuration
@@ -35,7 +35,7 @@ import java.util.Random;
         "eu.einfracentral.service",
         "eu.einfracentral.matomo",
         "eu.einfracentral.recdb"})
-@Import(CacheConfig.class)
+@Import({CacheConfig.class, HttpClientConfig.class, AsyncConfig.class})
 @PropertySource(value = {"classpath:application.properties", "classpath:registry.properties"})
 @EnableSpringHttpSession
 @EnableAspectJAutoProxy
@@ -67,7 +67,8 @@ public class ServiceConfig extends AbstractHttpSessionApplicationInitializer {
     @Bean
     freemarker.template.Configuration freeMaker() throws IOException {
         freemarker.template.Configuration cfg = new freemarker.template.Configuration(freemarker.template.Configuration.VERSION_2_3_28);
-        cfg.setDirectoryForTemplateLoading(new File(Objects.requireNonNull(getClass().getClassLoader().getResource("templates")).getFile()));
+        cfg.setClassLoaderForTemplateLoading(getClass().getClassLoader(), "templates");
+        cfg.setTemplateUpdateDelayMilliseconds(Long.MAX_VALUE);
         cfg.setDefaultEncoding("UTF-8");
         cfg.setTemplateExceptionHandler(TemplateExceptionHandler.RETHROW_HANDLER);
         cfg.setLogTemplateExceptions(false);
@@ -0,0 +1,110 @@
+package eu.einfracentral.config.async;
+
+import eu.einfracentral.dto.OperationStatistics;
+import eu.einfracentral.service.OperationStatisticsService;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.AsyncConfigurer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Executors of the asynchronous work, one per workload, configured using the properties
+ * {@code async.<workload>.threads}, {@code async.<workload>.capacity} (queued tasks per thread) and
+ * {@code async.<workload>.offerTimeout} (milliseconds to wait for room in a full queue before rejecting a task,
+ * 0 to wait without a time limit).
+ * <ul>
+ *     <li>{@code publicCopy}: creation, update and deletion of the public copies of the resources</li>
+ *     <li>{@code jms}: JMS messages about the resources</li>
+ *     <li>{@code mail}: {@code @Async} methods, mostly rendering and sending emails</li>
+ *     <li>{@code maintenance}: long-running background work, such as migrations and rebuilds</li>
+ *     <li>{@code statistics}: per-Service queries of the statistics, when the aggregation over all Services fails</li>
+ * </ul>
+ * Work about the same resource is submitted with its id as key and is executed in order.
+ */
+@Configuration
+public class AsyncConfig implements AsyncConfigurer, OperationStatisticsService {
+
+    private static final Logger logger = LogManager.getLogger(AsyncConfig.class);
+
+    public static final String PUBLIC_COPY = "publicCopy";
+    public static final String JMS = "jms";
+    public static final String MAIL = "mail";
+    public static final String MAINTENANCE = "maintenance";
+    public static final String STATISTICS = "statistics";
+
+    private final Environment environment;
+    private final Map<String, OrderedTaskExecutor> executors = new ConcurrentHashMap<>();
+
+    public AsyncConfig(Environment environment) {
+        this.environment = environment;
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public OrderedTaskExecutor publicCopyExecutor() {
+        return getExecutor(PUBLIC_COPY);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public OrderedTaskExecutor jmsExecutor() {
+        return getExecutor(JMS);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public OrderedTaskExecutor mailExecutor() {
+        return getExecutor(MAIL);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public OrderedTaskExecutor maintenanceExecutor() {
+        return getExecutor(MAINTENANCE);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public OrderedTaskExecutor statisticsExecutor() {
+        return getExecutor(STATISTICS);
+    }
+
+    /**
+     * Executor of the {@code @Async} methods, replacing Spring's default one which creates a thread per task.
+     * Rejected methods are logged instead of failing their callers.
+     */
+    @Override
+    public Executor getAsyncExecutor() {
+        return getExecutor(MAIL)::tryExecute;
+    }
+
+    @Override
+    public AsyncUncaughtExceptionHandler getAsyncUncaughtExceptionHandler() {
+        return (e, method, params) -> logger.error("Async method '{}' failed", method.getName(), e);
+    }
+
+    @Override
+    public String getComponent() {
+        return "async";
+    }
+
+    @Override
+    public List<OperationStatistics> getStatistics() {
+        List<OperationStatistics> statistics = new ArrayList<>();
+        for (OrderedTaskExecutor executor : executors.values()) {
+            statistics.add(executor.getStatistics());
+        }
+        return statistics;
+    }
+
+    private OrderedTaskExecutor getExecutor(String workload) {
+        return executors.computeIfAbsent(workload, name -> new OrderedTaskExecutor(name,
+                environment.getProperty(String.format("async.%s.threads", name), Integer.class, 4),
+                environment.getProperty(String.format("async.%s.capacity", name), Integer.class, 1000),
+                environment.getProperty(String.format("async.%s.offerTimeout", name), Long.class, 5000L)));
+    }
+}
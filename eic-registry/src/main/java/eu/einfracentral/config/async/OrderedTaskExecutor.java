@@ -0,0 +1,171 @@
+package eu.einfracentral.config.async;
+
+import eu.einfracentral.dto.OperationStatistics;
+import eu.einfracentral.utils.OperationMeter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Executes tasks on a fixed number of single-threaded lanes with bounded queues.
+ * <p>
+ * Tasks submitted with the same key always run on the same lane, in submission order. When the queue of a lane
+ * is full, the submitting thread waits up to {@code offerTimeout} milliseconds for room (without a time limit when
+ * it is 0), and the task is rejected with a {@link RejectedExecutionException} if there is still none. A task of a
+ * lane submitting to its own full lane is rejected directly, as no room can be made while it waits.
+ * <p>
+ * Callers that must not fail because of a rejection, such as the advice run after a resource has been stored,
+ * use {@link #tryExecute(Object, Runnable)}.
+ */
+public class OrderedTaskExecutor implements Executor {
+
+    private static final Logger logger = LogManager.getLogger(OrderedTaskExecutor.class);
+
+    private final String name;
+    private final int capacity;
+    private final long offerTimeoutMillis;
+    private final ThreadPoolExecutor[] lanes;
+    private final AtomicReferenceArray<Thread> laneThreads;
+
+    private final OperationMeter meter;
+
+    public OrderedTaskExecutor(String name, int threads, int capacity, long offerTimeoutMillis) {
+        this.name = name;
+        this.meter = new OperationMeter(name, "submitted", "completed", "failed", "blocked", "rejected");
+        this.capacity = Math.max(1, capacity);
+        this.offerTimeoutMillis = Math.max(0, offerTimeoutMillis);
+        this.lanes = new ThreadPoolExecutor[Math.max(1, threads)];
+        this.laneThreads = new AtomicReferenceArray<>(lanes.length);
+        for (int i = 0; i < lanes.length; i++) {
+            int index = i;
+            String threadName = name + "-" + (i + 1);
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(this.capacity), runnable -> {
+                Thread thread = new Thread(runnable, threadName);
+                thread.setDaemon(true);
+                laneThreads.set(index, thread);
+                return thread;
+            }, (task, lane) -> waitForRoom(index, task, lane));
+        }
+    }
+
+    /**
+     * Executes the task after all the tasks previously submitted with the same key.
+     */
+    public void execute(Object key, Runnable task) {
+        submit(lanes[(key != null ? key.hashCode() & Integer.MAX_VALUE : 0) % lanes.length], task);
+    }
+
+    /**
+     * Same as {@link #execute(Object, Runnable)}, but logs a warning instead of throwing if the task is rejected.
+     *
+     * @return whether the task was accepted
+     */
+    public boolean tryExecute(Object key, Runnable task) {
+        try {
+            execute(key, task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            logger.warn("Task of executor '{}' for '{}' was not executed: {}", name, key, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Same as {@link #execute(Runnable)}, but logs a warning instead of throwing if the task is rejected.
+     *
+     * @return whether the task was accepted
+     */
+    public boolean tryExecute(Runnable task) {
+        try {
+            execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            logger.warn("Task of executor '{}' was not executed: {}", name, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Executes the task on the least busy lane.
+     */
+    @Override
+    public void execute(Runnable task) {
+        ThreadPoolExecutor lane = lanes[0];
+        for (ThreadPoolExecutor candidate : lanes) {
+            if (candidate.getQueue().size() < lane.getQueue().size()) {
+                lane = candidate;
+            }
+        }
+        submit(lane, task);
+    }
+
+    public OperationStatistics getStatistics() {
+        OperationStatistics statistics = meter.getStatistics();
+        int pending = 0;
+        for (ThreadPoolExecutor lane : lanes) {
+            pending += lane.getQueue().size() + lane.getActiveCount();
+        }
+        statistics.setCount("threads", lanes.length);
+        statistics.setCount("capacity", (long) capacity * lanes.length);
+        statistics.setCount("pending", pending);
+        return statistics;
+    }
+
+    public void shutdown() {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+    }
+
+    private void submit(ThreadPoolExecutor lane, Runnable task) {
+        lane.execute(meter(task, System.currentTimeMillis()));
+        meter.increment("submitted");
+    }
+
+    private Runnable meter(Runnable task, long submittedAt) {
+        return () -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                meter.increment("failed");
+                logger.error("Task of executor '{}' failed", name, e);
+            } finally {
+                meter.record("completed", System.currentTimeMillis() - submittedAt);
+            }
+        };
+    }
+
+    /**
+     * Called by the lane when its queue is full.
+     */
+    private void waitForRoom(int index, Runnable task, ThreadPoolExecutor lane) {
+        if (lane.isShutdown()) {
+            throw reject("has been shut down", null);
+        }
+        if (Thread.currentThread() == laneThreads.get(index)) {
+            throw reject("is full, and the task was submitted by its own lane", null);
+        }
+        meter.increment("blocked");
+        logger.debug("Executor '{}' is full, waiting for room", name);
+        try {
+            if (offerTimeoutMillis == 0) {
+                lane.getQueue().put(task);
+            } else if (!lane.getQueue().offer(task, offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw reject(String.format("is still full after %d ms", offerTimeoutMillis), null);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw reject("is full, and the submitting thread was interrupted", e);
+        }
+    }
+
+    private RejectedExecutionException reject(String reason, Throwable cause) {
+        meter.increment("rejected");
+        String message = String.format("Executor '%s' %s", name, reason);
+        logger.error("{}, rejecting task", message);
+        return new RejectedExecutionException(message, cause);
+    }
+}
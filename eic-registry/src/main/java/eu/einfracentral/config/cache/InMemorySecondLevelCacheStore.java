@@ -0,0 +1,66 @@
+package eu.einfracentral.config.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Embedded stand-in of a remote {@link SecondLevelCacheStore}, used when the second tier is enabled
+ * but no other implementation is registered. Every cache holds at most {@code maximumSize} entries, which
+ * expire after the time to live of the first 'put' of the cache.
+ */
+public class InMemorySecondLevelCacheStore implements SecondLevelCacheStore {
+
+    private final long maximumSize;
+    private final Map<String, Cache<Object, Object>> caches = new ConcurrentHashMap<>();
+
+    public InMemorySecondLevelCacheStore(long maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    @Override
+    public Object get(String cacheName, Object key) {
+        Cache<Object, Object> cache = caches.get(cacheName);
+        return cache != null ? cache.getIfPresent(key) : null;
+    }
+
+    @Override
+    public void put(String cacheName, Object key, Object value, Duration timeToLive) {
+        caches.computeIfAbsent(cacheName, name -> createCache(timeToLive)).put(key, value);
+    }
+
+    @Override
+    public void evict(String cacheName, Object key) {
+        Cache<Object, Object> cache = caches.get(cacheName);
+        if (cache != null) {
+            cache.invalidate(key);
+        }
+    }
+
+    @Override
+    public void evictByPrefix(String cacheName, String prefix) {
+        Cache<Object, Object> cache = caches.get(cacheName);
+        if (cache != null) {
+            cache.asMap().keySet().removeIf(key -> key instanceof String && ((String) key).startsWith(prefix));
+        }
+    }
+
+    @Override
+    public void clear(String cacheName) {
+        Cache<Object, Object> cache = caches.get(cacheName);
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+
+    private Cache<Object, Object> createCache(Duration timeToLive) {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder().maximumSize(maximumSize);
+        if (timeToLive != null) {
+            builder.expireAfterWrite(timeToLive);
+        }
+        return builder.build();
+    }
+}
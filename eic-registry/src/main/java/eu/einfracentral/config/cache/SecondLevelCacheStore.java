@@ -0,0 +1,28 @@
+package eu.einfracentral.config.cache;
+
+import java.time.Duration;
+
+/**
+ * Shared second cache tier, consulted by {@link TieredCache} on local misses.
+ * <p>
+ * Register a bean of this type (e.g. backed by a Redis-compatible server) to replace the embedded
+ * {@link InMemorySecondLevelCacheStore}.
+ */
+public interface SecondLevelCacheStore {
+
+    /**
+     * @return the stored value or null if absent or expired
+     */
+    Object get(String cacheName, Object key);
+
+    void put(String cacheName, Object key, Object value, Duration timeToLive);
+
+    void evict(String cacheName, Object key);
+
+    /**
+     * Evicts the entries whose key is a String starting with the given prefix.
+     */
+    void evictByPrefix(String cacheName, String prefix);
+
+    void clear(String cacheName);
+}
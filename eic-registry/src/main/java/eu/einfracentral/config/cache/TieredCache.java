@@ -0,0 +1,179 @@
+package eu.einfracentral.config.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import eu.einfracentral.dto.CacheStatistics;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Spring {@link org.springframework.cache.Cache} backed by a local Caffeine tier and an optional
+ * {@link SecondLevelCacheStore}, keeping hit/miss/eviction/load statistics.
+ * <p>
+ * Load statistics cover the values loaded through {@link #get(Object, Callable)}, i.e. by
+ * {@code @Cacheable(sync = true)} methods.
+ */
+public class TieredCache extends AbstractValueAdaptingCache {
+
+    private final String name;
+    private final Cache<Object, Object> localCache;
+    private final SecondLevelCacheStore secondLevel;
+    private final Duration timeToLive;
+
+    private final LongAdder secondLevelHits = new LongAdder();
+    private final LongAdder secondLevelMisses = new LongAdder();
+    private final LongAdder loadCount = new LongAdder();
+    private final LongAdder totalLoadTime = new LongAdder();
+    private final Map<Object, CompletableFuture<Object>> loads = new ConcurrentHashMap<>();
+
+    /**
+     * @param name        the cache name
+     * @param localCache  the local tier; should be built with {@code recordStats()}
+     * @param secondLevel the second tier, or null to use only the local one
+     * @param timeToLive  the time to live of the entries of the second tier
+     */
+    public TieredCache(String name, Cache<Object, Object> localCache, SecondLevelCacheStore secondLevel, Duration timeToLive) {
+        super(false);
+        this.name = name;
+        this.localCache = localCache;
+        this.secondLevel = secondLevel;
+        this.timeToLive = timeToLive;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Cache<Object, Object> getNativeCache() {
+        return localCache;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        Object value = localCache.getIfPresent(key);
+        if (value == null && secondLevel != null) {
+            value = secondLevel.get(name, key);
+            if (value != null) {
+                secondLevelHits.increment();
+                localCache.put(key, value);
+            } else {
+                secondLevelMisses.increment();
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Returns the cached value, or loads, times and stores it. Concurrent calls for the same key wait for a single
+     * load. The load runs outside of the local cache, so that the loader may use other entries of the cache.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper cached = get(key);
+        if (cached != null) {
+            return (T) cached.get();
+        }
+        CompletableFuture<Object> load = new CompletableFuture<>();
+        CompletableFuture<Object> running = loads.putIfAbsent(key, load);
+        if (running != null) {
+            try {
+                return (T) running.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+        try {
+            // loaded by another call between the lookup and the registration of this load
+            cached = get(key);
+            T value;
+            if (cached != null) {
+                value = (T) cached.get();
+            } else {
+                long start = System.nanoTime();
+                try {
+                    value = valueLoader.call();
+                } catch (Exception e) {
+                    throw new ValueRetrievalException(key, valueLoader, e);
+                }
+                recordLoad(System.nanoTime() - start);
+                put(key, value);
+            }
+            load.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            loads.remove(key, load);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        Object storeValue = toStoreValue(value);
+        localCache.put(key, storeValue);
+        if (secondLevel != null) {
+            secondLevel.put(name, key, storeValue, timeToLive);
+        }
+    }
+
+    @Override
+    public void evict(Object key) {
+        localCache.invalidate(key);
+        if (secondLevel != null) {
+            secondLevel.evict(name, key);
+        }
+    }
+
+    /**
+     * Evicts the entries whose key is a String starting with the given prefix.
+     *
+     * @param prefix the key prefix
+     */
+    public void evictByPrefix(String prefix) {
+        localCache.asMap().keySet().removeIf(key -> key instanceof String && ((String) key).startsWith(prefix));
+        if (secondLevel != null) {
+            secondLevel.evictByPrefix(name, prefix);
+        }
+    }
+
+    @Override
+    public void clear() {
+        localCache.invalidateAll();
+        if (secondLevel != null) {
+            secondLevel.clear(name);
+        }
+    }
+
+    public CacheStatistics getStatistics() {
+        CacheStats stats = localCache.stats();
+        CacheStatistics statistics = new CacheStatistics(name);
+        statistics.setSize(localCache.estimatedSize());
+        statistics.setHitCount(stats.hitCount());
+        statistics.setMissCount(stats.missCount());
+        statistics.setHitRate(stats.hitRate());
+        statistics.setEvictionCount(stats.evictionCount());
+        long loads = loadCount.sum();
+        statistics.setLoadCount(loads);
+        statistics.setAverageLoadTimeMillis(loads == 0 ? 0 : (double) TimeUnit.NANOSECONDS.toMicros(totalLoadTime.sum()) / loads / 1000);
+        statistics.setSecondLevelHitCount(secondLevelHits.sum());
+        statistics.setSecondLevelMissCount(secondLevelMisses.sum());
+        return statistics;
+    }
+
+    private void recordLoad(long nanos) {
+        loadCount.increment();
+        totalLoadTime.add(nanos);
+    }
+}
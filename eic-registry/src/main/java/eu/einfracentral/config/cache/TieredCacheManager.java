@@ -0,0 +1,33 @@
+package eu.einfracentral.config.cache;
+
+import eu.einfracentral.dto.CacheStatistics;
+import eu.einfracentral.service.CacheStatisticsService;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleCacheManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class TieredCacheManager extends SimpleCacheManager implements CacheStatisticsService {
+
+    @Override
+    public List<CacheStatistics> getStatistics() {
+        List<CacheStatistics> statistics = new ArrayList<>();
+        for (String cacheName : getCacheNames()) {
+            CacheStatistics cacheStatistics = getStatistics(cacheName);
+            if (cacheStatistics != null) {
+                statistics.add(cacheStatistics);
+            }
+        }
+        return statistics;
+    }
+
+    @Override
+    public CacheStatistics getStatistics(String cacheName) {
+        Cache cache = getCache(cacheName);
+        if (cache instanceof TieredCache) {
+            return ((TieredCache) cache).getStatistics();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,114 @@
+package eu.einfracentral.config.http;
+
+import eu.einfracentral.dto.OperationStatistics;
+import eu.einfracentral.service.OperationStatisticsService;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outbound HTTP clients. All targets share a pool of keep-alive connections, and every target gets its own
+ * {@link RestTemplate} with its timeouts and concurrency limit, configured using the properties
+ * <ul>
+ *     <li>{@code http.client.maxTotal}, {@code http.client.maxPerRoute}: size of the connection pool</li>
+ *     <li>{@code http.client.idleTimeout}: milliseconds after which idle connections are closed</li>
+ *     <li>{@code http.<target>.connectTimeout}, {@code http.<target>.readTimeout}: timeouts in milliseconds</li>
+ *     <li>{@code http.<target>.maxConcurrent}: maximum number of concurrent requests</li>
+ *     <li>{@code http.<target>.acquireTimeout}: milliseconds to wait for a free slot before rejecting a request</li>
+ * </ul>
+ */
+@Configuration
+public class HttpClientConfig implements OperationStatisticsService {
+
+    private static final Logger logger = LogManager.getLogger(HttpClientConfig.class);
+
+    public static final String SYNC = "sync";
+    public static final String MATOMO = "matomo";
+
+    private final Environment environment;
+    private final Map<String, MeteredRequestInterceptor> interceptors = new ConcurrentHashMap<>();
+
+    public HttpClientConfig(Environment environment) {
+        this.environment = environment;
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public PoolingHttpClientConnectionManager httpConnectionManager() {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(environment.getProperty("http.client.maxTotal", Integer.class, 100));
+        connectionManager.setDefaultMaxPerRoute(environment.getProperty("http.client.maxPerRoute", Integer.class, 20));
+        connectionManager.setValidateAfterInactivity(2000);
+        return connectionManager;
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient httpClient(PoolingHttpClientConnectionManager httpConnectionManager) {
+        return HttpClients.custom()
+                .setConnectionManager(httpConnectionManager)
+                .setConnectionManagerShared(true)
+                .evictExpiredConnections()
+                .evictIdleConnections(environment.getProperty("http.client.idleTimeout", Long.class, 30000L),
+                        TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    @Bean
+    public RestTemplate syncRestTemplate(CloseableHttpClient httpClient) {
+        return createRestTemplate(SYNC, httpClient);
+    }
+
+    @Bean
+    public RestTemplate matomoRestTemplate(CloseableHttpClient httpClient) {
+        return createRestTemplate(MATOMO, httpClient);
+    }
+
+    @Override
+    public String getComponent() {
+        return "http";
+    }
+
+    @Override
+    public List<OperationStatistics> getStatistics() {
+        List<OperationStatistics> statistics = new ArrayList<>();
+        for (MeteredRequestInterceptor interceptor : interceptors.values()) {
+            statistics.add(interceptor.getStatistics());
+        }
+        statistics.sort((a, b) -> a.getName().compareTo(b.getName()));
+        return statistics;
+    }
+
+    private RestTemplate createRestTemplate(String target, CloseableHttpClient httpClient) {
+        int connectTimeout = environment.getProperty("http." + target + ".connectTimeout", Integer.class, 5000);
+        int readTimeout = environment.getProperty("http." + target + ".readTimeout", Integer.class, 30000);
+        int maxConcurrent = environment.getProperty("http." + target + ".maxConcurrent", Integer.class, 10);
+        long acquireTimeout = environment.getProperty("http." + target + ".acquireTimeout", Long.class, 5000L);
+
+        HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory(httpClient);
+        requestFactory.setConnectTimeout(connectTimeout);
+        requestFactory.setConnectionRequestTimeout(connectTimeout);
+        requestFactory.setReadTimeout(readTimeout);
+
+        MeteredRequestInterceptor interceptor = new MeteredRequestInterceptor(target, maxConcurrent, acquireTimeout);
+        interceptors.put(target, interceptor);
+
+        RestTemplate restTemplate = new RestTemplate(requestFactory);
+        restTemplate.setInterceptors(Collections.singletonList(interceptor));
+        logger.info("Created HTTP client '{}' [connectTimeout={}ms, readTimeout={}ms, maxConcurrent={}, " +
+                "acquireTimeout={}ms]", target, connectTimeout, readTimeout, maxConcurrent, acquireTimeout);
+        return restTemplate;
+    }
+}
@@ -0,0 +1,132 @@
+package eu.einfracentral.config.http;
+
+import eu.einfracentral.dto.OperationStatistics;
+import eu.einfracentral.utils.OperationMeter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Limits the number of concurrent requests to a target and records their count, errors and latency.
+ * Requests waiting longer than the acquire timeout for a free slot are rejected with an {@link IOException}.
+ * <p>
+ * A slot is held until the response is closed, which {@link org.springframework.web.client.RestTemplate} does
+ * once it has read the body, so the latency includes reading it.
+ */
+public class MeteredRequestInterceptor implements ClientHttpRequestInterceptor {
+
+    private static final Logger logger = LogManager.getLogger(MeteredRequestInterceptor.class);
+
+    private final String target;
+    private final int maxConcurrent;
+    private final long acquireTimeout;
+    private final Semaphore permits;
+    private final OperationMeter meter;
+
+    public MeteredRequestInterceptor(String target, int maxConcurrent, long acquireTimeout) {
+        this.target = target;
+        this.maxConcurrent = maxConcurrent;
+        this.acquireTimeout = acquireTimeout;
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.meter = new OperationMeter(target, "requests", "errors", "rejected");
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+        try {
+            if (!permits.tryAcquire(acquireTimeout, TimeUnit.MILLISECONDS)) {
+                meter.increment("rejected");
+                throw new IOException(String.format("Too many concurrent requests to '%s'", target));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(String.format("Interrupted while waiting to send request to '%s'", target), e);
+        }
+        long start = System.currentTimeMillis();
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable release = () -> {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+                long latency = System.currentTimeMillis() - start;
+                meter.record("requests", latency);
+                logger.trace("{} {} [{}] took {} ms", request.getMethod(), request.getURI().getPath(), target, latency);
+            }
+        };
+        try {
+            ClientHttpResponse response = execution.execute(request, body);
+            if (response.getRawStatusCode() >= 500) {
+                meter.increment("errors");
+            }
+            return new ReleasingResponse(response, release);
+        } catch (IOException | RuntimeException e) {
+            meter.increment("errors");
+            release.run();
+            throw e;
+        }
+    }
+
+    public OperationStatistics getStatistics() {
+        OperationStatistics statistics = meter.getStatistics();
+        statistics.setCount("active", maxConcurrent - permits.availablePermits());
+        return statistics;
+    }
+
+    /**
+     * Response releasing the slot of its request when it is closed.
+     */
+    private static class ReleasingResponse implements ClientHttpResponse {
+
+        private final ClientHttpResponse response;
+        private final Runnable release;
+
+        private ReleasingResponse(ClientHttpResponse response, Runnable release) {
+            this.response = response;
+            this.release = release;
+        }
+
+        @Override
+        public HttpStatus getStatusCode() throws IOException {
+            return response.getStatusCode();
+        }
+
+        @Override
+        public int getRawStatusCode() throws IOException {
+            return response.getRawStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return response.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return response.getHeaders();
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            return response.getBody();
+        }
+
+        @Override
+        public void close() {
+            try {
+                response.close();
+            } finally {
+                release.run();
+            }
+        }
+    }
+}
@@ -1,9 +1,12 @@
 package eu.einfracentral.manager;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import eu.einfracentral.domain.Identifiable;
 import eu.einfracentral.exception.ResourceException;
 import eu.einfracentral.exception.ResourceNotFoundException;
 import eu.einfracentral.service.GenericResourceService;
+import eu.einfracentral.service.search.AbstractSearchService;
+import eu.einfracentral.service.search.SearchServiceEIC;
 import eu.einfracentral.utils.FacetLabelService;
 import eu.einfracentral.utils.ReflectUtils;
 import eu.einfracentral.utils.LoggingUtils;
@@ -19,10 +22,13 @@ import java.lang.reflect.InvocationTargetException;
 import java.net.UnknownHostException;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
@@ -42,6 +48,10 @@ public class GenericManager implements GenericResourceService {
     protected final FacetLabelService facetLabelService;
     @Value("${elastic.index.max_result_window:10000}")
     protected int maxQuantity;
+    @Value("${elastic.stream.pageSize:1000}")
+    protected int streamPageSize;
+    @Autowired
+    private SearchServiceEIC searchServiceEIC;
     private Map<String, List<String>> browseByMap;
     private Map<String, Map<String, String>> labelsMap;
 
@@ -227,6 +237,40 @@ public class GenericManager implements GenericResourceService {
         }
     }
 
+    @Override
+    public <T> Stream<T> getResultsStream(FacetFilter filter) {
+        Class<?> clazz = getClassFromResourceType(filter.getResourceType());
+        if (clazz == null) {
+            throw new ServiceException("Streaming is supported for a single resource type, not aliases");
+        }
+        Iterator<Resource> resources = new ResourceIterator(filter);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(resources, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .map(res -> (T) parserPool.deserialize(res, clazz));
+    }
+
+    @Override
+    public <T> List<T> getResultsByIds(FacetFilter filter, List<String> ids) {
+        List<String> distinctIds = ids.stream().filter(Objects::nonNull).distinct().collect(Collectors.toList());
+        if (distinctIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        filter.setFrom(0);
+        filter.setQuantity(maxQuantity);
+        filter.addFilter("resource_internal_id", distinctIds);
+        Map<String, List<T>> resultsById = new HashMap<>();
+        for (T result : this.<T>getResultsWithoutFacets(filter).getResults()) {
+            if (result instanceof Identifiable) {
+                resultsById.computeIfAbsent(((Identifiable) result).getId(), id -> new ArrayList<>()).add(result);
+            }
+        }
+        return ids.stream()
+                .filter(Objects::nonNull)
+                .map(resultsById::get)
+                .filter(Objects::nonNull)
+                .flatMap(List::stream)
+                .collect(Collectors.toList());
+    }
+
     @Override
     public <T> Browsing<T> convertToBrowsing(@NotNull Paging<Resource> paging, String resourceTypeName) {
         Class<?> clazz = getClassFromResourceType(resourceTypeName);
@@ -365,4 +409,42 @@ public class GenericManager implements GenericResourceService {
         return null;
     }
 
+    /**
+     * Iterates over the resources matching a filter one page at a time, in the order of their ids. Each page is
+     * retrieved with a single 'search_after' request, continuing from the sort values of the last hit.
+     */
+    private class ResourceIterator implements Iterator<Resource> {
+
+        private final FacetFilter filter;
+        private Iterator<Resource> page = Collections.emptyIterator();
+        private Object[] cursor = null;
+        private boolean lastPage = false;
+
+        ResourceIterator(FacetFilter filter) {
+            this.filter = filter;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!page.hasNext() && !lastPage) {
+                page = nextPage();
+            }
+            return page.hasNext();
+        }
+
+        @Override
+        public Resource next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return page.next();
+        }
+
+        private Iterator<Resource> nextPage() {
+            AbstractSearchService.Page<Resource> resources = searchServiceEIC.searchResourcesAfter(filter, cursor, streamPageSize);
+            lastPage = resources.isLast();
+            cursor = resources.getCursor();
+            return resources.getItems().iterator();
+        }
+    }
 }
@@ -1,5 +1,6 @@
 package eu.einfracentral.manager;
 
+import eu.einfracentral.config.async.OrderedTaskExecutor;
 import eu.einfracentral.domain.Event;
 import eu.einfracentral.domain.ServiceBundle;
 import eu.einfracentral.domain.ProviderBundle;
@@ -11,6 +12,7 @@ import eu.einfracentral.registry.manager.ServiceBundleManager;
 import eu.einfracentral.registry.service.ProviderService;
 import eu.einfracentral.registry.service.VocabularyService;
 import eu.einfracentral.service.AnalyticsService;
+import eu.einfracentral.service.EventRollupService;
 import eu.einfracentral.service.StatisticsService;
 import eu.openminted.registry.core.domain.FacetFilter;
 import eu.openminted.registry.core.domain.Paging;
@@ -35,11 +37,14 @@ import org.elasticsearch.search.aggregations.bucket.histogram.DateHistogramInter
 import org.elasticsearch.search.aggregations.bucket.histogram.Histogram;
 import org.elasticsearch.search.aggregations.bucket.histogram.ParsedDateHistogram;
 import org.elasticsearch.search.aggregations.bucket.terms.Terms;
+import org.elasticsearch.search.aggregations.metrics.Sum;
+import org.elasticsearch.search.aggregations.metrics.ValueCount;
 import org.elasticsearch.search.aggregations.pipeline.SimpleValue;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.joda.time.DateTime;
 import org.postgresql.jdbc.PgArray;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
@@ -50,8 +55,20 @@ import org.springframework.stereotype.Component;
 import javax.sql.DataSource;
 import java.io.IOException;
 import java.sql.SQLException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAdjusters;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static eu.einfracentral.config.CacheConfig.CACHE_VISITS;
 
@@ -68,6 +85,8 @@ public class StatisticsManager implements StatisticsService {
     private final ServiceBundleManager serviceBundleManager;
     private final VocabularyService vocabularyService;
     private final DataSource dataSource;
+    private final EventRollupService eventRollupService;
+    private final OrderedTaskExecutor statisticsExecutor;
 
     @org.springframework.beans.factory.annotation.Value("${elastic.index.max_result_window:10000}")
     private int maxQuantity;
@@ -77,7 +96,8 @@ public class StatisticsManager implements StatisticsService {
                       ProviderService<ProviderBundle, Authentication> providerService,
                       SearchService searchService, ParserService parserService,
                       ServiceBundleManager serviceBundleManager, VocabularyService vocabularyService,
-                      DataSource dataSource) {
+                      DataSource dataSource, EventRollupService eventRollupService,
+                      @Qualifier("statisticsExecutor") OrderedTaskExecutor statisticsExecutor) {
         this.client = client;
         this.analyticsService = analyticsService;
         this.providerService = providerService;
@@ -86,10 +106,15 @@ public class StatisticsManager implements StatisticsService {
         this.serviceBundleManager = serviceBundleManager;
         this.vocabularyService = vocabularyService;
         this.dataSource = dataSource;
+        this.eventRollupService = eventRollupService;
+        this.statisticsExecutor = statisticsExecutor;
     }
 
     @Override
     public Map<String, Float> ratings(String id, Interval by) {
+        if (eventRollupService.isReady()) {
+            return ratingsFromRollups(rollupBuckets(Collections.singletonList(id), Event.UserActionType.RATING.getKey(), by));
+        }
 
         String dateFormat;
         String aggregationName;
@@ -219,6 +244,9 @@ public class StatisticsManager implements StatisticsService {
 
     @Override
     public Map<String, Integer> addToProject(String id, Interval by) {
+        if (eventRollupService.isReady()) {
+            return addToProjectFromRollups(rollupBuckets(Collections.singletonList(id), Event.UserActionType.ADD_TO_PROJECT.getKey(), by));
+        }
         final long[] totalDocCounts = new long[2]; //0 - not added, 1 - added
         List<? extends Histogram.Bucket> buckets = histogram(id, Event.UserActionType.ADD_TO_PROJECT.getKey(), by).getBuckets();
         return new TreeMap<>(buckets.stream().collect(
@@ -242,9 +270,8 @@ public class StatisticsManager implements StatisticsService {
 
     @Override
     public Map<String, Float> providerRatings(String id, Interval by) {
-        Map<String, Float> providerRatings = serviceBundleManager.getResources(id)
-                .stream()
-                .flatMap(s -> ratings(s.getId(), by).entrySet().stream())
+        Map<String, Float> providerRatings = providerSeries(id, Event.UserActionType.RATING.getKey(), by, this::ratings, this::ratingsFromRollups)
+                .flatMap(series -> series.entrySet().stream())
                 .collect(Collectors.groupingBy(Map.Entry::getKey, Collectors.averagingDouble(e -> (double) e.getValue())))
                 .entrySet()
                 .stream()
@@ -259,17 +286,19 @@ public class StatisticsManager implements StatisticsService {
 
     @Override
     public Map<String, Integer> providerAddToProject(String id, Interval by) {
-        Map<String, Integer> providerAddToProject = serviceBundleManager.getResources(id)
-                .stream()
-                .flatMap(s -> addToProject(s.getId(), by).entrySet().stream())
+        Map<String, Integer> providerAddToProject = providerSeries(id, Event.UserActionType.ADD_TO_PROJECT.getKey(), by, this::addToProject, this::addToProjectFromRollups)
+                .flatMap(series -> series.entrySet().stream())
                 .collect(Collectors.groupingBy(Map.Entry::getKey, Collectors.summingInt(Map.Entry::getValue)));
 
         return new TreeMap<>(providerAddToProject);
     }
 
     @Override
-    @Cacheable(cacheNames = CACHE_VISITS, key = "#id+#by.getKey()")
+    @Cacheable(cacheNames = CACHE_VISITS, sync = true, key = "'service:'+#id+':'+#by.getKey()")
     public Map<String, Integer> visits(String id, Interval by) {
+        if (eventRollupService.isReady()) {
+            return visitsFromRollups(rollupBuckets(Collections.singletonList(id), Event.UserActionType.VISIT.getKey(), by));
+        }
         List<? extends Histogram.Bucket> buckets = histogram(id, Event.UserActionType.VISIT.getKey(), by).getBuckets();
         final long[] totalDocCounts = new long[buckets.size()];
         final int[] j = {-1}; // bucket counter
@@ -304,8 +333,10 @@ public class StatisticsManager implements StatisticsService {
     @Override
     public Map<String, Integer> providerVisits(String id, Interval by) {
         Map<String, Integer> results = new HashMap<>();
-        for (Service service : serviceBundleManager.getResources(id)) {
-            Set<Map.Entry<String, Integer>> entrySet = visits(service.getId(), by).entrySet();
+        List<Map<String, Integer>> servicesVisits = providerSeries(id, Event.UserActionType.VISIT.getKey(), by, this::visits, this::visitsFromRollups)
+                .collect(Collectors.toList());
+        for (Map<String, Integer> serviceVisits : servicesVisits) {
+            Set<Map.Entry<String, Integer>> entrySet = serviceVisits.entrySet();
             for (Map.Entry<String, Integer> entry : entrySet) {
                 if (!results.containsKey(entry.getKey())) {
                     results.put(entry.getKey(), entry.getValue());
@@ -319,16 +350,250 @@ public class StatisticsManager implements StatisticsService {
 
     @Override
     public Map<String, Float> providerVisitation(String id, Interval by) {
-        Map<String, Integer> counts = serviceBundleManager.getResources(id).stream().collect(Collectors.toMap(
-                Service::getName,
-                s -> visits(s.getId(), by).values().stream().mapToInt(Integer::intValue).sum()
-        ));
+        List<Service> services = serviceBundleManager.getResources(id);
+        List<String> serviceIds = services.stream().map(Service::getId).collect(Collectors.toList());
+        Map<String, Integer> counts;
+        try {
+            Map<String, Double> serviceVisits = serviceRollups(serviceIds, Event.UserActionType.VISIT.getKey(), by)
+                    .stream()
+                    .flatMap(Collection::stream)
+                    .collect(Collectors.groupingBy(EventRollupService.DailyRollup::getServiceId,
+                            Collectors.summingDouble(EventRollupService.DailyRollup::getValueSum)));
+            counts = services.stream().collect(Collectors.toMap(
+                    Service::getName,
+                    s -> serviceVisits.getOrDefault(s.getId(), 0d).intValue()
+            ));
+        } catch (RuntimeException e) {
+            logger.warn("Could not aggregate the visits of the Services of Provider '{}', querying each Service", id, e);
+            List<Integer> serviceCounts = concurrently(serviceIds,
+                    serviceId -> visits(serviceId, by).values().stream().mapToInt(Integer::intValue).sum());
+            counts = IntStream.range(0, services.size()).boxed().collect(Collectors.toMap(
+                    i -> services.get(i).getName(),
+                    serviceCounts::get
+            ));
+        }
         int grandTotal = counts.values().stream().mapToInt(Integer::intValue).sum();
         return counts.entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey, v -> ((float) v.getValue()) / grandTotal));
     }
 
+    /**
+     * Returns the time series of each Service of a Provider, computed with a single query for all Services
+     * (see {@link #serviceRollups}). If that fails, e.g. because the histogram has too many buckets, the Services
+     * are queried one by one, concurrently (see {@link #concurrently}).
+     */
+    private <T> Stream<Map<String, T>> providerSeries(String providerId, String eventType, Interval by,
+                                                      BiFunction<String, Interval, Map<String, T>> perService,
+                                                      Function<Map<String, double[]>, Map<String, T>> fromRollups) {
+        List<String> serviceIds = serviceBundleManager.getResources(providerId)
+                .stream()
+                .map(Service::getId)
+                .collect(Collectors.toList());
+        Collection<List<EventRollupService.DailyRollup>> serviceRollups;
+        try {
+            serviceRollups = serviceRollups(serviceIds, eventType, by);
+        } catch (RuntimeException e) {
+            logger.warn("Could not aggregate the '{}' events of the Services of Provider '{}', querying each Service",
+                    eventType, providerId, e);
+            return concurrently(serviceIds, serviceId -> perService.apply(serviceId, by)).stream();
+        }
+        return serviceRollups.stream().map(rollups -> fromRollups.apply(rollupBuckets(rollups, by)));
+    }
+
+    /**
+     * Applies the query to each Service on the statistics executor, and returns the results in the order of the
+     * Services. Queries rejected by the executor are run by the calling thread.
+     */
+    private <T> List<T> concurrently(List<String> serviceIds, Function<String, T> query) {
+        List<CompletableFuture<T>> results = new ArrayList<>();
+        for (String serviceId : serviceIds) {
+            CompletableFuture<T> result;
+            try {
+                result = CompletableFuture.supplyAsync(() -> query.apply(serviceId), statisticsExecutor);
+            } catch (RejectedExecutionException e) {
+                result = CompletableFuture.completedFuture(query.apply(serviceId));
+            }
+            results.add(result);
+        }
+        try {
+            return results.stream().map(CompletableFuture::join).collect(Collectors.toList());
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the rollups of each of the given Services, ordered by day. They are read from the event rollups when
+     * available, or else computed from the event index with a single aggregation: a date histogram with a terms
+     * sub-aggregation on 'service', split per Service in memory. Each bucket of the histogram is returned as the
+     * rollup of its first day.
+     */
+    private Collection<List<EventRollupService.DailyRollup>> serviceRollups(List<String> serviceIds, String eventType, Interval by) {
+        if (eventRollupService.isReady()) {
+            return eventRollupService.getDailyRollups(serviceIds, eventType)
+                    .stream()
+                    .collect(Collectors.groupingBy(EventRollupService.DailyRollup::getServiceId, LinkedHashMap::new, Collectors.toList()))
+                    .values();
+        }
+        Map<String, List<EventRollupService.DailyRollup>> serviceRollups = new LinkedHashMap<>();
+        if (serviceIds.isEmpty()) {
+            return serviceRollups.values();
+        }
+
+        DateHistogramAggregationBuilder dateHistogramAggregationBuilder = AggregationBuilders
+                .dateHistogram("histogram")
+                .field("instant")
+                .calendarInterval(getDateHistogramInterval(by))
+                .minDocCount(1)
+                .subAggregation(AggregationBuilders.terms("service").field("service").size(serviceIds.size())
+                        .subAggregation(AggregationBuilders.sum("value_sum").field("value"))
+                        .subAggregation(AggregationBuilders.count("value_count").field("value")));
+
+        SearchRequest search = new SearchRequest("event");
+        SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder();
+        searchSourceBuilder.size(0);
+        searchSourceBuilder.query(QueryBuilders.boolQuery()
+                .filter(QueryBuilders.termsQuery("service", serviceIds))
+                .filter(QueryBuilders.rangeQuery("instant").from(0L).to(new Date().getTime()))
+                .filter(QueryBuilders.termsQuery("type", eventType)));
+        searchSourceBuilder.aggregation(dateHistogramAggregationBuilder);
+        search.source(searchSourceBuilder);
+
+        SearchResponse response;
+        try {
+            response = client.search(search, RequestOptions.DEFAULT);
+        } catch (IOException e) {
+            throw new ServiceException(e.getMessage());
+        }
+
+        ParsedDateHistogram histogram = response.getAggregations().get("histogram");
+        for (Histogram.Bucket bucket : histogram.getBuckets()) {
+            LocalDate day = ((ZonedDateTime) bucket.getKey()).toLocalDate();
+            Terms services = bucket.getAggregations().get("service");
+            for (Terms.Bucket service : services.getBuckets()) {
+                long count = ((ValueCount) service.getAggregations().get("value_count")).getValue();
+                if (count == 0) {
+                    continue;
+                }
+                double sum = ((Sum) service.getAggregations().get("value_sum")).getValue();
+                serviceRollups.computeIfAbsent(service.getKeyAsString(), k -> new ArrayList<>())
+                        .add(new EventRollupService.DailyRollup(service.getKeyAsString(), day, sum, count));
+            }
+        }
+        return serviceRollups.values();
+    }
+
+    private DateHistogramInterval getDateHistogramInterval(Interval by) {
+        switch (by) {
+            case DAY:
+                return DateHistogramInterval.DAY;
+            case WEEK:
+                return DateHistogramInterval.WEEK;
+            case YEAR:
+                return DateHistogramInterval.YEAR;
+            default:
+                return DateHistogramInterval.MONTH;
+        }
+    }
+
+    private Map<String, double[]> rollupBuckets(List<String> serviceIds, String eventType, Interval by) {
+        return rollupBuckets(eventRollupService.getDailyRollups(serviceIds, eventType), by);
+    }
+
+    /**
+     * Sums the daily rollups (ordered by day) into the buckets of the interval. As in the date histograms, the empty
+     * buckets between the first and the last one are included. Each bucket holds the value sum and the event count.
+     */
+    private Map<String, double[]> rollupBuckets(List<EventRollupService.DailyRollup> rollups, Interval by) {
+        Map<String, double[]> buckets = new TreeMap<>();
+        if (rollups.isEmpty()) {
+            return buckets;
+        }
+        LocalDate last = bucketStart(rollups.get(rollups.size() - 1).getDay(), by);
+        for (LocalDate day = bucketStart(rollups.get(0).getDay(), by); !day.isAfter(last); day = nextBucket(day, by)) {
+            buckets.put(bucketKey(day, by), new double[2]);
+        }
+        for (EventRollupService.DailyRollup rollup : rollups) {
+            double[] bucket = buckets.get(bucketKey(bucketStart(rollup.getDay(), by), by));
+            bucket[0] += rollup.getValueSum();
+            bucket[1] += rollup.getEventCount();
+        }
+        return buckets;
+    }
+
+    private Map<String, Integer> visitsFromRollups(Map<String, double[]> buckets) {
+        Map<String, Integer> visits = new TreeMap<>();
+        buckets.forEach((key, bucket) -> visits.put(key, (int) Math.max(bucket[0], 0)));
+        return visits;
+    }
+
+    private Map<String, Float> ratingsFromRollups(Map<String, double[]> buckets) {
+        Map<String, Float> ratings = new TreeMap<>();
+        double sum = 0;
+        double count = 0;
+        for (Map.Entry<String, double[]> bucket : buckets.entrySet()) {
+            sum += bucket.getValue()[0];
+            count += bucket.getValue()[1];
+            ratings.put(bucket.getKey(), (float) (sum / count));
+        }
+        return ratings;
+    }
+
+    // add to project values are 1 (added) or 0 (removed)
+    private Map<String, Integer> addToProjectFromRollups(Map<String, double[]> buckets) {
+        Map<String, Integer> addToProject = new TreeMap<>();
+        double added = 0;
+        double removed = 0;
+        for (Map.Entry<String, double[]> bucket : buckets.entrySet()) {
+            added += bucket.getValue()[0];
+            removed += bucket.getValue()[1] - bucket.getValue()[0];
+            addToProject.put(bucket.getKey(), (int) Math.max(added - removed, 0));
+        }
+        return addToProject;
+    }
+
+    private LocalDate bucketStart(LocalDate day, Interval by) {
+        switch (by) {
+            case DAY:
+                return day;
+            case WEEK:
+                return day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case YEAR:
+                return day.withDayOfYear(1);
+            default:
+                return day.withDayOfMonth(1);
+        }
+    }
+
+    private LocalDate nextBucket(LocalDate bucketStart, Interval by) {
+        switch (by) {
+            case DAY:
+                return bucketStart.plusDays(1);
+            case WEEK:
+                return bucketStart.plusWeeks(1);
+            case YEAR:
+                return bucketStart.plusYears(1);
+            default:
+                return bucketStart.plusMonths(1);
+        }
+    }
+
+    // same formats as the date histograms
+    private String bucketKey(LocalDate bucketStart, Interval by) {
+        switch (by) {
+            case DAY:
+            case WEEK:
+                return bucketStart.format(DateTimeFormatter.ISO_LOCAL_DATE);
+            case YEAR:
+                return String.valueOf(bucketStart.getYear());
+            default:
+                return bucketStart.format(DateTimeFormatter.ofPattern("yyyy-MM"));
+        }
+    }
+
     public Map<DateTime, Map<String, Long>> events(Event.UserActionType type, Date from, Date to, Interval by) {
-        Map<DateTime, Map<String, Long>> results = new LinkedHashMap<>();
         Paging<Resource> resources = searchService.cqlQuery(
                 String.format("type=\"%s\" AND creation_date > %s AND creation_date < %s",
                         type, from.toInstant().toEpochMilli(), to.toInstant().toEpochMilli()), "event",
@@ -338,53 +603,35 @@ public class StatisticsManager implements StatisticsService {
                 .stream()
                 .map(resource -> parserService.deserialize(resource, Event.class))
                 .collect(Collectors.toList());
+        return countPerInterval(events, new DateTime(from), new DateTime(to), by);
+    }
 
+    /**
+     * Counts the events of each Service per interval, from the start until the interval containing the stop. Each
+     * event is counted in the first interval ending after it, and the counts of an interval are ordered by Service.
+     */
+    static Map<DateTime, Map<String, Long>> countPerInterval(List<Event> events, DateTime start, DateTime stop,
+                                                             Interval by) {
+        Map<DateTime, Map<String, Long>> results = new LinkedHashMap<>();
+        List<Event> sorted = new ArrayList<>(events);
+        sorted.sort(Comparator.comparingLong(Event::getInstant));
 
-        DateTime start = new DateTime(from);
-        DateTime stop = new DateTime(to);
-
-        Map<DateTime, List<Event>> eventsByDate = new LinkedHashMap<>();
-
-        start.plusWeeks(1);
+        // single pass over the sorted events
+        int next = 0;
         while (start.getMillis() <= stop.getMillis()) {
             DateTime endDate = addInterval(start, by);
-            List<Event> weekEvents = new LinkedList<>();
-
-            events = events
-                    .stream()
-                    .map(event -> {
-                        if (endDate.isAfter(event.getInstant())) {
-                            weekEvents.add(event);
-                            return null;
-                        } else
-                            return event;
-                    })
-                    .filter(Objects::nonNull)
-                    .collect(Collectors.toList());
-//            weekEvents.sort(Comparator.comparing(Event::getService));
-            eventsByDate.put(start, weekEvents);
+            Map<String, Long> bucketResults = new TreeMap<>();
+            while (next < sorted.size() && endDate.isAfter(sorted.get(next).getInstant())) {
+                bucketResults.merge(sorted.get(next).getService(), 1L, Long::sum);
+                next++;
+            }
+            results.put(start, new LinkedHashMap<>(bucketResults));
             start = endDate;
         }
-
-        for (Map.Entry<DateTime, List<Event>> weekEntry : eventsByDate.entrySet()) {
-            Map<String, Long> weekResults = weekEntry.getValue()
-                    .stream()
-                    .collect(Collectors.groupingBy(Event::getService, Collectors.counting()));
-
-            weekResults = weekResults.entrySet().stream()
-                    .sorted(Map.Entry.comparingByKey())
-                    .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue,
-                            (oldValue, newValue) -> oldValue, LinkedHashMap::new));
-
-            results.put(weekEntry.getKey(), weekResults);
-        }
-
-
         return results;
-
     }
 
-    private DateTime addInterval(DateTime date, Interval by) {
+    private static DateTime addInterval(DateTime date, Interval by) {
         DateTime duration;
         switch (by) {
             case DAY:
@@ -20,7 +20,6 @@ import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
@@ -34,9 +33,10 @@ import java.net.UnknownHostException;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
-import static eu.einfracentral.config.CacheConfig.*;
 import static java.util.stream.Collectors.toList;
 
 public abstract class AbstractServiceBundleManager<T extends ServiceBundle> extends AbstractGenericService<T> implements ServiceBundleService<T> {
@@ -167,7 +167,6 @@ public abstract class AbstractServiceBundleManager<T extends ServiceBundle> exte
     }
 
     @Override
-    @CacheEvict(cacheNames = {CACHE_VISITS, CACHE_PROVIDERS, CACHE_FEATURED}, allEntries = true)
     public T add(T serviceBundle, Authentication auth) {
         logger.trace("User '{}' is attempting to add a new Resource: {}", auth, serviceBundle);
         if (serviceBundle.getService().getId() == null) {
@@ -196,7 +195,6 @@ public abstract class AbstractServiceBundleManager<T extends ServiceBundle> exte
     }
 
     @Override
-    @CacheEvict(cacheNames = {CACHE_VISITS, CACHE_PROVIDERS, CACHE_FEATURED}, allEntries = true)
     public T update(T serviceBundle, Authentication auth) {
         logger.trace("User '{}' is attempting to update the Resource: {}", auth, serviceBundle);
         // if Resource version is empty set it null
@@ -221,7 +219,6 @@ public abstract class AbstractServiceBundleManager<T extends ServiceBundle> exte
     }
 
     @Override
-    @CacheEvict(cacheNames = {CACHE_VISITS, CACHE_PROVIDERS, CACHE_FEATURED}, allEntries = true)
     public void delete(T serviceBundle) {
         logger.trace("User is attempting to delete the Resource: {}", serviceBundle);
         if (serviceBundle == null || serviceBundle.getService().getId() == null) {
@@ -259,13 +256,11 @@ public abstract class AbstractServiceBundleManager<T extends ServiceBundle> exte
         serviceField.setAccessible(true);
 
         FacetFilter ff = new FacetFilter();
-        ff.setQuantity(maxQuantity);
         ff.addFilter("published", false);
-        Browsing<T> services = getAll(ff, auth);
 
         final Field f = serviceField;
         final String undef = "undefined";
-        return services.getResults().stream().collect(Collectors.groupingBy(service -> {
+        return getAllStream(ff, auth).collect(Collectors.groupingBy(service -> {
             try {
                 return f.get(service.getPayload()) != null ? f.get(service.getPayload()).toString() : undef;
             } catch (IllegalAccessException | IllegalArgumentException e) {
@@ -282,20 +277,10 @@ public abstract class AbstractServiceBundleManager<T extends ServiceBundle> exte
 
     @Override
     public List<ServiceBundle> getByIds(Authentication auth, String... ids) {
-        List<ServiceBundle> resources;
-        resources = Arrays.stream(ids)
-                .map(id ->
-                {
-                    try {
-                        return get(id, catalogueName);
-                    } catch (ServiceException | ResourceNotFoundException e) {
-                        return null;
-                    }
-
-                })
-                .filter(Objects::nonNull)
-                .collect(toList());
-        return resources;
+        FacetFilter ff = new FacetFilter();
+        ff.setResourceType(getResourceType());
+        ff.addFilter("catalogue_id", catalogueName);
+        return genericResourceService.getResultsByIds(ff, Arrays.asList(ids));
     }
 
     @Override
@@ -401,48 +386,31 @@ public abstract class AbstractServiceBundleManager<T extends ServiceBundle> exte
     protected Browsing<T> getResults(FacetFilter filter) {
         Browsing<T> browsing;
         filter.setResourceType(getResourceType());
+        // computed alongside the search of the results
+        CompletableFuture<List<Facet>> disjunctiveFacets = searchServiceEIC.searchDisjunctiveFacets(filter);
         browsing = convertToBrowsingEIC(searchServiceEIC.search(filter));
 
-        browsing.setFacets(createCorrectFacets(browsing.getFacets(), filter));
+        browsing.setFacets(createCorrectFacets(browsing.getFacets(),
+                searchServiceEIC.awaitDisjunctiveFacets(disjunctiveFacets)));
         return browsing;
     }
 
-    public List<Facet> createCorrectFacets(List<Facet> serviceFacets, FacetFilter ff) {
-        ff.setQuantity(0);
-
-        Map<String, List<Object>> allFilters = FacetFilterUtils.getFacetFilterFilters(ff);
-
-        List<String> reverseOrderedKeys = new LinkedList<>(allFilters.keySet());
-        Collections.reverse(reverseOrderedKeys);
-
-        for (String filterKey : reverseOrderedKeys) {
-            Map<String, List<Object>> someFilters = new LinkedHashMap<>(allFilters);
-
-            // if last filter is "latest" or "active" continue to next iteration
-            if ("active".equals(filterKey)) {
-                continue;
-            }
-            someFilters.remove(filterKey);
-
-            FacetFilter facetFilter = FacetFilterUtils.createMultiFacetFilter(someFilters);
-            facetFilter.setResourceType(getResourceType());
-            facetFilter.setBrowseBy(Collections.singletonList(filterKey));
-            List<Facet> facetsCategory = convertToBrowsingEIC(searchServiceEIC.search(facetFilter)).getFacets();
-
-            for (Facet facet : serviceFacets) {
-                if (facet.getField().equals(filterKey)) {
-                    for (Facet facetCategory : facetsCategory) {
-                        if (facetCategory.getField().equals(facet.getField())) {
-                            serviceFacets.set(serviceFacets.indexOf(facet), facetCategory);
-                            break;
-                        }
-                    }
+    /**
+     * Replaces the values of the filtered facets with their disjunctive values.
+     *
+     * @param serviceFacets     the facets of the search
+     * @param disjunctiveFacets the disjunctive facets of the filtered fields
+     * @return the non-empty facets
+     */
+    public List<Facet> createCorrectFacets(List<Facet> serviceFacets, List<Facet> disjunctiveFacets) {
+        for (Facet facet : serviceFacets) {
+            for (Facet disjunctiveFacet : disjunctiveFacets) {
+                if (disjunctiveFacet.getField().equals(facet.getField())) {
+                    facet.setValues(disjunctiveFacet.getValues());
                     break;
                 }
             }
-            break;
         }
-
         return removeEmptyFacets(serviceFacets);
     }
 
@@ -507,26 +475,29 @@ public abstract class AbstractServiceBundleManager<T extends ServiceBundle> exte
     // FIXME: not working...
     @Override
     public Paging<T> getRandomResources(FacetFilter ff, String auditingInterval, Authentication auth) {
-        FacetFilter facetFilter = new FacetFilter();
-        facetFilter.setQuantity(maxQuantity);
-        facetFilter.addFilter("status", "approved resource");
-        facetFilter.addFilter("published", false);
-        Browsing<T> serviceBrowsing = getAll(facetFilter, auth);
-        List<T> servicesToBeAudited = new ArrayList<>();
+        FacetFilter facetFilter = createApprovedResourcesFilter();
         long todayEpochTime = System.currentTimeMillis();
         long interval = Instant.ofEpochMilli(todayEpochTime).atZone(ZoneId.systemDefault()).minusMonths(Integer.parseInt(auditingInterval)).toEpochSecond();
-        for (T serviceBundle : serviceBrowsing.getResults()) {
-            if (serviceBundle.getLatestAuditInfo() != null) {
-                if (Long.parseLong(serviceBundle.getLatestAuditInfo().getDate()) > interval) {
-                    servicesToBeAudited.add(serviceBundle);
-                }
-            }
-        }
+        List<T> servicesToBeAudited = getAllStream(facetFilter, auth)
+                .filter(serviceBundle -> serviceBundle.getLatestAuditInfo() != null)
+                .filter(serviceBundle -> Long.parseLong(serviceBundle.getLatestAuditInfo().getDate()) > interval)
+                .collect(Collectors.toList());
         Collections.shuffle(servicesToBeAudited);
         for (int i = servicesToBeAudited.size() - 1; i > ff.getQuantity() - 1; i--) {
             servicesToBeAudited.remove(i);
         }
-        return new Browsing<>(servicesToBeAudited.size(), 0, servicesToBeAudited.size(), servicesToBeAudited, serviceBrowsing.getFacets());
+        // the facets of all the approved resources, as before streaming
+        FacetFilter facetsFilter = createApprovedResourcesFilter();
+        facetsFilter.setQuantity(0);
+        List<Facet> facets = getAll(facetsFilter, auth).getFacets();
+        return new Browsing<>(servicesToBeAudited.size(), 0, servicesToBeAudited.size(), servicesToBeAudited, facets);
+    }
+
+    private static FacetFilter createApprovedResourcesFilter() {
+        FacetFilter facetFilter = new FacetFilter();
+        facetFilter.addFilter("status", "approved resource");
+        facetFilter.addFilter("published", false);
+        return facetFilter;
     }
 
     @Override
@@ -596,10 +567,20 @@ public abstract class AbstractServiceBundleManager<T extends ServiceBundle> exte
         ff.addFilter("resource_organisation", providerId);
         ff.addFilter("catalogue_id", catalogueName);
         ff.addFilter("active", false);
-        ff.setFrom(0);
-        ff.setQuantity(maxQuantity);
-        ff.addOrderBy("name", "asc");
-        return this.getAll(ff, null).getResults();
+        return getAllStream(ff, null)
+                .sorted(Comparator.comparing(bundle -> bundle.getService().getName(), Comparator.nullsLast(Comparator.naturalOrder())))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Streams all the resources matching the filter, applying the same authorization filters as
+     * {@link #getAll(FacetFilter, Authentication)}. Use instead of {@code getAll} with {@code maxQuantity}
+     * for bulk processing, as it is not limited to {@code maxQuantity} results and keeps a single page in memory.
+     */
+    protected Stream<T> getAllStream(FacetFilter filter, Authentication auth) {
+        updateFacetFilterConsideringTheAuthorization(filter, auth);
+        filter.setResourceType(getResourceType());
+        return genericResourceService.getResultsStream(filter);
     }
 
     private void createLoggingInfoEntriesForResourceExtraUpdates(ServiceBundle bundle, Authentication auth) {
@@ -3,9 +3,13 @@ package eu.einfracentral.registry.manager;
 import com.google.i18n.phonenumbers.NumberParseException;
 import eu.einfracentral.domain.Event;
 import eu.einfracentral.domain.ServiceBundle;
+import eu.einfracentral.exception.ResourceException;
 import eu.einfracentral.exception.ValidationException;
 import eu.einfracentral.registry.service.EventService;
 import eu.einfracentral.registry.service.ServiceBundleService;
+import eu.einfracentral.service.EventRollupService;
+import eu.einfracentral.service.GenericResourceService;
+import eu.einfracentral.service.search.SearchServiceEIC;
 import eu.einfracentral.utils.AuthenticationInfo;
 import eu.openminted.registry.core.domain.FacetFilter;
 import eu.openminted.registry.core.domain.Paging;
@@ -16,9 +20,9 @@ import eu.openminted.registry.core.service.SearchService;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -34,8 +38,15 @@ import static eu.einfracentral.config.CacheConfig.CACHE_SERVICE_EVENTS;
 public class EventManager extends ResourceManager<Event> implements EventService {
 
     private static final Logger logger = LogManager.getLogger(EventManager.class);
+    private static final int ID_BATCH_SIZE = 500;
     private final ParserService parserService;
     private final ServiceBundleService<ServiceBundle> serviceBundleService;
+    @Autowired
+    private GenericResourceService genericResourceService;
+    @Autowired
+    private SearchServiceEIC searchServiceEIC;
+    @Autowired
+    private EventRollupService eventRollupService;
 
     @Autowired
     public EventManager(ParserService parserService,
@@ -48,15 +59,11 @@ public class EventManager extends ResourceManager<Event> implements EventService
     @Scheduled(cron = "0 0 1 * * *")
     void deleteNullEvents() {
         FacetFilter ff = new FacetFilter();
-        ff.setQuantity(maxQuantity);
-        List<Event> events = getAll(ff, null).getResults();
-        List<Event> toDelete = new ArrayList<>();
-        for (Event event : events) {
-            if (event.getValue() == null) {
-                toDelete.add(event);
-                logger.debug("Null event to delete: {}", event);
-            }
-        }
+        ff.setResourceType(getResourceType());
+        List<Event> toDelete = genericResourceService.<Event>getResultsStream(ff)
+                .filter(event -> event.getValue() == null)
+                .peek(event -> logger.debug("Null event to delete: {}", event))
+                .collect(Collectors.toList());
         int size = toDelete.size();
         deleteEvents(toDelete);
         logger.info("Deleted {} null events", size);
@@ -78,7 +85,6 @@ public class EventManager extends ResourceManager<Event> implements EventService
     }
 
     @Override
-    @CacheEvict(value = {CACHE_EVENTS, CACHE_SERVICE_EVENTS}, allEntries = true)
     public Event add(Event event, Authentication auth) {
         event.setId(UUID.randomUUID().toString());
         event.setInstant(System.currentTimeMillis());
@@ -88,21 +94,29 @@ public class EventManager extends ResourceManager<Event> implements EventService
             event.setUser("-");
         }
         Event ret = super.add(event, auth);
+        eventRollupService.add(Collections.singletonList(ret));
         logger.debug("Adding Event: {}", event);
         return ret;
     }
 
     @Override
-    @CacheEvict(value = {CACHE_EVENTS, CACHE_SERVICE_EVENTS}, allEntries = true)
     public Event update(Event event, Authentication auth) {
+        Event existing = get(event.getId());
         event.setInstant(System.currentTimeMillis());
         Event ret = super.update(event, auth);
+        eventRollupService.remove(Collections.singletonList(existing));
+        eventRollupService.add(Collections.singletonList(ret));
         logger.debug("Updating Event: {}", event);
         return ret;
     }
 
     @Override
-    @CacheEvict(value = {CACHE_EVENTS, CACHE_SERVICE_EVENTS}, allEntries = true)
+    public void delete(Event event) {
+        super.delete(event);
+        eventRollupService.remove(Collections.singletonList(event));
+    }
+
+    @Override
     public Event setFavourite(String serviceId, Float value, Authentication authentication) throws ResourceNotFoundException {
         if (!serviceBundleService.exists(new SearchService.KeyValue("resource_internal_id", serviceId))) {
             throw new ResourceNotFoundException("service", serviceId);
@@ -128,7 +142,6 @@ public class EventManager extends ResourceManager<Event> implements EventService
     }
 
     @Override
-    @CacheEvict(value = {CACHE_EVENTS, CACHE_SERVICE_EVENTS}, allEntries = true)
     public Event setRating(String serviceId, Float value, Authentication authentication) throws ResourceNotFoundException, NumberParseException {
         if (!serviceBundleService.exists(new SearchService.KeyValue("resource_internal_id", serviceId))) {
             throw new ResourceNotFoundException("service", serviceId);
@@ -165,7 +178,8 @@ public class EventManager extends ResourceManager<Event> implements EventService
     }
 
     @Override
-    @Cacheable(value = CACHE_EVENTS)
+    @Cacheable(value = CACHE_EVENTS, sync = true, condition = "#authentication!=null",
+            key = "'service:'+#serviceId+':'+#eventType+':'+T(eu.einfracentral.utils.AuthenticationInfo).getSub(#authentication)")
     public List<Event> getEvents(String eventType, String serviceId, Authentication authentication) {
         if (authentication == null) {
             return new ArrayList<>();
@@ -178,7 +192,7 @@ public class EventManager extends ResourceManager<Event> implements EventService
     }
 
     @Override
-    @Cacheable(value = CACHE_EVENTS)
+    @Cacheable(value = CACHE_EVENTS, sync = true, key = "'service:'+#serviceId+':'+#eventType")
     public List<Event> getServiceEvents(String eventType, String serviceId) {
         Paging<Resource> eventResources = searchService.cqlQuery(String.format("type=\"%s\" AND service=\"%s\"",
                 eventType, serviceId), getResourceType(), maxQuantity, 0, "creation_date", "DESC");
@@ -186,7 +200,8 @@ public class EventManager extends ResourceManager<Event> implements EventService
     }
 
     @Override
-    @Cacheable(value = CACHE_EVENTS)
+    @Cacheable(value = CACHE_EVENTS, sync = true, condition = "#authentication!=null",
+            key = "'user:'+T(eu.einfracentral.utils.AuthenticationInfo).getSub(#authentication)+':'+#eventType")
     public List<Event> getUserEvents(String eventType, Authentication authentication) {
         if (authentication == null) {
             return new ArrayList<>();
@@ -198,7 +213,7 @@ public class EventManager extends ResourceManager<Event> implements EventService
     }
 
     @Override
-    @Cacheable(value = CACHE_SERVICE_EVENTS)
+    @Cacheable(value = CACHE_SERVICE_EVENTS, sync = true, key = "#eventType")
     public Map<String, List<Float>> getAllServiceEventValues(String eventType, Authentication authentication) {
         Map<String, List<Float>> allServiceEvents = new HashMap<>();
         FacetFilter ff = new FacetFilter();
@@ -272,7 +287,6 @@ public class EventManager extends ResourceManager<Event> implements EventService
         }
     }
 
-    @CacheEvict(value = {CACHE_EVENTS, CACHE_SERVICE_EVENTS}, allEntries = true)
     public Event setVisit(String serviceId, Float value) throws ResourceNotFoundException {
         if (!serviceBundleService.exists(new SearchService.KeyValue("resource_internal_id", serviceId))) {
             throw new ResourceNotFoundException("service", serviceId);
@@ -287,7 +301,6 @@ public class EventManager extends ResourceManager<Event> implements EventService
         return event;
     }
 
-    @CacheEvict(value = {CACHE_EVENTS, CACHE_SERVICE_EVENTS}, allEntries = true)
     public Event setAddToProject(String serviceId, Float value) throws ResourceNotFoundException {
         if (!serviceBundleService.exists(new SearchService.KeyValue("resource_internal_id", serviceId))) {
             throw new ResourceNotFoundException("service", serviceId);
@@ -302,7 +315,6 @@ public class EventManager extends ResourceManager<Event> implements EventService
         return event;
     }
 
-    @CacheEvict(value = {CACHE_EVENTS, CACHE_SERVICE_EVENTS}, allEntries = true)
     public Event setOrder(String serviceId, Float value) throws ResourceNotFoundException {
         if (!serviceBundleService.exists(new SearchService.KeyValue("resource_internal_id", serviceId))) {
             throw new ResourceNotFoundException("service", serviceId);
@@ -317,7 +329,6 @@ public class EventManager extends ResourceManager<Event> implements EventService
         return event;
     }
 
-    @CacheEvict(value = {CACHE_EVENTS, CACHE_SERVICE_EVENTS}, allEntries = true)
     public Event setScheduledFavourite(String serviceId, Float value) throws ResourceNotFoundException {
         if (!serviceBundleService.exists(new SearchService.KeyValue("resource_internal_id", serviceId))) {
             throw new ResourceNotFoundException("service", serviceId);
@@ -332,7 +343,6 @@ public class EventManager extends ResourceManager<Event> implements EventService
         return event;
     }
 
-    @CacheEvict(value = {CACHE_EVENTS, CACHE_SERVICE_EVENTS}, allEntries = true)
     public Event setScheduledRating(String serviceId, Float value) throws ResourceNotFoundException {
         if (!serviceBundleService.exists(new SearchService.KeyValue("resource_internal_id", serviceId))) {
             throw new ResourceNotFoundException("service", serviceId);
@@ -347,6 +357,59 @@ public class EventManager extends ResourceManager<Event> implements EventService
         return event;
     }
 
+    @Override
+    public List<Event> addScheduledEvents(String eventType, Map<String, Float> serviceValues) {
+        // validate all service ids with a few searches instead of one lookup per event
+        List<String> serviceIds = serviceValues.keySet().stream().filter(Objects::nonNull).collect(Collectors.toList());
+        Set<String> existingServiceIds = searchServiceEIC.searchExistingIds("service", serviceIds, ID_BATCH_SIZE);
+        List<Event> events = createScheduledEvents(eventType, serviceValues, existingServiceIds, System.currentTimeMillis());
+
+        // the existence check of 'add', for all the events at once
+        List<String> eventIds = events.stream().map(Event::getId).collect(Collectors.toList());
+        Set<String> existingEventIds = searchServiceEIC.searchExistingIds(getResourceType(), eventIds, ID_BATCH_SIZE);
+        if (!existingEventIds.isEmpty()) {
+            throw new ResourceException(String.format("%s with id = '%s' already exists!", getResourceType(),
+                    existingEventIds.iterator().next()), HttpStatus.CONFLICT);
+        }
+        for (Event event : events) {
+            Resource resource = new Resource();
+            resource.setPayload(serialize(event));
+            resource.setResourceType(resourceType);
+            resourceService.addResource(resource);
+        }
+        eventRollupService.add(events);
+        logger.info("Added {} {} Events, skipped {} of non-existing Services", events.size(), eventType,
+                serviceValues.size() - events.size());
+        return events;
+    }
+
+    /**
+     * Creates the Events of the given values, skipping the Services that do not exist.
+     */
+    static List<Event> createScheduledEvents(String eventType, Map<String, Float> serviceValues,
+                                             Set<String> existingServiceIds, long instant) {
+        List<Event> events = new ArrayList<>();
+        List<String> skippedServiceIds = new ArrayList<>();
+        for (Map.Entry<String, Float> entry : serviceValues.entrySet()) {
+            if (!existingServiceIds.contains(entry.getKey())) {
+                skippedServiceIds.add(entry.getKey());
+                continue;
+            }
+            Event event = new Event();
+            event.setId(UUID.randomUUID().toString());
+            event.setInstant(instant);
+            event.setUser("-");
+            event.setService(entry.getKey());
+            event.setType(eventType);
+            event.setValue(entry.getValue());
+            events.add(event);
+        }
+        if (!skippedServiceIds.isEmpty()) {
+            logger.warn("Skipping {} Events of non-existing Services: {}", eventType, skippedServiceIds);
+        }
+        return events;
+    }
+
     public int getServiceAggregatedVisits(String id) {
         int result = 0;
         List<Event> serviceAggregatedInternals = getServiceEvents(Event.UserActionType.VISIT.getKey(), id);
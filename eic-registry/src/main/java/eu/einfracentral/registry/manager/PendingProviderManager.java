@@ -19,7 +19,6 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.http.HttpStatus;
@@ -69,7 +68,7 @@ public class PendingProviderManager extends ResourceManager<ProviderBundle> impl
     }
 
     @Override
-    @Cacheable(value = CACHE_PROVIDERS)
+    @Cacheable(value = CACHE_PROVIDERS, sync = true, key = "'provider:'+#id+':pending'")
     public ProviderBundle get(String id) {
         ProviderBundle provider = super.get(id);
         if (provider == null) {
@@ -81,7 +80,6 @@ public class PendingProviderManager extends ResourceManager<ProviderBundle> impl
 
 
     @Override
-    @CacheEvict(value = CACHE_PROVIDERS, allEntries = true)
     public ProviderBundle add(ProviderBundle providerBundle, Authentication auth) {
 
         providerBundle.setId(idCreator.createProviderId(providerBundle.getProvider()));
@@ -113,7 +111,6 @@ public class PendingProviderManager extends ResourceManager<ProviderBundle> impl
 
 
     @Override
-    @CacheEvict(value = CACHE_PROVIDERS, allEntries = true)
     public ProviderBundle update(ProviderBundle providerBundle, Authentication auth) {
         // get existing resource
         Resource existing = whereID(providerBundle.getId(), true);
@@ -131,21 +128,18 @@ public class PendingProviderManager extends ResourceManager<ProviderBundle> impl
 
 
     @Override
-    @CacheEvict(value = CACHE_PROVIDERS, allEntries = true)
     public void delete(ProviderBundle providerBundle) {
         super.delete(providerBundle);
     }
 
 
     @Override
-    @CacheEvict(value = CACHE_PROVIDERS, allEntries = true)
     public ProviderBundle transformToPending(ProviderBundle providerBundle, Authentication auth) {
         return transformToPending(providerBundle.getId(), auth);
     }
 
 
     @Override
-    @CacheEvict(value = CACHE_PROVIDERS, allEntries = true)
     public ProviderBundle transformToPending(String providerId, Authentication auth) {
         logger.trace("User '{}' is attempting to transform the Active Provider with id '{}' to Pending", auth, providerId);
         Resource resource = providerManager.getResource(providerId, catalogueName);
@@ -156,7 +150,6 @@ public class PendingProviderManager extends ResourceManager<ProviderBundle> impl
 
 
     @Override
-    @CacheEvict(value = CACHE_PROVIDERS, allEntries = true)
     public ProviderBundle transformToActive(ProviderBundle providerBundle, Authentication auth) {
         logger.trace("User '{}' is attempting to transform the Pending Provider with id '{}' to Active", auth, providerBundle.getId());
         providerManager.validate(providerBundle);
@@ -197,7 +190,6 @@ public class PendingProviderManager extends ResourceManager<ProviderBundle> impl
 
 
     @Override
-    @CacheEvict(value = CACHE_PROVIDERS, allEntries = true)
     public ProviderBundle transformToActive(String providerId, Authentication auth) {
         ProviderBundle providerBundle = get(providerId);
         return transformToActive(providerBundle, auth);
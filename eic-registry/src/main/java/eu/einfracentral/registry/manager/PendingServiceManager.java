@@ -16,7 +16,6 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
@@ -24,8 +23,6 @@ import org.springframework.stereotype.Service;
 import java.util.ArrayList;
 import java.util.List;
 
-import static eu.einfracentral.config.CacheConfig.*;
-
 @Service("pendingServiceManager")
 public class PendingServiceManager extends ResourceManager<ServiceBundle> implements PendingResourceService<ServiceBundle> {
 
@@ -61,7 +58,6 @@ public class PendingServiceManager extends ResourceManager<ServiceBundle> implem
     }
 
     @Override
-    @CacheEvict(cacheNames = {CACHE_VISITS, CACHE_PROVIDERS, CACHE_FEATURED}, allEntries = true)
     public ServiceBundle add(ServiceBundle service, Authentication auth) {
 
         service.setId(idCreator.createServiceId(service));
@@ -95,7 +91,6 @@ public class PendingServiceManager extends ResourceManager<ServiceBundle> implem
     }
 
     @Override
-    @CacheEvict(cacheNames = {CACHE_VISITS, CACHE_PROVIDERS, CACHE_FEATURED}, allEntries = true)
     public ServiceBundle update(ServiceBundle serviceBundle, Authentication auth) {
         // get existing resource
         Resource existing = this.getPendingResourceViaServiceId(serviceBundle.getService().getId());
@@ -112,13 +107,11 @@ public class PendingServiceManager extends ResourceManager<ServiceBundle> implem
     }
 
     @Override
-    @CacheEvict(cacheNames = {CACHE_VISITS, CACHE_PROVIDERS, CACHE_FEATURED}, allEntries = true)
     public ServiceBundle transformToPending(ServiceBundle serviceBundle, Authentication auth) {
         return transformToPending(serviceBundle.getId(), auth);
     }
 
     @Override
-    @CacheEvict(cacheNames = {CACHE_VISITS, CACHE_PROVIDERS, CACHE_FEATURED}, allEntries = true)
     public ServiceBundle transformToPending(String serviceId, Authentication auth) {
         logger.trace("User '{}' is attempting to transform the Active Service with id {} to Pending", auth, serviceId);
         ServiceBundle serviceBundle = serviceBundleService.get(serviceId, catalogueName);
@@ -129,7 +122,6 @@ public class PendingServiceManager extends ResourceManager<ServiceBundle> implem
     }
 
     @Override
-    @CacheEvict(cacheNames = {CACHE_VISITS, CACHE_PROVIDERS, CACHE_FEATURED}, allEntries = true)
     public ServiceBundle transformToActive(ServiceBundle serviceBundle, Authentication auth) {
         logger.trace("User '{}' is attempting to transform the Pending Service with id {} to Active", auth, serviceBundle.getId());
         serviceBundleService.validate(serviceBundle);
@@ -171,7 +163,6 @@ public class PendingServiceManager extends ResourceManager<ServiceBundle> implem
     }
 
     @Override
-    @CacheEvict(cacheNames = {CACHE_VISITS, CACHE_PROVIDERS, CACHE_FEATURED}, allEntries = true)
     public ServiceBundle transformToActive(String serviceId, Authentication auth) {
         ServiceBundle serviceBundle = this.get(serviceId);
         return transformToActive(serviceBundle, auth);
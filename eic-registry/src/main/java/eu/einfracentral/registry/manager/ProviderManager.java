@@ -5,6 +5,8 @@ import eu.einfracentral.dto.ExtendedValue;
 import eu.einfracentral.dto.MapValues;
 import eu.einfracentral.exception.ValidationException;
 import eu.einfracentral.registry.service.*;
+import eu.einfracentral.service.CacheInvalidationService;
+import eu.einfracentral.service.GenericResourceService;
 import eu.einfracentral.service.IdCreator;
 import eu.einfracentral.service.RegistrationMailService;
 import eu.einfracentral.service.SecurityService;
@@ -22,7 +24,6 @@ import org.mitre.openid.connect.model.OIDCAuthenticationToken;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.context.annotation.Lazy;
@@ -38,6 +39,7 @@ import java.time.Instant;
 import java.time.ZoneId;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static eu.einfracentral.config.CacheConfig.*;
 import static eu.einfracentral.utils.VocabularyValidationUtils.validateMerilScientificDomains;
@@ -66,7 +68,9 @@ public class ProviderManager extends ResourceManager<ProviderBundle> implements
     private final SynchronizerService<Provider> synchronizerService;
     private final ProviderResourcesCommonMethods commonMethods;
     @Autowired
-    CacheManager cacheManager;
+    CacheInvalidationService cacheInvalidationService;
+    @Autowired
+    private GenericResourceService genericResourceService;
 
     //TODO: maybe add description on DB and elastic too
     private final String columnsOfInterest = "provider_id, name"; // variable with DB tables a keyword is been searched on
@@ -122,13 +126,11 @@ public class ProviderManager extends ResourceManager<ProviderBundle> implements
     }
 
     @Override
-    @CacheEvict(value = CACHE_PROVIDERS, allEntries = true)
     public ProviderBundle add(ProviderBundle provider, Authentication authentication) {
         return add(provider, null, authentication);
     }
 
     @Override
-    @CacheEvict(value = CACHE_PROVIDERS, allEntries = true)
     public ProviderBundle add(ProviderBundle provider, String catalogueId, Authentication auth) {
         logger.trace("User '{}' is attempting to add a new Provider: {} on Catalogue: {}", auth, provider, catalogueId);
 
@@ -154,13 +156,11 @@ public class ProviderManager extends ResourceManager<ProviderBundle> implements
     }
 
     //    @Override
-    @CacheEvict(value = CACHE_PROVIDERS, allEntries = true)
     public ProviderBundle update(ProviderBundle provider, String comment, Authentication auth) {
         return update(provider, provider.getProvider().getCatalogueId(), comment, auth);
     }
 
     //    @Override
-    @CacheEvict(value = CACHE_PROVIDERS, allEntries = true)
     public ProviderBundle update(ProviderBundle providerBundle, String catalogueId, String comment, Authentication auth) {
         logger.trace("User '{}' is attempting to update the Provider with id '{}' of the Catalogue '{}'", auth, providerBundle, providerBundle.getProvider().getCatalogueId());
 
@@ -247,7 +247,7 @@ public class ProviderManager extends ResourceManager<ProviderBundle> implements
         return deserialize(resource);
     }
 
-    @Cacheable(value = CACHE_PROVIDERS, key = "#catalogueId+#providerId+(#auth!=null?#auth:'')")
+    @Cacheable(value = CACHE_PROVIDERS, sync = true, key = "'provider:'+#providerId+':'+#catalogueId+':'+(#auth!=null?#auth:'')")
     public ProviderBundle get(String catalogueId, String providerId, Authentication auth) {
         ProviderBundle providerBundle = getWithCatalogue(providerId, catalogueId);
         CatalogueBundle catalogueBundle = catalogueService.get(catalogueId);
@@ -278,7 +278,7 @@ public class ProviderManager extends ResourceManager<ProviderBundle> implements
     }
 
     @Override
-    @Cacheable(value = CACHE_PROVIDERS, key = "#id+(#auth!=null?#auth:'')")
+    @Cacheable(value = CACHE_PROVIDERS, sync = true, key = "'provider:'+#id+'::'+(#auth!=null?#auth:'')")
     public ProviderBundle get(String id, Authentication auth) {
         ProviderBundle providerBundle = get(id);
         if (auth != null && auth.isAuthenticated()) {
@@ -343,7 +343,7 @@ public class ProviderManager extends ResourceManager<ProviderBundle> implements
     }
 
     @Override
-    @Cacheable(value = CACHE_PROVIDERS, key = "#ff.hashCode()+(#auth!=null?#auth.hashCode():0)")
+    @Cacheable(value = CACHE_PROVIDERS, sync = true, key = "'providers:'+#ff.hashCode()+':'+(#auth!=null?#auth.hashCode():0)")
     public Browsing<ProviderBundle> getAll(FacetFilter ff, Authentication auth) {
         List<ProviderBundle> retList = new ArrayList<>();
 
@@ -378,7 +378,6 @@ public class ProviderManager extends ResourceManager<ProviderBundle> implements
     }
 
     @Override
-    @CacheEvict(value = CACHE_PROVIDERS, allEntries = true)
     public void delete(ProviderBundle provider) {
         String catalogueId = provider.getProvider().getCatalogueId();
         // block Public Provider update
@@ -439,7 +438,6 @@ public class ProviderManager extends ResourceManager<ProviderBundle> implements
     }
 
     @Override
-    @CacheEvict(value = CACHE_PROVIDERS, allEntries = true)
     public ProviderBundle verifyProvider(String id, String status, Boolean active, Authentication auth) {
         Vocabulary statusVocabulary = vocabularyService.getOrElseThrow(status);
         if (!statusVocabulary.getType().equals("Provider state")) {
@@ -483,7 +481,6 @@ public class ProviderManager extends ResourceManager<ProviderBundle> implements
     }
 
     @Override
-    @CacheEvict(value = CACHE_PROVIDERS, allEntries = true)
     public ProviderBundle publish(String providerId, Boolean active, Authentication auth) {
         ProviderBundle provider = getWithCatalogue(providerId, catalogueName);
         if ((provider.getStatus().equals(vocabularyService.get("pending provider").getId()) ||
@@ -519,24 +516,23 @@ public class ProviderManager extends ResourceManager<ProviderBundle> implements
     }
 
     @Override
-    @Cacheable(value = CACHE_PROVIDERS, key = "#email+(#auth!=null?#auth:'')")
+    @Cacheable(value = CACHE_PROVIDERS, sync = true, key = "'providers:email:'+#email+':'+(#auth!=null?#auth:'')")
     public List<ProviderBundle> getServiceProviders(String email, Authentication auth) {
-        List<ProviderBundle> providers;
+        Stream<ProviderBundle> providers;
         if (auth == null) {
             throw new UnauthorizedUserException("Please log in.");
         } else if (securityService.hasRole(auth, "ROLE_ADMIN") ||
                 securityService.hasRole(auth, "ROLE_EPOT")) {
             FacetFilter ff = new FacetFilter();
-            ff.setQuantity(maxQuantity);
+            ff.setResourceType(getResourceType());
             ff.addFilter("published", false);
-            providers = super.getAll(ff, null).getResults();
+            providers = genericResourceService.getResultsStream(ff);
         } else if (securityService.hasRole(auth, "ROLE_PROVIDER")) {
-            providers = getMy(null, auth).getResults();
+            providers = getMy(null, auth).getResults().stream();
         } else {
             return new ArrayList<>();
         }
         return providers
-                .stream()
                 .map(p -> {
                     if (p.getProvider().getUsers() != null && p.getProvider().getUsers().stream().filter(Objects::nonNull).anyMatch(u -> {
                         if (u.getEmail() != null) {
@@ -552,7 +548,7 @@ public class ProviderManager extends ResourceManager<ProviderBundle> implements
     }
 
     @Override
-    @Cacheable(value = CACHE_PROVIDERS, key = "(#auth!=null?#auth:'')")
+    @Cacheable(value = CACHE_PROVIDERS, sync = true, key = "'providers:my:'+(#auth!=null?#auth:'')")
     public Browsing<ProviderBundle> getMy(FacetFilter ff, Authentication auth) {
         if (auth == null) {
             throw new UnauthorizedUserException("Please log in.");
@@ -811,7 +807,6 @@ public class ProviderManager extends ResourceManager<ProviderBundle> implements
         }
     }
 
-    @CacheEvict(value = CACHE_PROVIDERS, allEntries = true)
     public ProviderBundle auditProvider(String providerId, String catalogueId, String comment, LoggingInfo.ActionType actionType, Authentication auth) {
         ProviderBundle provider = getWithCatalogue(providerId, catalogueId);
         commonMethods.auditResource(provider, comment, actionType, auth);
@@ -1186,7 +1181,6 @@ public class ProviderManager extends ResourceManager<ProviderBundle> implements
         return providerBundle;
     }
 
-    @CacheEvict(value = CACHE_PROVIDERS, allEntries = true)
     public ProviderBundle suspend(String providerId, String catalogueId, boolean suspend, Authentication auth) {
         ProviderBundle providerBundle = get(catalogueId, providerId, auth);
         commonMethods.suspensionValidation(providerBundle, catalogueId, providerId, suspend, auth);
@@ -1194,7 +1188,7 @@ public class ProviderManager extends ResourceManager<ProviderBundle> implements
         // Suspend Provider
         commonMethods.suspendResource(providerBundle, catalogueId, suspend, auth);
         super.update(providerBundle, auth);
-        Objects.requireNonNull(cacheManager.getCache(CACHE_PROVIDERS)).clear();
+        cacheInvalidationService.evictProvider(providerId);
 
         // Suspend Provider's resources
         List<ServiceBundle> services = serviceBundleService.getResourceBundles(catalogueId, providerId, auth).getResults();
@@ -11,7 +11,6 @@ import eu.einfracentral.service.RegistrationMailService;
 import eu.einfracentral.service.SecurityService;
 import eu.einfracentral.service.SynchronizerService;
 import eu.einfracentral.service.search.SearchServiceEIC;
-import eu.einfracentral.utils.FacetFilterUtils;
 import eu.einfracentral.utils.FacetLabelService;
 import eu.einfracentral.utils.ObjectUtils;
 import eu.einfracentral.utils.ProviderResourcesCommonMethods;
@@ -25,7 +24,6 @@ import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -37,10 +35,10 @@ import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
-import static eu.einfracentral.config.CacheConfig.CACHE_FEATURED;
-import static eu.einfracentral.config.CacheConfig.CACHE_PROVIDERS;
 import static eu.einfracentral.utils.VocabularyValidationUtils.validateScientificDomains;
 import static java.util.stream.Collectors.toList;
 
@@ -116,13 +114,11 @@ public class TrainingResourceManager extends ResourceManager<TrainingResourceBun
     }
 
     @Override
-    @CacheEvict(cacheNames = {CACHE_PROVIDERS, CACHE_FEATURED}, allEntries = true)
     public TrainingResourceBundle addResource(TrainingResourceBundle trainingResourceBundle, Authentication auth) {
         return addResource(trainingResourceBundle, null, auth);
     }
 
     @Override
-    @CacheEvict(cacheNames = {CACHE_PROVIDERS, CACHE_FEATURED}, allEntries = true)
     public TrainingResourceBundle addResource(TrainingResourceBundle trainingResourceBundle, String catalogueId, Authentication auth) {
         if (catalogueId == null || catalogueId.equals("")) { // add catalogue provider
             trainingResourceBundle.getTrainingResource().setCatalogueId(catalogueName);
@@ -371,7 +367,6 @@ public class TrainingResourceManager extends ResourceManager<TrainingResourceBun
         synchronizerService.syncDelete(trainingResourceBundle.getTrainingResource());
     }
 
-    @CacheEvict(cacheNames = {CACHE_PROVIDERS, CACHE_FEATURED}, allEntries = true)
     public TrainingResourceBundle verifyResource(String id, String status, Boolean active, Authentication auth) {
         Vocabulary statusVocabulary = vocabularyService.getOrElseThrow(status);
         if (!statusVocabulary.getType().equals("Resource state")) {
@@ -620,10 +615,9 @@ public class TrainingResourceManager extends ResourceManager<TrainingResourceBun
         ff.addFilter("resource_organisation", providerId);
         ff.addFilter("catalogue_id", catalogueName);
         ff.addFilter("active", false);
-        ff.setFrom(0);
-        ff.setQuantity(maxQuantity);
-        ff.addOrderBy("title", "asc");
-        return this.getAll(ff, null).getResults();
+        return getAllStream(ff, null)
+                .sorted(Comparator.comparing(bundle -> bundle.getTrainingResource().getTitle(), Comparator.nullsLast(Comparator.naturalOrder())))
+                .collect(Collectors.toList());
     }
 
     //    @Override
@@ -800,6 +794,25 @@ public class TrainingResourceManager extends ResourceManager<TrainingResourceBun
 
     @Override
     public Browsing<TrainingResourceBundle> getAll(FacetFilter ff, Authentication auth) {
+        updateFacetFilterConsideringTheAuthorization(ff, auth);
+
+        ff.setBrowseBy(genericManager.getBrowseBy(getResourceType()));
+        ff.setResourceType(getResourceType());
+
+        return getMatchingResources(ff);
+    }
+
+    /**
+     * Streams all the resources matching the filter, applying the same authorization filters as
+     * {@link #getAll(FacetFilter, Authentication)}, without the {@code maxQuantity} limit.
+     */
+    private Stream<TrainingResourceBundle> getAllStream(FacetFilter ff, Authentication auth) {
+        updateFacetFilterConsideringTheAuthorization(ff, auth);
+        ff.setResourceType(getResourceType());
+        return genericManager.getResultsStream(ff);
+    }
+
+    private void updateFacetFilterConsideringTheAuthorization(FacetFilter ff, Authentication auth) {
         // if user is Unauthorized, return active/latest ONLY
         if (auth == null) {
             ff.addFilter("active", true);
@@ -813,11 +826,6 @@ public class TrainingResourceManager extends ResourceManager<TrainingResourceBun
                 ff.addFilter("published", false);
             }
         }
-
-        ff.setBrowseBy(genericManager.getBrowseBy(getResourceType()));
-        ff.setResourceType(getResourceType());
-
-        return getMatchingResources(ff);
     }
 
     @Override
@@ -842,9 +850,12 @@ public class TrainingResourceManager extends ResourceManager<TrainingResourceBun
     protected Browsing<TrainingResourceBundle> getResults(FacetFilter filter) {
         Browsing<TrainingResourceBundle> browsing;
         filter.setResourceType(getResourceType());
+        // computed alongside the search of the results
+        CompletableFuture<List<Facet>> disjunctiveFacets = searchServiceEIC.searchDisjunctiveFacets(filter);
         browsing = convertToBrowsingEIC(searchServiceEIC.search(filter));
 
-        browsing.setFacets(createCorrectFacets(browsing.getFacets(), filter));
+        browsing.setFacets(createCorrectFacets(browsing.getFacets(),
+                searchServiceEIC.awaitDisjunctiveFacets(disjunctiveFacets)));
         return browsing;
     }
 
@@ -856,42 +867,22 @@ public class TrainingResourceManager extends ResourceManager<TrainingResourceBun
         return new Browsing<>(paging, results, genericManager.getLabels(getResourceType()));
     }
 
-    public List<Facet> createCorrectFacets(List<Facet> serviceFacets, FacetFilter ff) {
-        ff.setQuantity(0);
-
-        Map<String, List<Object>> allFilters = FacetFilterUtils.getFacetFilterFilters(ff);
-
-        List<String> reverseOrderedKeys = new LinkedList<>(allFilters.keySet());
-        Collections.reverse(reverseOrderedKeys);
-
-        for (String filterKey : reverseOrderedKeys) {
-            Map<String, List<Object>> someFilters = new LinkedHashMap<>(allFilters);
-
-            // if last filter is "latest" or "active" continue to next iteration
-            if ("active".equals(filterKey)) {
-                continue;
-            }
-            someFilters.remove(filterKey);
-
-            FacetFilter facetFilter = FacetFilterUtils.createMultiFacetFilter(someFilters);
-            facetFilter.setResourceType(getResourceType());
-            facetFilter.setBrowseBy(Collections.singletonList(filterKey));
-            List<Facet> facetsCategory = convertToBrowsingEIC(searchServiceEIC.search(facetFilter)).getFacets();
-
-            for (Facet facet : serviceFacets) {
-                if (facet.getField().equals(filterKey)) {
-                    for (Facet facetCategory : facetsCategory) {
-                        if (facetCategory.getField().equals(facet.getField())) {
-                            serviceFacets.set(serviceFacets.indexOf(facet), facetCategory);
-                            break;
-                        }
-                    }
+    /**
+     * Replaces the values of the filtered facets with their disjunctive values.
+     *
+     * @param serviceFacets     the facets of the search
+     * @param disjunctiveFacets the disjunctive facets of the filtered fields
+     * @return the non-empty facets
+     */
+    public List<Facet> createCorrectFacets(List<Facet> serviceFacets, List<Facet> disjunctiveFacets) {
+        for (Facet facet : serviceFacets) {
+            for (Facet disjunctiveFacet : disjunctiveFacets) {
+                if (disjunctiveFacet.getField().equals(facet.getField())) {
+                    facet.setValues(disjunctiveFacet.getValues());
                     break;
                 }
             }
-            break;
         }
-
         return removeEmptyFacets(serviceFacets);
     }
 
@@ -901,26 +892,29 @@ public class TrainingResourceManager extends ResourceManager<TrainingResourceBun
 
     @Override
     public Paging<TrainingResourceBundle> getRandomResources(FacetFilter ff, String auditingInterval, Authentication auth) {
-        FacetFilter facetFilter = new FacetFilter();
-        facetFilter.setQuantity(maxQuantity);
-        facetFilter.addFilter("status", "approved resource");
-        facetFilter.addFilter("published", false);
-        Browsing<TrainingResourceBundle> trainingResourceBrowsing = getAll(facetFilter, auth);
-        List<TrainingResourceBundle> trainingResourcesToBeAudited = new ArrayList<>();
+        FacetFilter facetFilter = createApprovedResourcesFilter();
         long todayEpochTime = System.currentTimeMillis();
         long interval = Instant.ofEpochMilli(todayEpochTime).atZone(ZoneId.systemDefault()).minusMonths(Integer.parseInt(auditingInterval)).toEpochSecond();
-        for (TrainingResourceBundle trainingResourceBundle : trainingResourceBrowsing.getResults()) {
-            if (trainingResourceBundle.getLatestAuditInfo() != null) {
-                if (Long.parseLong(trainingResourceBundle.getLatestAuditInfo().getDate()) > interval) {
-                    trainingResourcesToBeAudited.add(trainingResourceBundle);
-                }
-            }
-        }
+        List<TrainingResourceBundle> trainingResourcesToBeAudited = getAllStream(facetFilter, auth)
+                .filter(trainingResourceBundle -> trainingResourceBundle.getLatestAuditInfo() != null)
+                .filter(trainingResourceBundle -> Long.parseLong(trainingResourceBundle.getLatestAuditInfo().getDate()) > interval)
+                .collect(Collectors.toList());
         Collections.shuffle(trainingResourcesToBeAudited);
         for (int i = trainingResourcesToBeAudited.size() - 1; i > ff.getQuantity() - 1; i--) {
             trainingResourcesToBeAudited.remove(i);
         }
-        return new Browsing<>(trainingResourcesToBeAudited.size(), 0, trainingResourcesToBeAudited.size(), trainingResourcesToBeAudited, trainingResourceBrowsing.getFacets());
+        // the facets of all the approved resources, as before streaming
+        FacetFilter facetsFilter = createApprovedResourcesFilter();
+        facetsFilter.setQuantity(0);
+        List<Facet> facets = getAll(facetsFilter, auth).getFacets();
+        return new Browsing<>(trainingResourcesToBeAudited.size(), 0, trainingResourcesToBeAudited.size(), trainingResourcesToBeAudited, facets);
+    }
+
+    private static FacetFilter createApprovedResourcesFilter() {
+        FacetFilter facetFilter = new FacetFilter();
+        facetFilter.addFilter("status", "approved resource");
+        facetFilter.addFilter("published", false);
+        return facetFilter;
     }
 
     @Override
@@ -948,20 +942,13 @@ public class TrainingResourceManager extends ResourceManager<TrainingResourceBun
 
     @Override
     public List<TrainingResource> getByIds(Authentication auth, String... ids) {
-        List<TrainingResource> resources;
-        resources = Arrays.stream(ids)
-                .map(id ->
-                {
-                    try {
-                        return get(id, catalogueName).getTrainingResource();
-                    } catch (ServiceException | ResourceNotFoundException e) {
-                        return null;
-                    }
-
-                })
-                .filter(Objects::nonNull)
+        FacetFilter ff = new FacetFilter();
+        ff.setResourceType(getResourceType());
+        ff.addFilter("catalogue_id", catalogueName);
+        return genericManager.<TrainingResourceBundle>getResultsByIds(ff, Arrays.asList(ids))
+                .stream()
+                .map(TrainingResourceBundle::getTrainingResource)
                 .collect(toList());
-        return resources;
     }
 
     public TrainingResourceBundle changeProvider(String resourceId, String newProviderId, String comment, Authentication auth) {
@@ -1035,7 +1022,6 @@ public class TrainingResourceManager extends ResourceManager<TrainingResourceBun
         return trainingResourceBundle;
     }
 
-    @CacheEvict(cacheNames = {CACHE_PROVIDERS, CACHE_FEATURED}, allEntries = true)
     public TrainingResourceBundle suspend(String trainingResourceId, String catalogueId, boolean suspend, Authentication auth) {
         TrainingResourceBundle trainingResourceBundle = get(trainingResourceId, catalogueId);
         commonMethods.suspensionValidation(trainingResourceBundle, catalogueId,
@@ -9,6 +9,7 @@ import eu.einfracentral.service.RegistrationMailService;
 import eu.einfracentral.service.search.SearchServiceEIC;
 import eu.einfracentral.utils.FacetLabelService;
 import eu.openminted.registry.core.domain.Browsing;
+import eu.openminted.registry.core.domain.Facet;
 import eu.openminted.registry.core.domain.FacetFilter;
 import eu.openminted.registry.core.domain.Paging;
 import eu.openminted.registry.core.domain.Resource;
@@ -26,6 +27,7 @@ import org.springframework.stereotype.Component;
 import javax.annotation.PostConstruct;
 import javax.validation.constraints.NotNull;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 
@@ -309,9 +311,12 @@ public class VocabularyCurationManager extends ResourceManager<VocabularyCuratio
     protected Browsing<VocabularyCuration> getResults(FacetFilter filter) {
         Browsing<VocabularyCuration> browsing;
         filter.setResourceType(getResourceType());
+        // computed alongside the search of the results
+        CompletableFuture<List<Facet>> disjunctiveFacets = searchServiceEIC.searchDisjunctiveFacets(filter);
         browsing = convertToBrowsingEIC(searchServiceEIC.search(filter));
 
-        browsing.setFacets(abstractServiceBundleManager.createCorrectFacets(browsing.getFacets(), filter));
+        browsing.setFacets(abstractServiceBundleManager.createCorrectFacets(browsing.getFacets(),
+                searchServiceEIC.awaitDisjunctiveFacets(disjunctiveFacets)));
         return browsing;
     }
 
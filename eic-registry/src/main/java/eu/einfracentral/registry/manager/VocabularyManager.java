@@ -27,6 +27,9 @@ import java.io.IOException;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -38,6 +41,12 @@ public class VocabularyManager extends ResourceManager<Vocabulary> implements Vo
 
     private final Map<String, Region> regions = new HashMap<>();
 
+    // all Vocabularies, replaced on every change
+    private final AtomicReference<VocabularySnapshot> snapshot = new AtomicReference<>();
+
+    // incremented on every change, to discard snapshots loaded concurrently with it
+    private final AtomicLong generation = new AtomicLong();
+
     private final ProviderManager providerManager;
 
     private final SecurityService securityService;
@@ -80,110 +89,78 @@ public class VocabularyManager extends ResourceManager<Vocabulary> implements Vo
 
     @Override
     public Vocabulary getParent(String id) {
-        return get(get(id).getParentId());
+        VocabularySnapshot vocabularies = getSnapshot();
+        Vocabulary vocabulary = vocabularies.get(id);
+        if (vocabulary == null) {
+            return get(get(id).getParentId());
+        }
+        Vocabulary parent = vocabularies.get(vocabulary.getParentId());
+        return parent != null ? parent : get(vocabulary.getParentId());
     }
 
     @Override
-    @Cacheable(value = CACHE_VOCABULARIES)
+    @Cacheable(value = CACHE_VOCABULARIES, sync = true)
     public Browsing<Vocabulary> getAll(FacetFilter ff, Authentication auth) {
         return super.getAll(ff, auth);
     }
 
     @Override
-    @Cacheable(value = CACHE_VOCABULARIES)
     public Map<Vocabulary.Type, List<Vocabulary>> getAllVocabulariesByType() {
-        Map<Vocabulary.Type, List<Vocabulary>> allVocabularies = new HashMap<>();
-        for (Vocabulary.Type type : Vocabulary.Type.values()) {
-            allVocabularies.put(type, getByType(type));
-        }
-        return allVocabularies;
+        return getSnapshot().getAllByType();
     }
 
     @Override
-    @Cacheable(value = CACHE_VOCABULARIES)
     public List<Vocabulary> getByType(Vocabulary.Type type) {
-        FacetFilter ff = new FacetFilter();
-        ff.setQuantity(maxQuantity);
-        ff.addFilter("type", type.getKey());
-        List<Vocabulary> vocList = getAll(ff, null).getResults();
-        return vocList.stream().sorted(Comparator.comparing(Vocabulary::getId)).collect(Collectors.toList());
+        return getSnapshot().getByType(type);
     }
 
     @Override
-    @Cacheable(value = CACHE_VOCABULARY_MAP)
     public Map<String, Vocabulary> getVocabulariesMap() {
-        FacetFilter ff = new FacetFilter();
-        ff.setQuantity(maxQuantity);
-        return getAll(ff, null)
-                .getResults()
-                .stream()
-                .collect(Collectors.toMap(Vocabulary::getId, v -> v));
+        return getSnapshot().getMap();
     }
 
     @Override
     @PreAuthorize("hasRole('ROLE_ADMIN')")
-    @CacheEvict(value = {CACHE_VOCABULARIES, CACHE_VOCABULARY_MAP, CACHE_VOCABULARY_TREE}, allEntries = true)
+    @CacheEvict(value = CACHE_VOCABULARIES, allEntries = true)
     public void addAll(List<Vocabulary> vocabularies, Authentication auth) {
-        for (Vocabulary vocabulary : vocabularies) {
-            add(vocabulary, auth);
+        List<Vocabulary> added = new ArrayList<>();
+        try {
+            for (Vocabulary vocabulary : vocabularies) {
+                store(vocabulary);
+                added.add(vocabulary);
+            }
+        } finally {
+            changed(current -> current.with(added));
         }
     }
 
     @Override
     @PreAuthorize("hasRole('ROLE_ADMIN')")
-    @CacheEvict(value = {CACHE_VOCABULARIES, CACHE_VOCABULARY_MAP, CACHE_VOCABULARY_TREE}, allEntries = true)
+    @CacheEvict(value = CACHE_VOCABULARIES, allEntries = true)
     public void deleteAll(Authentication auth) {
         FacetFilter ff = new FacetFilter();
         ff.setQuantity(maxQuantity);
         List<Vocabulary> allVocs = getAll(ff, auth).getResults();
         for (Vocabulary vocabulary : allVocs) {
-            delete(vocabulary);
+            super.delete(vocabulary);
         }
+        changed(current -> VocabularySnapshot.EMPTY);
     }
 
     @Override
-    @Cacheable(value = CACHE_VOCABULARY_TREE)
-    public VocabularyTree getVocabulariesTree(Vocabulary.Type type) { // TODO: refactor method
-        VocabularyTree root = new VocabularyTree();
-        root.setVocabulary(null);
-        Map<String, List<Vocabulary>> vocabularies = getBy("parent_id");
-        List<VocabularyTree> superTreeList = new ArrayList<>();
-        List<Vocabulary> superVocabularies = getByType(type);
-        if (superVocabularies != null) {
-            for (Vocabulary superVocabulary : superVocabularies) {
-                VocabularyTree superTree = new VocabularyTree();
-                superTree.setVocabulary(superVocabulary);
-                List<VocabularyTree> treeList = new ArrayList<>();
-                List<Vocabulary> vocs = vocabularies.get(superVocabulary.getId());
-                if (vocs != null) {
-                    for (Vocabulary voc : vocs) {
-                        VocabularyTree tree = new VocabularyTree();
-                        tree.setVocabulary(voc);
-                        List<VocabularyTree> subTreeList = new ArrayList<>();
-                        List<Vocabulary> subVocabularies = vocabularies.get(voc.getId());
-                        if (subVocabularies != null) {
-                            for (Vocabulary subVocabulary : subVocabularies) {
-                                VocabularyTree subTree = new VocabularyTree();
-                                subTree.setVocabulary(subVocabulary);
-//                    subTree.setChildren(null);
-                                subTreeList.add(subTree);
-                            }
-                        }
-                        tree.setChildren(subTreeList);
-                        treeList.add(tree);
-                    }
-                }
-                superTree.setChildren(treeList);
-                superTreeList.add(superTree);
-            }
-        }
-        root.setChildren(superTreeList);
-        return root;
+    public VocabularyTree getVocabulariesTree(Vocabulary.Type type) {
+        return getSnapshot().getTree(type);
     }
 
     @Override
-    @CacheEvict(value = {CACHE_VOCABULARIES, CACHE_VOCABULARY_MAP, CACHE_VOCABULARY_TREE}, allEntries = true)
+    @CacheEvict(value = CACHE_VOCABULARIES, allEntries = true)
     public Vocabulary add(Vocabulary vocabulary, Authentication auth) {
+        store(vocabulary);
+        changed(current -> current.with(Collections.singletonList(vocabulary)));
+        return vocabulary;
+    }
+
+    private void store(Vocabulary vocabulary) {
         if (vocabulary.getId() == null || "".equals(vocabulary.getId())) {
             String id = vocabulary.getName().toLowerCase();
             id = id.replace(" ", "_");
@@ -203,11 +180,10 @@ public class VocabularyManager extends ResourceManager<Vocabulary> implements Vo
         created.setResourceType(resourceType);
         resourceService.addResource(created);
         logger.debug("Adding Vocabulary {}", vocabulary);
-        return vocabulary;
     }
 
     @Override
-    @CacheEvict(value = {CACHE_VOCABULARIES, CACHE_VOCABULARY_MAP, CACHE_VOCABULARY_TREE}, allEntries = true)
+    @CacheEvict(value = CACHE_VOCABULARIES, allEntries = true)
     public Vocabulary update(Vocabulary vocabulary, Authentication auth) {
         Resource existing = whereID(vocabulary.getId(), true);
         String serialized = serialize(vocabulary);
@@ -217,9 +193,71 @@ public class VocabularyManager extends ResourceManager<Vocabulary> implements Vo
         existing.setResourceType(resourceType);
         resourceService.updateResource(existing);
         logger.debug("Updating Vocabulary {}", vocabulary);
+        changed(current -> current.with(Collections.singletonList(vocabulary)));
         return vocabulary;
     }
 
+    @Override
+    @CacheEvict(value = CACHE_VOCABULARIES, allEntries = true)
+    public void delete(Vocabulary vocabulary) {
+        super.delete(vocabulary);
+        changed(current -> current.without(vocabulary.getId()));
+    }
+
+    /**
+     * Reloads all Vocabularies, to pick up changes made by other instances.
+     */
+    @Scheduled(initialDelayString = "${vocabulary.snapshot.refresh:43200000}", fixedDelayString = "${vocabulary.snapshot.refresh:43200000}")
+    public void refreshSnapshot() {
+        if (reloadSnapshot(snapshot.get()) == null) {
+            logger.info("Vocabularies changed while reloading them, keeping the current snapshot");
+        }
+    }
+
+    private VocabularySnapshot getSnapshot() {
+        VocabularySnapshot current = snapshot.get();
+        while (current == null) {
+            synchronized (snapshot) {
+                current = snapshot.get();
+                if (current == null) {
+                    current = reloadSnapshot(null);
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Applies a change to the snapshot, if it is loaded.
+     */
+    private void changed(UnaryOperator<VocabularySnapshot> change) {
+        generation.incrementAndGet();
+        snapshot.updateAndGet(current -> current != null ? change.apply(current) : null);
+    }
+
+    /**
+     * Replaces the expected snapshot with the stored Vocabularies, unless they changed while loading them, as the
+     * loaded snapshot may miss the change.
+     *
+     * @return the loaded snapshot, or null if it was discarded
+     */
+    private VocabularySnapshot reloadSnapshot(VocabularySnapshot expected) {
+        long loading = generation.get();
+        VocabularySnapshot loaded = loadSnapshot();
+        if (generation.get() != loading || !snapshot.compareAndSet(expected, loaded)) {
+            return null;
+        }
+        return loaded;
+    }
+
+    private VocabularySnapshot loadSnapshot() {
+        FacetFilter ff = new FacetFilter();
+        ff.setQuantity(maxQuantity);
+        VocabularySnapshot loaded = new VocabularySnapshot(super.getAll(ff, null).getResults());
+        logger.info("Loaded {} Vocabularies", loaded.size());
+        return loaded;
+    }
+
     private void fetchRegion(Region region) {
         try {
             HttpURLConnection c = (HttpURLConnection) new URL(region.getSource()).openConnection();
@@ -0,0 +1,136 @@
+package eu.einfracentral.registry.manager;
+
+import eu.einfracentral.domain.Vocabulary;
+import eu.einfracentral.dto.VocabularyTree;
+
+import java.util.*;
+
+/**
+ * Immutable index of all Vocabularies: by id, by type (sorted by id), children by parent id and the
+ * precomputed trees of every type. Changes create a new snapshot.
+ */
+final class VocabularySnapshot {
+
+    static final VocabularySnapshot EMPTY = new VocabularySnapshot(Collections.emptyList());
+
+    private final Map<String, Vocabulary> byId;
+    private final Map<Vocabulary.Type, List<Vocabulary>> byType;
+    private final Map<String, List<Vocabulary>> byParent;
+    private final Map<Vocabulary.Type, VocabularyTree> trees;
+
+    VocabularySnapshot(Collection<Vocabulary> vocabularies) {
+        Map<String, Vocabulary> ids = new HashMap<>();
+        for (Vocabulary vocabulary : vocabularies) {
+            ids.put(vocabulary.getId(), vocabulary);
+        }
+        List<Vocabulary> sorted = new ArrayList<>(ids.values());
+        sorted.sort(Comparator.comparing(Vocabulary::getId));
+
+        Map<String, Vocabulary.Type> types = new HashMap<>();
+        for (Vocabulary.Type type : Vocabulary.Type.values()) {
+            types.put(type.getKey(), type);
+        }
+        Map<Vocabulary.Type, List<Vocabulary>> typeIndex = new EnumMap<>(Vocabulary.Type.class);
+        Map<String, List<Vocabulary>> parentIndex = new HashMap<>();
+        for (Vocabulary vocabulary : sorted) {
+            Vocabulary.Type type = types.get(vocabulary.getType());
+            if (type != null) {
+                typeIndex.computeIfAbsent(type, t -> new ArrayList<>()).add(vocabulary);
+            }
+            if (vocabulary.getParentId() != null) {
+                parentIndex.computeIfAbsent(vocabulary.getParentId(), p -> new ArrayList<>()).add(vocabulary);
+            }
+        }
+        for (Vocabulary.Type type : Vocabulary.Type.values()) {
+            typeIndex.put(type, Collections.unmodifiableList(typeIndex.getOrDefault(type, new ArrayList<>())));
+        }
+        parentIndex.replaceAll((parent, children) -> Collections.unmodifiableList(children));
+
+        this.byId = Collections.unmodifiableMap(ids);
+        this.byType = Collections.unmodifiableMap(typeIndex);
+        this.byParent = Collections.unmodifiableMap(parentIndex);
+
+        Map<Vocabulary.Type, VocabularyTree> typeTrees = new EnumMap<>(Vocabulary.Type.class);
+        for (Vocabulary.Type type : Vocabulary.Type.values()) {
+            typeTrees.put(type, createTree(type));
+        }
+        this.trees = Collections.unmodifiableMap(typeTrees);
+    }
+
+    /**
+     * @return a snapshot with the Vocabularies added or replaced
+     */
+    VocabularySnapshot with(Collection<Vocabulary> vocabularies) {
+        Map<String, Vocabulary> all = new HashMap<>(byId);
+        for (Vocabulary vocabulary : vocabularies) {
+            all.put(vocabulary.getId(), vocabulary);
+        }
+        return new VocabularySnapshot(all.values());
+    }
+
+    /**
+     * @return a snapshot without the Vocabulary
+     */
+    VocabularySnapshot without(String id) {
+        if (!byId.containsKey(id)) {
+            return this;
+        }
+        Map<String, Vocabulary> all = new HashMap<>(byId);
+        all.remove(id);
+        return new VocabularySnapshot(all.values());
+    }
+
+    Vocabulary get(String id) {
+        return byId.get(id);
+    }
+
+    Map<String, Vocabulary> getMap() {
+        return byId;
+    }
+
+    List<Vocabulary> getByType(Vocabulary.Type type) {
+        return byType.get(type);
+    }
+
+    Map<Vocabulary.Type, List<Vocabulary>> getAllByType() {
+        return byType;
+    }
+
+    VocabularyTree getTree(Vocabulary.Type type) {
+        return trees.get(type);
+    }
+
+    int size() {
+        return byId.size();
+    }
+
+    /**
+     * Creates the tree of the Vocabularies of the type, their children and their children's children.
+     */
+    private VocabularyTree createTree(Vocabulary.Type type) {
+        VocabularyTree root = new VocabularyTree();
+        root.setVocabulary(null);
+        List<VocabularyTree> superTreeList = new ArrayList<>();
+        for (Vocabulary superVocabulary : byType.get(type)) {
+            VocabularyTree superTree = new VocabularyTree();
+            superTree.setVocabulary(superVocabulary);
+            List<VocabularyTree> treeList = new ArrayList<>();
+            for (Vocabulary voc : byParent.getOrDefault(superVocabulary.getId(), Collections.emptyList())) {
+                VocabularyTree tree = new VocabularyTree();
+                tree.setVocabulary(voc);
+                List<VocabularyTree> subTreeList = new ArrayList<>();
+                for (Vocabulary subVocabulary : byParent.getOrDefault(voc.getId(), Collections.emptyList())) {
+                    VocabularyTree subTree = new VocabularyTree();
+                    subTree.setVocabulary(subVocabulary);
+                    subTreeList.add(subTree);
+                }
+                tree.setChildren(subTreeList);
+                treeList.add(tree);
+            }
+            superTree.setChildren(treeList);
+            superTreeList.add(superTree);
+        }
+        root.setChildren(superTreeList);
+        return root;
+    }
+}
@@ -0,0 +1,124 @@
+package eu.einfracentral.registry.manager.aspects;
+
+import eu.einfracentral.domain.*;
+import eu.einfracentral.service.CacheInvalidationService;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Evicts the cache entries affected by the write operations of the managers,
+ * using {@link CacheInvalidationService}.
+ */
+@Aspect
+@Component
+public class CacheInvalidationAspect {
+
+    private static final Logger logger = LogManager.getLogger(CacheInvalidationAspect.class);
+
+    private final CacheInvalidationService cacheInvalidationService;
+
+    public CacheInvalidationAspect(CacheInvalidationService cacheInvalidationService) {
+        this.cacheInvalidationService = cacheInvalidationService;
+    }
+
+    @AfterReturning(pointcut = "execution(* eu.einfracentral.registry.manager.ProviderManager.add(..))" +
+            "|| execution(* eu.einfracentral.registry.manager.ProviderManager.update(..))" +
+            "|| execution(* eu.einfracentral.registry.manager.ProviderManager.verifyProvider(..))" +
+            "|| execution(* eu.einfracentral.registry.manager.ProviderManager.publish(..))" +
+            "|| execution(* eu.einfracentral.registry.manager.ProviderManager.auditProvider(..))" +
+            "|| execution(* eu.einfracentral.registry.manager.ProviderManager.suspend(..))" +
+            "|| execution(* eu.einfracentral.registry.manager.PendingProviderManager.add(..))" +
+            "|| execution(* eu.einfracentral.registry.manager.PendingProviderManager.update(..))" +
+            "|| execution(* eu.einfracentral.registry.manager.PendingProviderManager.transformToPending(..))" +
+            "|| execution(* eu.einfracentral.registry.manager.PendingProviderManager.transformToActive(..))",
+            returning = "providerBundle")
+    public void evictProvider(ProviderBundle providerBundle) {
+        cacheInvalidationService.evictProvider(providerBundle != null ? providerBundle.getId() : null);
+    }
+
+    @AfterReturning(pointcut = "(execution(* eu.einfracentral.registry.manager.ProviderManager.delete(..))" +
+            "|| execution(* eu.einfracentral.registry.manager.PendingProviderManager.delete(..))) " +
+            "&& args(providerBundle)")
+    public void evictDeletedProvider(ProviderBundle providerBundle) {
+        cacheInvalidationService.evictProvider(providerBundle.getId());
+    }
+
+    @AfterReturning(pointcut = "execution(* eu.einfracentral.registry.manager.AbstractServiceBundleManager+.add(..))" +
+            "|| execution(* eu.einfracentral.registry.manager.AbstractServiceBundleManager+.update(..))" +
+            "|| execution(* eu.einfracentral.registry.manager.ServiceBundleManager.addResource(..))" +
+            "|| execution(* eu.einfracentral.registry.manager.ServiceBundleManager.updateResource(..))" +
+            "|| execution(* eu.einfracentral.registry.manager.ServiceBundleManager.verifyResource(..))" +
+            "|| execution(* eu.einfracentral.registry.manager.ServiceBundleManager.suspend(..))" +
+            "|| execution(* eu.einfracentral.registry.manager.PendingServiceManager.add(..))" +
+            "|| execution(* eu.einfracentral.registry.manager.PendingServiceManager.update(..))" +
+            "|| execution(* eu.einfracentral.registry.manager.PendingServiceManager.transformToPending(..))" +
+            "|| execution(* eu.einfracentral.registry.manager.PendingServiceManager.transformToActive(..))" +
+            "|| execution(* eu.einfracentral.registry.manager.TrainingResourceManager.addResource(..))" +
+            "|| execution(* eu.einfracentral.registry.manager.TrainingResourceManager.updateResource(..))" +
+            "|| execution(* eu.einfracentral.registry.manager.TrainingResourceManager.verifyResource(..))" +
+            "|| execution(* eu.einfracentral.registry.manager.TrainingResourceManager.suspend(..))" +
+            "|| execution(* eu.einfracentral.registry.manager.InteroperabilityRecordManager.add(..))" +
+            "|| execution(* eu.einfracentral.registry.manager.InteroperabilityRecordManager.update(..))" +
+            "|| execution(* eu.einfracentral.registry.manager.InteroperabilityRecordManager.verifyResource(..))" +
+            "|| execution(* eu.einfracentral.registry.manager.InteroperabilityRecordManager.suspend(..))",
+            returning = "bundle")
+    public void evictResource(Object bundle) {
+        evictResourceEntries(bundle);
+    }
+
+    @AfterReturning(pointcut = "(execution(* eu.einfracentral.registry.manager.AbstractServiceBundleManager+.delete(..))" +
+            "|| execution(* eu.einfracentral.registry.manager.TrainingResourceManager.delete(..))" +
+            "|| execution(* eu.einfracentral.registry.manager.InteroperabilityRecordManager.delete(..))) " +
+            "&& args(bundle)")
+    public void evictDeletedResource(Bundle<?> bundle) {
+        evictResourceEntries(bundle);
+    }
+
+    @AfterReturning(pointcut = "execution(* eu.einfracentral.registry.manager.EventManager.add(..))" +
+            "|| execution(* eu.einfracentral.registry.manager.EventManager.update(..))" +
+            "|| execution(* eu.einfracentral.registry.manager.EventManager.set*(..))",
+            returning = "event")
+    public void evictEvent(Event event) {
+        cacheInvalidationService.evictEvent(event);
+    }
+
+    @AfterReturning(pointcut = "target(eu.einfracentral.registry.manager.EventManager) " +
+            "&& execution(* delete(..)) && args(event)")
+    public void evictDeletedEvent(Event event) {
+        cacheInvalidationService.evictEvent(event);
+    }
+
+    @AfterReturning(pointcut = "execution(* eu.einfracentral.registry.manager.EventManager.deleteEvents(..)) " +
+            "&& args(events)")
+    public void evictDeletedEvents(List<Event> events) {
+        for (Event event : events) {
+            cacheInvalidationService.evictEvent(event);
+        }
+    }
+
+    @AfterReturning(pointcut = "execution(* eu.einfracentral.registry.manager.EventManager.addScheduledEvents(..))",
+            returning = "events")
+    public void evictAddedEvents(List<Event> events) {
+        cacheInvalidationService.evictEvents(events);
+    }
+
+    private void evictResourceEntries(Object bundle) {
+        if (bundle instanceof ServiceBundle && ((ServiceBundle) bundle).getService() != null) {
+            Service service = ((ServiceBundle) bundle).getService();
+            cacheInvalidationService.evictResource(service.getId(), service.getResourceOrganisation());
+        } else if (bundle instanceof TrainingResourceBundle && ((TrainingResourceBundle) bundle).getTrainingResource() != null) {
+            TrainingResource trainingResource = ((TrainingResourceBundle) bundle).getTrainingResource();
+            cacheInvalidationService.evictResource(trainingResource.getId(), trainingResource.getResourceOrganisation());
+        } else if (bundle instanceof InteroperabilityRecordBundle && ((InteroperabilityRecordBundle) bundle).getInteroperabilityRecord() != null) {
+            InteroperabilityRecord interoperabilityRecord = ((InteroperabilityRecordBundle) bundle).getInteroperabilityRecord();
+            cacheInvalidationService.evictResource(interoperabilityRecord.getId(), interoperabilityRecord.getProviderId());
+        } else if (bundle != null) {
+            logger.debug("No cache entries to evict for '{}'", bundle.getClass().getSimpleName());
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package eu.einfracentral.registry.manager.aspects;
+
+import eu.einfracentral.domain.Identifiable;
+import eu.einfracentral.utils.FacetLabelService;
+import eu.openminted.registry.core.service.AbstractGenericService;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+
+/**
+ * Keeps the {@link FacetLabelService} id/name index up to date with the write operations of the managers.
+ */
+@Aspect
+@Component
+public class FacetLabelManagementAspect {
+
+    private static final Logger logger = LogManager.getLogger(FacetLabelManagementAspect.class);
+
+    private final FacetLabelService facetLabelService;
+
+    public FacetLabelManagementAspect(FacetLabelService facetLabelService) {
+        this.facetLabelService = facetLabelService;
+    }
+
+    @AfterReturning(pointcut = "within(eu.einfracentral.registry.manager..*) && (" +
+            "execution(* eu.openminted.registry.core.service.AbstractGenericService+.add*(..))" +
+            "|| execution(* eu.openminted.registry.core.service.AbstractGenericService+.update*(..))" +
+            "|| execution(* eu.openminted.registry.core.service.AbstractGenericService+.transformToActive(..)))",
+            returning = "resource")
+    public void updateFacetLabels(JoinPoint joinPoint, Object resource) {
+        String resourceType = getResourceType(joinPoint);
+        try {
+            if (resource != null) {
+                facetLabelService.updateLabel(resourceType, resource);
+            } else if (joinPoint.getArgs().length > 0 && joinPoint.getArgs()[0] instanceof Collection) { // e.g. addAll
+                for (Object item : (Collection<?>) joinPoint.getArgs()[0]) {
+                    facetLabelService.updateLabel(resourceType, item);
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Could not update facet label after '{}'", joinPoint.getSignature().toShortString(), e);
+        }
+    }
+
+    @AfterReturning(pointcut = "within(eu.einfracentral.registry.manager..*) " +
+            "&& execution(* eu.openminted.registry.core.service.AbstractGenericService+.delete(..)) " +
+            "&& args(resource)", argNames = "joinPoint,resource")
+    public void removeFacetLabel(JoinPoint joinPoint, Identifiable resource) {
+        try {
+            facetLabelService.removeLabel(getResourceType(joinPoint), resource.getId());
+        } catch (RuntimeException e) {
+            logger.warn("Could not remove facet label after '{}'", joinPoint.getSignature().toShortString(), e);
+        }
+    }
+
+    @AfterReturning(pointcut = "(execution(* eu.einfracentral.manager.GenericManager.add(..))" +
+            "|| execution(* eu.einfracentral.manager.GenericManager.update(..))) " +
+            "&& args(resourceTypeName,..)", returning = "resource", argNames = "resourceTypeName,resource")
+    public void updateGenericFacetLabel(String resourceTypeName, Object resource) {
+        try {
+            facetLabelService.updateLabel(resourceTypeName, resource);
+        } catch (RuntimeException e) {
+            logger.warn("Could not update facet label of '{}' resource", resourceTypeName, e);
+        }
+    }
+
+    @AfterReturning(pointcut = "execution(* eu.einfracentral.manager.GenericManager.delete(..)) " +
+            "&& args(resourceTypeName, id)", argNames = "resourceTypeName,id")
+    public void removeGenericFacetLabel(String resourceTypeName, String id) {
+        try {
+            facetLabelService.removeLabel(resourceTypeName, id);
+        } catch (RuntimeException e) {
+            logger.warn("Could not remove facet label of '{}' resource", resourceTypeName, e);
+        }
+    }
+
+    private String getResourceType(JoinPoint joinPoint) {
+        Object target = joinPoint.getTarget();
+        if (target instanceof AbstractGenericService) {
+            return ((AbstractGenericService<?>) target).getResourceType();
+        }
+        return null;
+    }
+}
@@ -1,5 +1,6 @@
 package eu.einfracentral.registry.manager.aspects;
 
+import eu.einfracentral.config.async.OrderedTaskExecutor;
 import eu.einfracentral.domain.*;
 import eu.einfracentral.exception.ResourceException;
 import eu.einfracentral.exception.ResourceNotFoundException;
@@ -13,8 +14,8 @@ import org.aspectj.lang.annotation.After;
 import org.aspectj.lang.annotation.AfterReturning;
 import org.aspectj.lang.annotation.Aspect;
 import eu.einfracentral.utils.JmsService;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Lazy;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 
 @Aspect
@@ -25,99 +26,109 @@ public class JMSManagementAspect {
     private final JmsService jmsService;
     private final PublicHelpdeskManager publicHelpdeskManager;
     private final PublicMonitoringManager publicMonitoringManager;
+    private final OrderedTaskExecutor jmsExecutor;
+    private final OrderedTaskExecutor publicCopyExecutor;
 
     public JMSManagementAspect(JmsService jmsService, @Lazy PublicHelpdeskManager publicHelpdeskManager,
-                               @Lazy PublicMonitoringManager publicMonitoringManager) {
+                               @Lazy PublicMonitoringManager publicMonitoringManager,
+                               @Qualifier("jmsExecutor") OrderedTaskExecutor jmsExecutor,
+                               @Qualifier("publicCopyExecutor") OrderedTaskExecutor publicCopyExecutor) {
         this.jmsService = jmsService;
         this.publicHelpdeskManager = publicHelpdeskManager;
         this.publicMonitoringManager = publicMonitoringManager;
+        this.jmsExecutor = jmsExecutor;
+        this.publicCopyExecutor = publicCopyExecutor;
     }
 
-    @Async
     @AfterReturning(pointcut = "(execution(* eu.einfracentral.registry.manager.CatalogueManager.add(..)))" +
             "|| (execution(* eu.einfracentral.registry.manager.CatalogueManager.verifyCatalogue(..)))",
             returning = "catalogueBundle")
     public void sendJMSForCatalogueCreation(CatalogueBundle catalogueBundle) {
-        if (catalogueBundle.getStatus().equals("approved catalogue") && catalogueBundle.isActive()) {
-            jmsService.convertAndSendTopic("catalogue.create", catalogueBundle);
-        }
+        jmsExecutor.tryExecute(catalogueBundle.getId(), () -> {
+            if (catalogueBundle.getStatus().equals("approved catalogue") && catalogueBundle.isActive()) {
+                jmsService.convertAndSendTopic("catalogue.create", catalogueBundle);
+            }
+        });
     }
 
-    @Async
     @AfterReturning(pointcut = "(execution(* eu.einfracentral.registry.manager.CatalogueManager.update(..)))" +
             "|| (execution(* eu.einfracentral.registry.manager.CatalogueManager.update(..)))" +
             "|| (execution(* eu.einfracentral.registry.manager.CatalogueManager.publish(..)))" +
             "|| (execution(* eu.einfracentral.registry.manager.CatalogueManager.verifyCatalogue(..)))",
             returning = "catalogueBundle")
     public void sendJMSForCatalogueUpdate(CatalogueBundle catalogueBundle) {
-        if (catalogueBundle.getStatus().equals("approved catalogue")) {
-            jmsService.convertAndSendTopic("catalogue.update", catalogueBundle);
-        }
+        jmsExecutor.tryExecute(catalogueBundle.getId(), () -> {
+            if (catalogueBundle.getStatus().equals("approved catalogue")) {
+                jmsService.convertAndSendTopic("catalogue.update", catalogueBundle);
+            }
+        });
     }
 
-    @Async
     @After("execution(* eu.einfracentral.registry.manager.CatalogueManager.delete(..)))")
     public void sendJMSForCatalogueDeletion(JoinPoint joinPoint) {
-        jmsService.convertAndSendTopic("catalogue.delete", joinPoint.getArgs()[0]);
+        CatalogueBundle catalogueBundle = (CatalogueBundle) joinPoint.getArgs()[0];
+        jmsExecutor.tryExecute(catalogueBundle.getId(), () -> jmsService.convertAndSendTopic("catalogue.delete", catalogueBundle));
     }
 
-    @Async
     @AfterReturning(pointcut = "(execution(* eu.einfracentral.registry.manager.HelpdeskManager.add(..)))",
             returning = "helpdeskBundle")
     public void addHelpdeskAsPublic(final HelpdeskBundle helpdeskBundle) {
-        try {
-            publicHelpdeskManager.get(String.format("%s.%s", helpdeskBundle.getCatalogueId(), helpdeskBundle.getId()));
-        } catch (ResourceException | ResourceNotFoundException e) {
-            publicHelpdeskManager.add(ObjectUtils.clone(helpdeskBundle), null);
-        }
+        publicCopyExecutor.tryExecute(helpdeskBundle.getId(), () -> {
+            try {
+                publicHelpdeskManager.get(String.format("%s.%s", helpdeskBundle.getCatalogueId(), helpdeskBundle.getId()));
+            } catch (ResourceException | ResourceNotFoundException e) {
+                publicHelpdeskManager.add(ObjectUtils.clone(helpdeskBundle), null);
+            }
+        });
     }
 
-    @Async
     @AfterReturning(pointcut = "execution(* eu.einfracentral.registry.manager.HelpdeskManager.update(..)) " +
             "&& args(helpdeskBundle,..)", returning = "ret", argNames = "helpdeskBundle,ret")
     public void updatePublicHelpdesk(HelpdeskBundle helpdeskBundle, HelpdeskBundle ret) {
-        try {
-            if (!ret.equals(helpdeskBundle)) {
-                publicHelpdeskManager.update(ObjectUtils.clone(helpdeskBundle), null);
+        publicCopyExecutor.tryExecute(ret.getId(), () -> {
+            try {
+                if (!ret.equals(helpdeskBundle)) {
+                    publicHelpdeskManager.update(ObjectUtils.clone(helpdeskBundle), null);
+                }
+            } catch (ResourceException | ResourceNotFoundException ignore) {
             }
-        } catch (ResourceException | ResourceNotFoundException ignore) {
-        }
+        });
     }
 
-    @Async
     @After("execution(* eu.einfracentral.registry.manager.HelpdeskManager.delete(..)))")
     public void deletePublicHelpdesk(JoinPoint joinPoint) {
         HelpdeskBundle helpdeskBundle = (HelpdeskBundle) joinPoint.getArgs()[0];
-        publicHelpdeskManager.delete(helpdeskBundle);
+        publicCopyExecutor.tryExecute(helpdeskBundle.getId(), () -> publicHelpdeskManager.delete(helpdeskBundle));
     }
 
-    @Async
     @AfterReturning(pointcut = "(execution(* eu.einfracentral.registry.manager.MonitoringManager.add(..)))",
             returning = "monitoringBundle")
     public void addMonitoringAsPublic(final MonitoringBundle monitoringBundle) {
-        try {
-            publicMonitoringManager.get(String.format("%s.%s", monitoringBundle.getCatalogueId(), monitoringBundle.getId()));
-        } catch (ResourceException | ResourceNotFoundException e) {
-            publicMonitoringManager.add(ObjectUtils.clone(monitoringBundle), null);
-        }
+        publicCopyExecutor.tryExecute(monitoringBundle.getId(), () -> {
+            try {
+                publicMonitoringManager.get(String.format("%s.%s", monitoringBundle.getCatalogueId(), monitoringBundle.getId()));
+            } catch (ResourceException | ResourceNotFoundException e) {
+                publicMonitoringManager.add(ObjectUtils.clone(monitoringBundle), null);
+            }
+        });
     }
 
-    @Async
     @AfterReturning(pointcut = "execution(* eu.einfracentral.registry.manager.MonitoringManager.update(..)) " +
             "&& args(monitoringBundle,..)", returning = "ret", argNames = "monitoringBundle,ret")
     public void updatePublicMonitoring(MonitoringBundle monitoringBundle, MonitoringBundle ret) {
-        try {
-            if (!ret.equals(monitoringBundle)) {
-                publicMonitoringManager.update(ObjectUtils.clone(monitoringBundle), null);
+        publicCopyExecutor.tryExecute(ret.getId(), () -> {
+            try {
+                if (!ret.equals(monitoringBundle)) {
+                    publicMonitoringManager.update(ObjectUtils.clone(monitoringBundle), null);
+                }
+            } catch (ResourceException | ResourceNotFoundException ignore) {
             }
-        } catch (ResourceException | ResourceNotFoundException ignore) {
-        }
+        });
     }
 
-    @Async
     @After("execution(* eu.einfracentral.registry.manager.MonitoringManager.delete(..)))")
     public void deletePublicMonitoring(JoinPoint joinPoint) {
         MonitoringBundle monitoringBundle = (MonitoringBundle) joinPoint.getArgs()[0];
-        publicMonitoringManager.delete(monitoringBundle);
+        publicCopyExecutor.tryExecute(monitoringBundle.getId(), () -> publicMonitoringManager.delete(monitoringBundle));
     }
 }
@@ -1,5 +1,6 @@
 package eu.einfracentral.registry.manager.aspects;
 
+import eu.einfracentral.config.async.OrderedTaskExecutor;
 import eu.einfracentral.domain.*;
 import eu.einfracentral.domain.interoperabilityRecord.configurationTemplates.ConfigurationTemplateInstanceBundle;
 import eu.einfracentral.exception.ResourceException;
@@ -16,14 +17,12 @@ import org.aspectj.lang.annotation.After;
 import org.aspectj.lang.annotation.AfterReturning;
 import org.aspectj.lang.annotation.Aspect;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
 
-import static eu.einfracentral.config.CacheConfig.CACHE_PROVIDERS;
-
 @Aspect
 @Component
 public class ProviderManagementAspect {
@@ -42,6 +41,7 @@ public class ProviderManagementAspect {
     private final RegistrationMailService registrationMailService;
     private final SecurityService securityService;
     private final PublicResourceInteroperabilityRecordManager publicResourceInteroperabilityRecordManager;
+    private final OrderedTaskExecutor publicCopyExecutor;
     @Value("${project.catalogue.name}")
     private String catalogueName;
 
@@ -57,7 +57,8 @@ public class ProviderManagementAspect {
                                     PublicResourceInteroperabilityRecordManager publicResourceInteroperabilityRecordManager,
                                     PublicConfigurationTemplateImplementationManager publicConfigurationTemplateImplementationManager,
                                     RegistrationMailService registrationMailService,
-                                    SecurityService securityService) {
+                                    SecurityService securityService,
+                                    @Qualifier("publicCopyExecutor") OrderedTaskExecutor publicCopyExecutor) {
         this.providerService = providerService;
         this.serviceBundleService = serviceBundleService;
         this.trainingResourceService = trainingResourceService;
@@ -70,6 +71,7 @@ public class ProviderManagementAspect {
         this.publicConfigurationTemplateImplementationManager = publicConfigurationTemplateImplementationManager;
         this.registrationMailService = registrationMailService;
         this.securityService = securityService;
+        this.publicCopyExecutor = publicCopyExecutor;
     }
 
     @AfterReturning(pointcut = "execution(* eu.einfracentral.registry.manager.PendingServiceManager.transformToActive(..)) " +
@@ -125,61 +127,66 @@ public class ProviderManagementAspect {
         registrationMailService.sendProviderMails(providerBundle, "trainingResourceManager");
     }
 
-    @Async
     @AfterReturning(pointcut = "execution(* eu.einfracentral.registry.manager.ProviderManager.add(..))" +
             "|| execution(* eu.einfracentral.registry.manager.ProviderManager.verifyProvider(..))",
             returning = "providerBundle")
     public void addProviderAsPublic(final ProviderBundle providerBundle) {
-        if (providerBundle.getStatus().equals("approved provider") && providerBundle.isActive()) {
-            try {
-                publicProviderManager.get(String.format("%s.%s", providerBundle.getProvider().getCatalogueId(), providerBundle.getId()));
-            } catch (ResourceException | ResourceNotFoundException e) {
-                publicProviderManager.add(ObjectUtils.clone(providerBundle), null);
+        publicCopyExecutor.tryExecute(providerBundle.getId(), () -> {
+            if (providerBundle.getStatus().equals("approved provider") && providerBundle.isActive()) {
+                try {
+                    publicProviderManager.get(String.format("%s.%s", providerBundle.getProvider().getCatalogueId(), providerBundle.getId()));
+                } catch (ResourceException | ResourceNotFoundException e) {
+                    publicProviderManager.add(ObjectUtils.clone(providerBundle), null);
+                }
             }
-        }
+        });
     }
 
-    @Async
     @AfterReturning(pointcut = "execution(* eu.einfracentral.registry.manager.ProviderManager.update(..)) " +
             "&& args(providerBundle,..)", returning = "ret", argNames = "providerBundle,ret")
     public void updatePublicProvider(ProviderBundle providerBundle, ProviderBundle ret) {
-        try {
-            if (!ret.equals(providerBundle)) {
-                publicProviderManager.update(ObjectUtils.clone(ret), null);
+        publicCopyExecutor.tryExecute(ret.getId(), () -> {
+            try {
+                if (!ret.equals(providerBundle)) {
+                    publicProviderManager.update(ObjectUtils.clone(ret), null);
+                }
+            } catch (ResourceException | ResourceNotFoundException ignore) {
             }
-        } catch (ResourceException | ResourceNotFoundException ignore) {
-        }
+        });
     }
 
-    @Async
     @AfterReturning(pointcut = "execution(* eu.einfracentral.registry.manager.ProviderManager.publish(..))" +
             "|| execution(* eu.einfracentral.registry.manager.ProviderManager.verifyProvider(..))" +
             "|| execution(* eu.einfracentral.registry.manager.ProviderManager.suspend(..))" +
             "|| execution(* eu.einfracentral.registry.manager.ProviderManager.auditProvider(..))",
             returning = "providerBundle")
     public void updatePublicProvider(final ProviderBundle providerBundle) {
-        try {
-            publicProviderManager.update(ObjectUtils.clone(providerBundle), null);
-        } catch (ResourceException | ResourceNotFoundException ignore) {
-        }
+        publicCopyExecutor.tryExecute(providerBundle.getId(), () -> {
+            try {
+                publicProviderManager.update(ObjectUtils.clone(providerBundle), null);
+            } catch (ResourceException | ResourceNotFoundException ignore) {
+            }
+        });
     }
 
-    @Async
     @AfterReturning(pointcut = "execution(* eu.einfracentral.registry.manager.ServiceBundleManager.verifyResource(..))",
             returning = "serviceBundle")
     public void updatePublicProviderTemplateStatus(final ServiceBundle serviceBundle) {
-        ProviderBundle providerBundle = providerService.get(serviceBundle.getService().getResourceOrganisation());
-        checkIfPublicProviderExistsOrElseThrow(providerBundle);
-        publicProviderManager.update(providerBundle, null);
+        publicCopyExecutor.tryExecute(serviceBundle.getService().getResourceOrganisation(), () -> {
+            ProviderBundle providerBundle = providerService.get(serviceBundle.getService().getResourceOrganisation());
+            checkIfPublicProviderExistsOrElseThrow(providerBundle);
+            publicProviderManager.update(providerBundle, null);
+        });
     }
 
-    @Async
     @AfterReturning(pointcut = "execution(* eu.einfracentral.registry.manager.TrainingResourceManager.verifyResource(..))",
             returning = "trainingResourceBundle")
     public void updatePublicProviderTemplateStatus(final TrainingResourceBundle trainingResourceBundle) {
-        ProviderBundle providerBundle = providerService.get(trainingResourceBundle.getTrainingResource().getResourceOrganisation());
-        checkIfPublicProviderExistsOrElseThrow(providerBundle);
-        publicProviderManager.update(providerBundle, null);
+        publicCopyExecutor.tryExecute(trainingResourceBundle.getTrainingResource().getResourceOrganisation(), () -> {
+            ProviderBundle providerBundle = providerService.get(trainingResourceBundle.getTrainingResource().getResourceOrganisation());
+            checkIfPublicProviderExistsOrElseThrow(providerBundle);
+            publicProviderManager.update(providerBundle, null);
+        });
     }
 
     private void checkIfPublicProviderExistsOrElseThrow(ProviderBundle providerBundle) {
@@ -191,153 +198,158 @@ public class ProviderManagementAspect {
         }
     }
 
-    @Async
     @After("execution(* eu.einfracentral.registry.manager.ProviderManager.delete(..))")
     public void deletePublicProvider(JoinPoint joinPoint) {
         ProviderBundle providerBundle = (ProviderBundle) joinPoint.getArgs()[0];
-        publicProviderManager.delete(providerBundle);
+        publicCopyExecutor.tryExecute(providerBundle.getId(), () -> publicProviderManager.delete(providerBundle));
     }
 
-    @Async
     @AfterReturning(pointcut = "execution(* eu.einfracentral.registry.manager.ServiceBundleManager.addResource(..))" +
             "|| execution(* eu.einfracentral.registry.manager.ServiceBundleManager.verifyResource(..))" +
             "|| execution(* eu.einfracentral.registry.manager.PendingServiceManager.transformToActive(..))" +
             "|| execution(* eu.einfracentral.registry.manager.ServiceBundleManager.changeProvider(..))",
             returning = "serviceBundle")
     public void addResourceAsPublic(final ServiceBundle serviceBundle) {
-        if (serviceBundle.getStatus().equals("approved resource") && serviceBundle.isActive()) {
-            try {
-                publicServiceManager.get(String.format("%s.%s", serviceBundle.getService().getCatalogueId(), serviceBundle.getId()));
-            } catch (ResourceException | ResourceNotFoundException e) {
-                publicServiceManager.add(ObjectUtils.clone(serviceBundle), null);
+        publicCopyExecutor.tryExecute(serviceBundle.getId(), () -> {
+            if (serviceBundle.getStatus().equals("approved resource") && serviceBundle.isActive()) {
+                try {
+                    publicServiceManager.get(String.format("%s.%s", serviceBundle.getService().getCatalogueId(), serviceBundle.getId()));
+                } catch (ResourceException | ResourceNotFoundException e) {
+                    publicServiceManager.add(ObjectUtils.clone(serviceBundle), null);
+                }
             }
-        }
+        });
     }
 
     //TODO: ADD PendingTrainingResourceManager execution
-    @Async
     @AfterReturning(pointcut = "execution(* eu.einfracentral.registry.manager.TrainingResourceManager.addResource(..))" +
             "|| execution(* eu.einfracentral.registry.manager.TrainingResourceManager.verifyResource(..))" +
             "|| execution(* eu.einfracentral.registry.manager.TrainingResourceManager.changeProvider(..))",
             returning = "trainingResourceBundle")
     public void addResourceAsPublic(final TrainingResourceBundle trainingResourceBundle) {
-        if (trainingResourceBundle.getStatus().equals("approved resource") && trainingResourceBundle.isActive()) {
-            try {
-                publicTrainingResourceManager.get(String.format("%s.%s", trainingResourceBundle.getTrainingResource().getCatalogueId(), trainingResourceBundle.getId()));
-            } catch (ResourceException | ResourceNotFoundException e) {
-                publicTrainingResourceManager.add(ObjectUtils.clone(trainingResourceBundle), null);
+        publicCopyExecutor.tryExecute(trainingResourceBundle.getId(), () -> {
+            if (trainingResourceBundle.getStatus().equals("approved resource") && trainingResourceBundle.isActive()) {
+                try {
+                    publicTrainingResourceManager.get(String.format("%s.%s", trainingResourceBundle.getTrainingResource().getCatalogueId(), trainingResourceBundle.getId()));
+                } catch (ResourceException | ResourceNotFoundException e) {
+                    publicTrainingResourceManager.add(ObjectUtils.clone(trainingResourceBundle), null);
+                }
             }
-        }
+        });
     }
 
-    @Async
     @AfterReturning(pointcut = "execution(* eu.einfracentral.registry.manager.InteroperabilityRecordManager.add(..))" +
             "|| execution(* eu.einfracentral.registry.manager.InteroperabilityRecordManager.verifyResource(..))",
             returning = "interoperabilityRecordBundle")
     public void addResourceAsPublic(final InteroperabilityRecordBundle interoperabilityRecordBundle) {
-        if (interoperabilityRecordBundle.getStatus().equals("approved interoperability record") && interoperabilityRecordBundle.isActive()) {
-            try {
-                publicInteroperabilityRecordManager.get(String.format("%s.%s", interoperabilityRecordBundle.getInteroperabilityRecord().getCatalogueId(), interoperabilityRecordBundle.getId()));
-            } catch (ResourceException | ResourceNotFoundException e) {
-                publicInteroperabilityRecordManager.add(ObjectUtils.clone(interoperabilityRecordBundle), null);
+        publicCopyExecutor.tryExecute(interoperabilityRecordBundle.getId(), () -> {
+            if (interoperabilityRecordBundle.getStatus().equals("approved interoperability record") && interoperabilityRecordBundle.isActive()) {
+                try {
+                    publicInteroperabilityRecordManager.get(String.format("%s.%s", interoperabilityRecordBundle.getInteroperabilityRecord().getCatalogueId(), interoperabilityRecordBundle.getId()));
+                } catch (ResourceException | ResourceNotFoundException e) {
+                    publicInteroperabilityRecordManager.add(ObjectUtils.clone(interoperabilityRecordBundle), null);
+                }
             }
-        }
+        });
     }
 
-    @Async
     @AfterReturning(pointcut = "execution(* eu.einfracentral.registry.manager.ServiceBundleManager.updateResource(..)) " +
             "&& args(serviceBundle,..)", returning = "ret", argNames = "serviceBundle,ret")
     public void updatePublicResource(ServiceBundle serviceBundle, ServiceBundle ret) {
-        try {
-            if (!ret.equals(serviceBundle)) {
-                publicServiceManager.update(ObjectUtils.clone(ret), null);
+        publicCopyExecutor.tryExecute(ret.getId(), () -> {
+            try {
+                if (!ret.equals(serviceBundle)) {
+                    publicServiceManager.update(ObjectUtils.clone(ret), null);
+                }
+            } catch (ResourceException | ResourceNotFoundException ignore) {
             }
-        } catch (ResourceException | ResourceNotFoundException ignore) {
-        }
+        });
     }
 
-    @Async
     @AfterReturning(pointcut = "execution(* eu.einfracentral.registry.manager.ServiceBundleManager.publish(..))" +
             "|| execution(* eu.einfracentral.registry.manager.ServiceBundleManager.verifyResource(..))" +
             "|| execution(* eu.einfracentral.registry.manager.ServiceBundleManager.suspend(..))" +
             "|| execution(* eu.einfracentral.registry.manager.ServiceBundleManager.auditResource(..))",
             returning = "serviceBundle")
     public void updatePublicResource(final ServiceBundle serviceBundle) {
-        try {
-            publicServiceManager.update(ObjectUtils.clone(serviceBundle), null);
-        } catch (ResourceException | ResourceNotFoundException ignore) {
-        }
+        publicCopyExecutor.tryExecute(serviceBundle.getId(), () -> {
+            try {
+                publicServiceManager.update(ObjectUtils.clone(serviceBundle), null);
+            } catch (ResourceException | ResourceNotFoundException ignore) {
+            }
+        });
     }
 
-    @Async
     @AfterReturning(pointcut = "execution(* eu.einfracentral.registry.manager.TrainingResourceManager.updateResource(..)) " +
             "&& args(trainingResourceBundle,..)", returning = "ret", argNames = "trainingResourceBundle,ret")
     public void updatePublicResource(TrainingResourceBundle trainingResourceBundle, TrainingResourceBundle ret) {
-        try {
-            if (!ret.equals(trainingResourceBundle)) {
-                publicTrainingResourceManager.update(ObjectUtils.clone(ret), null);
+        publicCopyExecutor.tryExecute(ret.getId(), () -> {
+            try {
+                if (!ret.equals(trainingResourceBundle)) {
+                    publicTrainingResourceManager.update(ObjectUtils.clone(ret), null);
+                }
+            } catch (ResourceException | ResourceNotFoundException ignore) {
             }
-        } catch (ResourceException | ResourceNotFoundException ignore) {
-        }
+        });
     }
 
-    @Async
     @AfterReturning(pointcut = "execution(* eu.einfracentral.registry.manager.TrainingResourceManager.publish(..))" +
             "|| execution(* eu.einfracentral.registry.manager.TrainingResourceManager.verifyResource(..))" +
             "|| execution(* eu.einfracentral.registry.manager.TrainingResourceManager.suspend(..))" +
             "|| execution(* eu.einfracentral.registry.manager.TrainingResourceManager.auditResource(..))",
             returning = "trainingResourceBundle")
     public void updatePublicResource(final TrainingResourceBundle trainingResourceBundle) {
-        try {
-            publicTrainingResourceManager.update(ObjectUtils.clone(trainingResourceBundle), null);
-        } catch (ResourceException | ResourceNotFoundException ignore) {
-        }
+        publicCopyExecutor.tryExecute(trainingResourceBundle.getId(), () -> {
+            try {
+                publicTrainingResourceManager.update(ObjectUtils.clone(trainingResourceBundle), null);
+            } catch (ResourceException | ResourceNotFoundException ignore) {
+            }
+        });
     }
 
-    @Async
     @AfterReturning(pointcut = "execution(* eu.einfracentral.registry.manager.InteroperabilityRecordManager.update(..)) " +
             "&& args(interoperabilityRecordBundle,..)", returning = "ret", argNames = "interoperabilityRecordBundle,ret")
     public void updatePublicResource(InteroperabilityRecordBundle interoperabilityRecordBundle, InteroperabilityRecordBundle ret) {
-        try {
-            if (!ret.equals(interoperabilityRecordBundle)) {
-                publicInteroperabilityRecordManager.update(ObjectUtils.clone(ret), null);
+        publicCopyExecutor.tryExecute(ret.getId(), () -> {
+            try {
+                if (!ret.equals(interoperabilityRecordBundle)) {
+                    publicInteroperabilityRecordManager.update(ObjectUtils.clone(ret), null);
+                }
+            } catch (ResourceException | ResourceNotFoundException ignore) {
             }
-        } catch (ResourceException | ResourceNotFoundException ignore) {
-        }
+        });
     }
 
-    @Async
     @AfterReturning(pointcut = "execution(* eu.einfracentral.registry.manager.InteroperabilityRecordManager.publish(..))" +
             "|| execution(* eu.einfracentral.registry.manager.InteroperabilityRecordManager.verifyResource(..))" +
             "|| execution(* eu.einfracentral.registry.manager.InteroperabilityRecordManager.suspend(..))" +
             "|| execution(* eu.einfracentral.registry.manager.InteroperabilityRecordManager.auditResource(..))",
             returning = "interoperabilityRecordBundle")
     public void updatePublicResource(final InteroperabilityRecordBundle interoperabilityRecordBundle) {
-        try {
-            publicInteroperabilityRecordManager.update(ObjectUtils.clone(interoperabilityRecordBundle), null);
-        } catch (ResourceException | ResourceNotFoundException ignore) {
-        }
+        publicCopyExecutor.tryExecute(interoperabilityRecordBundle.getId(), () -> {
+            try {
+                publicInteroperabilityRecordManager.update(ObjectUtils.clone(interoperabilityRecordBundle), null);
+            } catch (ResourceException | ResourceNotFoundException ignore) {
+            }
+        });
     }
 
-    @Async
     @After("execution(* eu.einfracentral.registry.manager.ServiceBundleManager.delete(..))")
     public void deletePublicService(JoinPoint joinPoint) {
         ServiceBundle serviceBundle = (ServiceBundle) joinPoint.getArgs()[0];
-        publicServiceManager.delete(serviceBundle);
+        publicCopyExecutor.tryExecute(serviceBundle.getId(), () -> publicServiceManager.delete(serviceBundle));
     }
 
-    @Async
     @After("execution(* eu.einfracentral.registry.manager.TrainingResourceManager.delete(..))")
     public void deletePublicTrainingResource(JoinPoint joinPoint) {
         TrainingResourceBundle trainingResourceBundle = (TrainingResourceBundle) joinPoint.getArgs()[0];
-        publicTrainingResourceManager.delete(trainingResourceBundle);
+        publicCopyExecutor.tryExecute(trainingResourceBundle.getId(), () -> publicTrainingResourceManager.delete(trainingResourceBundle));
     }
 
-    @Async
     @After("execution(* eu.einfracentral.registry.manager.InteroperabilityRecordManager.delete(..))")
     public void deletePublicInteroperabilityRecord(JoinPoint joinPoint) {
         InteroperabilityRecordBundle interoperabilityRecordBundle = (InteroperabilityRecordBundle) joinPoint.getArgs()[0];
-        publicInteroperabilityRecordManager.delete(interoperabilityRecordBundle);
+        publicCopyExecutor.tryExecute(interoperabilityRecordBundle.getId(), () -> publicInteroperabilityRecordManager.delete(interoperabilityRecordBundle));
     }
 
     //TODO: Probably no needed
@@ -350,7 +362,6 @@ public class ProviderManagementAspect {
      * @param serviceBundle
      */
     @Async
-    @CacheEvict(value = CACHE_PROVIDERS, allEntries = true)
     public void updateServiceProviderStates(ServiceBundle serviceBundle) {
         if (serviceBundle.getService().getCatalogueId().equals(catalogueName)) {
             try {
@@ -367,7 +378,6 @@ public class ProviderManagementAspect {
     }
 
     @Async
-    @CacheEvict(value = CACHE_PROVIDERS, allEntries = true)
     public void updateTrainingResourceProviderStates(TrainingResourceBundle trainingResourceBundle) {
         if (trainingResourceBundle.getTrainingResource().getCatalogueId().equals(catalogueName)) {
             try {
@@ -383,109 +393,113 @@ public class ProviderManagementAspect {
         }
     }
 
-    @Async
     @AfterReturning(pointcut = "execution(* eu.einfracentral.registry.manager.DatasourceManager.add(..))" +
             "|| execution(* eu.einfracentral.registry.manager.DatasourceManager.verifyDatasource(..))",
             returning = "datasourceBundle")
     public void addDatasourceAsPublic(final DatasourceBundle datasourceBundle) {
-        if (datasourceBundle.getStatus().equals("approved datasource") && datasourceBundle.isActive()) {
-            try {
-                publicDatasourceManager.get(String.format("%s.%s", datasourceBundle.getDatasource().getCatalogueId(), datasourceBundle.getId()));
-            } catch (ResourceException | ResourceNotFoundException e) {
-                publicDatasourceManager.add(ObjectUtils.clone(datasourceBundle), null);
+        publicCopyExecutor.tryExecute(datasourceBundle.getId(), () -> {
+            if (datasourceBundle.getStatus().equals("approved datasource") && datasourceBundle.isActive()) {
+                try {
+                    publicDatasourceManager.get(String.format("%s.%s", datasourceBundle.getDatasource().getCatalogueId(), datasourceBundle.getId()));
+                } catch (ResourceException | ResourceNotFoundException e) {
+                    publicDatasourceManager.add(ObjectUtils.clone(datasourceBundle), null);
+                }
             }
-        }
+        });
     }
 
-    @Async
     @AfterReturning(pointcut = "execution(* eu.einfracentral.registry.manager.DatasourceManager.update(..)) " +
             "&& args(datasourceBundle,..)", returning = "ret", argNames = "datasourceBundle,ret")
     public void updatePublicResource(DatasourceBundle datasourceBundle, DatasourceBundle ret) {
-        try {
-            if (!ret.equals(datasourceBundle)) {
-                publicDatasourceManager.update(ObjectUtils.clone(ret), null);
+        publicCopyExecutor.tryExecute(ret.getId(), () -> {
+            try {
+                if (!ret.equals(datasourceBundle)) {
+                    publicDatasourceManager.update(ObjectUtils.clone(ret), null);
+                }
+            } catch (ResourceException | ResourceNotFoundException ignore) {
             }
-        } catch (ResourceException | ResourceNotFoundException ignore) {
-        }
+        });
     }
 
-    @Async
     @AfterReturning(pointcut = "execution(* eu.einfracentral.registry.manager.DatasourceManager.verifyDatasource(..))",
             returning = "datasourceBundle")
     public void updatePublicDatasource(final DatasourceBundle datasourceBundle) {
-        try {
-            publicDatasourceManager.update(ObjectUtils.clone(datasourceBundle), null);
-        } catch (ResourceException | ResourceNotFoundException ignore) {
-        }
+        publicCopyExecutor.tryExecute(datasourceBundle.getId(), () -> {
+            try {
+                publicDatasourceManager.update(ObjectUtils.clone(datasourceBundle), null);
+            } catch (ResourceException | ResourceNotFoundException ignore) {
+            }
+        });
     }
 
-    @Async
     @After("execution(* eu.einfracentral.registry.manager.DatasourceManager.delete(..))")
     public void deletePublicDatasource(JoinPoint joinPoint) {
         DatasourceBundle datasourceBundle = (DatasourceBundle) joinPoint.getArgs()[0];
-        publicDatasourceManager.delete(datasourceBundle);
+        publicCopyExecutor.tryExecute(datasourceBundle.getId(), () -> publicDatasourceManager.delete(datasourceBundle));
     }
 
-    @Async
     @AfterReturning(pointcut = "execution(* eu.einfracentral.registry.manager.ResourceInteroperabilityRecordManager.add(..))",
             returning = "resourceInteroperabilityRecordBundle")
     public void addResourceInteroperabilityRecordAsPublic(final ResourceInteroperabilityRecordBundle resourceInteroperabilityRecordBundle) {
-        // TODO: check Resource states (publish if only approved/active)
-        try {
-            publicResourceInteroperabilityRecordManager.get(String.format("%s.%s",
-                    resourceInteroperabilityRecordBundle.getResourceInteroperabilityRecord().getCatalogueId(),
-                    resourceInteroperabilityRecordBundle.getId()));
-        } catch (ResourceException | ResourceNotFoundException e) {
-            publicResourceInteroperabilityRecordManager.add(ObjectUtils.clone(resourceInteroperabilityRecordBundle), null);
-        }
+        publicCopyExecutor.tryExecute(resourceInteroperabilityRecordBundle.getId(), () -> {
+            // TODO: check Resource states (publish if only approved/active)
+            try {
+                publicResourceInteroperabilityRecordManager.get(String.format("%s.%s",
+                        resourceInteroperabilityRecordBundle.getResourceInteroperabilityRecord().getCatalogueId(),
+                        resourceInteroperabilityRecordBundle.getId()));
+            } catch (ResourceException | ResourceNotFoundException e) {
+                publicResourceInteroperabilityRecordManager.add(ObjectUtils.clone(resourceInteroperabilityRecordBundle), null);
+            }
+        });
     }
 
-    @Async
     @AfterReturning(pointcut = "execution(* eu.einfracentral.registry.manager.ResourceInteroperabilityRecordManager.update(..)) " +
             "&& args(resourceInteroperabilityRecordBundle,..)", returning = "ret", argNames = "resourceInteroperabilityRecordBundle,ret")
     public void updatePublicResourceInteroperabilityRecord(ResourceInteroperabilityRecordBundle resourceInteroperabilityRecordBundle, ResourceInteroperabilityRecordBundle ret) {
-        try {
-            if (!ret.equals(resourceInteroperabilityRecordBundle)) {
-                publicResourceInteroperabilityRecordManager.update(ObjectUtils.clone(ret), null);
+        publicCopyExecutor.tryExecute(ret.getId(), () -> {
+            try {
+                if (!ret.equals(resourceInteroperabilityRecordBundle)) {
+                    publicResourceInteroperabilityRecordManager.update(ObjectUtils.clone(ret), null);
+                }
+            } catch (ResourceException | ResourceNotFoundException ignore) {
             }
-        } catch (ResourceException | ResourceNotFoundException ignore) {
-        }
+        });
     }
 
-    @Async
     @After("execution(* eu.einfracentral.registry.manager.ResourceInteroperabilityRecordManager.delete(..))")
     public void deletePublicResourceInteroperabilityRecord(JoinPoint joinPoint) {
         ResourceInteroperabilityRecordBundle resourceInteroperabilityRecordBundle = (ResourceInteroperabilityRecordBundle) joinPoint.getArgs()[0];
-        publicResourceInteroperabilityRecordManager.delete(resourceInteroperabilityRecordBundle);
+        publicCopyExecutor.tryExecute(resourceInteroperabilityRecordBundle.getId(), () -> publicResourceInteroperabilityRecordManager.delete(resourceInteroperabilityRecordBundle));
     }
 
-    @Async
     @AfterReturning(pointcut = "execution(* eu.einfracentral.registry.manager.ConfigurationTemplateInstanceManager.add(..))",
             returning = "configurationTemplateInstanceBundle")
     public void addConfigurationTemplateInstanceAsPublic(final ConfigurationTemplateInstanceBundle configurationTemplateInstanceBundle) {
-        try {
-            publicConfigurationTemplateImplementationManager.get(String.format("%s.%s", catalogueName, configurationTemplateInstanceBundle.getId()));
-        } catch (ResourceException | ResourceNotFoundException e) {
-            publicConfigurationTemplateImplementationManager.add(ObjectUtils.clone(configurationTemplateInstanceBundle), null);
-        }
+        publicCopyExecutor.tryExecute(configurationTemplateInstanceBundle.getId(), () -> {
+            try {
+                publicConfigurationTemplateImplementationManager.get(String.format("%s.%s", catalogueName, configurationTemplateInstanceBundle.getId()));
+            } catch (ResourceException | ResourceNotFoundException e) {
+                publicConfigurationTemplateImplementationManager.add(ObjectUtils.clone(configurationTemplateInstanceBundle), null);
+            }
+        });
     }
 
-    @Async
     @AfterReturning(pointcut = "execution(* eu.einfracentral.registry.manager.ConfigurationTemplateInstanceManager.update(..)) " +
             "&& args(configurationTemplateInstanceBundle,..)", returning = "ret", argNames = "configurationTemplateInstanceBundle,ret")
     public void updatePublicConfigurationTemplateInstance(ConfigurationTemplateInstanceBundle configurationTemplateInstanceBundle, ConfigurationTemplateInstanceBundle ret) {
-        try {
-            if (!ret.equals(configurationTemplateInstanceBundle)) {
-                publicConfigurationTemplateImplementationManager.update(ObjectUtils.clone(ret), null);
+        publicCopyExecutor.tryExecute(ret.getId(), () -> {
+            try {
+                if (!ret.equals(configurationTemplateInstanceBundle)) {
+                    publicConfigurationTemplateImplementationManager.update(ObjectUtils.clone(ret), null);
+                }
+            } catch (ResourceException | ResourceNotFoundException ignore) {
             }
-        } catch (ResourceException | ResourceNotFoundException ignore) {
-        }
+        });
     }
 
-    @Async
     @After("execution(* eu.einfracentral.registry.manager.ConfigurationTemplateInstanceManager.delete(..))")
     public void deletePublicConfigurationTemplateInstance(JoinPoint joinPoint) {
         ConfigurationTemplateInstanceBundle configurationTemplateInstanceBundle = (ConfigurationTemplateInstanceBundle) joinPoint.getArgs()[0];
-        publicConfigurationTemplateImplementationManager.delete(configurationTemplateInstanceBundle);
+        publicCopyExecutor.tryExecute(configurationTemplateInstanceBundle.getId(), () -> publicConfigurationTemplateImplementationManager.delete(configurationTemplateInstanceBundle));
     }
 }
@@ -6,6 +6,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
@@ -35,7 +36,6 @@ public class AnalyticsService implements Analytics {
     private static final String serviceVisitsTemplate = "%s/index.php?token_auth=%s&module=API&method=Actions.getPageUrls&format=JSON&idSite=%s&flat=1&period=range&date=2017-01-01,%s";
     private String visits;
     private String serviceVisits;
-    private RestTemplate restTemplate;
     private HttpHeaders headers;
 
     @Value("${matomoHost:localhost}")
@@ -53,9 +53,12 @@ public class AnalyticsService implements Analytics {
     @Autowired
     private CacheManager cacheManager;
 
+    @Autowired
+    @Qualifier("matomoRestTemplate")
+    private RestTemplate restTemplate;
+
     @PostConstruct
     void postConstruct() {
-        restTemplate = new RestTemplate();
         headers = new HttpHeaders();
         headers.add("Authorization", authorizationHeader);
         visits = String.format(visitsTemplate, matomoHost, matomoToken, matomoSiteId, "%s");
@@ -74,7 +77,7 @@ public class AnalyticsService implements Analytics {
         Objects.requireNonNull(cache).put(CACHE_VISITS, visits);
     }
 
-    @Cacheable(value = CACHE_VISITS)
+    @Cacheable(value = CACHE_VISITS, sync = true)
     @Override
     public Map<String, Integer> getAllServiceVisits() {
         return getServiceVisits();
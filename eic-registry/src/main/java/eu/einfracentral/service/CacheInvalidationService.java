@@ -0,0 +1,139 @@
+package eu.einfracentral.service;
+
+import eu.einfracentral.config.cache.TieredCache;
+import eu.einfracentral.domain.Event;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Objects;
+
+import static eu.einfracentral.config.CacheConfig.*;
+
+/**
+ * Evicts only the cache entries affected by a write, instead of clearing whole caches.
+ * <p>
+ * Relies on the structured keys of the cached methods:
+ * <ul>
+ *     <li>{@code providers}: {@code provider:<providerId>:...} for single providers (active and pending) and
+ *     {@code providers:...} for lists of providers</li>
+ *     <li>{@code events}: {@code service:<serviceId>:<eventType>[:<user>]} and {@code user:<user>:<eventType>}</li>
+ *     <li>{@code service_events}: {@code <eventType>}</li>
+ *     <li>{@code visits}: {@code service:<serviceId>:<interval>}</li>
+ * </ul>
+ */
+@Component
+public class CacheInvalidationService {
+
+    private static final Logger logger = LogManager.getLogger(CacheInvalidationService.class);
+
+    private final CacheManager cacheManager;
+
+    public CacheInvalidationService(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    /**
+     * Evicts the entries of a Provider and the cached lists of Providers.
+     *
+     * @param providerId the Provider id
+     */
+    public void evictProvider(String providerId) {
+        if (providerId == null) {
+            evictAll(CACHE_PROVIDERS);
+            return;
+        }
+        logger.trace("Evicting cached entries of Provider '{}'", providerId);
+        evictByPrefix(CACHE_PROVIDERS, String.format("provider:%s:", providerId));
+        evictByPrefix(CACHE_PROVIDERS, "providers:");
+    }
+
+    /**
+     * Evicts the entries depending on a Resource (Service, Training Resource, Interoperability Record).
+     *
+     * @param resourceId the Resource id
+     * @param providerId the id of the Resource's Provider, or null if unknown
+     */
+    public void evictResource(String resourceId, String providerId) {
+        logger.trace("Evicting cached entries of Resource '{}'", resourceId);
+        if (resourceId != null) {
+            evictByPrefix(CACHE_VISITS, String.format("service:%s:", resourceId));
+        }
+        if (providerId != null) {
+            evictProvider(providerId);
+        }
+        evictAll(CACHE_FEATURED);
+    }
+
+    /**
+     * Evicts the entries of the Service and the user of an Event.
+     *
+     * @param event the added, updated or deleted Event
+     */
+    public void evictEvent(Event event) {
+        if (event == null) {
+            return;
+        }
+        if (event.getService() != null) {
+            evictByPrefix(CACHE_EVENTS, String.format("service:%s:", event.getService()));
+            if (Event.UserActionType.VISIT.getKey().equals(event.getType())) {
+                evictByPrefix(CACHE_VISITS, String.format("service:%s:", event.getService()));
+            }
+        }
+        if (event.getUser() != null) {
+            evictByPrefix(CACHE_EVENTS, String.format("user:%s:", event.getUser()));
+        }
+        if (event.getType() != null) {
+            Cache cache = cacheManager.getCache(CACHE_SERVICE_EVENTS);
+            if (cache != null) {
+                cache.evict(event.getType());
+            }
+        } else {
+            evictAll(CACHE_SERVICE_EVENTS);
+        }
+    }
+
+    /**
+     * Evicts the entries affected by a batch of Events at once. The Event caches are cleared instead of
+     * evicting the entries of every Service and user of the batch.
+     *
+     * @param events the added Events
+     */
+    public void evictEvents(Collection<Event> events) {
+        if (events == null || events.isEmpty()) {
+            return;
+        }
+        logger.trace("Evicting cached entries of {} Events", events.size());
+        evictAll(CACHE_EVENTS);
+        if (events.stream().anyMatch(event -> Event.UserActionType.VISIT.getKey().equals(event.getType()))) {
+            evictAll(CACHE_VISITS);
+        }
+        Cache cache = cacheManager.getCache(CACHE_SERVICE_EVENTS);
+        if (cache != null) {
+            events.stream()
+                    .map(Event::getType)
+                    .filter(Objects::nonNull)
+                    .distinct()
+                    .forEach(cache::evict);
+        }
+    }
+
+    private void evictByPrefix(String cacheName, String prefix) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache instanceof TieredCache) {
+            ((TieredCache) cache).evictByPrefix(prefix);
+        } else if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    private void evictAll(String cacheName) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+}
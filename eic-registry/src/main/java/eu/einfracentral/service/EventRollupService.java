@@ -0,0 +1,330 @@
+package eu.einfracentral.service;
+
+import eu.einfracentral.config.async.OrderedTaskExecutor;
+import eu.einfracentral.domain.Event;
+import eu.openminted.registry.core.domain.FacetFilter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.sql.DataSource;
+import java.sql.Date;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
+
+/**
+ * Maintains daily per-Service rollups of the Event values (sum and count of the values of each Event type),
+ * so that statistics time series are computed from a few rows per day instead of aggregating the whole
+ * 'event' index on every request.
+ * <p>
+ * Rollups are updated incrementally by the EventManager on every Event insert, update and delete, and are
+ * rebuilt from the 'event' index on startup, when empty, and weekly, to correct any drift.
+ * Days are in UTC, as the buckets of the Elasticsearch date histograms.
+ * <p>
+ * The 'event_rollup' and 'event_rollup_delta' tables are created by {@code sql/event_rollup.sql}. Incremental
+ * updates are also journaled in 'event_rollup_delta'. A rebuild runs on a single instance at a time: it records
+ * a cutoff, computes the rollups of the Events before the cutoff without blocking the incremental updates, and
+ * then replaces the rollups with them plus the deltas journaled after the cutoff. Only the cutoff and the
+ * replacement hold the database lock that incremental updates wait for.
+ */
+@Component
+public class EventRollupService {
+
+    private static final Logger logger = LogManager.getLogger(EventRollupService.class);
+
+    private static final String UPSERT = "INSERT INTO event_rollup (service_id, event_type, day, value_sum, event_count) " +
+            "VALUES (:service_id, :event_type, :day, :value_sum, :event_count) " +
+            "ON CONFLICT (service_id, event_type, day) DO UPDATE SET " +
+            "value_sum = event_rollup.value_sum + EXCLUDED.value_sum, " +
+            "event_count = event_rollup.event_count + EXCLUDED.event_count";
+    private static final String INSERT = "INSERT INTO event_rollup (service_id, event_type, day, value_sum, event_count) " +
+            "VALUES (:service_id, :event_type, :day, :value_sum, :event_count)";
+    private static final String JOURNAL = "INSERT INTO event_rollup_delta (service_id, event_type, day, value_sum, event_count) " +
+            "VALUES (:service_id, :event_type, :day, :value_sum, :event_count)";
+
+    // advisory lock keys: a single rebuild at a time, and rebuild cutoffs and replacements exclusive of the
+    // incremental updates
+    private static final long REBUILD_LOCK = 0x6576656e74L;
+    private static final long UPDATE_LOCK = 0x6576656e75L;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate swapTransactionTemplate;
+    private final GenericResourceService genericResourceService;
+    private final Executor executor;
+    private volatile boolean ready = false;
+
+    public EventRollupService(DataSource dataSource, GenericResourceService genericResourceService,
+                              @Qualifier("maintenanceExecutor") OrderedTaskExecutor executor) {
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // commits the cutoff and the replacement on their own, while the rebuild transaction keeps its lock
+        this.swapTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.swapTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.genericResourceService = genericResourceService;
+        this.executor = executor;
+    }
+
+    @PostConstruct
+    void init() {
+        try {
+            Long rows = jdbcTemplate.getJdbcOperations().queryForObject("SELECT count(*) FROM event_rollup", Long.class);
+            if (rows != null && rows > 0) {
+                ready = true;
+            } else {
+                executor.execute(() -> rebuild(false));
+            }
+        } catch (RuntimeException e) {
+            logger.error("Could not initialize event rollups (was sql/event_rollup.sql executed?), " +
+                    "statistics will be computed from the event index", e);
+        }
+    }
+
+    /**
+     * @return whether the rollups are populated and can be used instead of the event index
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Adds the values of the Events to the rollups of their days.
+     */
+    public void add(Collection<Event> events) {
+        update(events, 1);
+    }
+
+    /**
+     * Subtracts the values of the Events from the rollups of their days.
+     */
+    public void remove(Collection<Event> events) {
+        update(events, -1);
+    }
+
+    /**
+     * Returns the daily rollups of the given Services and Event type, ordered by day.
+     *
+     * @param serviceIds the Service ids
+     * @param eventType  the Event type
+     * @return the daily rollups
+     */
+    public List<DailyRollup> getDailyRollups(Collection<String> serviceIds, String eventType) {
+        if (serviceIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        MapSqlParameterSource in = new MapSqlParameterSource();
+        in.addValue("service_ids", serviceIds);
+        in.addValue("event_type", eventType);
+        String query = "SELECT service_id, day, value_sum, event_count FROM event_rollup " +
+                "WHERE service_id IN (:service_ids) AND event_type = :event_type AND event_count <> 0 ORDER BY day";
+        return jdbcTemplate.query(query, in, (rs, rowNum) -> new DailyRollup(rs.getString("service_id"),
+                rs.getDate("day").toLocalDate(), rs.getDouble("value_sum"), rs.getLong("event_count")));
+    }
+
+    /**
+     * Recomputes all the rollups from the 'event' index, unless another instance is already doing so.
+     */
+    @Scheduled(cron = "0 30 3 ? * SUN") // At 03:30:00am every Sunday
+    public void rebuild() {
+        rebuild(true);
+    }
+
+    /**
+     * @param always whether to rebuild populated rollups too; otherwise waits for a running rebuild and only
+     *               rebuilds if the rollups are still empty
+     */
+    private void rebuild(boolean always) {
+        try {
+            // holds the rebuild lock until the rebuild ends
+            transactionTemplate.execute(status -> {
+                if (always) {
+                    if (!Boolean.TRUE.equals(jdbcTemplate.getJdbcOperations().queryForObject(
+                            "SELECT pg_try_advisory_xact_lock(?)", Boolean.class, REBUILD_LOCK))) {
+                        logger.info("Event rollups are being rebuilt by another instance");
+                        return null;
+                    }
+                } else {
+                    lock("SELECT pg_advisory_xact_lock(?)", REBUILD_LOCK);
+                    Long rows = jdbcTemplate.getJdbcOperations().queryForObject("SELECT count(*) FROM event_rollup", Long.class);
+                    if (rows != null && rows > 0) {
+                        ready = true;
+                        return null;
+                    }
+                }
+                long[] cutoff = swapTransactionTemplate.execute(swap -> {
+                    // waits for the running incremental updates, so the journal holds every delta before the cutoff
+                    lock("SELECT pg_advisory_xact_lock(?)", UPDATE_LOCK);
+                    Long lastDelta = jdbcTemplate.getJdbcOperations().queryForObject(
+                            "SELECT coalesce(max(id), 0) FROM event_rollup_delta", Long.class);
+                    return new long[]{lastDelta != null ? lastDelta : 0, System.currentTimeMillis()};
+                });
+                Rollups rollups = computeRollups(cutoff[1]);
+                swapTransactionTemplate.execute(swap -> {
+                    lock("SELECT pg_advisory_xact_lock(?)", UPDATE_LOCK);
+                    replace(rollups, cutoff[0]);
+                    return null;
+                });
+                return null;
+            });
+            ready = true;
+        } catch (RuntimeException e) {
+            logger.error("Could not rebuild event rollups", e);
+        }
+    }
+
+    /**
+     * Computes the rollups of the Events of the index before the cutoff; later Events are counted by the deltas
+     * journaled after the cutoff.
+     */
+    private Rollups computeRollups(long cutoff) {
+        logger.info("Rebuilding event rollups");
+        Rollups rollups = new Rollups();
+        FacetFilter ff = new FacetFilter();
+        ff.setResourceType("event");
+        try (Stream<Event> events = genericResourceService.getResultsStream(ff)) {
+            events.filter(event -> event.getInstant() < cutoff).forEach(event -> rollups.add(event, 1));
+        }
+        return rollups;
+    }
+
+    private void replace(Rollups rollups, long lastDelta) {
+        jdbcTemplate.getJdbcOperations().query("SELECT service_id, event_type, day, value_sum, event_count " +
+                "FROM event_rollup_delta WHERE id > ?", rs -> {
+            rollups.add(rs.getString("service_id"), rs.getString("event_type"), rs.getDate("day").toLocalDate(),
+                    rs.getDouble("value_sum"), rs.getLong("event_count"));
+        }, lastDelta);
+        SqlParameterSource[] batch = rollups.toParameters();
+        jdbcTemplate.getJdbcOperations().update("DELETE FROM event_rollup");
+        jdbcTemplate.batchUpdate(INSERT, batch);
+        // every delta is now part of the rollups
+        jdbcTemplate.getJdbcOperations().update("DELETE FROM event_rollup_delta");
+        logger.info("Rebuilt event rollups: {} daily rows", batch.length);
+    }
+
+    private void lock(String query, long key) {
+        jdbcTemplate.getJdbcOperations().query(query, rs -> {
+        }, key);
+    }
+
+    private void update(Collection<Event> events, int sign) {
+        if (events == null || events.isEmpty()) {
+            return;
+        }
+        Rollups rollups = new Rollups();
+        for (Event event : events) {
+            rollups.add(event, sign);
+        }
+        SqlParameterSource[] batch = rollups.toParameters();
+        if (batch.length > 0) {
+            try {
+                transactionTemplate.execute(status -> {
+                    lock("SELECT pg_advisory_xact_lock_shared(?)", UPDATE_LOCK);
+                    jdbcTemplate.batchUpdate(JOURNAL, batch);
+                    return jdbcTemplate.batchUpdate(UPSERT, batch);
+                });
+            } catch (RuntimeException e) {
+                // the events are already stored, the weekly rebuild restores the rollups
+                logger.error("Could not update event rollups", e);
+            }
+        }
+    }
+
+    /**
+     * Sums of the values and counts of Events per Service, Event type and day.
+     */
+    static class Rollups {
+
+        private final Map<List<Object>, double[]> rollups = new HashMap<>();
+
+        /**
+         * Adds the value of the Event to the rollup of its day, or subtracts it for a negative sign.
+         * Events without value are not counted, as by the date histograms.
+         */
+        void add(Event event, int sign) {
+            if (event.getService() != null && event.getType() != null && event.getValue() != null) {
+                add(event.getService(), event.getType(), getDay(event), sign * event.getValue(), sign);
+            }
+        }
+
+        void add(String serviceId, String eventType, LocalDate day, double valueSum, long eventCount) {
+            double[] rollup = rollups.computeIfAbsent(Arrays.asList(serviceId, eventType, day), key -> new double[2]);
+            rollup[0] += valueSum;
+            rollup[1] += eventCount;
+        }
+
+        /**
+         * @return the sum of the values and the count of the Events of the day, or null if none were added
+         */
+        double[] get(String serviceId, String eventType, LocalDate day) {
+            return rollups.get(Arrays.asList(serviceId, eventType, day));
+        }
+
+        SqlParameterSource[] toParameters() {
+            return rollups.entrySet()
+                    .stream()
+                    .map(entry -> createParameters((String) entry.getKey().get(0), (String) entry.getKey().get(1),
+                            (LocalDate) entry.getKey().get(2), entry.getValue()[0], (long) entry.getValue()[1]))
+                    .toArray(SqlParameterSource[]::new);
+        }
+
+        private static LocalDate getDay(Event event) {
+            return Instant.ofEpochMilli(event.getInstant()).atZone(ZoneOffset.UTC).toLocalDate();
+        }
+
+        private static SqlParameterSource createParameters(String serviceId, String eventType, LocalDate day,
+                                                           double valueSum, long eventCount) {
+            MapSqlParameterSource in = new MapSqlParameterSource();
+            in.addValue("service_id", serviceId);
+            in.addValue("event_type", eventType);
+            in.addValue("day", Date.valueOf(day));
+            in.addValue("value_sum", valueSum);
+            in.addValue("event_count", eventCount);
+            return in;
+        }
+    }
+
+    public static class DailyRollup {
+
+        private final String serviceId;
+        private final LocalDate day;
+        private final double valueSum;
+        private final long eventCount;
+
+        public DailyRollup(String serviceId, LocalDate day, double valueSum, long eventCount) {
+            this.serviceId = serviceId;
+            this.day = day;
+            this.valueSum = valueSum;
+            this.eventCount = eventCount;
+        }
+
+        public String getServiceId() {
+            return serviceId;
+        }
+
+        public LocalDate getDay() {
+            return day;
+        }
+
+        public double getValueSum() {
+            return valueSum;
+        }
+
+        public long getEventCount() {
+            return eventCount;
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package eu.einfracentral.service;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Persistent outbox of the emails waiting to be sent by {@link SimpleMailService}.
+ * <p>
+ * An email identical to one stored within the last {@code mail.outbox.dedupWindow} minutes (same recipients,
+ * subject and text) is not stored again. An email to the same recipients and with the same subject as one sent
+ * within the last {@code mail.outbox.digestWindow} minutes is held until the end of that window, and then sent
+ * together with the other emails held for the same recipients in a single digest (see {@link #digest(List)}).
+ * Emails are claimed by a single instance for {@code mail.outbox.claimTimeout} seconds while being sent. Failed
+ * deliveries are retried with exponential backoff, and dropped after {@code mail.outbox.maxAttempts} attempts.
+ * <p>
+ * The 'mail_outbox' table is created by {@code sql/mail_outbox.sql}.
+ */
+@Component
+public class MailOutbox {
+
+    private static final Logger logger = LogManager.getLogger(MailOutbox.class);
+
+    private static final String SEPARATOR = ",";
+    private static final String DIGEST_SEPARATOR = "<hr/>";
+
+    private static final String CLAIM = "UPDATE mail_outbox SET claimed_until = :claimed_until " +
+            "WHERE id IN (SELECT id FROM mail_outbox WHERE sent_at IS NULL AND next_attempt <= :now " +
+            "AND (claimed_until IS NULL OR claimed_until < :now) ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED) " +
+            "RETURNING *";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Value("${mail.outbox.dedupWindow:60}")
+    private long dedupWindowMinutes;
+
+    @Value("${mail.outbox.digestWindow:10}")
+    private long digestWindowMinutes;
+
+    @Value("${mail.outbox.backoff:60}")
+    private long backoffSeconds;
+
+    @Value("${mail.outbox.maxBackoff:3600}")
+    private long maxBackoffSeconds;
+
+    @Value("${mail.outbox.maxAttempts:20}")
+    private int maxAttempts;
+
+    @Value("${mail.outbox.claimTimeout:600}")
+    private long claimTimeoutSeconds;
+
+    public MailOutbox(DataSource dataSource) {
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+    }
+
+    /**
+     * Stores an email, unless an identical one was stored within the deduplication window. It is held until the
+     * end of the digest window of the last email sent to the same recipients with the same subject.
+     *
+     * @return whether the email was stored
+     */
+    public boolean add(List<String> to, List<String> cc, List<String> bcc, String subject, String text) {
+        Instant now = Instant.now();
+        String digestKey = hash(String.join("\n", join(to), join(cc), join(bcc), String.valueOf(subject)));
+        MapSqlParameterSource in = new MapSqlParameterSource();
+        in.addValue("dedup_key", hash(String.join("\n", join(to), join(cc), join(bcc), String.valueOf(subject),
+                String.valueOf(text))));
+        in.addValue("digest_key", digestKey);
+        in.addValue("recipients_to", join(to));
+        in.addValue("recipients_cc", join(cc));
+        in.addValue("recipients_bcc", join(bcc));
+        in.addValue("subject", subject);
+        in.addValue("body", text);
+        in.addValue("now", Timestamp.from(now));
+        in.addValue("window_start", Timestamp.from(now.minus(dedupWindowMinutes, ChronoUnit.MINUTES)));
+        in.addValue("digest_start", Timestamp.from(now.minus(digestWindowMinutes, ChronoUnit.MINUTES)));
+        in.addValue("digest_window", digestWindowMinutes * 60);
+        return jdbcTemplate.update("INSERT INTO mail_outbox (dedup_key, digest_key, recipients_to, recipients_cc, " +
+                "recipients_bcc, subject, body, created_at, next_attempt) " +
+                "SELECT :dedup_key, :digest_key, :recipients_to, :recipients_cc, :recipients_bcc, :subject, :body, :now, " +
+                "COALESCE((SELECT max(sent_at) FROM mail_outbox WHERE digest_key = :digest_key " +
+                "AND sent_at > :digest_start) + INTERVAL '1' SECOND * CAST(:digest_window AS bigint), :now) " +
+                "WHERE NOT EXISTS (SELECT 1 FROM mail_outbox WHERE dedup_key = :dedup_key AND created_at > :window_start)",
+                in) > 0;
+    }
+
+    /**
+     * Claims the emails due for delivery, oldest first. Emails claimed by other instances are skipped.
+     */
+    public List<Mail> getDue(int limit) {
+        Instant now = Instant.now();
+        MapSqlParameterSource in = new MapSqlParameterSource();
+        in.addValue("now", Timestamp.from(now));
+        in.addValue("claimed_until", Timestamp.from(now.plusSeconds(claimTimeoutSeconds)));
+        in.addValue("limit", limit);
+        List<Mail> mails = claim(in);
+        mails.sort(Comparator.comparingLong(Mail::getId));
+        return mails;
+    }
+
+    /**
+     * Claims the emails due at {@code :now} until {@code :claimed_until}, at most {@code :limit}.
+     */
+    List<Mail> claim(MapSqlParameterSource in) {
+        return jdbcTemplate.query(CLAIM, in, MailOutbox::toMail);
+    }
+
+    static Mail toMail(ResultSet rs, int rowNum) throws SQLException {
+        return new Mail(rs.getLong("id"), rs.getString("digest_key"), split(rs.getString("recipients_to")),
+                split(rs.getString("recipients_cc")), split(rs.getString("recipients_bcc")), rs.getString("subject"),
+                rs.getString("body"), rs.getInt("attempts"), rs.getTimestamp("created_at").toInstant());
+    }
+
+    /**
+     * Groups the emails to the same recipients with the same subject, keeping the order of their first email.
+     */
+    public static List<List<Mail>> groupDigests(List<Mail> mails) {
+        Map<String, List<Mail>> digests = new LinkedHashMap<>();
+        for (Mail mail : mails) {
+            String key = mail.getDigestKey() != null ? mail.getDigestKey() : String.valueOf(mail.getId());
+            digests.computeIfAbsent(key, k -> new ArrayList<>()).add(mail);
+        }
+        return new ArrayList<>(digests.values());
+    }
+
+    /**
+     * @return a single email with the texts of the emails, which have the same recipients and subject
+     */
+    public static Mail digest(List<Mail> mails) {
+        Mail first = mails.get(0);
+        if (mails.size() == 1) {
+            return first;
+        }
+        StringJoiner text = new StringJoiner(DIGEST_SEPARATOR);
+        for (Mail mail : mails) {
+            text.add(String.valueOf(mail.getText()));
+        }
+        return new Mail(first.getId(), first.getDigestKey(), first.getTo(), first.getCc(), first.getBcc(),
+                first.getSubject(), text.toString(), first.getAttempts(), first.getCreatedAt());
+    }
+
+    /**
+     * @return the number of emails waiting to be sent
+     */
+    public long size() {
+        Long count = jdbcTemplate.getJdbcOperations().queryForObject(
+                "SELECT count(*) FROM mail_outbox WHERE sent_at IS NULL", Long.class);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * Marks an email as sent. It is kept until the end of the deduplication window.
+     */
+    public void sent(Mail mail) {
+        MapSqlParameterSource in = new MapSqlParameterSource();
+        in.addValue("id", mail.getId());
+        in.addValue("now", Timestamp.from(Instant.now()));
+        jdbcTemplate.update("UPDATE mail_outbox SET sent_at = :now, claimed_until = NULL WHERE id = :id", in);
+    }
+
+    /**
+     * Schedules the next attempt of an email, or drops it after the maximum number of attempts.
+     *
+     * @return whether the email was dropped
+     */
+    public boolean failed(Mail mail) {
+        MapSqlParameterSource in = new MapSqlParameterSource("id", mail.getId());
+        int attempts = mail.getAttempts() + 1;
+        if (attempts >= maxAttempts) {
+            logger.error("Dropping email '{}' to {} after {} failed attempts", mail.getSubject(), mail.getTo(), attempts);
+            jdbcTemplate.update("DELETE FROM mail_outbox WHERE id = :id", in);
+            return true;
+        }
+        long backoff = Math.min(maxBackoffSeconds, backoffSeconds << Math.min(attempts - 1, 30));
+        in.addValue("attempts", attempts);
+        in.addValue("next_attempt", Timestamp.from(Instant.now().plusSeconds(backoff)));
+        jdbcTemplate.update("UPDATE mail_outbox SET attempts = :attempts, next_attempt = :next_attempt, " +
+                "claimed_until = NULL WHERE id = :id", in);
+        return false;
+    }
+
+    /**
+     * Removes the sent emails older than the deduplication and digest windows.
+     */
+    public int purge() {
+        MapSqlParameterSource in = new MapSqlParameterSource("window_start", Timestamp.from(Instant.now()
+                .minus(Math.max(dedupWindowMinutes, digestWindowMinutes), ChronoUnit.MINUTES)));
+        return jdbcTemplate.update("DELETE FROM mail_outbox WHERE sent_at IS NOT NULL AND sent_at <= :window_start", in);
+    }
+
+    private static String hash(String content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+            StringBuilder key = new StringBuilder();
+            for (byte b : digest) {
+                key.append(String.format("%02x", b));
+            }
+            return key.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String join(List<String> addresses) {
+        if (addresses == null) {
+            return "";
+        }
+        return String.join(SEPARATOR, new TreeSet<>(addresses));
+    }
+
+    private static List<String> split(String addresses) {
+        if (addresses == null || addresses.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(Arrays.asList(addresses.split(SEPARATOR)));
+    }
+
+    public static class Mail {
+
+        private final long id;
+        private final String digestKey;
+        private final List<String> to;
+        private final List<String> cc;
+        private final List<String> bcc;
+        private final String subject;
+        private final String text;
+        private final int attempts;
+        private final Instant createdAt;
+
+        public Mail(long id, String digestKey, List<String> to, List<String> cc, List<String> bcc, String subject,
+                    String text, int attempts, Instant createdAt) {
+            this.id = id;
+            this.digestKey = digestKey;
+            this.to = to;
+            this.cc = cc;
+            this.bcc = bcc;
+            this.subject = subject;
+            this.text = text;
+            this.attempts = attempts;
+            this.createdAt = createdAt;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public String getDigestKey() {
+            return digestKey;
+        }
+
+        public List<String> getTo() {
+            return to;
+        }
+
+        public List<String> getCc() {
+            return cc;
+        }
+
+        public List<String> getBcc() {
+            return bcc;
+        }
+
+        public String getSubject() {
+            return subject;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public int getAttempts() {
+            return attempts;
+        }
+
+        public Instant getCreatedAt() {
+            return createdAt;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package eu.einfracentral.service;
+
+import freemarker.template.*;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Renders the email templates of {@code templates/*.ftl}, which are all parsed once at startup.
+ * <p>
+ * When rendering an email for several recipients, the shared part of the data model is wrapped once and only
+ * the per-recipient variables are wrapped for every recipient, which are rendered in parallel.
+ */
+@Component
+public class MailTemplateRenderer {
+
+    private static final Logger logger = LogManager.getLogger(MailTemplateRenderer.class);
+
+    private static final String TEMPLATES = "classpath:templates/*.ftl";
+
+    private final Configuration cfg;
+    private final ExecutorService executor;
+    private Map<String, Template> templates = Collections.emptyMap();
+
+    public MailTemplateRenderer(Configuration cfg, @Value("${mail.render.threads:4}") int threads) {
+        this.cfg = cfg;
+        AtomicInteger count = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "mail-render-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    void init() throws IOException {
+        Map<String, Template> compiled = new HashMap<>();
+        for (Resource resource : new PathMatchingResourcePatternResolver().getResources(TEMPLATES)) {
+            String name = resource.getFilename();
+            try {
+                compiled.put(name, cfg.getTemplate(name));
+            } catch (IOException e) {
+                logger.error("Could not compile mail template '{}'", name, e);
+            }
+        }
+        templates = Collections.unmodifiableMap(compiled);
+        logger.info("Compiled {} mail templates", templates.size());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Renders a template.
+     *
+     * @param templateName the template file name
+     * @param root         the data model
+     * @return the rendered text
+     * @throws IOException       if the template does not exist
+     * @throws TemplateException if the template could not be rendered
+     */
+    public String render(String templateName, Map<String, Object> root) throws IOException, TemplateException {
+        StringWriter out = new StringWriter();
+        getTemplate(templateName).process(root, out);
+        return out.toString();
+    }
+
+    /**
+     * Renders a template once for every recipient, in parallel.
+     *
+     * @param templateName the template file name
+     * @param shared       the data model shared by all recipients
+     * @param variable     the name of the per-recipient variable
+     * @param recipients   the values of the per-recipient variable
+     * @return the rendered texts, in the order of the recipients
+     * @throws IOException       if the template does not exist
+     * @throws TemplateException if the template could not be rendered
+     */
+    public List<String> renderForEach(String templateName, Map<String, Object> shared, String variable,
+                                      List<?> recipients) throws IOException, TemplateException {
+        Template template = getTemplate(templateName);
+        ObjectWrapper wrapper = template.getObjectWrapper();
+        Map<String, TemplateModel> sharedModel = new HashMap<>();
+        for (Map.Entry<String, Object> entry : shared.entrySet()) {
+            if (!variable.equals(entry.getKey())) {
+                sharedModel.put(entry.getKey(), wrapper.wrap(entry.getValue()));
+            }
+        }
+
+        List<CompletableFuture<String>> rendered = new ArrayList<>(recipients.size());
+        for (Object recipient : recipients) {
+            TemplateModel recipientModel = wrapper.wrap(recipient);
+            TemplateHashModel model = new TemplateHashModel() {
+                @Override
+                public TemplateModel get(String key) {
+                    return variable.equals(key) ? recipientModel : sharedModel.get(key);
+                }
+
+                @Override
+                public boolean isEmpty() {
+                    return false;
+                }
+            };
+            rendered.add(CompletableFuture.supplyAsync(() -> {
+                StringWriter out = new StringWriter();
+                try {
+                    template.process(model, out);
+                } catch (IOException | TemplateException e) {
+                    throw new CompletionException(e);
+                }
+                return out.toString();
+            }, executor));
+        }
+
+        List<String> ret = new ArrayList<>(recipients.size());
+        try {
+            for (CompletableFuture<String> future : rendered) {
+                ret.add(future.join());
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof TemplateException) {
+                throw (TemplateException) e.getCause();
+            } else if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw e;
+        }
+        return ret;
+    }
+
+    private Template getTemplate(String templateName) throws IOException {
+        Template template = templates.get(templateName);
+        return template != null ? template : cfg.getTemplate(templateName);
+    }
+}
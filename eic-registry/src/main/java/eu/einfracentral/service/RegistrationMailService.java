@@ -7,8 +7,6 @@ import eu.einfracentral.exception.ValidationException;
 import eu.einfracentral.registry.manager.*;
 import eu.einfracentral.registry.service.MailService;
 import eu.openminted.registry.core.domain.FacetFilter;
-import freemarker.template.Configuration;
-import freemarker.template.Template;
 import freemarker.template.TemplateException;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -22,7 +20,6 @@ import org.springframework.stereotype.Component;
 
 import javax.mail.MessagingException;
 import java.io.IOException;
-import java.io.StringWriter;
 import java.sql.Timestamp;
 import java.time.LocalDate;
 import java.util.*;
@@ -35,7 +32,7 @@ public class RegistrationMailService {
 
     private static final Logger logger = LogManager.getLogger(RegistrationMailService.class);
     private final MailService mailService;
-    private final Configuration cfg;
+    private final MailTemplateRenderer templateRenderer;
     private final ProviderManager providerManager;
     private final PendingProviderManager pendingProviderManager;
     private final ServiceBundleManager serviceBundleManager;
@@ -76,7 +73,7 @@ public class RegistrationMailService {
 
 
     @Autowired
-    public RegistrationMailService(MailService mailService, Configuration cfg,
+    public RegistrationMailService(MailService mailService, MailTemplateRenderer templateRenderer,
                                    ProviderManager providerManager,
                                    @Lazy PendingProviderManager pendingProviderManager,
                                    ServiceBundleManager serviceBundleManager,
@@ -84,7 +81,7 @@ public class RegistrationMailService {
                                    PendingServiceManager pendingServiceManager,
                                    SecurityService securityService) {
         this.mailService = mailService;
-        this.cfg = cfg;
+        this.templateRenderer = templateRenderer;
         this.providerManager = providerManager;
         this.pendingProviderManager = pendingProviderManager;
         this.serviceBundleManager = serviceBundleManager;
@@ -96,8 +93,6 @@ public class RegistrationMailService {
     @Async
     public void sendProviderMails(ProviderBundle providerBundle, String afterReturningFrom) {
         Map<String, Object> root = new HashMap<>();
-        StringWriter out = new StringWriter();
-        String providerMail;
         String regTeamMail;
 
         String providerSubject;
@@ -170,29 +165,20 @@ public class RegistrationMailService {
         }
 
         try {
-            Template temp = cfg.getTemplate("registrationTeamMailTemplate.ftl");
-            temp.process(root, out);
-            regTeamMail = out.getBuffer().toString();
+            regTeamMail = templateRenderer.render("registrationTeamMailTemplate.ftl", root);
             mailService.sendMail(registrationEmail, regTeamSubject, regTeamMail);
             logger.info("\nRecipient: {}\nTitle: {}\nMail body: \n{}", registrationEmail,
                     regTeamSubject, regTeamMail);
 
-            temp = cfg.getTemplate("providerMailTemplate.ftl");
-            for (User user : providerBundle.getProvider().getUsers()) {
-                if (user.getEmail() == null || user.getEmail().equals("")) {
-                    continue;
-                }
-                root.remove("user");
-                out.getBuffer().setLength(0);
-                root.put("user", user);
-                root.put("project", projectName);
-                temp.process(root, out);
-                providerMail = out.getBuffer().toString();
-                mailService.sendMail(user.getEmail(), providerSubject, providerMail);
-                logger.info("\nRecipient: {}\nTitle: {}\nMail body: \n{}", user.getEmail(), providerSubject, providerMail);
+            List<User> users = providerBundle.getProvider().getUsers().stream()
+                    .filter(user -> user.getEmail() != null && !user.getEmail().equals(""))
+                    .collect(Collectors.toList());
+            List<String> providerMails = templateRenderer.renderForEach("providerMailTemplate.ftl", root, "user", users);
+            for (int i = 0; i < users.size(); i++) {
+                String providerMail = providerMails.get(i);
+                mailService.sendMail(users.get(i).getEmail(), providerSubject, providerMail);
+                logger.info("\nRecipient: {}\nTitle: {}\nMail body: \n{}", users.get(i).getEmail(), providerSubject, providerMail);
             }
-
-            out.close();
         } catch (IOException e) {
             logger.error("Error finding mail template", e);
         } catch (TemplateException e) {
@@ -205,8 +191,6 @@ public class RegistrationMailService {
     @Async
     public void sendCatalogueMails(CatalogueBundle catalogueBundle) {
         Map<String, Object> root = new HashMap<>();
-        StringWriter out = new StringWriter();
-        String catalogueMail;
         String regTeamMail;
 
         String catalogueSubject;
@@ -246,29 +230,20 @@ public class RegistrationMailService {
         }
 
         try {
-            Template temp = cfg.getTemplate("registrationTeamMailCatalogueTemplate.ftl");
-            temp.process(root, out);
-            regTeamMail = out.getBuffer().toString();
+            regTeamMail = templateRenderer.render("registrationTeamMailCatalogueTemplate.ftl", root);
             mailService.sendMail(registrationEmail, regTeamSubject, regTeamMail);
             logger.info("\nRecipient: {}\nTitle: {}\nMail body: \n{}", registrationEmail,
                     regTeamSubject, regTeamMail);
 
-            temp = cfg.getTemplate("catalogueMailTemplate.ftl");
-            for (User user : catalogueBundle.getCatalogue().getUsers()) {
-                if (user.getEmail() == null || user.getEmail().equals("")) {
-                    continue;
-                }
-                root.remove("user");
-                out.getBuffer().setLength(0);
-                root.put("user", user);
-                root.put("project", projectName);
-                temp.process(root, out);
-                catalogueMail = out.getBuffer().toString();
-                mailService.sendMail(user.getEmail(), catalogueSubject, catalogueMail);
-                logger.info("\nRecipient: {}\nTitle: {}\nMail body: \n{}", user.getEmail(), catalogueSubject, catalogueMail);
+            List<User> users = catalogueBundle.getCatalogue().getUsers().stream()
+                    .filter(user -> user.getEmail() != null && !user.getEmail().equals(""))
+                    .collect(Collectors.toList());
+            List<String> catalogueMails = templateRenderer.renderForEach("catalogueMailTemplate.ftl", root, "user", users);
+            for (int i = 0; i < users.size(); i++) {
+                String catalogueMail = catalogueMails.get(i);
+                mailService.sendMail(users.get(i).getEmail(), catalogueSubject, catalogueMail);
+                logger.info("\nRecipient: {}\nTitle: {}\nMail body: \n{}", users.get(i).getEmail(), catalogueSubject, catalogueMail);
             }
-
-            out.close();
         } catch (IOException e) {
             logger.error("Error finding mail template", e);
         } catch (TemplateException e) {
@@ -296,11 +271,7 @@ public class RegistrationMailService {
                 }
                 String subject = String.format("[%s] Friendly reminder for your Provider [%s]", projectName, providerBundle.getProvider().getName());
                 root.put("providerBundle", providerBundle);
-                for (User user : providerBundle.getProvider().getUsers()) {
-                    root.put("user", user);
-                    String userRole = "provider";
-                    sendMailsFromTemplate("providerOnboarding.ftl", root, subject, user.getEmail(), userRole);
-                }
+                sendMailsToUsers("providerOnboarding.ftl", root, subject, providerBundle.getProvider().getUsers(), "provider");
             }
         }
     }
@@ -326,18 +297,10 @@ public class RegistrationMailService {
         root.put("providerBundle", providerBundle);
         if (serviceBundle != null) {
             root.put("serviceBundle", serviceBundle);
-            for (User user : providerBundle.getProvider().getUsers()) {
-                root.put("user", user);
-                String userRole = "provider";
-                sendMailsFromTemplate("providerOutdatedResources.ftl", root, subject, user.getEmail(), userRole);
-            }
+            sendMailsToUsers("providerOutdatedResources.ftl", root, subject, providerBundle.getProvider().getUsers(), "provider");
         } else {
             root.put("trainingResourceBundle", trainingResourceBundle);
-            for (User user : providerBundle.getProvider().getUsers()) {
-                root.put("user", user);
-                String userRole = "provider";
-                sendMailsFromTemplate("providerOutdatedTrainingResources.ftl", root, subject, user.getEmail(), userRole);
-            }
+            sendMailsToUsers("providerOutdatedTrainingResources.ftl", root, subject, providerBundle.getProvider().getUsers(), "provider");
         }
     }
 
@@ -360,17 +323,11 @@ public class RegistrationMailService {
         root.put("comment", serviceBundle.getLoggingInfo().get(serviceBundle.getLoggingInfo().size() - 1).getComment());
 
         // emails to old Provider's Users
-        for (User user : oldProvider.getProvider().getUsers()) {
-            root.put("user", user);
-            sendMailsFromTemplate("resourceMovedOldProvider.ftl", root, subject, user.getEmail(), userRole);
-        }
+        sendMailsToUsers("resourceMovedOldProvider.ftl", root, subject, oldProvider.getProvider().getUsers(), userRole);
 //        root.remove("user");
 
         // emails to new Provider's Users
-        for (User user : newProvider.getProvider().getUsers()) {
-            root.put("user", user);
-            sendMailsFromTemplate("resourceMovedNewProvider.ftl", root, subject, user.getEmail(), userRole);
-        }
+        sendMailsToUsers("resourceMovedNewProvider.ftl", root, subject, newProvider.getProvider().getUsers(), userRole);
 
         // emails to Admins
         userRole = "admin";
@@ -399,17 +356,11 @@ public class RegistrationMailService {
         root.put("comment", trainingResourceBundle.getLoggingInfo().get(trainingResourceBundle.getLoggingInfo().size() - 1).getComment());
 
         // emails to old Provider's Users
-        for (User user : oldProvider.getProvider().getUsers()) {
-            root.put("user", user);
-            sendMailsFromTemplate("trainingResourceMovedOldProvider.ftl", root, subject, user.getEmail(), userRole);
-        }
+        sendMailsToUsers("trainingResourceMovedOldProvider.ftl", root, subject, oldProvider.getProvider().getUsers(), userRole);
 //        root.remove("user");
 
         // emails to new Provider's Users
-        for (User user : newProvider.getProvider().getUsers()) {
-            root.put("user", user);
-            sendMailsFromTemplate("trainingResourceMovedNewProvider.ftl", root, subject, user.getEmail(), userRole);
-        }
+        sendMailsToUsers("trainingResourceMovedNewProvider.ftl", root, subject, newProvider.getProvider().getUsers(), userRole);
 
         // emails to Admins
         userRole = "admin";
@@ -599,23 +550,35 @@ public class RegistrationMailService {
             logger.error("emails empty or null");
             return;
         }
-        try (StringWriter out = new StringWriter()) {
-            Template temp = cfg.getTemplate(templateName);
-            temp.process(root, out);
-            String mailBody = out.getBuffer().toString();
-
-            if (enableEmailAdminNotifications && userRole.equals("admin")) {
-                if (cc != null && !cc.isEmpty()) {
-                    mailService.sendMail(to, cc, subject, mailBody);
-                } else {
-                    mailService.sendMail(to, subject, mailBody);
+        try {
+            String mailBody = templateRenderer.render(templateName, root);
+            sendMail(to, cc, subject, mailBody, userRole);
+        } catch (IOException e) {
+            logger.error("Error finding mail template '{}'", templateName, e);
+        } catch (TemplateException e) {
+            logger.error("ERROR", e);
+        } catch (MessagingException e) {
+            logger.error("Could not send mail", e);
+        }
+    }
+
+    /**
+     * Renders the template for every User, with the User as the 'user' variable, and sends each email.
+     */
+    private void sendMailsToUsers(String templateName, Map<String, Object> root, String subject, List<User> users, String userRole) {
+        if (users == null || users.isEmpty()) {
+            return;
+        }
+        try {
+            List<String> mailBodies = templateRenderer.renderForEach(templateName, root, "user", users);
+            for (int i = 0; i < users.size(); i++) {
+                String email = users.get(i).getEmail();
+                if (email == null || email.isEmpty()) {
+                    logger.error("emails empty or null");
+                    continue;
                 }
+                sendMail(Collections.singletonList(email), null, subject, mailBodies.get(i), userRole);
             }
-            if (enableEmailProviderNotifications && userRole.equals("provider")) {
-                mailService.sendMail(to, subject, mailBody);
-            }
-            logger.info("\nRecipients: {}\nCC: {}\nTitle: {}\nMail body: \n{}", String.join(", ", to), cc, subject, mailBody);
-
         } catch (IOException e) {
             logger.error("Error finding mail template '{}'", templateName, e);
         } catch (TemplateException e) {
@@ -625,6 +588,20 @@ public class RegistrationMailService {
         }
     }
 
+    private void sendMail(List<String> to, List<String> cc, String subject, String mailBody, String userRole) throws MessagingException {
+        if (enableEmailAdminNotifications && userRole.equals("admin")) {
+            if (cc != null && !cc.isEmpty()) {
+                mailService.sendMail(to, cc, subject, mailBody);
+            } else {
+                mailService.sendMail(to, subject, mailBody);
+            }
+        }
+        if (enableEmailProviderNotifications && userRole.equals("provider")) {
+            mailService.sendMail(to, subject, mailBody);
+        }
+        logger.info("\nRecipients: {}\nCC: {}\nTitle: {}\nMail body: \n{}", String.join(", ", to), cc, subject, mailBody);
+    }
+
     private String getProviderSubject(ProviderBundle providerBundle, Object serviceTemplate, String name) {
         if (providerBundle == null || providerBundle.getProvider() == null) {
             logger.error("Provider is null");
@@ -829,19 +806,12 @@ public class RegistrationMailService {
         String subject = String.format("[%s Portal] Your email has been added as an Administrator for the Provider '%s'", projectName, providerBundle.getProvider().getName());
 
         if (admins == null) {
-            for (User user : providerBundle.getProvider().getUsers()) {
-                root.put("user", user);
-                String userRole = "provider";
-                sendMailsFromTemplate("providerAdminAdded.ftl", root, subject, user.getEmail(), userRole);
-            }
+            sendMailsToUsers("providerAdminAdded.ftl", root, subject, providerBundle.getProvider().getUsers(), "provider");
         } else {
-            for (User user : providerBundle.getProvider().getUsers()) {
-                if (admins.contains(user.getEmail())) {
-                    root.put("user", user);
-                    String userRole = "provider";
-                    sendMailsFromTemplate("providerAdminAdded.ftl", root, subject, user.getEmail(), userRole);
-                }
-            }
+            List<User> users = providerBundle.getProvider().getUsers().stream()
+                    .filter(user -> admins.contains(user.getEmail()))
+                    .collect(Collectors.toList());
+            sendMailsToUsers("providerAdminAdded.ftl", root, subject, users, "provider");
         }
     }
 
@@ -854,13 +824,10 @@ public class RegistrationMailService {
 
         String subject = String.format("[%s Portal] Your email has been deleted from the Administration Team of the Provider '%s'", projectName, providerBundle.getProvider().getName());
 
-        for (User user : providerBundle.getProvider().getUsers()) {
-            if (admins.contains(user.getEmail())) {
-                root.put("user", user);
-                String userRole = "provider";
-                sendMailsFromTemplate("providerAdminDeleted.ftl", root, subject, user.getEmail(), userRole);
-            }
-        }
+        List<User> users = providerBundle.getProvider().getUsers().stream()
+                .filter(user -> admins.contains(user.getEmail()))
+                .collect(Collectors.toList());
+        sendMailsToUsers("providerAdminDeleted.ftl", root, subject, users, "provider");
     }
 
     public void sendEmailsToNewlyAddedCatalogueAdmins(CatalogueBundle catalogueBundle, List<String> admins) {
@@ -873,19 +840,12 @@ public class RegistrationMailService {
         String subject = String.format("[%s Portal] Your email has been added as an Administrator for the Catalogue '%s'", projectName, catalogueBundle.getCatalogue().getName());
 
         if (admins == null) {
-            for (User user : catalogueBundle.getCatalogue().getUsers()) {
-                root.put("user", user);
-                String userRole = "provider";
-                sendMailsFromTemplate("catalogueAdminAdded.ftl", root, subject, user.getEmail(), userRole);
-            }
+            sendMailsToUsers("catalogueAdminAdded.ftl", root, subject, catalogueBundle.getCatalogue().getUsers(), "provider");
         } else {
-            for (User user : catalogueBundle.getCatalogue().getUsers()) {
-                if (admins.contains(user.getEmail())) {
-                    root.put("user", user);
-                    String userRole = "provider";
-                    sendMailsFromTemplate("catalogueAdminAdded.ftl", root, subject, user.getEmail(), userRole);
-                }
-            }
+            List<User> users = catalogueBundle.getCatalogue().getUsers().stream()
+                    .filter(user -> admins.contains(user.getEmail()))
+                    .collect(Collectors.toList());
+            sendMailsToUsers("catalogueAdminAdded.ftl", root, subject, users, "provider");
         }
     }
 
@@ -898,13 +858,10 @@ public class RegistrationMailService {
 
         String subject = String.format("[%s Portal] Your email has been deleted from the Administration Team of the Catalogue '%s'", projectName, catalogueBundle.getCatalogue().getName());
 
-        for (User user : catalogueBundle.getCatalogue().getUsers()) {
-            if (admins.contains(user.getEmail())) {
-                root.put("user", user);
-                String userRole = "provider";
-                sendMailsFromTemplate("catalogueAdminDeleted.ftl", root, subject, user.getEmail(), userRole);
-            }
-        }
+        List<User> users = catalogueBundle.getCatalogue().getUsers().stream()
+                .filter(user -> admins.contains(user.getEmail()))
+                .collect(Collectors.toList());
+        sendMailsToUsers("catalogueAdminDeleted.ftl", root, subject, users, "provider");
     }
 
     public void informPortalAdminsForProviderDeletion(ProviderBundle provider, User user) {
@@ -925,11 +882,7 @@ public class RegistrationMailService {
 
         String subject = String.format("[%s] Your Provider [%s]-[%s] has been Deleted", projectName,
                 provider.getProvider().getId(), provider.getProvider().getName());
-        for (User user : provider.getProvider().getUsers()) {
-            root.put("user", user);
-            String userRole = "provider";
-            sendMailsFromTemplate("providerDeletion.ftl", root, subject, user.getEmail(), userRole);
-        }
+        sendMailsToUsers("providerDeletion.ftl", root, subject, provider.getProvider().getUsers(), "provider");
     }
 
     public void sendVocabularyCurationEmails(VocabularyCuration vocabularyCuration, String userName) {
@@ -982,11 +935,7 @@ public class RegistrationMailService {
 
         String subject = String.format("[%s Portal] Your %s '%s' has been audited by the EPOT team", projectName, resourceType, bundleName);
 
-        for (User user : users) {
-            root.put("user", user);
-            String userRole = "provider";
-            sendMailsFromTemplate("bundleAudit.ftl", root, subject, user.getEmail(), userRole);
-        }
+        sendMailsToUsers("bundleAudit.ftl", root, subject, users, "provider");
     }
 
     public void notifyPortalAdminsForInvalidProviderUpdate(ProviderBundle providerBundle) {
@@ -1125,10 +1074,7 @@ public class RegistrationMailService {
         sendMailsFromTemplate("interoperabilityRecordOnboardingForPortalAdmins.ftl", root, subjectForPortalAdmins, monitoringEmail, "admin");
 
         String subjectForProviderAdmins = getProviderAdminsSubjectForInteroperabilityRecordOnboarding(interoperabilityRecordBundle);
-        for (User user : providerAdmins) {
-            root.put("user", user);
-            sendMailsFromTemplate("interoperabilityRecordOnboardingForProviderAdmins.ftl", root, subjectForProviderAdmins, user.getEmail(), "provider");
-        }
+        sendMailsToUsers("interoperabilityRecordOnboardingForProviderAdmins.ftl", root, subjectForProviderAdmins, providerAdmins, "provider");
     }
 
     private String getProviderAdminsSubjectForInteroperabilityRecordOnboarding(InteroperabilityRecordBundle interoperabilityRecordBundle) {
@@ -0,0 +1,177 @@
+package eu.einfracentral.service;
+
+import eu.einfracentral.domain.User;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.document.DocumentField;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.annotation.RequestScope;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Request-scoped {@link AuthorizationContext}. The ids of the Providers (active and pending) and Catalogues
+ * listing the user's email among their users are retrieved with a single query on first use, so the checks of
+ * most items of a response are answered in memory instead of resolving each Resource and its Providers.
+ * <p>
+ * The query matches the email exactly, while the {@link SecurityService} also matches users by id and emails
+ * in any case, so the retrieved ids only answer positively: other checks fall back to the {@link SecurityService},
+ * once per Provider or Catalogue.
+ */
+@Component
+@RequestScope
+public class RequestAuthorizationContext implements AuthorizationContext {
+
+    private static final Logger logger = LogManager.getLogger(RequestAuthorizationContext.class);
+
+    private static final String PROVIDER = "provider";
+    private static final String PENDING_PROVIDER = "pending_provider";
+    private static final String CATALOGUE = "catalogue";
+
+    private final RestHighLevelClient client;
+    private final SecurityService securityService;
+
+    @Value("${elastic.index.max_result_window:10000}")
+    private int maxQuantity;
+
+    private User user;
+    // active Providers as '<catalogueId>/<providerId>', pending Providers and Catalogues by id
+    private Set<String> providers;
+    private Set<String> pendingProviders;
+    private Set<String> catalogues;
+    // results of the checks of the SecurityService, active Providers as '<catalogueId>/<providerId>'
+    private Map<String, Boolean> checkedProviders;
+    private Map<String, Boolean> checkedCatalogues;
+
+    public RequestAuthorizationContext(RestHighLevelClient client, SecurityService securityService) {
+        this.client = client;
+        this.securityService = securityService;
+    }
+
+    @Override
+    public boolean isProviderAdmin(Authentication auth, String providerId, String catalogueId) {
+        if (providerId == null || !resolve(auth)) {
+            return false;
+        }
+        String key = catalogueId + "/" + providerId;
+        if (providers.contains(key) || pendingProviders.contains(providerId)) {
+            return true;
+        }
+        return checkedProviders.computeIfAbsent(key, k -> check(() ->
+                securityService.userIsProviderAdmin(user, providerId, catalogueId), "Provider", providerId));
+    }
+
+    @Override
+    public boolean isAnyProviderAdmin(Authentication auth, Collection<String> providerIds, String catalogueId) {
+        if (providerIds == null) {
+            return false;
+        }
+        return providerIds.stream().anyMatch(providerId -> isProviderAdmin(auth, providerId, catalogueId));
+    }
+
+    @Override
+    public boolean isCatalogueAdmin(Authentication auth, String catalogueId) {
+        if (catalogueId == null || !resolve(auth)) {
+            return false;
+        }
+        if (catalogues.contains(catalogueId)) {
+            return true;
+        }
+        return checkedCatalogues.computeIfAbsent(catalogueId, k -> check(() ->
+                securityService.userIsCatalogueAdmin(user, catalogueId), "Catalogue", catalogueId));
+    }
+
+    /**
+     * Resolves the authenticated user and the ids they administer, once per request and user.
+     *
+     * @return false for anonymous users
+     */
+    private boolean resolve(Authentication auth) {
+        if (auth == null || !auth.isAuthenticated() || auth.getAuthorities().stream()
+                .anyMatch(authority -> "ROLE_ANONYMOUS".equals(authority.getAuthority()))) {
+            return false;
+        }
+        User authenticated = User.of(auth);
+        if (user == null || !Objects.equals(authenticated.getId(), user.getId())
+                || !Objects.equals(authenticated.getEmail(), user.getEmail())) {
+            user = authenticated;
+            providers = new HashSet<>();
+            pendingProviders = new HashSet<>();
+            catalogues = new HashSet<>();
+            checkedProviders = new HashMap<>();
+            checkedCatalogues = new HashMap<>();
+            if (user.getEmail() != null && !user.getEmail().isEmpty()) {
+                retrieveAdministeredIds(user.getEmail(), providers, pendingProviders, catalogues);
+            }
+        }
+        return true;
+    }
+
+    private boolean check(BooleanSupplier check, String resourceType, String id) {
+        try {
+            return check.getAsBoolean();
+        } catch (RuntimeException e) {
+            logger.debug("Could not check whether user '{}' administers {} '{}'", user.getEmail(), resourceType, id, e);
+            return false;
+        }
+    }
+
+    /**
+     * Adds the ids of the Providers, pending Providers and Catalogues listing the email among their users.
+     */
+    void retrieveAdministeredIds(String userEmail, Set<String> providers, Set<String> pendingProviders,
+                                 Set<String> catalogues) {
+        SearchRequest searchRequest = new SearchRequest(PROVIDER, PENDING_PROVIDER, CATALOGUE);
+        SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder();
+        searchSourceBuilder
+                .query(QueryBuilders.termsQuery("users", new LinkedHashSet<>(Arrays.asList(userEmail, userEmail.toLowerCase()))))
+                .from(0)
+                .size(maxQuantity)
+                .docValueField("resource_internal_id")
+                .docValueField("catalogue_id")
+                .fetchSource(false);
+        searchRequest.source(searchSourceBuilder);
+
+        SearchResponse response;
+        try {
+            response = client.search(searchRequest, RequestOptions.DEFAULT);
+        } catch (IOException e) {
+            logger.error("Could not retrieve the Providers and Catalogues of user '{}'", userEmail, e);
+            return;
+        }
+        for (SearchHit hit : response.getHits().getHits()) {
+            String id = getValue(hit, "resource_internal_id");
+            if (id == null) {
+                continue;
+            }
+            if (hit.getIndex().startsWith(PENDING_PROVIDER)) {
+                pendingProviders.add(id);
+            } else if (hit.getIndex().startsWith(PROVIDER)) {
+                providers.add(getValue(hit, "catalogue_id") + "/" + id);
+            } else if (hit.getIndex().startsWith(CATALOGUE)) {
+                catalogues.add(id);
+            }
+        }
+        logger.trace("User '{}' administers Providers {}, pending Providers {} and Catalogues {}",
+                userEmail, providers, pendingProviders, catalogues);
+    }
+
+    private String getValue(SearchHit hit, String field) {
+        DocumentField documentField = hit.getFields().get(field);
+        if (documentField == null || documentField.getValues().isEmpty()) {
+            return null;
+        }
+        return (String) documentField.getValues().get(0);
+    }
+}
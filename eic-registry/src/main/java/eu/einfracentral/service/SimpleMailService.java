@@ -1,28 +1,49 @@
 package eu.einfracentral.service;
 
+import eu.einfracentral.dto.OperationStatistics;
 import eu.einfracentral.registry.service.MailService;
+import eu.einfracentral.utils.OperationMeter;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.PropertySource;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.mail.*;
 import javax.mail.internet.AddressException;
 import javax.mail.internet.InternetAddress;
 import javax.mail.internet.MimeMessage;
+import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 @Component
 @PropertySource({"classpath:application.properties", "classpath:registry.properties"})
-public class SimpleMailService implements MailService {
+public class SimpleMailService implements MailService, OperationStatisticsService {
 
     private static final Logger logger = LogManager.getLogger(SimpleMailService.class);
     private Session session;
 
+    private final MailOutbox outbox;
+    private final int connections;
+    private final ExecutorService dispatcher;
+    private final ExecutorService senders;
+    private final AtomicBoolean requested = new AtomicBoolean();
+    private final AtomicBoolean dispatched = new AtomicBoolean();
+
+    private final OperationMeter meter = new OperationMeter("outbox", "queued", "deduplicated", "sent", "failed",
+            "dropped");
+
     @Value("${mail.smtp.auth}")
     String auth;
 
@@ -50,6 +71,24 @@ public class SimpleMailService implements MailService {
     @Value("${emails.send:true}")
     boolean enableEmails;
 
+    @Value("${mail.outbox.batchSize:100}")
+    int batchSize;
+
+    public SimpleMailService(MailOutbox outbox, @Value("${mail.outbox.connections:2}") int connections) {
+        this.outbox = outbox;
+        this.connections = Math.max(1, connections);
+        this.dispatcher = Executors.newSingleThreadExecutor(runnable -> createThread(runnable, "mail-outbox"));
+        AtomicInteger count = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(this.connections,
+                runnable -> createThread(runnable, "mail-sender-" + count.incrementAndGet()));
+    }
+
+    private static Thread createThread(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
     @PostConstruct
     private void postConstruct() {
         Properties sessionProps = new Properties();
@@ -69,86 +108,186 @@ public class SimpleMailService implements MailService {
         });
     }
 
-    @Async
     @Override
     public void sendMail(List<String> to, List<String> cc, String subject, String text) throws MessagingException {
         sendMail(to, cc, Collections.singletonList(from), subject, text);
     }
 
+    /**
+     * Stores the email in the outbox and triggers its delivery. An email that cannot be stored is dropped, without
+     * failing the caller.
+     */
     @Override
     public void sendMail(List<String> to, List<String> cc, List<String> bcc, String subject, String text) throws MessagingException {
         if (enableEmails) {
-            Transport transport = null;
-            MimeMessage message;
+            boolean added;
             try {
-                transport = session.getTransport();
-                InternetAddress sender = new InternetAddress(from);
-                message = new MimeMessage(session);
-                message.setFrom(sender);
-                if (to != null) {
-                    message.setRecipients(Message.RecipientType.TO, createAddresses(to));
-                }
-                if (cc != null) {
-                    message.setRecipients(Message.RecipientType.CC, createAddresses(cc));
-                }
-                if (bcc != null) {
-                    message.setRecipients(Message.RecipientType.BCC, createAddresses(bcc));
-                }
-                message.setSubject(subject);
+                added = outbox.add(to, cc, bcc, subject, text);
+            } catch (DataAccessException e) {
+                meter.increment("dropped");
+                logger.error("Could not store email '{}' to {}", subject, to, e);
+                return;
+            }
+            if (added) {
+                meter.increment("queued");
+                deliverPending();
+            } else {
+                meter.increment("deduplicated");
+                logger.debug("Skipping duplicate email '{}' to {}", subject, to);
+            }
+        }
+    }
+
+    /**
+     * Triggers the delivery of the pending emails of the outbox on the dispatcher thread, without waiting for it.
+     */
+    @Scheduled(initialDelay = 60000, fixedDelayString = "${mail.outbox.interval:60000}")
+    public void deliverPending() {
+        if (!enableEmails) {
+            return;
+        }
+        requested.set(true);
+        if (dispatched.compareAndSet(false, true)) {
+            try {
+                dispatcher.execute(() -> {
+                    dispatched.set(false);
+                    drain();
+                });
+            } catch (RejectedExecutionException e) {
+                dispatched.set(false);
+                logger.debug("Mail dispatcher has been shut down");
+            }
+        }
+    }
 
-                message.setText(text, "utf-8", "html");
-                message.saveChanges();
+    /**
+     * Sends the pending emails of the outbox, distributed over {@code mail.outbox.connections} SMTP connections,
+     * each sending many messages.
+     */
+    private void drain() {
+        try {
+            do {
+                requested.set(false);
+                List<MailOutbox.Mail> mails;
+                do {
+                    mails = outbox.getDue(batchSize);
+                    deliver(mails);
+                } while (mails.size() == batchSize);
+            } while (requested.get());
+            outbox.purge();
+        } catch (RuntimeException e) {
+            logger.error("Could not deliver the pending emails", e);
+        }
+    }
 
-                transport.connect();
-                sendMessage(message, to, cc, bcc);
-            } catch (MessagingException e) {
-                logger.error("ERROR", e);
-            } finally {
-                if (transport != null) {
-                    transport.close();
-                }
+    @Override
+    public String getComponent() {
+        return "mail";
+    }
+
+    @Override
+    public List<OperationStatistics> getStatistics() {
+        OperationStatistics statistics = meter.getStatistics();
+        statistics.setCount("pending", outbox.size());
+        return Collections.singletonList(statistics);
+    }
+
+    private void deliver(List<MailOutbox.Mail> mails) {
+        if (mails.isEmpty()) {
+            return;
+        }
+        List<List<MailOutbox.Mail>> digests = MailOutbox.groupDigests(mails);
+        int batches = Math.min(connections, digests.size());
+        List<CompletableFuture<Void>> deliveries = new ArrayList<>();
+        for (int i = 0; i < batches; i++) {
+            List<List<MailOutbox.Mail>> batch = new ArrayList<>();
+            for (int j = i; j < digests.size(); j += batches) {
+                batch.add(digests.get(j));
             }
+            deliveries.add(CompletableFuture.runAsync(() -> sendBatch(batch), senders));
         }
+        CompletableFuture.allOf(deliveries.toArray(new CompletableFuture[0])).join();
     }
 
-    void sendMessage(Message message, List<String> to, List<String> cc, List<String> bcc) throws MessagingException {
-        boolean sent = false;
-        int attempts = 0;
-        while (!sent && attempts < 20) {
-            try {
-                attempts++;
-                Transport.send(message);
-                sent = true;
-            } catch (SendFailedException e) {
-                if (e.getInvalidAddresses().length > 0) {
-                    logger.warn("Send mail failed. Attempting to remove invalid address");
-                    // Create new lists to make them modifiable
-                    List<String> toList = new ArrayList<>(to != null ? to : Collections.emptyList());
-                    List<String> ccList = new ArrayList<>(cc != null ? cc : Collections.emptyList());
-                    List<String> bccList = new ArrayList<>(bcc != null ? bcc : Collections.emptyList());
-
-                    for (int i = 0; i < e.getInvalidAddresses().length; i++) {
-                        Address invalidAddress = e.getInvalidAddresses()[i];
-                        logger.debug("Invalid e-mail address: {}", invalidAddress);
-
-                        // Remove invalid address from the new lists
-                        toList.remove(invalidAddress.toString());
-                        ccList.remove(invalidAddress.toString());
-                        bccList.remove(invalidAddress.toString());
+    /**
+     * Sends the digests using a single SMTP connection, reconnecting if it is closed by the server.
+     */
+    private void sendBatch(List<List<MailOutbox.Mail>> digests) {
+        Transport transport = null;
+        try {
+            transport = session.getTransport();
+            for (List<MailOutbox.Mail> digest : digests) {
+                MailOutbox.Mail mail = MailOutbox.digest(digest);
+                try {
+                    if (!transport.isConnected()) {
+                        transport.connect();
                     }
-
-                    // Set recipients using the new lists
-                    message.setRecipients(Message.RecipientType.TO, createAddresses(toList));
-                    message.setRecipients(Message.RecipientType.CC, createAddresses(ccList));
-                    message.setRecipients(Message.RecipientType.BCC, createAddresses(bccList));
-                } else {
-                    logger.error(e);
+                    sendMessage(transport, mail);
+                    for (MailOutbox.Mail digested : digest) {
+                        outbox.sent(digested);
+                        meter.record("sent", Instant.now().toEpochMilli() - digested.getCreatedAt().toEpochMilli());
+                    }
+                } catch (MessagingException e) {
+                    logger.warn("Could not send email '{}' to {}: {}", mail.getSubject(), mail.getTo(), e.getMessage());
+                    for (MailOutbox.Mail digested : digest) {
+                        meter.increment(outbox.failed(digested) ? "dropped" : "failed");
+                    }
+                }
+            }
+        } catch (MessagingException e) {
+            logger.error("ERROR", e);
+        } finally {
+            if (transport != null) {
+                try {
+                    transport.close();
+                } catch (MessagingException e) {
+                    logger.debug("Could not close SMTP connection", e);
                 }
             }
         }
-        if (!sent) {
-            logger.error("Send Message Aborted...\nTo: {}\nCC: {}\nBCC: {}",
-                    String.join(", ", to), String.join(", ", cc), String.join(", ", bcc));
+    }
+
+    private MimeMessage createMessage(List<String> to, List<String> cc, List<String> bcc, String subject, String text) throws MessagingException {
+        MimeMessage message = new MimeMessage(session);
+        message.setFrom(new InternetAddress(from));
+        message.setRecipients(Message.RecipientType.TO, createAddresses(to));
+        message.setRecipients(Message.RecipientType.CC, createAddresses(cc));
+        message.setRecipients(Message.RecipientType.BCC, createAddresses(bcc));
+        message.setSubject(subject);
+        message.setText(text, "utf-8", "html");
+        message.saveChanges();
+        return message;
+    }
+
+    /**
+     * Sends the email. If some addresses are invalid, it is sent again without them.
+     */
+    void sendMessage(Transport transport, MailOutbox.Mail mail) throws MessagingException {
+        MimeMessage message = createMessage(mail.getTo(), mail.getCc(), mail.getBcc(), mail.getSubject(), mail.getText());
+        try {
+            transport.sendMessage(message, message.getAllRecipients());
+        } catch (SendFailedException e) {
+            if (e.getInvalidAddresses() == null || e.getInvalidAddresses().length == 0) {
+                throw e;
+            }
+            logger.warn("Send mail failed. Attempting to remove invalid address");
+            // Create new lists to make them modifiable
+            List<String> toList = new ArrayList<>(mail.getTo());
+            List<String> ccList = new ArrayList<>(mail.getCc());
+            List<String> bccList = new ArrayList<>(mail.getBcc());
+            for (Address invalidAddress : e.getInvalidAddresses()) {
+                logger.debug("Invalid e-mail address: {}", invalidAddress);
+                toList.remove(invalidAddress.toString());
+                ccList.remove(invalidAddress.toString());
+                bccList.remove(invalidAddress.toString());
+            }
+            if (toList.isEmpty() && ccList.isEmpty() && bccList.isEmpty()) {
+                logger.error("Send Message Aborted, no valid recipients...\nTo: {}\nCC: {}\nBCC: {}",
+                        String.join(", ", mail.getTo()), String.join(", ", mail.getCc()), String.join(", ", mail.getBcc()));
+                return;
+            }
+            message = createMessage(toList, ccList, bccList, mail.getSubject(), mail.getText());
+            transport.sendMessage(message, message.getAllRecipients());
         }
     }
 
@@ -175,8 +314,17 @@ public class SimpleMailService implements MailService {
         sendMail(to, null, subject, text);
     }
 
+    @PreDestroy
+    void shutdown() {
+        dispatcher.shutdown();
+        senders.shutdown();
+    }
+
     private InternetAddress[] createAddresses(List<String> emailAddresses) {
         List<InternetAddress> addresses = new ArrayList<>();
+        if (emailAddresses == null) {
+            return new InternetAddress[0];
+        }
         for (int i = 0; i < emailAddresses.size(); i++) {
             try {
                 addresses.add(new InternetAddress(emailAddresses.get(i)));
@@ -1,24 +1,64 @@
 package eu.einfracentral.service.search;
 
 import eu.einfracentral.utils.FacetFilterUtils;
+import eu.openminted.registry.core.domain.Facet;
 import eu.openminted.registry.core.domain.FacetFilter;
+import eu.openminted.registry.core.domain.Resource;
+import eu.openminted.registry.core.domain.Value;
 import eu.openminted.registry.core.service.SearchService;
 import eu.openminted.registry.core.service.SearchServiceImpl;
+import eu.openminted.registry.core.service.ServiceException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.bouncycastle.util.Strings;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.RequestOptions;
 import org.elasticsearch.client.RestHighLevelClient;
 import org.elasticsearch.index.query.BoolQueryBuilder;
 import org.elasticsearch.index.query.DisMaxQueryBuilder;
+import org.elasticsearch.index.query.MultiMatchQueryBuilder;
+import org.elasticsearch.index.query.Operator;
 import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.aggregations.bucket.filter.Filter;
+import org.elasticsearch.search.aggregations.bucket.terms.Terms;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.sort.SortOrder;
 
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 import static org.elasticsearch.index.query.QueryBuilders.*;
 
 public abstract class AbstractSearchService extends SearchServiceImpl implements SearchService {
 
-    public AbstractSearchService(RestHighLevelClient client) {
+    private static final Logger logger = LogManager.getLogger(AbstractSearchService.class);
+    private static final String FACET_VALUES = "values";
+    private static final String RESOURCE_ID = "resource_internal_id";
+    private static final String DOCUMENT_ID = "_id";
+    private static final String[] RESOURCE_FIELDS = {"id", "payload", "payloadFormat", "version", "creation_date", "modification_date"};
+
+    private final RestHighLevelClient elasticsearchClient;
+    private final KeywordSubfieldsService keywordSubfieldsService;
+
+    @org.springframework.beans.factory.annotation.Value("${elastic.aggregation.bucketSize:1000}")
+    private int facetValuesSize;
+
+    @org.springframework.beans.factory.annotation.Value("${elastic.aggregation.timeout:10000}")
+    private long facetsTimeout;
+
+    public AbstractSearchService(RestHighLevelClient client, KeywordSubfieldsService keywordSubfieldsService) {
         super(client);
+        this.elasticsearchClient = client;
+        this.keywordSubfieldsService = keywordSubfieldsService;
     }
 
     /**
@@ -68,7 +108,7 @@ public abstract class AbstractSearchService extends SearchServiceImpl implements
             List<String> longKeywords = new ArrayList<>();
             List<String> shortKeywords = new ArrayList<>();
             if (keyword.split("[\\s-_,./;:'\\[\\]]").length == 1) {
-                qBuilder.should(createMatchQuery(searchFields, Collections.singletonList(keyword), 1f, 0.5f));
+                qBuilder.should(createMatchQuery(filter.getResourceType(), searchFields, Collections.singletonList(keyword), 1f, 0.5f));
             } else {
                 for (char delimiter : " -_,./;:'[]".toCharArray()) {
                     if (keyword.contains("" + delimiter)) {
@@ -85,12 +125,12 @@ public abstract class AbstractSearchService extends SearchServiceImpl implements
 
             // create fuzzy query for long keywords
             if (!longKeywords.isEmpty()) {
-                qBuilder.should(createMatchQuery(searchFields, longKeywords, 1f, 0.2f));
+                qBuilder.should(createMatchQuery(filter.getResourceType(), searchFields, longKeywords, 1f, 0.2f));
             }
 
             // create fuzzy query for short keywords
             if (!shortKeywords.isEmpty()) {
-                qBuilder.should(createMatchQuery(searchFields, shortKeywords, 0.2f, 0.1f));
+                qBuilder.should(createMatchQuery(filter.getResourceType(), searchFields, shortKeywords, 0.2f, 0.1f));
             }
 
             qBuilder.minimumShouldMatch(1);
@@ -104,6 +144,259 @@ public abstract class AbstractSearchService extends SearchServiceImpl implements
         return qBuilder;
     }
 
+    /**
+     * Computes the disjunctive facet values of the filtered fields of a search: the values of every filtered field
+     * are counted with all the other filters applied, but not the filter of the field itself, so that the counts
+     * show the results of selecting more values of the field.
+     * <p>
+     * All fields are computed in a single request with one filter aggregation per field, which is executed
+     * asynchronously to allow running it alongside the search of the results.
+     *
+     * @param filter the search filter
+     * @return the facets of the filtered fields (except 'active'), without labels, or an empty list if the request fails
+     */
+    public CompletableFuture<List<Facet>> searchDisjunctiveFacets(FacetFilter filter) {
+        CompletableFuture<List<Facet>> future = new CompletableFuture<>();
+
+        Map<String, List<Object>> allFilters = FacetFilterUtils.getFacetFilterFilters(filter);
+        List<Object> searchFields = allFilters.remove(FacetFilterUtils.SEARCH_FIELDS);
+
+        List<String> fields = new ArrayList<>(allFilters.keySet());
+        fields.remove("active");
+        if (filter.getBrowseBy() != null && !filter.getBrowseBy().isEmpty()) {
+            fields.retainAll(filter.getBrowseBy());
+        }
+        if (fields.isEmpty()) {
+            future.complete(new ArrayList<>());
+            return future;
+        }
+
+        // the keyword query is shared, the filters are applied per aggregation
+        FacetFilter keywordFilter = new FacetFilter();
+        keywordFilter.setKeyword(filter.getKeyword());
+        keywordFilter.setResourceType(filter.getResourceType());
+        if (searchFields != null) {
+            keywordFilter.addFilter(FacetFilterUtils.SEARCH_FIELDS, searchFields);
+        }
+
+        SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder()
+                .query(createQueryBuilder(keywordFilter))
+                .size(0)
+                .trackTotalHits(false);
+        for (String field : fields) {
+            Map<String, List<Object>> otherFilters = new LinkedHashMap<>(allFilters);
+            otherFilters.remove(field);
+            searchSourceBuilder.aggregation(AggregationBuilders
+                    .filter(field, customFilters(QueryBuilders.boolQuery(), otherFilters))
+                    .subAggregation(AggregationBuilders.terms(FACET_VALUES).field(field).size(facetValuesSize)));
+        }
+
+        SearchRequest searchRequest = new SearchRequest(filter.getResourceType());
+        searchRequest.source(searchSourceBuilder);
+        elasticsearchClient.searchAsync(searchRequest, RequestOptions.DEFAULT, new ActionListener<SearchResponse>() {
+            @Override
+            public void onResponse(SearchResponse response) {
+                try {
+                    List<Facet> facets = new ArrayList<>();
+                    for (String field : fields) {
+                        Terms terms = ((Filter) response.getAggregations().get(field)).getAggregations().get(FACET_VALUES);
+                        List<Value> values = new ArrayList<>();
+                        for (Terms.Bucket bucket : terms.getBuckets()) {
+                            Value value = new Value();
+                            value.setValue(bucket.getKeyAsString());
+                            value.setCount((int) bucket.getDocCount());
+                            values.add(value);
+                        }
+                        Facet facet = new Facet();
+                        facet.setField(field);
+                        facet.setValues(values);
+                        facets.add(facet);
+                    }
+                    future.complete(facets);
+                } catch (RuntimeException e) {
+                    future.completeExceptionally(e);
+                }
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                logger.error("Could not compute disjunctive facets of '{}'", filter.getResourceType(), e);
+                future.complete(new ArrayList<>());
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Waits at most {@code elastic.aggregation.timeout} milliseconds for the result of
+     * {@link #searchDisjunctiveFacets(FacetFilter)}.
+     *
+     * @param disjunctiveFacets the pending disjunctive facets
+     * @return the disjunctive facets, or an empty list if they failed or took too long
+     */
+    public List<Facet> awaitDisjunctiveFacets(CompletableFuture<List<Facet>> disjunctiveFacets) {
+        try {
+            return disjunctiveFacets.get(facetsTimeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            logger.error("Could not compute disjunctive facets", e.getCause());
+        } catch (TimeoutException e) {
+            disjunctiveFacets.cancel(false);
+            logger.warn("Disjunctive facets took more than {} ms", facetsTimeout);
+        }
+        return new ArrayList<>();
+    }
+
+    /**
+     * Returns a page of the ids of the resources matching the filter, ordered by 'resource_internal_id' and then by
+     * the unique document '_id', since 'resource_internal_id' is not unique across catalogues.
+     * Pages are requested with 'search_after' instead of 'from', so all matching resources can be traversed
+     * regardless of the index 'max_result_window'. The 'from', 'quantity' and 'orderBy' of the filter are ignored.
+     *
+     * @param filter the search filter
+     * @param after  the {@link Page#getCursor() cursor} of the previous page, or null for the first page
+     * @param size   the page size
+     * @return the ids of every hit of the page, in order, including repeated ids
+     */
+    public Page<String> searchIdsAfter(FacetFilter filter, Object[] after, int size) {
+        SearchHit[] hits = searchAfter(filter, after, size, false);
+        List<String> ids = new ArrayList<>(hits.length);
+        for (SearchHit hit : hits) {
+            ids.add(hit.getSortValues()[0].toString());
+        }
+        return new Page<>(ids, hits, size);
+    }
+
+    /**
+     * Same as {@link #searchIdsAfter(FacetFilter, Object[], int)}, but returns the resources of the page,
+     * read from the sources of the same response.
+     *
+     * @return the resources of every hit of the page, in order
+     */
+    public Page<Resource> searchResourcesAfter(FacetFilter filter, Object[] after, int size) {
+        SearchHit[] hits = searchAfter(filter, after, size, true);
+        List<Resource> resources = new ArrayList<>(hits.length);
+        for (SearchHit hit : hits) {
+            resources.add(toResource(hit.getSourceAsMap()));
+        }
+        return new Page<>(resources, hits, size);
+    }
+
+    /**
+     * Returns which of the given ids exist in the index of the resource type. The ids are searched in batches,
+     * paging through every hit of each batch so that ids stored more than once do not push others out of the
+     * results.
+     *
+     * @param resourceType the resource type
+     * @param ids          the ids to look for
+     * @param batchSize    the number of ids searched at once, also the page size of each request
+     * @return the distinct existing ids
+     */
+    public Set<String> searchExistingIds(String resourceType, Collection<String> ids, int batchSize) {
+        Set<String> existing = new HashSet<>();
+        List<String> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        for (int i = 0; i < distinctIds.size(); i += batchSize) {
+            FacetFilter ff = new FacetFilter();
+            ff.setResourceType(resourceType);
+            ff.addFilter(RESOURCE_ID, new ArrayList<>(distinctIds.subList(i, Math.min(i + batchSize, distinctIds.size()))));
+            Object[] after = null;
+            Page<String> page;
+            do {
+                page = searchIdsAfter(ff, after, batchSize);
+                existing.addAll(page.getItems());
+                after = page.getCursor();
+            } while (!page.isLast());
+        }
+        return existing;
+    }
+
+    private SearchHit[] searchAfter(FacetFilter filter, Object[] after, int size, boolean fetchResources) {
+        SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder()
+                .query(createQueryBuilder(filter))
+                .size(size)
+                .sort(RESOURCE_ID, SortOrder.ASC)
+                .sort(DOCUMENT_ID, SortOrder.ASC)
+                .trackTotalHits(false);
+        if (fetchResources) {
+            searchSourceBuilder.fetchSource(RESOURCE_FIELDS, null);
+        } else {
+            searchSourceBuilder.fetchSource(false);
+        }
+        if (after != null) {
+            searchSourceBuilder.searchAfter(after);
+        }
+
+        SearchRequest searchRequest = new SearchRequest(filter.getResourceType());
+        searchRequest.source(searchSourceBuilder);
+        try {
+            return elasticsearchClient.search(searchRequest, RequestOptions.DEFAULT).getHits().getHits();
+        } catch (IOException e) {
+            logger.error("Could not retrieve the page of '{}' after {}", filter.getResourceType(),
+                    Arrays.toString(after), e);
+            throw new ServiceException(e);
+        }
+    }
+
+    /**
+     * A page of {@code search_after} results.
+     */
+    public static class Page<T> {
+
+        private final List<T> items;
+        private final Object[] cursor;
+        private final boolean last;
+
+        public Page(List<T> items, Object[] cursor, boolean last) {
+            this.items = items;
+            this.cursor = cursor;
+            this.last = last;
+        }
+
+        private Page(List<T> items, SearchHit[] hits, int size) {
+            this(items, hits.length == 0 ? null : hits[hits.length - 1].getSortValues(), hits.length < size);
+        }
+
+        /**
+         * The items of the page, one per hit and in the order of the hits.
+         */
+        public List<T> getItems() {
+            return items;
+        }
+
+        /**
+         * The sort values of the last hit, to request the next page with; null when the page has no hits.
+         */
+        public Object[] getCursor() {
+            return cursor;
+        }
+
+        /**
+         * Whether the page returned fewer hits than requested, so no page follows it.
+         */
+        public boolean isLast() {
+            return last;
+        }
+    }
+
+    /**
+     * Creates the resource stored in the document of an index, as the registry does for search results.
+     */
+    private static Resource toResource(Map<String, Object> source) {
+        Resource resource = new Resource();
+        resource.setId((String) source.get("id"));
+        resource.setPayload((String) source.get("payload"));
+        resource.setPayloadFormat((String) source.get("payloadFormat"));
+        resource.setVersion((String) source.get("version"));
+        if (source.get("creation_date") instanceof Number) {
+            resource.setCreationDate(new Date(((Number) source.get("creation_date")).longValue()));
+        }
+        if (source.get("modification_date") instanceof Number) {
+            resource.setModificationDate(new Date(((Number) source.get("modification_date")).longValue()));
+        }
+        return resource;
+    }
+
     protected DisMaxQueryBuilder createDisMaxQuery(String key, List<Object> filters) {
         DisMaxQueryBuilder qb = QueryBuilders.disMaxQuery();
         for (Object f : filters) {
@@ -149,6 +442,43 @@ public abstract class AbstractSearchService extends SearchServiceImpl implements
         return qb;
     }
 
+    /**
+     * Creates a query for the keywords in all given search fields, using the n-gram subfields of the fields that
+     * have them (see {@link KeywordSubfieldsService}) and regular expressions for the rest.
+     *
+     * @param index      The searched index.
+     * @param fields     The search fields.
+     * @param keywords   The search keywords.
+     * @param boost      A multiplier for the score of the query (parameter of the {@link DisMaxQueryBuilder}).
+     * @param tieBreaker (parameter of the {@link DisMaxQueryBuilder})
+     * @return {@link DisMaxQueryBuilder}
+     */
+    protected DisMaxQueryBuilder createMatchQuery(String index, List<Object> fields, List<String> keywords, Float boost, Float tieBreaker) {
+        if (!keywordSubfieldsService.isEnabled()) {
+            return createMatchQuery(fields, keywords, boost, tieBreaker);
+        }
+        List<Object> regexpFields = new ArrayList<>();
+        DisMaxQueryBuilder qb = QueryBuilders.disMaxQuery();
+        for (Object field : fields) {
+            if (!keywordSubfieldsService.hasSubfields(index, (String) field)) {
+                regexpFields.add(field);
+                continue;
+            }
+            String prefixField = field + "." + KeywordSubfieldsService.PREFIX;
+            for (String keyword : keywords) {
+                qb.add(matchPhraseQuery(field + "." + KeywordSubfieldsService.LOWERCASE, keyword).boost(2f));
+                qb.add(multiMatchQuery(keyword, prefixField, prefixField + "._2gram", prefixField + "._3gram")
+                        .type(MultiMatchQueryBuilder.Type.BOOL_PREFIX).operator(Operator.AND));
+            }
+        }
+        if (!regexpFields.isEmpty()) {
+            qb.add(createMatchQuery(regexpFields, keywords, 1f, tieBreaker));
+        }
+        qb.boost(boost);
+        qb.tieBreaker(tieBreaker);
+        return qb;
+    }
+
     /**
      * Creates a phrase query for all the given phrases in all the given search fields.
      *
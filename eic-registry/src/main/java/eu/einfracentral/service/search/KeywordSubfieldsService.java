@@ -0,0 +1,310 @@
+package eu.einfracentral.service.search;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import eu.einfracentral.config.async.OrderedTaskExecutor;
+import eu.einfracentral.service.KeywordSubfieldsMigrationService;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.client.RestClient;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Maintains the index-time subfields used by the 'ngram' keyword query mode of {@link AbstractSearchService}.
+ * <p>
+ * For every search field of the resource type indices it declares the subfields
+ * <ul>
+ *     <li>{@code <field>.lowercase}: text with the built-in 'simple' analyzer, for case-insensitive matches of
+ *     whole words and phrases</li>
+ *     <li>{@code <field>.prefix}: 'search_as_you_type' field, for case-insensitive word prefixes</li>
+ * </ul>
+ * Both only use built-in analysis, so they are added with a mapping update while the indices stay open.
+ * The subfields are added to the existing mappings by an administrator ({@link #migrate()}), which also re-indexes
+ * the existing documents in place and then records the populated fields in the {@code _meta} of the index mapping.
+ * Startup and the periodic refresh only read the mappings: until a field of an index is recorded as populated,
+ * searches on it keep using the regular expression queries.
+ * <p>
+ * The populated fields are kept per concrete index and per alias of the index, as searches address the indices
+ * by resource type name.
+ */
+@Component
+public class KeywordSubfieldsService implements KeywordSubfieldsMigrationService {
+
+    private static final Logger logger = LogManager.getLogger(KeywordSubfieldsService.class);
+
+    public static final String LOWERCASE = "lowercase";
+    public static final String PREFIX = "prefix";
+
+    private static final String NGRAM_MODE = "ngram";
+    private static final String RESOURCE_TYPES_ALIAS = "resourceTypes";
+    private static final String READY_FIELDS_META = "keyword_subfields";
+
+    private final RestClient client;
+    private final Executor executor;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicBoolean migrating = new AtomicBoolean();
+    private volatile Map<String, Set<String>> readyFields = Collections.emptyMap();
+
+    @Value("${elastic.search.keywordMode:regexp}")
+    private String keywordMode;
+
+    @Value("#{'${elastic.search.ngramFields:resource_internal_id,name,title}'.split(',')}")
+    private List<String> ngramFields;
+
+    public KeywordSubfieldsService(RestHighLevelClient client,
+                                   @Qualifier("maintenanceExecutor") OrderedTaskExecutor executor) {
+        this.client = client.getLowLevelClient();
+        this.executor = executor;
+    }
+
+    @PostConstruct
+    void init() {
+        if (isEnabled()) {
+            loadReadyFields();
+        }
+    }
+
+    /**
+     * Reads which fields have populated subfields, picking up migrations run by other instances.
+     */
+    @Scheduled(initialDelayString = "${elastic.search.ngramRefresh:600000}", fixedDelayString = "${elastic.search.ngramRefresh:600000}")
+    public void loadReadyFields() {
+        if (!isEnabled()) {
+            return;
+        }
+        try {
+            readyFields = readReadyFields(getMappings(), perform(new Request("GET",
+                    String.format("/%s/_alias", RESOURCE_TYPES_ALIAS))));
+        } catch (IOException | RuntimeException e) {
+            logger.error("Could not read the keyword subfields of the resource type indices", e);
+        }
+    }
+
+    /**
+     * Reads the populated fields recorded in the mappings, keyed by index and by the aliases of the index. An alias
+     * of many indices only gets the fields populated in all of them.
+     *
+     * @param mappings the response of the mappings request
+     * @param aliases  the response of the aliases request
+     */
+    static Map<String, Set<String>> readReadyFields(JsonNode mappings, JsonNode aliases) {
+        Map<String, Set<String>> ready = new HashMap<>();
+        Iterator<Map.Entry<String, JsonNode>> indices = mappings.fields();
+        while (indices.hasNext()) {
+            Map.Entry<String, JsonNode> index = indices.next();
+            Set<String> fields = new HashSet<>();
+            index.getValue().path("mappings").path("_meta").path(READY_FIELDS_META)
+                    .forEach(field -> fields.add(field.asText()));
+
+            Set<String> names = new HashSet<>();
+            names.add(index.getKey());
+            aliases.path(index.getKey()).path("aliases").fieldNames().forEachRemaining(names::add);
+            names.remove(RESOURCE_TYPES_ALIAS);
+            for (String name : names) {
+                Set<String> existing = ready.get(name);
+                if (existing == null) {
+                    ready.put(name, new HashSet<>(fields));
+                } else {
+                    existing.retainAll(fields);
+                }
+            }
+        }
+        return ready;
+    }
+
+    /**
+     * @return whether the 'ngram' keyword query mode is enabled
+     */
+    public boolean isEnabled() {
+        return NGRAM_MODE.equalsIgnoreCase(keywordMode);
+    }
+
+    /**
+     * @param index the name or alias of the index
+     * @return whether the subfields of the field are declared and populated in the index
+     */
+    public boolean hasSubfields(String index, String field) {
+        Set<String> fields = readyFields.get(index);
+        return fields != null && fields.contains(field);
+    }
+
+    @Override
+    public Map<String, List<String>> getReadyFields() {
+        Map<String, List<String>> fields = new TreeMap<>();
+        readyFields.forEach((index, ready) -> fields.put(index, new ArrayList<>(new TreeSet<>(ready))));
+        return fields;
+    }
+
+    @Override
+    public boolean migrate() {
+        if (!migrating.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    prepareSubfields();
+                    loadReadyFields();
+                } finally {
+                    migrating.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            migrating.set(false);
+            throw e;
+        }
+        return true;
+    }
+
+    /**
+     * Declares the missing subfields on all resource type indices and re-indexes their documents.
+     */
+    void prepareSubfields() {
+        JsonNode mappings;
+        try {
+            mappings = getMappings();
+        } catch (IOException e) {
+            logger.error("Could not retrieve the mappings of the resource type indices", e);
+            return;
+        }
+        Iterator<Map.Entry<String, JsonNode>> indices = mappings.fields();
+        while (indices.hasNext()) {
+            Map.Entry<String, JsonNode> index = indices.next();
+            try {
+                prepareSubfields(index.getKey(), index.getValue().path("mappings"));
+            } catch (IOException | RuntimeException e) {
+                logger.error("Could not prepare the keyword subfields of index '{}'", index.getKey(), e);
+            }
+        }
+    }
+
+    private void prepareSubfields(String index, JsonNode mapping) throws IOException {
+        JsonNode properties = mapping.path("properties");
+        ObjectNode missing = objectMapper.createObjectNode();
+        Set<String> fields = new HashSet<>();
+        for (String field : ngramFields) {
+            JsonNode fieldMapping = properties.get(field.trim());
+            if (fieldMapping == null || !Arrays.asList("keyword", "text").contains(fieldMapping.path("type").asText())) {
+                continue;
+            }
+            fields.add(field.trim());
+            if (!fieldMapping.path("fields").has(LOWERCASE) || !fieldMapping.path("fields").has(PREFIX)) {
+                ObjectNode withSubfields = fieldMapping.deepCopy();
+                withSubfields.with("fields").setAll(createSubfields());
+                missing.set(field.trim(), withSubfields);
+            }
+        }
+        if (fields.isEmpty()) {
+            return;
+        }
+
+        Set<String> recorded = new HashSet<>();
+        mapping.path("_meta").path(READY_FIELDS_META).forEach(field -> recorded.add(field.asText()));
+        if (missing.size() > 0) {
+            List<String> missingFields = new ArrayList<>();
+            missing.fieldNames().forEachRemaining(missingFields::add);
+            logger.info("Adding keyword subfields to the fields {} of index '{}'", missingFields, index);
+            ObjectNode body = objectMapper.createObjectNode();
+            body.set("properties", missing);
+            perform(createRequest("PUT", String.format("/%s/_mapping", index), body));
+            reindex(index);
+        } else if (recorded.containsAll(fields)) {
+            return;
+        }
+        recordReadyFields(index, mapping.path("_meta"), fields);
+    }
+
+    /**
+     * Records the populated fields in the {@code _meta} of the mapping, keeping its other entries.
+     */
+    private void recordReadyFields(String index, JsonNode meta, Set<String> fields) throws IOException {
+        ObjectNode updated = meta.isObject() ? meta.deepCopy() : objectMapper.createObjectNode();
+        fields.forEach(updated.putArray(READY_FIELDS_META)::add);
+        ObjectNode body = objectMapper.createObjectNode();
+        body.set("_meta", updated);
+        perform(createRequest("PUT", String.format("/%s/_mapping", index), body));
+    }
+
+    /**
+     * Re-indexes the documents of the index in place, failing if any document could not be re-indexed.
+     */
+    private void reindex(String index) throws IOException {
+        Request request = new Request("POST", String.format("/%s/_update_by_query", index));
+        request.addParameter("conflicts", "proceed");
+        request.addParameter("refresh", "true");
+        request.addParameter("wait_for_completion", "false");
+        String task = perform(request).path("task").asText();
+
+        // wait for the documents to be re-indexed, so the subfields are not used while partially populated
+        JsonNode status;
+        try {
+            while (!(status = perform(new Request("GET", String.format("/_tasks/%s", task)))).path("completed").asBoolean()) {
+                Thread.sleep(2000);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(String.format("Interrupted while re-indexing '%s'", index), e);
+        }
+        String failure = getTaskFailure(status);
+        if (failure != null) {
+            throw new IllegalStateException(String.format("Could not re-index the documents of '%s': %s", index, failure));
+        }
+        logger.info("Re-indexed documents of index '{}'", index);
+    }
+
+    /**
+     * @param status the status of a completed update by query task
+     * @return the error or the failures of the task, or null if it succeeded
+     */
+    static String getTaskFailure(JsonNode status) {
+        if (status.hasNonNull("error")) {
+            return status.get("error").toString();
+        }
+        JsonNode failures = status.path("response").path("failures");
+        if (failures.isArray() && failures.size() > 0) {
+            return String.format("%d failures, first: %s", failures.size(), failures.get(0));
+        }
+        return null;
+    }
+
+    private ObjectNode createSubfields() {
+        ObjectNode subfields = objectMapper.createObjectNode();
+        subfields.with(LOWERCASE)
+                .put("type", "text")
+                .put("analyzer", "simple");
+        subfields.with(PREFIX)
+                .put("type", "search_as_you_type");
+        return subfields;
+    }
+
+    private JsonNode getMappings() throws IOException {
+        return perform(new Request("GET", String.format("/%s/_mapping", RESOURCE_TYPES_ALIAS)));
+    }
+
+    private Request createRequest(String method, String endpoint, JsonNode body) throws IOException {
+        Request request = new Request(method, endpoint);
+        request.setJsonEntity(objectMapper.writeValueAsString(body));
+        return request;
+    }
+
+    private JsonNode perform(Request request) throws IOException {
+        Response response = client.performRequest(request);
+        try (InputStream content = response.getEntity().getContent()) {
+            return objectMapper.readTree(content);
+        }
+    }
+}
@@ -17,8 +17,8 @@ public class SearchServiceEIC extends AbstractSearchService implements SearchSer
 
     private static final Logger logger = LogManager.getLogger(SearchServiceEIC.class);
 
-    public SearchServiceEIC(RestHighLevelClient elasticsearchClient) {
-        super(elasticsearchClient);
+    public SearchServiceEIC(RestHighLevelClient elasticsearchClient, KeywordSubfieldsService keywordSubfieldsService) {
+        super(elasticsearchClient, keywordSubfieldsService);
     }
 
     @Override
@@ -5,11 +5,10 @@ import eu.einfracentral.domain.Provider;
 import eu.einfracentral.service.SynchronizerService;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.javatuples.Pair;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpServerErrorException;
@@ -21,20 +20,29 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 public abstract class AbstractSyncService<T extends Identifiable> implements SynchronizerService<T> {
     private static final Logger logger = LogManager.getLogger(AbstractSyncService.class);
 
+    @Autowired
+    @Qualifier("syncRestTemplate")
     protected RestTemplate restTemplate;
     protected boolean active = false;
     protected String host;
     protected String controller;
     private String filename;
 
-    private BlockingQueue<Pair<T, String>> queue;
+    @Autowired
+    private SyncOutbox outbox;
+
+    @Value("${sync.outbox.batchSize:100}")
+    private int batchSize;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
 
     protected abstract String getController();
 
@@ -42,7 +50,6 @@ public abstract class AbstractSyncService<T extends Identifiable> implements Syn
     public AbstractSyncService(@Value("${sync.host:}") String host, @Value("${sync.token.filepath:}") String filename, @Value("${sync.enable}") boolean enabled) {
         this.host = host;
         this.filename = filename;
-        restTemplate = new RestTemplate();
 
         if (!"".equals(host) && enabled) {
             active = true;
@@ -50,7 +57,6 @@ public abstract class AbstractSyncService<T extends Identifiable> implements Syn
         if ("".equals(filename)) {
             logger.warn("'sync.token.filepath' value not set");
         }
-        this.queue = new LinkedBlockingQueue<>();
     }
 
     @PostConstruct
@@ -58,187 +64,234 @@ public abstract class AbstractSyncService<T extends Identifiable> implements Syn
         this.controller = getController();
     }
 
-    public BlockingQueue<Pair<T, String>> getQueue() {
-        return queue;
-    }
-
-    @Scheduled(initialDelay = 0, fixedRate = 300000) //run every 5 min
+    /**
+     * Hands the due entries of the outbox to its executor, without waiting for their delivery.
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${sync.outbox.interval:300000}")
     public void retrySync() {
-        int syncTries = 0;
+        if (!active) {
+            return;
+        }
+        // entries still being delivered since the previous run are claimed, so only fill the free slots
+        int limit = batchSize - inFlight.get();
+        if (limit <= 0) {
+            return;
+        }
+        List<SyncOutbox.Entry> entries;
+        try {
+            entries = outbox.getDue(controller, limit);
+        } catch (RuntimeException e) {
+            logger.error("Could not read the synchronization outbox of '{}'", controller, e);
+            return;
+        }
+        if (entries.isEmpty()) {
+            return;
+        }
+        logger.warn("There are {} resources waiting to be Synchronized with '{}'!", outbox.size(controller), controller);
 
-        if (!queue.isEmpty()) {
-            logger.warn("There are {} resources waiting to be Synchronized!", queue.size());
+        for (SyncOutbox.Entry entry : entries) {
+            inFlight.incrementAndGet();
+            try {
+                outbox.getExecutor().execute(() -> {
+                    try {
+                        retry(entry);
+                    } finally {
+                        inFlight.decrementAndGet();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                inFlight.decrementAndGet();
+                outbox.failed(entry);
+            }
         }
+    }
 
+    private void retry(SyncOutbox.Entry entry) {
+        boolean delivered;
         try {
-            while (!queue.isEmpty() && syncTries < 1) {
-                Pair<T, String> pair = queue.take();
-                logger.info("Attempting to perform '{}' operation for the {}:\n{}", pair.getValue1(), pair.getValue0().getClass(), pair.getValue0());
-                switch (pair.getValue1()) {
-                    case "add":
-                        syncAdd(pair.getValue0());
-                        break;
-                    case "update":
-                        syncUpdate(pair.getValue0());
-                        break;
-                    case "delete":
-                        syncDelete(pair.getValue0());
-                        break;
-                    case "verify":
-                        syncVerify(pair.getValue0());
-                        break;
-                    default:
-                        logger.warn("Unsupported action: {}", pair.getValue1());
-                }
-                syncTries++;
+            T t = outbox.readEntity(entry);
+            logger.info("Attempting to perform '{}' operation for the {} with id '{}' (attempt {})",
+                    entry.getAction(), entry.getEntityClass(), entry.getEntityId(), entry.getAttempts() + 1);
+            switch (entry.getAction()) {
+                case "add":
+                    delivered = post(t);
+                    break;
+                case "update":
+                    delivered = put(t);
+                    break;
+                case "delete":
+                    delivered = delete(t);
+                    break;
+                case "verify":
+                    delivered = patch(t);
+                    break;
+                default:
+                    logger.warn("Unsupported action: {}", entry.getAction());
+                    delivered = false;
             }
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            logger.error("Could not perform '{}' operation for the {} with id '{}'",
+                    entry.getAction(), entry.getEntityClass(), entry.getEntityId(), e);
+            delivered = false;
+        }
+        if (delivered) {
+            outbox.delivered(entry);
+        } else {
+            outbox.failed(entry);
         }
     }
 
     @Override
     public void syncAdd(T t) {
-        boolean retryKey = true;
-        if (active) {
-            HttpEntity<T> request = new HttpEntity<>(t, createHeaders());
-            logger.info("Posting resource with id: {} - Host: {}", t.getId(), host);
-            try {
-                URI uri = new URI(host + controller).normalize();
-                ResponseEntity<?> re = restTemplate.exchange(uri.normalize(), HttpMethod.POST, request, t.getClass());
-                if (re.getStatusCode() != HttpStatus.CREATED) {
-                    logger.error("Adding {} with id '{}' from host '{}' returned code '{}'\nResponse body:\n{}",
-                            t.getClass(), t.getId(), host, re.getStatusCodeValue(), re.getBody());
-                } else {
-                    retryKey = false;
-                }
-            } catch (URISyntaxException e) {
-                logger.error("could not create URI for host: {}", host, e);
-            } catch (HttpServerErrorException e) {
-                logger.error("Failed to post {} with id {} to host {}\nMessage: {}",
-                        t.getClass(), t.getId(), host, e.getResponseBodyAsString());
-            } catch (RuntimeException re) {
-                logger.error("syncAdd failed, check if token has expired!\n{}: {}", t.getClass(), t, re);
-            }
-            if (retryKey) {
-                try {
-                    queue.add(Pair.with(t, "add"));
-                } catch (IllegalStateException e) {
-                    logger.info("No space is currently available in the Queue");
-                }
-            }
-        }
+        sync(t, "add");
     }
 
     @Override
     public void syncUpdate(T t) {
-        boolean retryKey = true;
-        if (active) {
-            HttpEntity<T> request = new HttpEntity<>(t, createHeaders());
-            logger.info("Updating {} with id: {} - Host: {}", t.getClass(), t.getId(), host);
-            try {
-                URI uri = new URI(host + controller).normalize();
-                ResponseEntity<?> re = restTemplate.exchange(uri.normalize().toString(), HttpMethod.PUT, request, t.getClass());
-                if (re.getStatusCode() != HttpStatus.OK) {
-                    logger.error("Updating {} with id '{}' from host '{}' returned code '{}'\nResponse body:\n{}",
-                            t.getClass(), t.getId(), host, re.getStatusCodeValue(), re.getBody());
-                } else {
-                    retryKey = false;
-                }
-            } catch (URISyntaxException e) {
-                logger.error("could not create URI for host: {}", host, e);
-            } catch (HttpServerErrorException e) {
-                logger.error("Failed to update {} with id {} to host {}\nMessage: {}",
-                        t.getClass(), t.getId(), host, e.getResponseBodyAsString());
-            } catch (RuntimeException re) {
-                logger.error("syncUpdate failed, check if token has expired!\n{}: {}", t.getClass(), t, re);
-            }
-            if (retryKey) {
-                try {
-                    queue.add(Pair.with(t, "update"));
-                } catch (IllegalStateException e) {
-                    logger.info("No space is currently available in the Queue");
-                }
-            }
-        }
+        sync(t, "update");
     }
 
     @Override
     public void syncDelete(T t) {
-        boolean retryKey = true;
-        if (active) {
-            HttpEntity<T> request = new HttpEntity<>(createHeaders());
-            logger.info("Deleting {} with id: {} - Host: {}", t.getClass(), t.getId(), host);
-            try {
-                URI uri = new URI(String.format("%s/%s/%s", host, controller, t.getId())).normalize();
-                ResponseEntity<?> re = restTemplate.exchange(uri.toString(), HttpMethod.DELETE, request, Void.class);
-                if (re.getStatusCode() != HttpStatus.NO_CONTENT) {
-                    logger.error("Deleting {} with id '{}' from host '{}' returned code '{}'\nResponse body:\n{}",
-                            t.getClass(), t.getId(), host, re.getStatusCodeValue(), re.getBody());
-                } else {
-                    retryKey = false;
-                }
-            } catch (URISyntaxException e) {
-                logger.error("could not create URI for host: {}", host, e);
-            } catch (HttpServerErrorException e) {
-                logger.error("Failed to delete {} with id {} to host {}\nMessage: {}",
-                        t.getClass(), t.getId(), host, e.getResponseBodyAsString());
-            } catch (RuntimeException re) {
-                logger.error("syncDelete failed, check if token has expired!\n{}: {}", t.getClass(), t, re);
-            }
-            if (retryKey) {
-                try {
-                    queue.add(Pair.with(t, "delete"));
-                } catch (IllegalStateException e) {
-                    logger.info("No space is currently available in the Queue");
-                }
-            }
-        }
+        sync(t, "delete");
     }
 
     //TODO: syncVerify is never used - maybe delete it
     @Override
     public void syncVerify(T t) {
-        boolean retryKey = true;
-        if (active) {
-            HttpEntity<T> request = new HttpEntity<>(t, createHeaders());
-            URI uri;
-            logger.info("Verifying resource with id: {} - Host: {}", t.getId(), host);
-            try {
-                if (t instanceof Provider) {
-                    uri = new URI(host + controller + "/verifyProvider/" + t.getId() + "?active=true&status=approved%20provider").normalize();
-                } else if (t instanceof eu.einfracentral.domain.TrainingResource) {
-                    uri = new URI(host + controller + "/verifyTrainingResource/" + t.getId() + "?active=true&status=approved%20resource").normalize();
-                } else if (t instanceof eu.einfracentral.domain.Datasource) {
-                    uri = new URI(host + controller + "/verifyDatasource/" + t.getId() + "?active=true&status=approved%20resource").normalize();
-                } else {
-                    uri = new URI(host + controller + "/verifyResource/" + t.getId() + "?active=true&status=approved%20resource").normalize();
-                }
-                HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory();
-                restTemplate.setRequestFactory(requestFactory);
-                ResponseEntity<?> re = restTemplate.exchange(uri.normalize(), HttpMethod.PATCH, request, t.getClass());
-                if (re.getStatusCode() != HttpStatus.OK) {
-                    logger.error("Verifying {} with id '{}' from host '{}' returned code '{}'\nResponse body:\n{}",
-                            t.getClass(), t.getId(), host, re.getStatusCodeValue(), re.getBody());
-                } else {
-                    retryKey = false;
-                }
-            } catch (URISyntaxException e) {
-                logger.error("could not create URI for host: {}", host, e);
-            } catch (HttpServerErrorException e) {
-                logger.error("Failed to patch {} with id {} to host {}\nMessage: {}",
-                        t.getClass(), t.getId(), host, e.getResponseBodyAsString());
-            } catch (RuntimeException re) {
-                logger.error("syncVerify failed, check if token has expired!\n{}: {}", t.getClass(), t, re);
+        sync(t, "verify");
+    }
+
+    /**
+     * Performs the operation, or stores it in the outbox if it fails. Operations on resources with pending
+     * operations are stored directly, so that they are delivered in order.
+     */
+    private void sync(T t, String action) {
+        if (!active) {
+            return;
+        }
+        if (outbox.isPending(controller, t.getId())) {
+            outbox.add(controller, t, action);
+            return;
+        }
+        boolean delivered;
+        switch (action) {
+            case "add":
+                delivered = post(t);
+                break;
+            case "update":
+                delivered = put(t);
+                break;
+            case "delete":
+                delivered = delete(t);
+                break;
+            default:
+                delivered = patch(t);
+        }
+        if (!delivered) {
+            outbox.add(controller, t, action);
+        }
+    }
+
+    protected boolean post(T t) {
+        HttpEntity<T> request = new HttpEntity<>(t, createHeaders());
+        logger.info("Posting resource with id: {} - Host: {}", t.getId(), host);
+        try {
+            URI uri = new URI(host + controller).normalize();
+            ResponseEntity<?> re = restTemplate.exchange(uri.normalize(), HttpMethod.POST, request, t.getClass());
+            if (re.getStatusCode() != HttpStatus.CREATED) {
+                logger.error("Adding {} with id '{}' from host '{}' returned code '{}'\nResponse body:\n{}",
+                        t.getClass(), t.getId(), host, re.getStatusCodeValue(), re.getBody());
+            } else {
+                return true;
+            }
+        } catch (URISyntaxException e) {
+            logger.error("could not create URI for host: {}", host, e);
+        } catch (HttpServerErrorException e) {
+            logger.error("Failed to post {} with id {} to host {}\nMessage: {}",
+                    t.getClass(), t.getId(), host, e.getResponseBodyAsString());
+        } catch (RuntimeException re) {
+            logger.error("syncAdd failed, check if token has expired!\n{}: {}", t.getClass(), t, re);
+        }
+        return false;
+    }
+
+    protected boolean put(T t) {
+        HttpEntity<T> request = new HttpEntity<>(t, createHeaders());
+        logger.info("Updating {} with id: {} - Host: {}", t.getClass(), t.getId(), host);
+        try {
+            URI uri = new URI(host + controller).normalize();
+            ResponseEntity<?> re = restTemplate.exchange(uri.normalize().toString(), HttpMethod.PUT, request, t.getClass());
+            if (re.getStatusCode() != HttpStatus.OK) {
+                logger.error("Updating {} with id '{}' from host '{}' returned code '{}'\nResponse body:\n{}",
+                        t.getClass(), t.getId(), host, re.getStatusCodeValue(), re.getBody());
+            } else {
+                return true;
+            }
+        } catch (URISyntaxException e) {
+            logger.error("could not create URI for host: {}", host, e);
+        } catch (HttpServerErrorException e) {
+            logger.error("Failed to update {} with id {} to host {}\nMessage: {}",
+                    t.getClass(), t.getId(), host, e.getResponseBodyAsString());
+        } catch (RuntimeException re) {
+            logger.error("syncUpdate failed, check if token has expired!\n{}: {}", t.getClass(), t, re);
+        }
+        return false;
+    }
+
+    protected boolean delete(T t) {
+        HttpEntity<T> request = new HttpEntity<>(createHeaders());
+        logger.info("Deleting {} with id: {} - Host: {}", t.getClass(), t.getId(), host);
+        try {
+            URI uri = new URI(String.format("%s/%s/%s", host, controller, t.getId())).normalize();
+            ResponseEntity<?> re = restTemplate.exchange(uri.toString(), HttpMethod.DELETE, request, Void.class);
+            if (re.getStatusCode() != HttpStatus.NO_CONTENT) {
+                logger.error("Deleting {} with id '{}' from host '{}' returned code '{}'\nResponse body:\n{}",
+                        t.getClass(), t.getId(), host, re.getStatusCodeValue(), re.getBody());
+            } else {
+                return true;
+            }
+        } catch (URISyntaxException e) {
+            logger.error("could not create URI for host: {}", host, e);
+        } catch (HttpServerErrorException e) {
+            logger.error("Failed to delete {} with id {} to host {}\nMessage: {}",
+                    t.getClass(), t.getId(), host, e.getResponseBodyAsString());
+        } catch (RuntimeException re) {
+            logger.error("syncDelete failed, check if token has expired!\n{}: {}", t.getClass(), t, re);
+        }
+        return false;
+    }
+
+    protected boolean patch(T t) {
+        HttpEntity<T> request = new HttpEntity<>(t, createHeaders());
+        URI uri;
+        logger.info("Verifying resource with id: {} - Host: {}", t.getId(), host);
+        try {
+            if (t instanceof Provider) {
+                uri = new URI(host + controller + "/verifyProvider/" + t.getId() + "?active=true&status=approved%20provider").normalize();
+            } else if (t instanceof eu.einfracentral.domain.TrainingResource) {
+                uri = new URI(host + controller + "/verifyTrainingResource/" + t.getId() + "?active=true&status=approved%20resource").normalize();
+            } else if (t instanceof eu.einfracentral.domain.Datasource) {
+                uri = new URI(host + controller + "/verifyDatasource/" + t.getId() + "?active=true&status=approved%20resource").normalize();
+            } else {
+                uri = new URI(host + controller + "/verifyResource/" + t.getId() + "?active=true&status=approved%20resource").normalize();
             }
-            if (retryKey) {
-                try {
-                    queue.add(Pair.with(t, "verify"));
-                } catch (IllegalStateException e) {
-                    logger.info("No space is currently available in the Queue");
-                }
+            ResponseEntity<?> re = restTemplate.exchange(uri.normalize(), HttpMethod.PATCH, request, t.getClass());
+            if (re.getStatusCode() != HttpStatus.OK) {
+                logger.error("Verifying {} with id '{}' from host '{}' returned code '{}'\nResponse body:\n{}",
+                        t.getClass(), t.getId(), host, re.getStatusCodeValue(), re.getBody());
+            } else {
+                return true;
             }
+        } catch (URISyntaxException e) {
+            logger.error("could not create URI for host: {}", host, e);
+        } catch (HttpServerErrorException e) {
+            logger.error("Failed to patch {} with id {} to host {}\nMessage: {}",
+                    t.getClass(), t.getId(), host, e.getResponseBodyAsString());
+        } catch (RuntimeException re) {
+            logger.error("syncVerify failed, check if token has expired!\n{}: {}", t.getClass(), t, re);
         }
+        return false;
     }
 
     protected HttpHeaders createHeaders() {
@@ -0,0 +1,418 @@
+package eu.einfracentral.service.sync;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import eu.einfracentral.domain.Identifiable;
+import eu.einfracentral.dto.OperationStatistics;
+import eu.einfracentral.service.OperationStatisticsService;
+import eu.einfracentral.utils.OperationMeter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Persistent outbox of the synchronization operations that could not be delivered, shared by all
+ * {@link AbstractSyncService} implementations.
+ * <p>
+ * There is a single entry per controller and entity, and a newer operation is merged with the pending one
+ * (see {@link #merge(String, String)}). Entries are claimed by a single instance for {@code sync.outbox.claimTimeout}
+ * seconds while being delivered. An operation added while the entry is claimed follows the claimed one, and is
+ * merged back with it if the delivery fails (see {@link #next(String, boolean, boolean, String)} and
+ * {@link #afterFailure(String, String)}). Failed deliveries are retried with exponential backoff, and dropped after
+ * {@code sync.outbox.maxAttempts} attempts.
+ * <p>
+ * The 'sync_outbox' table is created by {@code sql/sync_outbox.sql}.
+ */
+@Component
+public class SyncOutbox implements OperationStatisticsService {
+
+    private static final Logger logger = LogManager.getLogger(SyncOutbox.class);
+
+    private static final String INSERT = "INSERT INTO sync_outbox " +
+            "(controller, entity_id, action, entity_class, payload, version, attempts, created_at, next_attempt) " +
+            "VALUES (:controller, :entity_id, :action, :entity_class, :payload, 0, 0, :now, :now) " +
+            "ON CONFLICT (controller, entity_id) DO NOTHING";
+
+    private static final String UPDATE = "UPDATE sync_outbox SET action = :action, entity_class = :entity_class, " +
+            "payload = :payload, version = version + 1, attempts = 0, next_attempt = :now " +
+            "WHERE controller = :controller AND entity_id = :entity_id";
+
+    private static final String CLAIM = "UPDATE sync_outbox SET claimed_until = :claimed_until, claimed_version = version " +
+            "WHERE (controller, entity_id) IN (SELECT controller, entity_id FROM sync_outbox " +
+            "WHERE controller = :controller AND next_attempt <= :now AND (claimed_until IS NULL OR claimed_until < :now) " +
+            "ORDER BY created_at LIMIT :limit FOR UPDATE SKIP LOCKED) RETURNING *";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ExecutorService executor;
+    private final Map<String, OperationMeter> meters = new ConcurrentHashMap<>();
+
+    @Value("${sync.outbox.backoff:60}")
+    private long backoffSeconds;
+
+    @Value("${sync.outbox.maxBackoff:3600}")
+    private long maxBackoffSeconds;
+
+    @Value("${sync.outbox.maxAttempts:20}")
+    private int maxAttempts;
+
+    @Value("${sync.outbox.claimTimeout:600}")
+    private long claimTimeoutSeconds;
+
+    public SyncOutbox(DataSource dataSource, @Value("${sync.outbox.threads:4}") int threads) {
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        AtomicInteger count = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "sync-outbox-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * @return the executor delivering the outbox entries, bounded by {@code sync.outbox.threads}
+     */
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Stores an operation, merging it with any pending operation on the same entity.
+     */
+    public void add(String controller, Identifiable entity, String action) {
+        MapSqlParameterSource in = new MapSqlParameterSource();
+        in.addValue("controller", controller);
+        in.addValue("entity_id", entity.getId());
+        in.addValue("entity_class", entity.getClass().getName());
+        in.addValue("now", Timestamp.from(Instant.now()));
+        try {
+            in.addValue("payload", objectMapper.writeValueAsString(entity));
+            transactionTemplate.execute(status -> {
+                // retried if another operation on the entity is inserted in the meantime
+                while (true) {
+                    List<Map<String, Object>> pending = jdbcTemplate.queryForList("SELECT action, version, claimed_until, " +
+                            "claimed_version FROM sync_outbox WHERE controller = :controller AND entity_id = :entity_id " +
+                            "FOR UPDATE", in);
+                    if (pending.isEmpty()) {
+                        in.addValue("action", action);
+                        if (jdbcTemplate.update(INSERT, in) > 0) {
+                            return null;
+                        }
+                        continue;
+                    }
+                    Map<String, Object> row = pending.get(0);
+                    Timestamp claimedUntil = (Timestamp) row.get("claimed_until");
+                    boolean claimed = claimedUntil != null && claimedUntil.after((Timestamp) in.getValue("now"));
+                    boolean followUp = claimed
+                            && !Objects.equals(toLong(row.get("version")), toLong(row.get("claimed_version")));
+                    String merged = next((String) row.get("action"), claimed, followUp, action);
+                    if (merged == null) {
+                        jdbcTemplate.update("DELETE FROM sync_outbox WHERE controller = :controller " +
+                                "AND entity_id = :entity_id", in);
+                    } else {
+                        in.addValue("action", merged);
+                        jdbcTemplate.update(UPDATE, in);
+                    }
+                    return null;
+                }
+            });
+        } catch (JsonProcessingException | RuntimeException e) {
+            logger.error("Could not store '{}' operation of {} with id '{}' for synchronization",
+                    action, entity.getClass().getSimpleName(), entity.getId(), e);
+        }
+    }
+
+    /**
+     * Merges a new operation with the pending, undelivered operation on the same entity.
+     * <ul>
+     *     <li>an 'update' or 'verify' of a pending 'add' is delivered as an 'add' of the latest state</li>
+     *     <li>a 'delete' of a pending 'add' cancels both, as the entity was never delivered</li>
+     *     <li>otherwise the newer operation replaces the pending one</li>
+     * </ul>
+     *
+     * @return the operation to deliver, or null if there is nothing to deliver
+     */
+    static String merge(String pending, String action) {
+        if ("add".equals(pending)) {
+            if ("update".equals(action) || "verify".equals(action)) {
+                return "add";
+            } else if ("delete".equals(action)) {
+                return null;
+            }
+        }
+        return action;
+    }
+
+    /**
+     * Returns the action of an entry after a new operation on its entity.
+     * <ul>
+     *     <li>if the entry is not claimed, the new operation is merged with its action</li>
+     *     <li>if the entry is claimed, the new operation follows the one being delivered, or is merged with the
+     *     operations that already follow it; a 'delete' is kept even if it cancels them, as the claimed operation
+     *     may still fail</li>
+     * </ul>
+     *
+     * @param pending  the action of the entry
+     * @param claimed  whether the entry is being delivered
+     * @param followUp whether the action of the claimed entry was stored after the claim
+     * @param action   the new operation
+     * @return the action of the entry, or null if there is nothing to deliver
+     */
+    static String next(String pending, boolean claimed, boolean followUp, String action) {
+        if (claimed && !followUp) {
+            return action;
+        }
+        String merged = merge(pending, action);
+        return merged == null && claimed ? action : merged;
+    }
+
+    /**
+     * Returns the action of an entry whose claimed operation failed, after operations were added while it was
+     * being delivered.
+     *
+     * @param claimed  the operation that failed
+     * @param followUp the operation following it
+     * @return the operation to deliver, or null if there is nothing to deliver
+     */
+    static String afterFailure(String claimed, String followUp) {
+        return merge(claimed, followUp);
+    }
+
+    /**
+     * @return whether an operation on the entity is waiting to be delivered
+     */
+    public boolean isPending(String controller, String entityId) {
+        MapSqlParameterSource in = new MapSqlParameterSource();
+        in.addValue("controller", controller);
+        in.addValue("entity_id", entityId);
+        try {
+            Long count = jdbcTemplate.queryForObject("SELECT count(*) FROM sync_outbox " +
+                    "WHERE controller = :controller AND entity_id = :entity_id", in, Long.class);
+            return count != null && count > 0;
+        } catch (RuntimeException e) {
+            logger.error("Could not read the synchronization outbox", e);
+            return false;
+        }
+    }
+
+    /**
+     * Claims the entries of the controller due for delivery, oldest first. Entries claimed by other instances
+     * are skipped.
+     */
+    public List<Entry> getDue(String controller, int limit) {
+        Instant now = Instant.now();
+        MapSqlParameterSource in = new MapSqlParameterSource();
+        in.addValue("controller", controller);
+        in.addValue("now", Timestamp.from(now));
+        in.addValue("claimed_until", Timestamp.from(now.plusSeconds(claimTimeoutSeconds)));
+        in.addValue("limit", limit);
+        return jdbcTemplate.query(CLAIM, in, (rs, rowNum) -> new Entry(rs.getString("controller"),
+                rs.getString("entity_id"), rs.getString("action"), rs.getString("entity_class"),
+                rs.getString("payload"), rs.getLong("version"), rs.getInt("attempts"),
+                rs.getTimestamp("created_at").toInstant()));
+    }
+
+    /**
+     * @return the entity of the entry
+     */
+    public <T> T readEntity(Entry entry) {
+        try {
+            return (T) objectMapper.readValue(entry.getPayload(), Class.forName(entry.getEntityClass()));
+        } catch (JsonProcessingException | ClassNotFoundException e) {
+            throw new IllegalStateException(String.format("Could not read the %s with id '%s' of the synchronization outbox",
+                    entry.getEntityClass(), entry.getEntityId()), e);
+        }
+    }
+
+    /**
+     * Removes a delivered entry, unless it was replaced by a newer operation in the meantime.
+     */
+    public void delivered(Entry entry) {
+        MapSqlParameterSource in = entryParameters(entry);
+        if (jdbcTemplate.update("DELETE FROM sync_outbox WHERE controller = :controller AND entity_id = :entity_id " +
+                "AND version = :version", in) == 0) {
+            jdbcTemplate.update("UPDATE sync_outbox SET claimed_until = NULL, claimed_version = NULL " +
+                    "WHERE controller = :controller AND entity_id = :entity_id", in);
+        }
+        getMeter(entry.getController()).record("delivered",
+                Instant.now().toEpochMilli() - entry.getCreatedAt().toEpochMilli());
+    }
+
+    /**
+     * Schedules the next attempt of a failed entry, or drops it after the maximum number of attempts. Operations
+     * added while it was being delivered are merged back with it.
+     */
+    public void failed(Entry entry) {
+        MapSqlParameterSource in = entryParameters(entry);
+        int attempts = entry.getAttempts() + 1;
+        OperationMeter meter = getMeter(entry.getController());
+        transactionTemplate.execute(status -> {
+            List<Map<String, Object>> pending = jdbcTemplate.queryForList("SELECT action, version FROM sync_outbox " +
+                    "WHERE controller = :controller AND entity_id = :entity_id FOR UPDATE", in);
+            if (pending.isEmpty()) {
+                return null;
+            }
+            boolean followUp = !Objects.equals(toLong(pending.get(0).get("version")), entry.getVersion());
+            if (attempts >= maxAttempts) {
+                logger.error("Dropping '{}' operation of {} with id '{}' after {} failed synchronization attempts",
+                        entry.getAction(), entry.getEntityClass(), entry.getEntityId(), attempts);
+                if (followUp) {
+                    jdbcTemplate.update("UPDATE sync_outbox SET claimed_until = NULL, claimed_version = NULL " +
+                            "WHERE controller = :controller AND entity_id = :entity_id", in);
+                } else {
+                    jdbcTemplate.update("DELETE FROM sync_outbox WHERE controller = :controller " +
+                            "AND entity_id = :entity_id", in);
+                }
+                meter.increment("dropped");
+                return null;
+            }
+            long backoff = Math.min(maxBackoffSeconds, backoffSeconds << Math.min(attempts - 1, 30));
+            in.addValue("attempts", attempts);
+            in.addValue("next_attempt", Timestamp.from(Instant.now().plusSeconds(backoff)));
+            if (!followUp) {
+                in.addValue("action", entry.getAction());
+            } else {
+                in.addValue("action", afterFailure(entry.getAction(), (String) pending.get(0).get("action")));
+                if (in.getValue("action") == null) {
+                    jdbcTemplate.update("DELETE FROM sync_outbox WHERE controller = :controller " +
+                            "AND entity_id = :entity_id", in);
+                    meter.increment("failed");
+                    return null;
+                }
+            }
+            jdbcTemplate.update("UPDATE sync_outbox SET action = :action, attempts = :attempts, " +
+                    "next_attempt = :next_attempt, claimed_until = NULL, claimed_version = NULL " +
+                    "WHERE controller = :controller AND entity_id = :entity_id", in);
+            meter.increment("failed");
+            return null;
+        });
+    }
+
+    /**
+     * @return the number of entries of the controller waiting to be delivered
+     */
+    public long size(String controller) {
+        MapSqlParameterSource in = new MapSqlParameterSource("controller", controller);
+        Long count = jdbcTemplate.queryForObject("SELECT count(*) FROM sync_outbox WHERE controller = :controller",
+                in, Long.class);
+        return count != null ? count : 0;
+    }
+
+    @Override
+    public String getComponent() {
+        return "sync";
+    }
+
+    @Override
+    public List<OperationStatistics> getStatistics() {
+        Map<String, Long> pending = new HashMap<>();
+        jdbcTemplate.query("SELECT controller, count(*) AS pending FROM sync_outbox GROUP BY controller",
+                rs -> {
+                    pending.put(rs.getString("controller"), rs.getLong("pending"));
+                });
+        Set<String> controllers = new TreeSet<>(pending.keySet());
+        controllers.addAll(meters.keySet());
+
+        List<OperationStatistics> ret = new ArrayList<>();
+        for (String controller : controllers) {
+            OperationStatistics statistics = getMeter(controller).getStatistics();
+            statistics.setCount("pending", pending.getOrDefault(controller, 0L));
+            ret.add(statistics);
+        }
+        return ret;
+    }
+
+    private OperationMeter getMeter(String controller) {
+        return meters.computeIfAbsent(controller, key -> new OperationMeter(key, "delivered", "failed", "dropped"));
+    }
+
+    private static Long toLong(Object value) {
+        return value != null ? ((Number) value).longValue() : null;
+    }
+
+    private MapSqlParameterSource entryParameters(Entry entry) {
+        MapSqlParameterSource in = new MapSqlParameterSource();
+        in.addValue("controller", entry.getController());
+        in.addValue("entity_id", entry.getEntityId());
+        in.addValue("version", entry.getVersion());
+        return in;
+    }
+
+    public static class Entry {
+
+        private final String controller;
+        private final String entityId;
+        private final String action;
+        private final String entityClass;
+        private final String payload;
+        private final long version;
+        private final int attempts;
+        private final Instant createdAt;
+
+        public Entry(String controller, String entityId, String action, String entityClass, String payload,
+                     long version, int attempts, Instant createdAt) {
+            this.controller = controller;
+            this.entityId = entityId;
+            this.action = action;
+            this.entityClass = entityClass;
+            this.payload = payload;
+            this.version = version;
+            this.attempts = attempts;
+            this.createdAt = createdAt;
+        }
+
+        public String getController() {
+            return controller;
+        }
+
+        public String getEntityId() {
+            return entityId;
+        }
+
+        public String getAction() {
+            return action;
+        }
+
+        public String getEntityClass() {
+            return entityClass;
+        }
+
+        public String getPayload() {
+            return payload;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public int getAttempts() {
+            return attempts;
+        }
+
+        public Instant getCreatedAt() {
+            return createdAt;
+        }
+    }
+}
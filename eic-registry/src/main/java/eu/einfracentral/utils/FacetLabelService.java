@@ -1,12 +1,16 @@
 package eu.einfracentral.utils;
 
+import eu.einfracentral.domain.Bundle;
+import eu.einfracentral.domain.Identifiable;
 import eu.einfracentral.domain.ProviderBundle;
 import eu.einfracentral.domain.Vocabulary;
 import eu.einfracentral.registry.service.ProviderService;
 import eu.einfracentral.registry.service.VocabularyService;
 import eu.openminted.registry.core.domain.Facet;
 import eu.openminted.registry.core.domain.FacetFilter;
+import eu.openminted.registry.core.domain.ResourceType;
 import eu.openminted.registry.core.domain.Value;
+import eu.openminted.registry.core.service.ResourceTypeService;
 import org.apache.commons.collections.list.TreeList;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -18,12 +22,16 @@ import org.elasticsearch.common.document.DocumentField;
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.lang.reflect.Method;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Component
 public class FacetLabelService {
@@ -31,22 +39,37 @@ public class FacetLabelService {
     private static final Logger logger = LogManager.getLogger(FacetLabelService.class);
     private final ProviderService<ProviderBundle, Authentication> providerService;
     private final VocabularyService vocabularyService;
+    private final ResourceTypeService resourceTypeService;
     private final RestHighLevelClient client;
 
+    /**
+     * Id/name index read by {@link #generateLabels(List)} without locking. Changes are applied in place under
+     * {@link #writeLock}, while rebuilds create a new index and replace the current one.
+     */
+    private volatile LabelIndex index = null;
+    private final AtomicLong version = new AtomicLong();
+    private final Object writeLock = new Object();
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private final Map<Class<?>, Optional<Method>> nameGetters = new ConcurrentHashMap<>();
+    // incremental changes received while a full rebuild is querying Elasticsearch
+    private List<LabelChange> pendingChanges = null;
+
     @org.springframework.beans.factory.annotation.Value("${elastic.index.max_result_window:10000}")
     private int maxQuantity;
 
     @Autowired
     FacetLabelService(ProviderService<ProviderBundle, Authentication> providerService,
                       VocabularyService vocabularyService,
+                      ResourceTypeService resourceTypeService,
                       RestHighLevelClient client) {
         this.providerService = providerService;
         this.vocabularyService = vocabularyService;
+        this.resourceTypeService = resourceTypeService;
         this.client = client;
     }
 
     public List<Facet> generateLabels(List<Facet> facets) {
-        Map<String, String> vocabularyValues = getIdNameFields();
+        Map<String, String> vocabularyValues = getLabels();
 
         for (Facet facet : facets) {
             facet.getValues().forEach(value -> value.setLabel(getLabelElseKeepValue(value.getValue(), vocabularyValues)));
@@ -54,41 +77,202 @@ public class FacetLabelService {
         return facets;
     }
 
-    private Map<String, String> getIdNameFields() {
-        Map<String, String> idNameMap = new TreeMap<>();
+    /**
+     * Returns the current id/name labels, building the index from Elasticsearch on first use. Concurrent callers
+     * wait for the first build instead of getting an empty index.
+     */
+    public Map<String, String> getLabels() {
+        LabelIndex current = index;
+        if (current == null) {
+            rebuildLock.lock();
+            try {
+                if (index == null) {
+                    rebuild();
+                }
+            } finally {
+                rebuildLock.unlock();
+            }
+            current = index;
+        }
+        return current != null ? current.getView() : Collections.emptyMap();
+    }
+
+    public long getLabelsVersion() {
+        return version.get();
+    }
+
+    /**
+     * Reconciles the label index with Elasticsearch, picking up changes not performed through the managers.
+     */
+    @Scheduled(cron = "0 0 * * * *") // every hour
+    public void rebuildLabels() {
+        if (!rebuildLock.tryLock()) { // rebuild already in progress
+            return;
+        }
+        try {
+            rebuild();
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    /**
+     * Adds or replaces the label of the given resource.
+     *
+     * @param resourceType the resource type the resource was stored as
+     * @param resource     the stored resource (a {@link Bundle} or a plain object with a 'name' property)
+     */
+    public void updateLabel(String resourceType, Object resource) {
+        if (!(resource instanceof Identifiable)) {
+            return;
+        }
+        String id = ((Identifiable) resource).getId();
+        String name = getName(resource instanceof Bundle ? ((Bundle<?>) resource).getPayload() : resource);
+        if (id == null || name == null) {
+            return;
+        }
+        applyChange(new LabelChange(resourceType, id, name));
+    }
+
+    /**
+     * Removes the label of the given id, if it was created by a resource of the same resource type.
+     */
+    public void removeLabel(String resourceType, String id) {
+        if (id == null) {
+            return;
+        }
+        applyChange(new LabelChange(resourceType, id, null));
+    }
+
+    private void rebuild() {
+        synchronized (writeLock) {
+            pendingChanges = new ArrayList<>();
+        }
+        LabelIndex rebuilt = new LabelIndex();
+        boolean fetched = false;
+        try {
+            fetched = getIdNameFields(rebuilt.labels, rebuilt.owners);
+        } finally {
+            synchronized (writeLock) {
+                if (fetched) {
+                    for (LabelChange change : pendingChanges) {
+                        change.applyTo(rebuilt.labels, rebuilt.owners);
+                    }
+                    index = rebuilt;
+                    version.incrementAndGet();
+                }
+                pendingChanges = null;
+            }
+        }
+        logger.debug("Rebuilt facet labels index with {} entries", rebuilt.labels.size());
+    }
+
+    private void applyChange(LabelChange change) {
+        synchronized (writeLock) {
+            if (pendingChanges != null) {
+                pendingChanges.add(change);
+            }
+            LabelIndex current = index;
+            if (current == null) {
+                return; // index not built yet; the first rebuild will include the change
+            }
+            if (change.applyTo(current.labels, current.owners)) {
+                version.incrementAndGet();
+            }
+        }
+    }
+
+    private String getName(Object resource) {
+        if (resource == null) {
+            return null;
+        }
+        Optional<Method> getter = nameGetters.computeIfAbsent(resource.getClass(), clazz -> {
+            try {
+                Method method = clazz.getMethod("getName");
+                return method.getReturnType() == String.class ? Optional.of(method) : Optional.empty();
+            } catch (NoSuchMethodException e) {
+                return Optional.empty();
+            }
+        });
+        if (!getter.isPresent()) {
+            return null;
+        }
+        try {
+            return (String) getter.get().invoke(resource);
+        } catch (ReflectiveOperationException e) {
+            logger.warn("Could not retrieve name of resource [{}]", resource.getClass().getName(), e);
+            return null;
+        }
+    }
+
+    private boolean getIdNameFields(Map<String, String> idNameMap, Map<String, String> owners) {
         SearchRequest searchRequest = new SearchRequest();
 
         SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder();
         searchSourceBuilder
                 .from(0)
-                .size(10000)
+                .size(maxQuantity)
                 .docValueField("*_id")
                 .docValueField("resource_internal_id")
                 .docValueField("name")
-                .fetchSource(false)
-                .explain(true);
+                .fetchSource(false);
         searchRequest.source(searchSourceBuilder);
 
-        SearchResponse response = null;
+        SearchResponse response;
         try {
+            List<String> resourceTypes = getResourceTypeNames();
             response = client.search(searchRequest, RequestOptions.DEFAULT);
 
-            List<SearchHit> hits = Arrays.stream(response.getHits().getHits()).collect(Collectors.toList());
-
-            for (SearchHit hit : hits) {
-                hit.getFields().remove("_id");
-                if (hit.getFields().containsKey("resource_internal_id") && hit.getFields().containsKey("name")) {
-                    idNameMap.put((String) hit.getFields().get("resource_internal_id").getValues().get(0), (String) hit.getFields().get("name").getValues().get(0));
-                } else if (hit.getFields().containsKey("name") && hit.getFields().size() > 1) {
-                    String name = (String) hit.getFields().remove("name").getValues().get(0);
-                    List<DocumentField> id = (List<DocumentField>) hit.getFields().values();
-                    idNameMap.put((String) id.get(0).getValues().get(0), name);
+            for (SearchHit hit : response.getHits().getHits()) {
+                Map<String, DocumentField> fields = new HashMap<>(hit.getFields());
+                fields.remove("_id");
+                String id = null;
+                String name = null;
+                if (fields.containsKey("resource_internal_id") && fields.containsKey("name")) {
+                    id = (String) fields.get("resource_internal_id").getValues().get(0);
+                    name = (String) fields.get("name").getValues().get(0);
+                } else if (fields.containsKey("name") && fields.size() > 1) {
+                    name = (String) fields.remove("name").getValues().get(0);
+                    id = (String) fields.values().iterator().next().getValues().get(0);
+                }
+                if (id != null && name != null) {
+                    idNameMap.put(id, name);
+                    String resourceType = toResourceType(hit.getIndex(), resourceTypes);
+                    if (resourceType != null) {
+                        owners.put(id, resourceType);
+                    }
                 }
             }
         } catch (IOException e) {
             logger.error("Error retrieving Id / Name values from all resources.", e);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return the resource type names, longest first
+     */
+    private List<String> getResourceTypeNames() {
+        List<String> names = new ArrayList<>();
+        for (ResourceType resourceType : resourceTypeService.getAllResourceType()) {
+            names.add(resourceType.getName());
+        }
+        names.sort(Comparator.comparingInt(String::length).reversed());
+        return names;
+    }
+
+    /**
+     * Returns the resource type stored in the index, i.e. the longest resource type name the index name starts
+     * with ('pending_provider' rather than 'provider').
+     */
+    static String toResourceType(String indexName, List<String> resourceTypes) {
+        for (String resourceType : resourceTypes) {
+            if (indexName.startsWith(resourceType)) {
+                return resourceType;
+            }
         }
-        return idNameMap;
+        return null;
     }
 
     String toProperCase(String str, String delimiter, String newDelimiter) {
@@ -108,6 +292,46 @@ public class FacetLabelService {
         return joiner.toString();
     }
 
+    static final class LabelIndex {
+
+        private final Map<String, String> labels = new ConcurrentHashMap<>();
+        private final Map<String, String> owners = new ConcurrentHashMap<>();
+        private final Map<String, String> view = Collections.unmodifiableMap(labels);
+
+        Map<String, String> getView() {
+            return view;
+        }
+    }
+
+    static final class LabelChange {
+
+        private final String resourceType;
+        private final String id;
+        private final String name; // null for removals
+
+        LabelChange(String resourceType, String id, String name) {
+            this.resourceType = resourceType;
+            this.id = id;
+            this.name = name;
+        }
+
+        /**
+         * @return true if the maps were modified
+         */
+        boolean applyTo(Map<String, String> labels, Map<String, String> owners) {
+            if (name != null) {
+                owners.put(id, resourceType);
+                return !name.equals(labels.put(id, name));
+            }
+            if (resourceType != null && resourceType.equals(owners.get(id))) {
+                owners.remove(id);
+                labels.remove(id);
+                return true;
+            }
+            return false;
+        }
+    }
+
     static class IdName {
 
         private String id;
@@ -0,0 +1,278 @@
+package eu.einfracentral.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.lang.reflect.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.URI;
+import java.net.URL;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Deep copies objects of the domain model field by field, using a copier created once per class.
+ * <p>
+ * Immutable values are shared, dates, arrays, collections and maps are copied and classes of the
+ * {@code eu.einfracentral} packages are copied field by field. Any other class is copied through a
+ * Jackson round-trip, as before.
+ */
+final class ObjectCopier {
+
+    private static final Logger logger = LogManager.getLogger(ObjectCopier.class);
+
+    private static final String DOMAIN_PACKAGE = "eu.einfracentral.";
+
+    private static final Set<Class<?>> IMMUTABLE_TYPES = new HashSet<>(Arrays.asList(
+            String.class, Boolean.class, Character.class, Byte.class, Short.class, Integer.class, Long.class,
+            Float.class, Double.class, BigInteger.class, BigDecimal.class, URL.class, URI.class, UUID.class,
+            Locale.class, Class.class));
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static final Map<Class<?>, Copier> copiers = new ConcurrentHashMap<>();
+
+    private static final Map<Class<?>, List<Property>> properties = new ConcurrentHashMap<>();
+
+    private ObjectCopier() {
+    }
+
+    static <T> T copy(T object) {
+        return (T) copyValue(object);
+    }
+
+    /**
+     * Sets the non-null properties of {@code update} declared by the class of {@code existing}.
+     */
+    static Object merge(Object existing, Object update) {
+        for (Property property : properties.computeIfAbsent(existing.getClass(), ObjectCopier::findProperties)) {
+            try {
+                Object value = property.getter.invoke(update);
+                if (value != null) {
+                    property.setter.invoke(existing, value);
+                }
+            } catch (Exception e) {
+                logger.error("ERROR", e);
+            }
+        }
+        return existing;
+    }
+
+    private static Object copyValue(Object value) {
+        if (value == null) {
+            return null;
+        }
+        return copiers.computeIfAbsent(value.getClass(), ObjectCopier::createCopier).copy(value);
+    }
+
+    private static boolean isImmutable(Class<?> type) {
+        return type.isPrimitive() || type.isEnum() || IMMUTABLE_TYPES.contains(type)
+                || (type.getSuperclass() != null && type.getSuperclass().isEnum())
+                || type.getName().startsWith("java.time.");
+    }
+
+    private static Copier createCopier(Class<?> type) {
+        if (isImmutable(type)) {
+            return value -> value;
+        } else if (Date.class.isAssignableFrom(type)) {
+            return value -> ((Date) value).clone();
+        } else if (type.isArray()) {
+            return createArrayCopier(type.getComponentType());
+        } else if (Collection.class.isAssignableFrom(type)) {
+            return createCollectionCopier(type);
+        } else if (Map.class.isAssignableFrom(type)) {
+            return createMapCopier(type);
+        } else if (type.getName().startsWith(DOMAIN_PACKAGE)) {
+            Constructor<?> constructor = findConstructor(type);
+            if (constructor != null) {
+                return new BeanCopier(constructor, findFields(type));
+            }
+        }
+        logger.debug("Copying '{}' through JSON", type.getName());
+        return ObjectCopier::copyThroughJson;
+    }
+
+    private static Copier createArrayCopier(Class<?> componentType) {
+        if (componentType.isPrimitive()) {
+            return value -> {
+                int length = Array.getLength(value);
+                Object copy = Array.newInstance(componentType, length);
+                System.arraycopy(value, 0, copy, 0, length);
+                return copy;
+            };
+        }
+        return value -> {
+            Object[] array = (Object[]) value;
+            Object[] copy = (Object[]) Array.newInstance(componentType, array.length);
+            for (int i = 0; i < array.length; i++) {
+                copy[i] = copyValue(array[i]);
+            }
+            return copy;
+        };
+    }
+
+    private static Copier createCollectionCopier(Class<?> type) {
+        Constructor<?> constructor = findCollectionConstructor(type);
+        return value -> {
+            Collection<?> collection = (Collection<?>) value;
+            Collection<Object> copy;
+            if (constructor != null) {
+                copy = (Collection<Object>) newInstance(constructor);
+            } else if (collection instanceof Set) {
+                copy = new LinkedHashSet<>(collection.size());
+            } else {
+                copy = new ArrayList<>(collection.size());
+            }
+            for (Object element : collection) {
+                copy.add(copyValue(element));
+            }
+            return copy;
+        };
+    }
+
+    private static Copier createMapCopier(Class<?> type) {
+        Constructor<?> constructor = findCollectionConstructor(type);
+        return value -> {
+            Map<?, ?> map = (Map<?, ?>) value;
+            Map<Object, Object> copy = constructor != null
+                    ? (Map<Object, Object>) newInstance(constructor)
+                    : new LinkedHashMap<>(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                copy.put(copyValue(entry.getKey()), copyValue(entry.getValue()));
+            }
+            return copy;
+        };
+    }
+
+    /**
+     * Returns the public no-arg constructor of the standard collections, which are recreated with the same class.
+     */
+    private static Constructor<?> findCollectionConstructor(Class<?> type) {
+        if (!type.getName().startsWith("java.util.") || !Modifier.isPublic(type.getModifiers())) {
+            return null;
+        }
+        try {
+            return type.getConstructor();
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static Constructor<?> findConstructor(Class<?> type) {
+        if (type.isInterface() || Modifier.isAbstract(type.getModifiers())) {
+            return null;
+        }
+        try {
+            Constructor<?> constructor = type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return constructor;
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static List<FieldCopier> findFields(Class<?> type) {
+        List<FieldCopier> fields = new ArrayList<>();
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers()) && !field.isSynthetic()) {
+                    field.setAccessible(true);
+                    fields.add(new FieldCopier(field, isImmutable(field.getType())));
+                }
+            }
+        }
+        return fields;
+    }
+
+    private static List<Property> findProperties(Class<?> type) {
+        List<Property> found = new ArrayList<>();
+        for (Method getter : type.getMethods()) {
+            if (getter.getDeclaringClass().equals(type) && getter.getName().startsWith("get")) {
+                String setterName = getter.getName().replace("get", "set");
+                try {
+                    found.add(new Property(getter, type.getMethod(setterName, getter.getReturnType())));
+                } catch (NoSuchMethodException e) {
+                    logger.debug("No setter '{}' in '{}'", setterName, type.getName());
+                }
+            }
+        }
+        return found;
+    }
+
+    private static Object newInstance(Constructor<?> constructor) {
+        try {
+            return constructor.newInstance();
+        } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Object copyThroughJson(Object value) {
+        try {
+            TokenBuffer buffer = new TokenBuffer(objectMapper, false);
+            objectMapper.writeValue(buffer, value);
+            return objectMapper.readValue(buffer.asParser(), value.getClass());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private interface Copier {
+        Object copy(Object value);
+    }
+
+    private static class BeanCopier implements Copier {
+
+        private final Constructor<?> constructor;
+        private final FieldCopier[] fields;
+
+        BeanCopier(Constructor<?> constructor, List<FieldCopier> fields) {
+            this.constructor = constructor;
+            this.fields = fields.toArray(new FieldCopier[0]);
+        }
+
+        @Override
+        public Object copy(Object value) {
+            Object copy = newInstance(constructor);
+            try {
+                for (FieldCopier field : fields) {
+                    field.copy(value, copy);
+                }
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+            return copy;
+        }
+    }
+
+    private static class FieldCopier {
+
+        private final Field field;
+        private final boolean immutable;
+
+        FieldCopier(Field field, boolean immutable) {
+            this.field = field;
+            this.immutable = immutable;
+        }
+
+        void copy(Object from, Object to) throws IllegalAccessException {
+            Object value = field.get(from);
+            field.set(to, immutable ? value : copyValue(value));
+        }
+    }
+
+    private static class Property {
+
+        private final Method getter;
+        private final Method setter;
+
+        Property(Method getter, Method setter) {
+            this.getter = getter;
+            this.setter = setter;
+        }
+    }
+}
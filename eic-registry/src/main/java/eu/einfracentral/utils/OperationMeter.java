@@ -0,0 +1,65 @@
+package eu.einfracentral.utils;
+
+import eu.einfracentral.dto.OperationStatistics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread-safe counters of the outcomes of an operation, and the latency of the timed ones, reported as
+ * {@link OperationStatistics}. The counters are fixed on creation, and reported in that order.
+ */
+public class OperationMeter {
+
+    private final String name;
+    private final Map<String, AtomicLong> counters = new LinkedHashMap<>();
+    private final AtomicLong timed = new AtomicLong();
+    private final AtomicLong totalLatency = new AtomicLong();
+    private final AtomicLong maxLatency = new AtomicLong();
+
+    public OperationMeter(String name, String... counters) {
+        this.name = name;
+        for (String counter : counters) {
+            this.counters.put(counter, new AtomicLong());
+        }
+    }
+
+    public void increment(String counter) {
+        getCounter(counter).incrementAndGet();
+    }
+
+    /**
+     * Increments the counter, and records the latency of the operation.
+     */
+    public void record(String counter, long latencyMillis) {
+        long latency = Math.max(0, latencyMillis);
+        getCounter(counter).incrementAndGet();
+        timed.incrementAndGet();
+        totalLatency.addAndGet(latency);
+        maxLatency.accumulateAndGet(latency, Math::max);
+    }
+
+    public long get(String counter) {
+        return getCounter(counter).get();
+    }
+
+    public OperationStatistics getStatistics() {
+        OperationStatistics statistics = new OperationStatistics(name);
+        for (Map.Entry<String, AtomicLong> counter : counters.entrySet()) {
+            statistics.setCount(counter.getKey(), counter.getValue().get());
+        }
+        long count = timed.get();
+        statistics.setAverageLatencyMillis(count > 0 ? (double) totalLatency.get() / count : 0);
+        statistics.setMaxLatencyMillis(maxLatency.get());
+        return statistics;
+    }
+
+    private AtomicLong getCounter(String counter) {
+        AtomicLong value = counters.get(counter);
+        if (value == null) {
+            throw new IllegalArgumentException(String.format("Unknown counter '%s' of '%s'", counter, name));
+        }
+        return value;
+    }
+}
@@ -2,25 +2,21 @@ package eu.einfracentral.validators;
 
 import eu.einfracentral.annotation.*;
 import eu.einfracentral.domain.*;
-import eu.einfracentral.exception.ResourceException;
-import eu.einfracentral.exception.ResourceNotFoundException;
 import eu.einfracentral.exception.ValidationException;
-import eu.einfracentral.registry.manager.ProviderManager;
-import eu.einfracentral.registry.service.*;
+import eu.einfracentral.registry.service.VocabularyService;
+import eu.einfracentral.service.search.SearchServiceEIC;
 import org.apache.commons.validator.routines.EmailValidator;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.annotation.Lazy;
-import org.springframework.security.core.Authentication;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.io.IOException;
-import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
-import java.net.HttpURLConnection;
 import java.net.URL;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -30,144 +26,125 @@ public class FieldValidator {
     private static final Logger logger = LogManager.getLogger(FieldValidator.class);
 
     private final VocabularyService vocabularyService;
-    private final ProviderManager providerService;
-    private final ServiceBundleService<ServiceBundle> serviceBundleService;
-    private final TrainingResourceService<TrainingResourceBundle> trainingResourceService;
-    private final CatalogueService<CatalogueBundle, Authentication> catalogueService;
-    private final InteroperabilityRecordService<InteroperabilityRecordBundle> interoperabilityRecordService;
+    private final SearchServiceEIC searchServiceEIC;
 
     private static final String MANDATORY_FIELD = "Field '%s' is mandatory.";
     private static final String NULL_OBJECT = "Attempt to validate null object..";
+    private static final Pattern PHONE_PATTERN = Pattern.compile("^(((\\+)|(00))\\d{1,3}( )?)?((\\(\\d{3}\\))|\\d{3})[- .]?\\d{3}[- .]?\\d{4}$");
 
-    private Deque<String> validationLocation;
+    // validated fields of every class, resolved once per class
+    private static final Map<Class<?>, List<FieldPlan>> validationPlans = new ConcurrentHashMap<>();
+
+    private final UrlReachabilityChecker urlReachabilityChecker;
+
+    @Value("${validation.url.mode:sync}")
+    private String urlValidationMode;
+
+    @Value("${elastic.index.max_result_window:10000}")
+    private int maxQuantity;
 
     @Autowired
     public FieldValidator(VocabularyService vocabularyService,
-                          ProviderManager providerService,
-                          @Lazy ServiceBundleService<ServiceBundle> serviceBundleService,
-                          @Lazy TrainingResourceService<TrainingResourceBundle> trainingResourceService,
-                          @Lazy CatalogueService<CatalogueBundle, Authentication> catalogueService,
-                          @Lazy InteroperabilityRecordService<InteroperabilityRecordBundle> interoperabilityRecordService) {
+                          SearchServiceEIC searchServiceEIC,
+                          UrlReachabilityChecker urlReachabilityChecker) {
         this.vocabularyService = vocabularyService;
-        this.providerService = providerService;
-        this.serviceBundleService = serviceBundleService;
-        this.catalogueService = catalogueService;
-        this.interoperabilityRecordService = interoperabilityRecordService;
-        this.trainingResourceService = trainingResourceService;
-    }
-
-    private String getCurrentLocation() {
-        return validationLocation.stream().filter(Objects::nonNull).collect(Collectors.joining("->"));
+        this.searchServiceEIC = searchServiceEIC;
+        this.urlReachabilityChecker = urlReachabilityChecker;
     }
 
     public void validate(Object o) throws IllegalAccessException {
-        validationLocation = new ArrayDeque<>();
-        validateFields(o);
-        if (o.getClass().getSuperclass() != null && (o.getClass().getSuperclass().getCanonicalName().contains("eu.einfracentral.domain.Bundle"))) {
-            try {
-                Field payload = Bundle.class.getDeclaredField("payload");
-                payload.setAccessible(true);
-                o = payload.get(o);
-            } catch (NoSuchFieldException e) {
-                logger.error("Could not find field 'payload'", e);
-            }
-            validateFields(o);
+        ValidationContext context = new ValidationContext();
+        validateFields(context, o);
+        if (o.getClass().getSuperclass() != null && Bundle.class.equals(o.getClass().getSuperclass())) {
+            validateFields(context, ((Bundle<?>) o).getPayload());
         }
+        validateIds(context.idReferences);
+        checkUrls(context.urlsToCheck);
     }
 
-    private void validateFields(Object o) throws IllegalAccessException {
+    private void validateFields(ValidationContext context, Object o) throws IllegalAccessException {
         if (o == null) {
             throw new ValidationException(NULL_OBJECT);
         }
 
-        // get declared fields of class
-        List<Field> declaredFields = new ArrayList<>(Arrays.asList(o.getClass().getDeclaredFields()));
-        if (o instanceof ServiceBundle) {
-            declaredFields.addAll(Arrays.asList(o.getClass().getSuperclass().getDeclaredFields()));
-        }
-        if (o instanceof TrainingResourceBundle) {
-            declaredFields.addAll(Arrays.asList(o.getClass().getSuperclass().getDeclaredFields()));
-        }
-        if (o instanceof InteroperabilityRecordBundle) {
-            declaredFields.addAll(Arrays.asList(o.getClass().getSuperclass().getDeclaredFields()));
-        }
-
-        // validate every field
-        for (Field field : declaredFields) {
-            validationLocation.addLast(field.getName());
-            validateField(field, o);
-            validationLocation.removeLast();
+        // validate every annotated field
+        for (FieldPlan plan : validationPlans.computeIfAbsent(o.getClass(), FieldValidator::createValidationPlan)) {
+            context.location.addLast(plan.field.getName());
+            validateField(context, plan, o);
+            context.location.removeLast();
         }
     }
 
-    private void validateField(Field field, Object o) throws IllegalAccessException {
+    private void validateField(ValidationContext context, FieldPlan plan, Object o) throws IllegalAccessException {
         if (o == null) { // parent object here
             throw new ValidationException(NULL_OBJECT);
         }
 
-        // email validation
-        if (field.getAnnotation(EmailValidation.class) != null) {
-            validateEmail(field, o, field.getAnnotation(EmailValidation.class));
-            return;
+        if (plan.emailValidation != null) {
+            validateEmail(context, plan.field, o, plan.emailValidation);
+        } else if (plan.phoneValidation != null) {
+            validatePhone(context, plan.field, o, plan.phoneValidation);
+        } else {
+            validateField(context, plan, o, plan.fieldValidation);
         }
+    }
 
-        // phone validation
-        if (field.getAnnotation(PhoneValidation.class) != null) {
-            validatePhone(field, o, field.getAnnotation(PhoneValidation.class));
-            return;
+    /**
+     * Resolves the fields of a class that carry validation annotations, along with their annotations,
+     * and makes them accessible.
+     */
+    private static List<FieldPlan> createValidationPlan(Class<?> clazz) {
+        // get declared fields of class
+        List<Field> declaredFields = new ArrayList<>(Arrays.asList(clazz.getDeclaredFields()));
+        if (ServiceBundle.class.isAssignableFrom(clazz) || TrainingResourceBundle.class.isAssignableFrom(clazz)
+                || InteroperabilityRecordBundle.class.isAssignableFrom(clazz)) {
+            declaredFields.addAll(Arrays.asList(clazz.getSuperclass().getDeclaredFields()));
         }
 
-        // check if FieldValidation annotation exists
-        Annotation vocabularyValidation = field.getAnnotation(VocabularyValidation.class);
-        Annotation geoLocationVocValidation = field.getAnnotation(GeoLocationVocValidation.class);
-        Annotation annotation = field.getAnnotation(FieldValidation.class);
-        if (vocabularyValidation != null && annotation == null) {
-            annotation = vocabularyValidation.annotationType().getAnnotation(FieldValidation.class);
-        }
-        // region/countries validation
-        if (geoLocationVocValidation != null && annotation == null) {
-            annotation = geoLocationVocValidation.annotationType().getAnnotation(FieldValidation.class);
+        List<FieldPlan> plan = new ArrayList<>();
+        for (Field field : declaredFields) {
+            FieldPlan fieldPlan = new FieldPlan(field);
+            if (fieldPlan.emailValidation != null || fieldPlan.phoneValidation != null
+                    || fieldPlan.fieldValidation != null) {
+                field.setAccessible(true);
+                plan.add(fieldPlan);
+            }
         }
-
-        validateField(field, o, (FieldValidation) annotation);
+        return Collections.unmodifiableList(plan);
     }
 
-    private void validatePhone(Field field, Object o, PhoneValidation annotation) throws IllegalAccessException {
-        field.setAccessible(true);
+    private void validatePhone(ValidationContext context, Field field, Object o, PhoneValidation annotation) throws IllegalAccessException {
         o = field.get(o);
         if (annotation.nullable() && (o == null || o.equals(""))) {
             return;
         } else if (o == null) {
-            throw new ValidationException(String.format(MANDATORY_FIELD, getCurrentLocation()));
+            throw new ValidationException(String.format(MANDATORY_FIELD, context.getLocation()));
         }
-        Pattern phonePattern = Pattern.compile("^(((\\+)|(00))\\d{1,3}( )?)?((\\(\\d{3}\\))|\\d{3})[- .]?\\d{3}[- .]?\\d{4}$");
-        if (!phonePattern.matcher(o.toString()).matches()) {
-            throw new ValidationException(String.format("The phone you provided [%s] is not valid. Found in field [%s]", o, getCurrentLocation()));
+        if (!PHONE_PATTERN.matcher(o.toString()).matches()) {
+            throw new ValidationException(String.format("The phone you provided [%s] is not valid. Found in field [%s]", o, context.getLocation()));
         }
     }
 
-    private void validateEmail(Field field, Object o, EmailValidation annotation) throws IllegalAccessException {
-        field.setAccessible(true);
+    private void validateEmail(ValidationContext context, Field field, Object o, EmailValidation annotation) throws IllegalAccessException {
         o = field.get(o);
         if (annotation.nullable() && (o == null || o.equals(""))) {
             return;
         } else if (o == null) {
-            throw new ValidationException(String.format(MANDATORY_FIELD, getCurrentLocation()));
+            throw new ValidationException(String.format(MANDATORY_FIELD, context.getLocation()));
         }
         EmailValidator emailValidator = EmailValidator.getInstance();
         if (!emailValidator.isValid(o.toString())) {
-            throw new ValidationException(String.format("Email [%s] is not valid. Found in field [%s]", o, getCurrentLocation()));
+            throw new ValidationException(String.format("Email [%s] is not valid. Found in field [%s]", o, context.getLocation()));
         }
     }
 
-    private void validateField(Field field, Object o, FieldValidation annotation) throws IllegalAccessException {
+    private void validateField(ValidationContext context, FieldPlan plan, Object o, FieldValidation annotation) throws IllegalAccessException {
         if (o == null) {
             throw new ValidationException(NULL_OBJECT);
         }
 
         if (annotation != null) {
-
-            field.setAccessible(true);
+            Field field = plan.field;
 
             Object fieldValue = field.get(o);
             Class clazz = null;
@@ -186,20 +163,20 @@ public class FieldValidator {
             }
 
             if (!annotation.nullable() && isNullOrEmpty(fieldValue, clazz)) {
-                throw new ValidationException(String.format(MANDATORY_FIELD, getCurrentLocation()));
+                throw new ValidationException(String.format(MANDATORY_FIELD, context.getLocation()));
             }
 
             validateMaxLength(field, fieldValue, annotation);
-            validateUrlValidity(field, fieldValue);
+            validateUrlValidity(context, field, fieldValue);
             validateDuplicates(field, fieldValue);
 
             if (annotation.containsId()) {
-                validateIds(field, fieldValue, annotation);
+                collectIds(context, plan, fieldValue);
             } else if (fieldValue != null && fieldValue.getClass().getCanonicalName().startsWith("eu.einfracentral.")) {
-                validateFields(fieldValue);
+                validateFields(context, fieldValue);
             } else if (fieldValue != null && Collection.class.isAssignableFrom(fieldValue.getClass())) {
                 for (Object entry : ((Collection) fieldValue)) {
-                    validateFields(entry);
+                    validateFields(context, entry);
                 }
             }
         }
@@ -236,130 +213,183 @@ public class FieldValidator {
         }
     }
 
-    private void validateUrlValidity(Field field, Object o) {
+    private void validateUrlValidity(ValidationContext context, Field field, Object o) {
         if (o != null) {
             Class clazz = o.getClass();
+            // URLs are checked all together at the end of the validation
             if (URL.class.equals(clazz)) {
                 URL url = (URL) o;
-                validateUrl(field, url);
+                context.urlsToCheck.putIfAbsent(url, field.getName());
             } else if (ArrayList.class.equals(clazz) && !((ArrayList) o).isEmpty() && URL.class.equals(((ArrayList) o).get(0).getClass())) {
                 for (int i = 0; i < ((ArrayList) o).size(); i++) {
                     URL url = (URL) ((ArrayList) o).get(i);
-                    validateUrl(field, url);
+                    context.urlsToCheck.putIfAbsent(url, field.getName());
                 }
             }
         }
     }
 
     public void validateUrl(Field field, URL urlForValidation) {
-        HttpsTrustManager.allowAllSSL();
-        HttpURLConnection huc;
-        int statusCode = 0;
-
-        try {
-            // replace spaces with %20
-            if (urlForValidation.toString().contains(" ")) {
-                urlForValidation = new URL(urlForValidation.toString().replaceAll("\\s", "%20"));
-            }
+        UrlReachabilityChecker.UrlCheck check = urlReachabilityChecker.check(urlForValidation).join();
+        validateUrlCheck(field != null ? field.getName() : null, urlForValidation, check);
+    }
 
-            // open connection and get response code
-            huc = (HttpURLConnection) urlForValidation.openConnection();
-            assert huc != null;
-            huc.setRequestMethod("HEAD");
-            huc.setConnectTimeout(5000);
-            statusCode = huc.getResponseCode();
-        } catch (java.net.SocketTimeoutException e) {
-            throw new ValidationException("URI provided is not valid, or takes too long to load. Found in field " + field.getName());
-        } catch (IOException e) {
-            logger.trace(e.getMessage());
+    /**
+     * Checks the URLs collected during the validation in parallel. In 'deferred' mode the checks run in the
+     * background and their failures are only logged.
+     */
+    private void checkUrls(Map<URL, String> urls) {
+        if (urls.isEmpty() || "off".equalsIgnoreCase(urlValidationMode)) {
+            return;
+        }
+        Map<URL, CompletableFuture<UrlReachabilityChecker.UrlCheck>> checks = new LinkedHashMap<>();
+        for (URL url : urls.keySet()) {
+            checks.put(url, urlReachabilityChecker.check(url));
         }
+        if ("deferred".equalsIgnoreCase(urlValidationMode)) {
+            checks.forEach((url, check) -> check.thenAccept(result -> {
+                if (result.isTimedOut()) {
+                    logger.warn("URL '{}' of field '{}' is not valid, or takes too long to load", url, urls.get(url));
+                }
+            }));
+            return;
+        }
+        for (Map.Entry<URL, CompletableFuture<UrlReachabilityChecker.UrlCheck>> check : checks.entrySet()) {
+            validateUrlCheck(urls.get(check.getKey()), check.getKey(), check.getValue().join());
+        }
+    }
 
+    private void validateUrlCheck(String fieldName, URL url, UrlReachabilityChecker.UrlCheck check) {
+        if (check.isTimedOut()) {
+            throw new ValidationException("URI provided is not valid, or takes too long to load. Found in field " + fieldName);
+        }
+
+//        int statusCode = check.getStatusCode();
 //        if (statusCode != 200 && statusCode != 301 && statusCode != 302 && statusCode != 308
 //                && statusCode != 403 && statusCode != 405 && statusCode != 503) {
-//            if (field == null) {
-//                throw new ValidationException(String.format("The URL '%s' you provided is not valid.", urlForValidation));
+//            if (fieldName == null) {
+//                throw new ValidationException(String.format("The URL '%s' you provided is not valid.", url));
 //            } else {
-//                throw new ValidationException(String.format("The URL '%s' you provided is not valid. Found in field '%s'", urlForValidation, field.getName()));
+//                throw new ValidationException(String.format("The URL '%s' you provided is not valid. Found in field '%s'", url, fieldName));
 //            }
 //        }
     }
 
-    // TODO: find a better way to get resources by id
-    private void validateIds(Field field, Object o, FieldValidation annotation) {
-        if (o != null && annotation.containsId()) {
+    // ids are validated all together at the end of the validation
+    private void collectIds(ValidationContext context, FieldPlan plan, Object o) {
+        if (o != null) {
             if (Collection.class.isAssignableFrom(o.getClass())) {
                 for (Object entry : ((Collection) o)) {
-                    validateIds(field, entry, annotation);
+                    collectIds(context, plan, entry);
                 }
             } else if (String.class.equals(o.getClass())) {
-                try {
-                    if (annotation.containsResourceId()) {
-                        ServiceBundle serviceBundle = serviceBundleService.getOrElseReturnNull(o.toString());
-                        TrainingResourceBundle trainingResourceBundle = trainingResourceService.getOrElseReturnNull(o.toString());
-                        if (serviceBundle == null && trainingResourceBundle == null) {
-                            throw new ValidationException(
-                                    String.format("Field '%s' should ONLY contain the ID of an existing Service " +
-                                            "or Training Resource", field.getName()));
-                        }
-                    } else if (Vocabulary.class.equals(annotation.idClass())) {
-                        Vocabulary voc = vocabularyService.get(o.toString());
-                        VocabularyValidation vocabularyValidation = field.getAnnotation(VocabularyValidation.class);
-                        GeoLocationVocValidation geoLocationVocValidation = field.getAnnotation(GeoLocationVocValidation.class);
-                        if (vocabularyValidation != null) {
-                            if (voc == null || Vocabulary.Type.fromString(voc.getType()) != vocabularyValidation.type()) {
-                                throw new ValidationException(
-                                        String.format("Field '%s' should contain the ID of a type '%s' Vocabulary",
-                                                field.getName(), vocabularyValidation.type()));
-                            }
-                        }
-                        // region/countries validation
-                        if (geoLocationVocValidation != null) {
-                            if (voc == null || (Vocabulary.Type.fromString(voc.getType()) != geoLocationVocValidation.region()
-                                    && Vocabulary.Type.fromString(voc.getType()) != geoLocationVocValidation.country())) {
-                                throw new ValidationException(
-                                        String.format("Field '%s' should contain the ID of either one of the types '%s' or '%s' Vocabularies",
-                                                field.getName(), geoLocationVocValidation.region(), geoLocationVocValidation.country()));
-                            }
-                        }
-                    } else if (Provider.class.equals(annotation.idClass())
-                            && providerService.get(o.toString()) == null) { //FIXME catalogueID
-                        throw new ValidationException(
-                                String.format("Field '%s' should contain the ID of an existing Provider",
-                                        field.getName()));
-                    } else if ((eu.einfracentral.domain.Service.class.equals(annotation.idClass())
-                            || ServiceBundle.class.equals(annotation.idClass()))
-                            && serviceBundleService.get(o.toString()) == null) {
-                        throw new ValidationException(
-                                String.format("Field '%s' should contain the ID of an existing Service",
-                                        field.getName()));
-                    } else if ((eu.einfracentral.domain.TrainingResource.class.equals(annotation.idClass())
-                            || TrainingResourceBundle.class.equals(annotation.idClass()))
-                            && trainingResourceService.get(o.toString()) == null) {
-                        throw new ValidationException(
-                                String.format("Field '%s' should contain the ID of an existing Training Resource",
-                                        field.getName()));
-                    } else if ((eu.einfracentral.domain.Catalogue.class.equals(annotation.idClass())
-                            || CatalogueBundle.class.equals(annotation.idClass()))
-                            && catalogueService.get(o.toString()) == null) {
-                        throw new ValidationException(
-                                String.format("Field '%s' should contain the ID of an existing Catalogue",
-                                        field.getName()));
-                    } else if ((eu.einfracentral.domain.InteroperabilityRecord.class.equals(annotation.idClass())
-                            || InteroperabilityRecordBundle.class.equals(annotation.idClass()))
-                            && interoperabilityRecordService.get(o.toString()) == null) {
-                        throw new ValidationException(
-                                String.format("Field '%s' should contain the ID of an existing InteroperabilityRecord",
-                                        field.getName()));
-                    }
-                } catch (ResourceException | ResourceNotFoundException e) {
+                context.idReferences.add(new IdReference(plan, o.toString()));
+            }
+        }
+    }
+
+    /**
+     * Resolves the referenced ids of every resource type with a single query, and Vocabularies from the
+     * Vocabulary map, then checks every reference in the order it was found.
+     */
+    private void validateIds(List<IdReference> references) {
+        if (references.isEmpty()) {
+            return;
+        }
+        Map<String, Set<String>> idsByResourceType = new HashMap<>();
+        boolean vocabularyReferences = false;
+        for (IdReference reference : references) {
+            vocabularyReferences |= isVocabularyReference(reference.plan.fieldValidation);
+            for (String resourceType : getResourceTypes(reference.plan.fieldValidation)) {
+                idsByResourceType.computeIfAbsent(resourceType, type -> new HashSet<>()).add(reference.id);
+            }
+        }
+        Map<String, Set<String>> existingIds = new HashMap<>();
+        for (Map.Entry<String, Set<String>> ids : idsByResourceType.entrySet()) {
+            existingIds.put(ids.getKey(), findExistingIds(ids.getKey(), ids.getValue()));
+        }
+        Map<String, Vocabulary> vocabularies = vocabularyReferences
+                ? vocabularyService.getVocabulariesMap() : Collections.emptyMap();
+
+        for (IdReference reference : references) {
+            validateId(reference, existingIds, vocabularies);
+        }
+    }
+
+    private void validateId(IdReference reference, Map<String, Set<String>> existingIds,
+                            Map<String, Vocabulary> vocabularies) {
+        Field field = reference.plan.field;
+        FieldValidation annotation = reference.plan.fieldValidation;
+        String id = reference.id;
+        if (annotation.containsResourceId()) {
+            if (!existingIds.get("service").contains(id) && !existingIds.get("training_resource").contains(id)) {
+                throw new ValidationException(
+                        String.format("Field '%s' should ONLY contain the ID of an existing Service " +
+                                "or Training Resource", field.getName()));
+            }
+        } else if (isVocabularyReference(annotation)) {
+            Vocabulary voc = vocabularies.get(id);
+            if (voc == null) {
+                throw new ValidationException(
+                        String.format("%s with ID '%s' does not exist. Found in field '%s'",
+                                annotation.idClass().getSimpleName(), id, field.getName()));
+            }
+            VocabularyValidation vocabularyValidation = reference.plan.vocabularyValidation;
+            GeoLocationVocValidation geoLocationVocValidation = reference.plan.geoLocationVocValidation;
+            if (vocabularyValidation != null) {
+                if (Vocabulary.Type.fromString(voc.getType()) != vocabularyValidation.type()) {
+                    throw new ValidationException(
+                            String.format("Field '%s' should contain the ID of a type '%s' Vocabulary",
+                                    field.getName(), vocabularyValidation.type()));
+                }
+            }
+            // region/countries validation
+            if (geoLocationVocValidation != null) {
+                if (Vocabulary.Type.fromString(voc.getType()) != geoLocationVocValidation.region()
+                        && Vocabulary.Type.fromString(voc.getType()) != geoLocationVocValidation.country()) {
+                    throw new ValidationException(
+                            String.format("Field '%s' should contain the ID of either one of the types '%s' or '%s' Vocabularies",
+                                    field.getName(), geoLocationVocValidation.region(), geoLocationVocValidation.country()));
+                }
+            }
+        } else {
+            for (String resourceType : getResourceTypes(annotation)) {
+                if (!existingIds.get(resourceType).contains(id)) {
                     throw new ValidationException(
                             String.format("%s with ID '%s' does not exist. Found in field '%s'",
-                                    annotation.idClass().getSimpleName(), o.toString(), field.getName()));
+                                    annotation.idClass().getSimpleName(), id, field.getName()));
                 }
             }
         }
     }
 
+    private boolean isVocabularyReference(FieldValidation annotation) {
+        return !annotation.containsResourceId() && Vocabulary.class.equals(annotation.idClass());
+    }
+
+    // the resource types in which the ids of a field are looked up
+    private List<String> getResourceTypes(FieldValidation annotation) {
+        Class<?> idClass = annotation.idClass();
+        if (annotation.containsResourceId()) {
+            return Arrays.asList("service", "training_resource");
+        } else if (Provider.class.equals(idClass)) { //FIXME catalogueID
+            return Collections.singletonList("provider");
+        } else if (eu.einfracentral.domain.Service.class.equals(idClass) || ServiceBundle.class.equals(idClass)) {
+            return Collections.singletonList("service");
+        } else if (TrainingResource.class.equals(idClass) || TrainingResourceBundle.class.equals(idClass)) {
+            return Collections.singletonList("training_resource");
+        } else if (Catalogue.class.equals(idClass) || CatalogueBundle.class.equals(idClass)) {
+            return Collections.singletonList("catalogue");
+        } else if (InteroperabilityRecord.class.equals(idClass) || InteroperabilityRecordBundle.class.equals(idClass)) {
+            return Collections.singletonList("interoperability_record");
+        }
+        return Collections.emptyList();
+    }
+
+    private Set<String> findExistingIds(String resourceType, Set<String> ids) {
+        return searchServiceEIC.searchExistingIds(resourceType, ids, maxQuantity);
+    }
+
     private void removeNullOrEmptyEntries(Collection collection) {
         if (collection != null) {
             for (Iterator i = collection.iterator(); i.hasNext(); ) {
@@ -392,4 +422,60 @@ public class FieldValidator {
             }
         }
     }
+
+    /**
+     * State of a single {@link #validate(Object)} call, so that concurrent validations do not share any mutable state.
+     */
+    private static class ValidationContext {
+
+        private final Deque<String> location = new ArrayDeque<>();
+        // URLs to check at the end of the validation, with the first field containing them
+        private final Map<URL, String> urlsToCheck = new LinkedHashMap<>();
+        // referenced ids to resolve at the end of the validation
+        private final List<IdReference> idReferences = new ArrayList<>();
+
+        private String getLocation() {
+            return location.stream().filter(Objects::nonNull).collect(Collectors.joining("->"));
+        }
+    }
+
+    private static class IdReference {
+
+        private final FieldPlan plan;
+        private final String id;
+
+        private IdReference(FieldPlan plan, String id) {
+            this.plan = plan;
+            this.id = id;
+        }
+    }
+
+    private static class FieldPlan {
+
+        private final Field field;
+        private final EmailValidation emailValidation;
+        private final PhoneValidation phoneValidation;
+        private final VocabularyValidation vocabularyValidation;
+        private final GeoLocationVocValidation geoLocationVocValidation;
+        private final FieldValidation fieldValidation;
+
+        private FieldPlan(Field field) {
+            this.field = field;
+            this.emailValidation = field.getAnnotation(EmailValidation.class);
+            this.phoneValidation = field.getAnnotation(PhoneValidation.class);
+            this.vocabularyValidation = field.getAnnotation(VocabularyValidation.class);
+            this.geoLocationVocValidation = field.getAnnotation(GeoLocationVocValidation.class);
+
+            // check if FieldValidation annotation exists
+            FieldValidation annotation = field.getAnnotation(FieldValidation.class);
+            if (vocabularyValidation != null && annotation == null) {
+                annotation = vocabularyValidation.annotationType().getAnnotation(FieldValidation.class);
+            }
+            // region/countries validation
+            if (geoLocationVocValidation != null && annotation == null) {
+                annotation = geoLocationVocValidation.annotationType().getAnnotation(FieldValidation.class);
+            }
+            this.fieldValidation = annotation;
+        }
+    }
 }
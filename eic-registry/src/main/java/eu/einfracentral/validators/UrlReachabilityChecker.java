@@ -0,0 +1,142 @@
+package eu.einfracentral.validators;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Checks whether URLs respond in time, with a bounded number of concurrent connections and pending checks.
+ * When all the pending slots are taken, the caller checks the URL itself.
+ * <p>
+ * Results are cached per URL. Timeouts are only remembered for a short period, since they are often transient.
+ */
+@Component
+public class UrlReachabilityChecker {
+
+    private static final Logger logger = LogManager.getLogger(UrlReachabilityChecker.class);
+
+    private final int timeout;
+    private final ThreadPoolExecutor executor;
+    private final Cache<String, UrlCheck> results;
+    private final Cache<String, UrlCheck> timeouts;
+
+    public UrlReachabilityChecker(@Value("${validation.url.threads:8}") int threads,
+                                  @Value("${validation.url.capacity:1000}") int capacity,
+                                  @Value("${validation.url.timeout:5000}") int timeout,
+                                  @Value("${validation.url.cacheTtl:60}") int cacheTtlMinutes,
+                                  @Value("${validation.url.timeoutTtl:60}") int timeoutTtlSeconds) {
+        this.timeout = timeout;
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, capacity)), runnable -> {
+            Thread thread = new Thread(runnable, "url-check-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+        this.results = Caffeine.newBuilder()
+                .expireAfterWrite(cacheTtlMinutes, TimeUnit.MINUTES)
+                .maximumSize(100_000)
+                .build();
+        this.timeouts = Caffeine.newBuilder()
+                .expireAfterWrite(timeoutTtlSeconds, TimeUnit.SECONDS)
+                .maximumSize(100_000)
+                .build();
+        HttpsTrustManager.allowAllSSL();
+    }
+
+    /**
+     * Checks the URL asynchronously, or returns its cached result.
+     *
+     * @param url the URL to check
+     * @return the result of the check
+     */
+    public CompletableFuture<UrlCheck> check(URL url) {
+        UrlCheck cached = getCached(url);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            UrlCheck check = getCached(url);
+            if (check == null) {
+                check = connect(url);
+                (check.isTimedOut() ? timeouts : results).put(url.toString(), check);
+            }
+            return check;
+        }, executor);
+    }
+
+    private UrlCheck getCached(URL url) {
+        UrlCheck check = results.getIfPresent(url.toString());
+        return check != null ? check : timeouts.getIfPresent(url.toString());
+    }
+
+    private UrlCheck connect(URL url) {
+        HttpURLConnection huc = null;
+        try {
+            // replace spaces with %20
+            if (url.toString().contains(" ")) {
+                url = new URL(url.toString().replaceAll("\\s", "%20"));
+            }
+
+            // open connection and get response code
+            huc = (HttpURLConnection) url.openConnection();
+            huc.setRequestMethod("HEAD");
+            huc.setConnectTimeout(timeout);
+            huc.setReadTimeout(timeout);
+            return new UrlCheck(false, huc.getResponseCode());
+        } catch (SocketTimeoutException e) {
+            logger.debug("URL '{}' timed out", url);
+            return UrlCheck.TIMED_OUT;
+        } catch (IOException | ClassCastException e) {
+            logger.trace(e.getMessage());
+            return new UrlCheck(false, 0);
+        } finally {
+            if (huc != null) {
+                huc.disconnect();
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public static class UrlCheck {
+
+        static final UrlCheck TIMED_OUT = new UrlCheck(true, 0);
+
+        private final boolean timedOut;
+        private final int statusCode;
+
+        UrlCheck(boolean timedOut, int statusCode) {
+            this.timedOut = timedOut;
+            this.statusCode = statusCode;
+        }
+
+        /**
+         * @return whether the URL did not respond within the timeout
+         */
+        public boolean isTimedOut() {
+            return timedOut;
+        }
+
+        /**
+         * @return the HTTP status code, or 0 if the URL could not be reached
+         */
+        public int getStatusCode() {
+            return statusCode;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+-- Daily per-Service rollups of the Event values, maintained by EventRollupService
+CREATE TABLE IF NOT EXISTS event_rollup (
+    service_id  varchar          NOT NULL,
+    event_type  varchar          NOT NULL,
+    day         date             NOT NULL,
+    value_sum   double precision NOT NULL DEFAULT 0,
+    event_count bigint           NOT NULL DEFAULT 0,
+    PRIMARY KEY (service_id, event_type, day)
+);
+
+-- Journal of the incremental rollup updates, reapplied by the rebuilds that were computing while they happened
+CREATE TABLE IF NOT EXISTS event_rollup_delta (
+    id          bigserial        PRIMARY KEY,
+    service_id  varchar          NOT NULL,
+    event_type  varchar          NOT NULL,
+    day         date             NOT NULL,
+    value_sum   double precision NOT NULL DEFAULT 0,
+    event_count bigint           NOT NULL DEFAULT 0
+);
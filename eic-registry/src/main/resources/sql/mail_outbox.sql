@@ -0,0 +1,23 @@
+-- Emails waiting to be sent, and the recently sent ones used for deduplication, maintained by MailOutbox
+CREATE TABLE IF NOT EXISTS mail_outbox (
+    id             bigserial PRIMARY KEY,
+    dedup_key      varchar   NOT NULL,
+    digest_key     varchar,
+    recipients_to  text,
+    recipients_cc  text,
+    recipients_bcc text,
+    subject        text,
+    body           text,
+    attempts       int       NOT NULL DEFAULT 0,
+    created_at     timestamp NOT NULL,
+    next_attempt   timestamp NOT NULL,
+    claimed_until  timestamp,
+    sent_at        timestamp
+);
+
+ALTER TABLE mail_outbox ADD COLUMN IF NOT EXISTS digest_key varchar;
+ALTER TABLE mail_outbox ADD COLUMN IF NOT EXISTS claimed_until timestamp;
+
+CREATE INDEX IF NOT EXISTS mail_outbox_dedup_idx ON mail_outbox (dedup_key, created_at);
+CREATE INDEX IF NOT EXISTS mail_outbox_digest_idx ON mail_outbox (digest_key, sent_at);
+CREATE INDEX IF NOT EXISTS mail_outbox_pending_idx ON mail_outbox (next_attempt) WHERE sent_at IS NULL;
@@ -0,0 +1,21 @@
+-- Synchronization operations waiting to be delivered, maintained by SyncOutbox
+CREATE TABLE IF NOT EXISTS sync_outbox (
+    controller    varchar   NOT NULL,
+    entity_id     varchar   NOT NULL,
+    action        varchar   NOT NULL,
+    entity_class  varchar   NOT NULL,
+    payload       text      NOT NULL,
+    version       bigint    NOT NULL DEFAULT 0,
+    attempts      int       NOT NULL DEFAULT 0,
+    created_at    timestamp NOT NULL,
+    next_attempt  timestamp NOT NULL,
+    claimed_until timestamp,
+    -- the version of the claimed operation, to tell it from operations added during its delivery
+    claimed_version bigint,
+    PRIMARY KEY (controller, entity_id)
+);
+
+ALTER TABLE sync_outbox ADD COLUMN IF NOT EXISTS claimed_until timestamp;
+ALTER TABLE sync_outbox ADD COLUMN IF NOT EXISTS claimed_version bigint;
+
+CREATE INDEX IF NOT EXISTS sync_outbox_due ON sync_outbox (controller, next_attempt);
@@ -0,0 +1,194 @@
+package eu.einfracentral.config.async;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that {@link OrderedTaskExecutor} runs the tasks of a key in submission order, makes the submitting
+ * threads wait for room in full lanes and rejects the tasks that find none.
+ */
+public class OrderedTaskExecutorTests {
+
+    private OrderedTaskExecutor executor;
+
+    @After
+    public void tearDown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void runsTheTasksOfAKeyInOrder() throws Exception {
+        executor = new OrderedTaskExecutor("test", 3, 2, 10000);
+        int producers = 6;
+        int tasks = 200;
+        Map<String, List<Integer>> executed = new ConcurrentHashMap<>();
+        ExecutorService producerPool = Executors.newFixedThreadPool(producers);
+        CyclicBarrier start = new CyclicBarrier(producers);
+        List<Future<?>> results = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            String key = "resource-" + p;
+            executed.put(key, Collections.synchronizedList(new ArrayList<>()));
+            results.add(producerPool.submit(() -> {
+                start.await();
+                for (int i = 0; i < tasks; i++) {
+                    int sequence = i;
+                    executor.execute(key, () -> executed.get(key).add(sequence));
+                }
+                return null;
+            }));
+        }
+        try {
+            for (Future<?> result : results) {
+                result.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            producerPool.shutdownNow();
+        }
+        awaitCompleted((long) producers * tasks);
+
+        for (Map.Entry<String, List<Integer>> entry : executed.entrySet()) {
+            List<Integer> sequences = entry.getValue();
+            assertEquals(entry.getKey(), tasks, sequences.size());
+            for (int i = 0; i < tasks; i++) {
+                assertEquals(entry.getKey(), i, (int) sequences.get(i));
+            }
+        }
+        assertEquals(0, executor.getStatistics().getCount("rejected"));
+        assertTrue(executor.getStatistics().getCount("blocked") > 0);
+    }
+
+    @Test
+    public void submitterWaitsForRoom() throws Exception {
+        executor = new OrderedTaskExecutor("test", 1, 1, 10000);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> executed = new CopyOnWriteArrayList<>();
+        executor.execute("key", () -> {
+            running.countDown();
+            await(release);
+            executed.add("first");
+        });
+        running.await();
+        executor.execute("key", () -> executed.add("second"));
+
+        new Timer(true).schedule(new TimerTask() {
+            @Override
+            public void run() {
+                release.countDown();
+            }
+        }, 200);
+        long start = System.currentTimeMillis();
+        executor.execute("key", () -> executed.add("third"));
+        assertTrue(System.currentTimeMillis() - start >= 150);
+
+        awaitCompleted(3);
+        assertEquals(Arrays.asList("first", "second", "third"), executed);
+        assertEquals(1, executor.getStatistics().getCount("blocked"));
+        assertEquals(0, executor.getStatistics().getCount("rejected"));
+    }
+
+    @Test
+    public void rejectsTasksWhenTheLaneStaysFull() throws Exception {
+        executor = new OrderedTaskExecutor("test", 1, 1, 200);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute("key", () -> {
+            running.countDown();
+            await(release);
+        });
+        running.await();
+        executor.execute("key", () -> {
+        });
+
+        long start = System.currentTimeMillis();
+        try {
+            executor.execute("key", () -> fail("Rejected task was executed"));
+            fail("Expected the task to be rejected");
+        } catch (RejectedExecutionException e) {
+            assertTrue(System.currentTimeMillis() - start >= 150);
+        }
+        release.countDown();
+        awaitCompleted(2);
+        assertEquals(1, executor.getStatistics().getCount("rejected"));
+        assertEquals(2, executor.getStatistics().getCount("submitted"));
+    }
+
+    @Test
+    public void laneNeverRunsATaskAheadOfItsKey() throws Exception {
+        executor = new OrderedTaskExecutor("test", 1, 1, 10000);
+        List<String> executed = new CopyOnWriteArrayList<>();
+        CompletableFuture<RejectedExecutionException> rejection = new CompletableFuture<>();
+        executor.execute("key", () -> {
+            executed.add("first");
+            executor.execute("key", () -> executed.add("second"));
+            try {
+                // the lane is full and only this thread can make room: rejected instead of run here
+                executor.execute("key", () -> executed.add("third"));
+                rejection.complete(null);
+            } catch (RejectedExecutionException e) {
+                rejection.complete(e);
+            }
+        });
+
+        assertNotNull(rejection.get(5, TimeUnit.SECONDS));
+        awaitCompleted(2);
+        assertEquals(Arrays.asList("first", "second"), executed);
+        assertEquals(1, executor.getStatistics().getCount("rejected"));
+    }
+
+    @Test
+    public void waitsWithoutLimitWhenOfferTimeoutIsZero() throws Exception {
+        executor = new OrderedTaskExecutor("test", 1, 1, 0);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute("key", () -> {
+            running.countDown();
+            await(release);
+        });
+        running.await();
+        executor.execute("key", () -> {
+        });
+
+        CompletableFuture<Void> submitted = CompletableFuture.runAsync(() -> executor.execute("key", () -> {
+        }));
+        Thread.sleep(300);
+        assertFalse(submitted.isDone());
+        release.countDown();
+        submitted.get(5, TimeUnit.SECONDS);
+        awaitCompleted(3);
+        assertEquals(0, executor.getStatistics().getCount("rejected"));
+    }
+
+    @Test
+    public void tryExecuteDoesNotThrowRejections() {
+        executor = new OrderedTaskExecutor("test", 1, 1, 0);
+        executor.shutdown();
+
+        assertFalse(executor.tryExecute("key", () -> fail("Rejected task was executed")));
+        assertFalse(executor.tryExecute(() -> fail("Rejected task was executed")));
+        assertEquals(2, executor.getStatistics().getCount("rejected"));
+    }
+
+    private void awaitCompleted(long count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30000;
+        while (executor.getStatistics().getCount("completed") < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, executor.getStatistics().getCount("completed"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package eu.einfracentral.config.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.cache.Cache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that concurrent misses of a {@link TieredCache} load each key once, as {@code @Cacheable(sync = true)}
+ * expects.
+ */
+public class TieredCacheTests {
+
+    private static final int THREADS = 16;
+
+    private TieredCache cache;
+
+    @Before
+    public void setUp() {
+        cache = new TieredCache("test", Caffeine.newBuilder().recordStats().build(),
+                new InMemorySecondLevelCacheStore(100), Duration.ofMinutes(1));
+    }
+
+    @Test
+    public void concurrentMissesLoadOnce() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        List<Object> values = runConcurrently(() -> cache.get("key", () -> {
+            loads.incrementAndGet();
+            Thread.sleep(200);
+            return "value";
+        }));
+        assertEquals(1, loads.get());
+        for (Object value : values) {
+            assertEquals("value", value);
+        }
+        assertEquals(1, cache.getStatistics().getLoadCount());
+    }
+
+    @Test
+    public void failedLoadIsSharedAndNotCached() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        List<Object> results = runConcurrently(() -> {
+            try {
+                return cache.get("key", () -> {
+                    loads.incrementAndGet();
+                    Thread.sleep(200);
+                    throw new IllegalStateException("unavailable");
+                });
+            } catch (Cache.ValueRetrievalException e) {
+                return e;
+            }
+        });
+        assertEquals(1, loads.get());
+        for (Object result : results) {
+            assertTrue(result instanceof Cache.ValueRetrievalException);
+        }
+
+        assertEquals("value", cache.get("key", () -> "value"));
+    }
+
+    @Test
+    public void loaderMayUseOtherEntries() {
+        assertEquals("outer-inner", cache.get("outer", () -> "outer-" + cache.get("inner", () -> "inner")));
+        assertEquals("inner", cache.get("inner").get());
+    }
+
+    private static List<Object> runConcurrently(Callable<Object> call) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CyclicBarrier start = new CyclicBarrier(THREADS);
+        try {
+            List<Future<Object>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return call.call();
+                }));
+            }
+            List<Object> results = new ArrayList<>();
+            for (Future<Object> future : futures) {
+                results.add(future.get(10, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
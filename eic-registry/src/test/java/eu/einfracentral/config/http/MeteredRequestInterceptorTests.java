@@ -0,0 +1,61 @@
+package eu.einfracentral.config.http;
+
+import org.junit.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+
+import java.io.IOException;
+import java.net.URI;
+
+import static org.junit.Assert.*;
+import static org.springframework.http.HttpStatus.OK;
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+
+public class MeteredRequestInterceptorTests {
+
+    private final MockClientHttpRequest request = new MockClientHttpRequest(HttpMethod.GET, URI.create("http://host/path"));
+
+    @Test
+    public void slotIsHeldUntilTheResponseIsClosed() throws IOException {
+        MeteredRequestInterceptor interceptor = new MeteredRequestInterceptor("target", 1, 10);
+        ClientHttpResponse response = interceptor.intercept(request, new byte[0],
+                (request, body) -> new MockClientHttpResponse("body".getBytes(), OK));
+        assertEquals(1, interceptor.getStatistics().getCount("active"));
+        assertEquals(0, interceptor.getStatistics().getCount("requests"));
+
+        try {
+            interceptor.intercept(request, new byte[0], (request, body) -> {
+                throw new AssertionError("Unexpected request");
+            });
+            fail("Expected the request to be rejected");
+        } catch (IOException e) {
+            assertEquals(1, interceptor.getStatistics().getCount("rejected"));
+        }
+
+        response.close();
+        response.close();
+        assertEquals(0, interceptor.getStatistics().getCount("active"));
+        assertEquals(1, interceptor.getStatistics().getCount("requests"));
+    }
+
+    @Test
+    public void failedRequestsReleaseTheirSlot() throws IOException {
+        MeteredRequestInterceptor interceptor = new MeteredRequestInterceptor("target", 1, 10);
+        try {
+            interceptor.intercept(request, new byte[0], (request, body) -> {
+                throw new IOException("Connection refused");
+            });
+            fail("Expected the request to fail");
+        } catch (IOException e) {
+            assertEquals("Connection refused", e.getMessage());
+        }
+        interceptor.intercept(request, new byte[0],
+                (request, body) -> new MockClientHttpResponse(new byte[0], SERVICE_UNAVAILABLE)).close();
+
+        assertEquals(0, interceptor.getStatistics().getCount("active"));
+        assertEquals(2, interceptor.getStatistics().getCount("requests"));
+        assertEquals(2, interceptor.getStatistics().getCount("errors"));
+    }
+}
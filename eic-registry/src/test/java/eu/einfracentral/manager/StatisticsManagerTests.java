@@ -0,0 +1,110 @@
+package eu.einfracentral.manager;
+
+import eu.einfracentral.domain.Event;
+import eu.einfracentral.service.StatisticsService.Interval;
+import org.joda.time.DateTime;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class StatisticsManagerTests {
+
+    private static final DateTime START = new DateTime(2021, 1, 15, 10, 0);
+    private static final DateTime STOP = new DateTime(2023, 2, 20, 18, 30);
+
+    @Test
+    public void countsMatchThePreviousBucketingForEveryInterval() {
+        Random random = new Random(42);
+        List<Event> events = new ArrayList<>();
+        // including events before the start and after the stop, in no particular order
+        long from = START.minusDays(10).getMillis();
+        long to = STOP.plusDays(40).getMillis();
+        for (int i = 0; i < 2000; i++) {
+            events.add(createEvent("service-" + random.nextInt(7), from + (long) (random.nextDouble() * (to - from))));
+        }
+        // on the boundaries of the first interval
+        events.add(createEvent("service-0", START.getMillis()));
+        events.add(createEvent("service-1", START.plusDays(1).getMillis()));
+
+        for (Interval by : Interval.values()) {
+            Map<DateTime, Map<String, Long>> expected = previousCountPerInterval(events, START, STOP, by);
+            Map<DateTime, Map<String, Long>> counts = StatisticsManager.countPerInterval(events, START, STOP, by);
+
+            assertEquals(by.name(), expected, counts);
+            assertEquals(by.name(), new ArrayList<>(expected.keySet()), new ArrayList<>(counts.keySet()));
+            for (Map.Entry<DateTime, Map<String, Long>> bucket : expected.entrySet()) {
+                assertEquals(by.name(), new ArrayList<>(bucket.getValue().keySet()),
+                        new ArrayList<>(counts.get(bucket.getKey()).keySet()));
+            }
+        }
+    }
+
+    @Test
+    public void intervalsWithoutEventsAreEmpty() {
+        Map<DateTime, Map<String, Long>> counts = StatisticsManager.countPerInterval(Collections.emptyList(),
+                START, START.plusDays(2), Interval.DAY);
+
+        assertEquals(Arrays.asList(START, START.plusDays(1), START.plusDays(2)), new ArrayList<>(counts.keySet()));
+        assertTrue(counts.values().stream().allMatch(Map::isEmpty));
+    }
+
+    /**
+     * The bucketing of StatisticsManager.events before it was done in a single pass: the remaining events are
+     * filtered again for every interval.
+     */
+    private static Map<DateTime, Map<String, Long>> previousCountPerInterval(List<Event> events, DateTime start,
+                                                                             DateTime stop, Interval by) {
+        Map<DateTime, Map<String, Long>> results = new LinkedHashMap<>();
+        Map<DateTime, List<Event>> eventsByDate = new LinkedHashMap<>();
+        while (start.getMillis() <= stop.getMillis()) {
+            DateTime endDate = addInterval(start, by);
+            List<Event> weekEvents = new LinkedList<>();
+            events = events
+                    .stream()
+                    .map(event -> {
+                        if (endDate.isAfter(event.getInstant())) {
+                            weekEvents.add(event);
+                            return null;
+                        } else
+                            return event;
+                    })
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+            eventsByDate.put(start, weekEvents);
+            start = endDate;
+        }
+        for (Map.Entry<DateTime, List<Event>> weekEntry : eventsByDate.entrySet()) {
+            Map<String, Long> weekResults = weekEntry.getValue()
+                    .stream()
+                    .collect(Collectors.groupingBy(Event::getService, Collectors.counting()));
+            weekResults = weekResults.entrySet().stream()
+                    .sorted(Map.Entry.comparingByKey())
+                    .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue,
+                            (oldValue, newValue) -> oldValue, LinkedHashMap::new));
+            results.put(weekEntry.getKey(), weekResults);
+        }
+        return results;
+    }
+
+    private static DateTime addInterval(DateTime date, Interval by) {
+        switch (by) {
+            case DAY:
+                return date.plusDays(1);
+            case WEEK:
+                return date.plusWeeks(1);
+            case MONTH:
+                return date.plusMonths(1);
+            default:
+                return date.plusYears(1);
+        }
+    }
+
+    private static Event createEvent(String serviceId, long instant) {
+        Event event = new Event("visit", "user", serviceId, 1f);
+        event.setInstant(instant);
+        return event;
+    }
+}
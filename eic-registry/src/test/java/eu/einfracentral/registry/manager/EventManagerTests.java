@@ -0,0 +1,43 @@
+package eu.einfracentral.registry.manager;
+
+import eu.einfracentral.domain.Event;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class EventManagerTests {
+
+    @Test
+    public void scheduledEventsSkipNonExistingServices() {
+        Map<String, Float> serviceValues = new LinkedHashMap<>();
+        serviceValues.put("service", 3f);
+        serviceValues.put("missing", 1f);
+        serviceValues.put("other", 5f);
+        serviceValues.put(null, 2f);
+
+        List<Event> events = EventManager.createScheduledEvents("rating", serviceValues,
+                new HashSet<>(Arrays.asList("service", "other")), 1000L);
+
+        assertEquals(2, events.size());
+        assertEvent(events.get(0), "service", 3f);
+        assertEvent(events.get(1), "other", 5f);
+        assertNotEquals(events.get(0).getId(), events.get(1).getId());
+    }
+
+    @Test
+    public void noScheduledEventsWithoutExistingServices() {
+        assertTrue(EventManager.createScheduledEvents("rating", Collections.singletonMap("missing", 1f),
+                Collections.emptySet(), 1000L).isEmpty());
+    }
+
+    private static void assertEvent(Event event, String serviceId, Float value) {
+        assertNotNull(event.getId());
+        assertEquals(serviceId, event.getService());
+        assertEquals("rating", event.getType());
+        assertEquals(value, event.getValue());
+        assertEquals("-", event.getUser());
+        assertEquals(1000L, event.getInstant());
+    }
+}
@@ -0,0 +1,143 @@
+package eu.einfracentral.service;
+
+import eu.einfracentral.config.async.OrderedTaskExecutor;
+import eu.einfracentral.domain.Event;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class EventRollupServiceTests {
+
+    private static final LocalDate DAY = LocalDate.of(2022, 3, 14);
+
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private List<Event> indexedEvents;
+    private Runnable whileStreaming;
+    private EventRollupService eventRollupService;
+
+    /**
+     * Advisory locks are not needed by a single rebuild.
+     */
+    public static boolean lock(long key) {
+        return true;
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        dataSource = new DriverManagerDataSource("jdbc:h2:mem:event_rollup;MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        try (Connection connection = dataSource.getConnection()) {
+            ScriptUtils.executeSqlScript(connection, new ClassPathResource("sql/event_rollup.sql"));
+        }
+        for (String function : Arrays.asList("pg_advisory_xact_lock", "pg_try_advisory_xact_lock", "pg_advisory_xact_lock_shared")) {
+            jdbcTemplate.execute("CREATE ALIAS IF NOT EXISTS " + function + " FOR \""
+                    + EventRollupServiceTests.class.getName() + ".lock\"");
+        }
+        indexedEvents = new ArrayList<>();
+        whileStreaming = () -> {
+        };
+        GenericResourceService genericResourceService = (GenericResourceService) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class[]{GenericResourceService.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("getResultsStream")) {
+                        whileStreaming.run();
+                        return indexedEvents.stream();
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        eventRollupService = new EventRollupService(dataSource, genericResourceService,
+                new OrderedTaskExecutor("maintenance", 1, 1, 0));
+    }
+
+    @After
+    public void tearDown() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    public void rollupsSumValuesPerServiceTypeAndUtcDay() {
+        EventRollupService.Rollups rollups = new EventRollupService.Rollups();
+        rollups.add(createEvent("service", "rating", DAY, 4f), 1);
+        rollups.add(createEvent("service", "rating", DAY, 2f), 1);
+        rollups.add(createEvent("service", "rating", DAY, 4f), -1);
+        rollups.add(createEvent("service", "visit", DAY, 1f), 1);
+        rollups.add(createEvent("other", "rating", DAY, 5f), 1);
+        // the last millisecond of the previous UTC day
+        Event late = createEvent("service", "rating", DAY, 3f);
+        late.setInstant(late.getInstant() - 1);
+        rollups.add(late, 1);
+        // not counted, as by the date histograms
+        rollups.add(createEvent("service", "rating", DAY, null), 1);
+        rollups.add(createEvent(null, "rating", DAY, 1f), 1);
+
+        assertArrayEquals(new double[]{2, 1}, rollups.get("service", "rating", DAY), 0);
+        assertArrayEquals(new double[]{1, 1}, rollups.get("service", "visit", DAY), 0);
+        assertArrayEquals(new double[]{5, 1}, rollups.get("other", "rating", DAY), 0);
+        assertArrayEquals(new double[]{3, 1}, rollups.get("service", "rating", DAY.minusDays(1)), 0);
+        assertEquals(4, rollups.toParameters().length);
+    }
+
+    @Test
+    public void rebuildReplacesRollupsWithIndexAndLaterDeltas() {
+        insert("event_rollup", "stale", "rating", DAY, 100, 10);
+        // journaled before the rebuild, so already part of the index
+        insert("event_rollup_delta", "service", "rating", DAY, 4, 1);
+        indexedEvents.add(createEvent("service", "rating", DAY, 4f));
+        indexedEvents.add(createEvent("service", "rating", DAY, 2f));
+        // added while the rebuild is computing: indexed after the cutoff, and journaled
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        Event added = createEvent("service", "rating", today, 5f);
+        added.setInstant(System.currentTimeMillis() + 60000);
+        whileStreaming = () -> {
+            indexedEvents.add(added);
+            // by another thread, outside the transaction of the rebuild
+            Thread update = new Thread(() -> insert("event_rollup_delta", "service", "rating", today, 5, 1));
+            update.start();
+            try {
+                update.join();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        };
+
+        eventRollupService.rebuild();
+
+        assertTrue(eventRollupService.isReady());
+        List<EventRollupService.DailyRollup> rollups = eventRollupService.getDailyRollups(
+                Arrays.asList("service", "stale"), "rating");
+        assertEquals(2, rollups.size());
+        assertRollup(rollups.get(0), DAY, 6, 2);
+        assertRollup(rollups.get(1), today, 5, 1);
+        assertEquals(Integer.valueOf(0), jdbcTemplate.queryForObject("SELECT count(*) FROM event_rollup_delta", Integer.class));
+    }
+
+    private void insert(String table, String serviceId, String eventType, LocalDate day, double valueSum, long eventCount) {
+        jdbcTemplate.update("INSERT INTO " + table + " (service_id, event_type, day, value_sum, event_count) " +
+                "VALUES (?, ?, ?, ?, ?)", serviceId, eventType, java.sql.Date.valueOf(day), valueSum, eventCount);
+    }
+
+    private static Event createEvent(String serviceId, String eventType, LocalDate day, Float value) {
+        Event event = new Event(eventType, "user", serviceId, value);
+        event.setInstant(day.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli());
+        return event;
+    }
+
+    private static void assertRollup(EventRollupService.DailyRollup rollup, LocalDate day, double valueSum, long eventCount) {
+        assertEquals("service", rollup.getServiceId());
+        assertEquals(day, rollup.getDay());
+        assertEquals(valueSum, rollup.getValueSum(), 0);
+        assertEquals(eventCount, rollup.getEventCount());
+    }
+}
@@ -0,0 +1,45 @@
+package eu.einfracentral.service;
+
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks how the emails to the same recipients with the same subject are sent as digests.
+ */
+public class MailOutboxTests {
+
+    @Test
+    public void groupsEmailsByRecipientsAndSubject() {
+        MailOutbox.Mail first = mail(1, "a", "First");
+        MailOutbox.Mail other = mail(2, "b", "Other");
+        MailOutbox.Mail second = mail(3, "a", "Second");
+        MailOutbox.Mail unkeyed = mail(4, null, "Unkeyed");
+
+        List<List<MailOutbox.Mail>> digests = MailOutbox.groupDigests(Arrays.asList(first, other, second, unkeyed));
+        assertEquals(Arrays.asList(Arrays.asList(first, second), Collections.singletonList(other),
+                Collections.singletonList(unkeyed)), digests);
+    }
+
+    @Test
+    public void digestKeepsTheTextsInOrder() {
+        MailOutbox.Mail first = mail(1, "a", "First");
+        assertSame(first, MailOutbox.digest(Collections.singletonList(first)));
+
+        MailOutbox.Mail digest = MailOutbox.digest(Arrays.asList(first, mail(3, "a", "Second")));
+        assertEquals(1, digest.getId());
+        assertEquals(first.getTo(), digest.getTo());
+        assertEquals(first.getSubject(), digest.getSubject());
+        assertEquals("First<hr/>Second", digest.getText());
+    }
+
+    private static MailOutbox.Mail mail(long id, String digestKey, String text) {
+        return new MailOutbox.Mail(id, digestKey, Collections.singletonList("user@example.org"),
+                Collections.emptyList(), Collections.emptyList(), "Subject", text, 0, Instant.now());
+    }
+}
@@ -0,0 +1,121 @@
+package eu.einfracentral.service;
+
+import eu.einfracentral.domain.User;
+import org.junit.Before;
+import org.junit.Test;
+import org.mitre.openid.connect.model.DefaultUserInfo;
+import org.mitre.openid.connect.model.OIDCAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+import java.lang.reflect.Proxy;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class RequestAuthorizationContextTests {
+
+    private static final String CATALOGUE_ID = "eosc";
+
+    // the users of the Providers and Catalogues known to the SecurityService, as stored in their payloads
+    private final Map<String, List<User>> users = new HashMap<>();
+    private final List<String> checks = new ArrayList<>();
+    private RequestAuthorizationContext authorizationContext;
+
+    @Before
+    public void setUp() {
+        users.put("indexed", Collections.singletonList(createUser("sub-1", "indexed@example.org")));
+        users.put("mixed-case", Collections.singletonList(createUser("sub-2", "Mixed.Case@Example.org")));
+        users.put("by-id", Collections.singletonList(createUser("sub-3", "old@example.org")));
+
+        SecurityService securityService = (SecurityService) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[]{SecurityService.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("userIsProviderAdmin") || method.getName().equals("userIsCatalogueAdmin")) {
+                        checks.add((String) args[1]);
+                        return isUser((User) args[0], (String) args[1]);
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        authorizationContext = new RequestAuthorizationContext(null, securityService) {
+            @Override
+            void retrieveAdministeredIds(String userEmail, Set<String> providers, Set<String> pendingProviders,
+                                         Set<String> catalogues) {
+                // the index matches emails exactly
+                if (userEmail.equals("indexed@example.org")) {
+                    providers.add(CATALOGUE_ID + "/indexed");
+                    catalogues.add("indexed");
+                }
+            }
+        };
+    }
+
+    @Test
+    public void retrievedIdsNeedNoCheck() {
+        Authentication auth = authenticate("sub-1", "indexed@example.org");
+
+        assertTrue(authorizationContext.isProviderAdmin(auth, "indexed", CATALOGUE_ID));
+        assertTrue(authorizationContext.isCatalogueAdmin(auth, "indexed"));
+        assertTrue(checks.isEmpty());
+    }
+
+    @Test
+    public void emailsInOtherCaseAreChecked() {
+        Authentication auth = authenticate("sub-4", "mixed.case@example.org");
+
+        assertTrue(authorizationContext.isProviderAdmin(auth, "mixed-case", CATALOGUE_ID));
+        assertTrue(authorizationContext.isAnyProviderAdmin(auth, Arrays.asList("indexed", "mixed-case"), CATALOGUE_ID));
+        assertTrue(authorizationContext.isCatalogueAdmin(auth, "mixed-case"));
+        assertFalse(authorizationContext.isProviderAdmin(auth, "indexed", CATALOGUE_ID));
+        // each Provider and Catalogue is checked once per request
+        assertEquals(Arrays.asList("mixed-case", "indexed", "mixed-case"), checks);
+    }
+
+    @Test
+    public void idsAreChecked() {
+        Authentication auth = authenticate("sub-3", "new@example.org");
+
+        assertTrue(authorizationContext.isProviderAdmin(auth, "by-id", CATALOGUE_ID));
+        assertFalse(authorizationContext.isProviderAdmin(auth, "mixed-case", CATALOGUE_ID));
+    }
+
+    @Test
+    public void usersWithoutEmailAreChecked() {
+        Authentication auth = authenticate("sub-3", null);
+
+        assertTrue(authorizationContext.isProviderAdmin(auth, "by-id", CATALOGUE_ID));
+        assertFalse(authorizationContext.isCatalogueAdmin(auth, "indexed"));
+    }
+
+    @Test
+    public void failedChecksAreNegative() {
+        Authentication auth = authenticate("sub-1", "indexed@example.org");
+
+        assertFalse(authorizationContext.isProviderAdmin(auth, "missing", CATALOGUE_ID));
+        assertFalse(authorizationContext.isProviderAdmin(auth, null, CATALOGUE_ID));
+        assertFalse(authorizationContext.isProviderAdmin(null, "indexed", CATALOGUE_ID));
+    }
+
+    /**
+     * Matches users as the {@link SecurityService} does: by id, or by email in any case.
+     */
+    private boolean isUser(User user, String id) {
+        if (!users.containsKey(id)) {
+            throw new IllegalArgumentException("Unknown id " + id);
+        }
+        return users.get(id).stream().anyMatch(u -> u.getId().equals(user.getId())
+                || u.getEmail().equalsIgnoreCase(user.getEmail()));
+    }
+
+    private static User createUser(String id, String email) {
+        User user = new User();
+        user.setId(id);
+        user.setEmail(email);
+        return user;
+    }
+
+    private static Authentication authenticate(String sub, String email) {
+        DefaultUserInfo userInfo = new DefaultUserInfo();
+        userInfo.setSub(sub);
+        userInfo.setEmail(email);
+        return new OIDCAuthenticationToken(sub, "issuer", userInfo, Collections.emptyList(), null, null, null);
+    }
+}
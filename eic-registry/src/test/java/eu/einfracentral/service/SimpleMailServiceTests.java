@@ -0,0 +1,251 @@
+package eu.einfracentral.service;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.EncodedResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Sends emails to an embedded SMTP server, keeping the outbox in an H2 database in PostgreSQL mode.
+ */
+public class SimpleMailServiceTests {
+
+    private static final List<String> TO = Collections.singletonList("user@example.org");
+
+    private final List<String> messages = new CopyOnWriteArrayList<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private volatile CountDownLatch hold = new CountDownLatch(0);
+    private ServerSocket serverSocket;
+    private ExecutorService serverExecutor;
+    private DriverManagerDataSource dataSource;
+    private MailOutbox outbox;
+    private SimpleMailService mailService;
+
+    @Before
+    public void setUp() throws IOException, SQLException {
+        serverSocket = new ServerSocket(0, 0, InetAddress.getLoopbackAddress());
+        serverExecutor = Executors.newCachedThreadPool();
+        serverExecutor.execute(() -> {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    connections.incrementAndGet();
+                    serverExecutor.execute(() -> converse(socket));
+                } catch (IOException e) {
+                    // closed
+                }
+            }
+        });
+
+        dataSource = new DriverManagerDataSource("jdbc:h2:mem:mail_outbox;MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+        createTable();
+        outbox = new H2Outbox(dataSource);
+        ReflectionTestUtils.setField(outbox, "dedupWindowMinutes", 60);
+        ReflectionTestUtils.setField(outbox, "digestWindowMinutes", 10);
+        ReflectionTestUtils.setField(outbox, "backoffSeconds", 60);
+        ReflectionTestUtils.setField(outbox, "maxBackoffSeconds", 3600);
+        ReflectionTestUtils.setField(outbox, "maxAttempts", 20);
+        ReflectionTestUtils.setField(outbox, "claimTimeoutSeconds", 600);
+        mailService = createMailService(outbox, 1);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        hold.countDown();
+        mailService.shutdown();
+        serverSocket.close();
+        serverExecutor.shutdownNow();
+        new JdbcTemplate(dataSource).execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    public void sendsManyEmailsPerConnection() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            outbox.add(TO, null, null, "Subject " + i, "Text " + i);
+        }
+        mailService.deliverPending();
+        awaitMessages(5);
+        assertEquals(1, connections.get());
+        assertEquals(0, outbox.size());
+        assertTrue(messages.get(0).contains("Subject: Subject 0"));
+    }
+
+    @Test
+    public void sendsEmailsToTheSameRecipientsAsADigest() throws Exception {
+        outbox.add(TO, null, null, "Updates", "First update");
+        outbox.add(Collections.singletonList("other@example.org"), null, null, "Updates", "Other update");
+        outbox.add(TO, null, null, "Updates", "Second update");
+        mailService.deliverPending();
+        awaitMessages(2);
+        Thread.sleep(200);
+        assertEquals(2, messages.size());
+        String digest = messages.stream().filter(message -> message.contains("To: user@example.org"))
+                .findFirst().orElseThrow(AssertionError::new);
+        assertTrue(digest.indexOf("First update") < digest.indexOf("Second update"));
+        assertEquals(0, outbox.size());
+    }
+
+    @Test
+    public void scheduledDeliveryDoesNotWaitForTheSmtpServer() throws Exception {
+        hold = new CountDownLatch(1);
+        mailService.sendMail(TO, null, null, "Subject", "Text");
+        long start = System.currentTimeMillis();
+        mailService.deliverPending();
+        assertTrue(System.currentTimeMillis() - start < 1000);
+        assertTrue(messages.isEmpty());
+
+        hold.countDown();
+        awaitMessages(1);
+    }
+
+    @Test
+    public void identicalEmailsAreSentOnce() throws Exception {
+        mailService.sendMail(TO, null, null, "Subject", "Text");
+        mailService.sendMail(TO, null, null, "Subject", "Text");
+        awaitMessages(1);
+        Thread.sleep(200);
+        assertEquals(1, messages.size());
+        assertEquals(1, mailService.getStatistics().get(0).getCount("deduplicated"));
+
+        // kept for the deduplication window after being sent
+        mailService.sendMail(TO, null, null, "Subject", "Text");
+        assertEquals(2, mailService.getStatistics().get(0).getCount("deduplicated"));
+    }
+
+    @Test
+    public void emailsAfterASentOneAreHeldForTheDigestWindow() throws Exception {
+        mailService.sendMail(TO, null, null, "Updates", "First update");
+        awaitMessages(1);
+
+        mailService.sendMail(TO, null, null, "Updates", "Second update");
+        Thread.sleep(200);
+        assertEquals(1, messages.size());
+        assertEquals(1, outbox.size());
+    }
+
+    @Test
+    public void failuresToStoreAnEmailDoNotFailTheCaller() throws Exception {
+        new JdbcTemplate(dataSource).execute("DROP TABLE mail_outbox");
+        mailService.sendMail(TO, null, null, "Subject", "Text");
+
+        createTable();
+        assertEquals(1, mailService.getStatistics().get(0).getCount("dropped"));
+        assertTrue(messages.isEmpty());
+    }
+
+    private void createTable() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            // the partial index is not supported by H2
+            ScriptUtils.executeSqlScript(connection, new EncodedResource(new ClassPathResource("sql/mail_outbox.sql")),
+                    true, false, ScriptUtils.DEFAULT_COMMENT_PREFIX, ScriptUtils.DEFAULT_STATEMENT_SEPARATOR,
+                    ScriptUtils.DEFAULT_BLOCK_COMMENT_START_DELIMITER, ScriptUtils.DEFAULT_BLOCK_COMMENT_END_DELIMITER);
+        }
+    }
+
+    private void awaitMessages(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while ((messages.size() < count || outbox.size() > 0) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(count, messages.size());
+    }
+
+    private SimpleMailService createMailService(MailOutbox outbox, int connections) {
+        SimpleMailService mailService = new SimpleMailService(outbox, connections);
+        mailService.auth = "false";
+        mailService.host = serverSocket.getInetAddress().getHostAddress();
+        mailService.port = String.valueOf(serverSocket.getLocalPort());
+        mailService.protocol = "smtp";
+        mailService.ssl = "false";
+        mailService.from = "registry@example.org";
+        mailService.user = "";
+        mailService.password = "";
+        mailService.enableEmails = true;
+        mailService.batchSize = 10;
+        ReflectionTestUtils.invokeMethod(mailService, "postConstruct");
+        return mailService;
+    }
+
+    /**
+     * Answers the commands of an SMTP client, keeping the received messages.
+     */
+    private void converse(Socket socket) {
+        try (Socket closing = socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8)) {
+            reply(out, "220 localhost");
+            for (String line; (line = in.readLine()) != null; ) {
+                String command = line.toUpperCase(Locale.ROOT);
+                if (command.startsWith("DATA")) {
+                    reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                    StringBuilder message = new StringBuilder();
+                    for (String data; (data = in.readLine()) != null && !".".equals(data); ) {
+                        message.append(data).append('\n');
+                    }
+                    hold.await(10, TimeUnit.SECONDS);
+                    messages.add(message.toString());
+                    reply(out, "250 OK");
+                } else if (command.startsWith("QUIT")) {
+                    reply(out, "221 Bye");
+                    return;
+                } else {
+                    reply(out, "250 OK");
+                }
+            }
+        } catch (IOException | InterruptedException e) {
+            // the client went away
+        }
+    }
+
+    private static void reply(Writer out, String line) throws IOException {
+        out.write(line + "\r\n");
+        out.flush();
+    }
+
+    /**
+     * Outbox claiming its emails without 'SKIP LOCKED' and 'RETURNING', which are not supported by H2.
+     */
+    private static class H2Outbox extends MailOutbox {
+
+        private final NamedParameterJdbcTemplate jdbcTemplate;
+
+        H2Outbox(DataSource dataSource) {
+            super(dataSource);
+            this.jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        }
+
+        @Override
+        synchronized List<Mail> claim(MapSqlParameterSource in) {
+            List<Long> ids = jdbcTemplate.queryForList("SELECT id FROM mail_outbox WHERE sent_at IS NULL " +
+                    "AND next_attempt <= :now AND (claimed_until IS NULL OR claimed_until < :now) " +
+                    "ORDER BY id LIMIT :limit", in, Long.class);
+            if (ids.isEmpty()) {
+                return new ArrayList<>();
+            }
+            in.addValue("ids", ids);
+            jdbcTemplate.update("UPDATE mail_outbox SET claimed_until = :claimed_until WHERE id IN (:ids)", in);
+            return jdbcTemplate.query("SELECT * FROM mail_outbox WHERE id IN (:ids)", in, MailOutbox::toMail);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package eu.einfracentral.service.search;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks how the populated keyword subfields are read from the index mappings and how the outcome of the
+ * re-indexing task is read.
+ */
+public class KeywordSubfieldsServiceTests {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void readyFieldsAreKeyedByIndexAndAlias() throws IOException {
+        JsonNode mappings = json("{" +
+                "'service_v2': {'mappings': {'_meta': {'keyword_subfields': ['name', 'resource_internal_id']}}}," +
+                "'provider_v1': {'mappings': {'_meta': {'other': 1}}}}");
+        JsonNode aliases = json("{" +
+                "'service_v2': {'aliases': {'resourceTypes': {}, 'service': {}}}," +
+                "'provider_v1': {'aliases': {'resourceTypes': {}, 'provider': {}}}}");
+
+        Map<String, Set<String>> ready = KeywordSubfieldsService.readReadyFields(mappings, aliases);
+        Set<String> serviceFields = new HashSet<>(Arrays.asList("name", "resource_internal_id"));
+        assertEquals(serviceFields, ready.get("service"));
+        assertEquals(serviceFields, ready.get("service_v2"));
+        assertEquals(Collections.emptySet(), ready.get("provider"));
+        assertFalse(ready.containsKey("resourceTypes"));
+    }
+
+    @Test
+    public void aliasOfManyIndicesOnlyHasTheFieldsOfAll() throws IOException {
+        JsonNode mappings = json("{" +
+                "'datasource_a': {'mappings': {'_meta': {'keyword_subfields': ['name', 'title']}}}," +
+                "'datasource_b': {'mappings': {'_meta': {'keyword_subfields': ['name']}}}}");
+        JsonNode aliases = json("{" +
+                "'datasource_a': {'aliases': {'datasource': {}}}," +
+                "'datasource_b': {'aliases': {'datasource': {}}}}");
+
+        Map<String, Set<String>> ready = KeywordSubfieldsService.readReadyFields(mappings, aliases);
+        assertEquals(Collections.singleton("name"), ready.get("datasource"));
+        assertEquals(new HashSet<>(Arrays.asList("name", "title")), ready.get("datasource_a"));
+    }
+
+    @Test
+    public void taskFailuresAreReported() throws IOException {
+        assertNull(KeywordSubfieldsService.getTaskFailure(json(
+                "{'completed': true, 'response': {'updated': 10, 'failures': []}}")));
+        assertNotNull(KeywordSubfieldsService.getTaskFailure(json(
+                "{'completed': true, 'response': {'updated': 9, 'failures': [{'id': 'x', 'cause': {}}]}}")));
+        assertNotNull(KeywordSubfieldsService.getTaskFailure(json(
+                "{'completed': true, 'error': {'type': 'search_phase_execution_exception'}}")));
+    }
+
+    private JsonNode json(String json) throws IOException {
+        return objectMapper.readTree(json.replace('\'', '"'));
+    }
+}
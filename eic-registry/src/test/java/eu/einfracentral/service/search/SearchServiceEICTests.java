@@ -0,0 +1,72 @@
+package eu.einfracentral.service.search;
+
+import eu.openminted.registry.core.domain.FacetFilter;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class SearchServiceEICTests {
+
+    @Test
+    public void existingIdsPageThroughRepeatedIds() {
+        // 'a' is stored in two catalogues, so the ids of three resources span four hits
+        List<String> hits = Arrays.asList("a", "a", "b", "c");
+        List<Object[]> cursors = new ArrayList<>();
+        SearchServiceEIC searchService = new SearchServiceEIC(null, null) {
+            @Override
+            public Page<String> searchIdsAfter(FacetFilter filter, Object[] after, int size) {
+                cursors.add(after);
+                int from = after == null ? 0 : (Integer) after[1] + 1;
+                int to = Math.min(from + size, hits.size());
+                return new Page<>(hits.subList(from, to), new Object[]{hits.get(to - 1), to - 1}, to - from < size);
+            }
+        };
+
+        Set<String> existing = searchService.searchExistingIds("service", Arrays.asList("a", "b", "c"), 3);
+
+        assertEquals(new HashSet<>(Arrays.asList("a", "b", "c")), existing);
+        assertEquals(2, cursors.size());
+        assertNull(cursors.get(0));
+        assertArrayEquals(new Object[]{"b", 2}, cursors.get(1));
+    }
+
+    @Test
+    public void existingIdsAreSearchedInBatches() {
+        List<List<?>> batches = new ArrayList<>();
+        SearchServiceEIC searchService = new SearchServiceEIC(null, null) {
+            @Override
+            public Page<String> searchIdsAfter(FacetFilter filter, Object[] after, int size) {
+                List<?> ids = (List<?>) filter.getFilter().get("resource_internal_id");
+                batches.add(ids);
+                List<String> existing = new ArrayList<>();
+                for (Object id : ids) {
+                    if (!"missing".equals(id)) {
+                        existing.add((String) id);
+                    }
+                }
+                return new Page<>(existing, null, true);
+            }
+        };
+
+        Set<String> existing = searchService.searchExistingIds("service",
+                Arrays.asList("a", "b", "missing", "a", "c", "d"), 2);
+
+        assertEquals(new HashSet<>(Arrays.asList("a", "b", "c", "d")), existing);
+        assertEquals(Arrays.asList(Arrays.asList("a", "b"), Arrays.asList("missing", "c"), Collections.singletonList("d")),
+                batches);
+    }
+
+    @Test
+    public void noIdsNeedNoRequest() {
+        SearchServiceEIC searchService = new SearchServiceEIC(null, null) {
+            @Override
+            public Page<String> searchIdsAfter(FacetFilter filter, Object[] after, int size) {
+                throw new AssertionError("Unexpected search");
+            }
+        };
+
+        assertTrue(searchService.searchExistingIds("service", Collections.emptyList(), 10).isEmpty());
+    }
+}
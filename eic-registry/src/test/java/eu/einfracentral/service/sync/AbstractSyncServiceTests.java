@@ -0,0 +1,298 @@
+package eu.einfracentral.service.sync;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import eu.einfracentral.domain.Identifiable;
+import eu.einfracentral.domain.Provider;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Synchronizes Providers with a local HTTP server standing in for the remote catalogue, keeping the failed
+ * operations in an in-memory outbox with the merging and claiming rules of {@link SyncOutbox}.
+ */
+public class AbstractSyncServiceTests {
+
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+    private volatile int status;
+    private volatile CountDownLatch hold = new CountDownLatch(0);
+    private HttpServer server;
+    private Path token;
+    private ExecutorService serverExecutor;
+    private MemoryOutbox outbox;
+    private ProviderSync providerSync;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            try {
+                requests.add(exchange.getRequestMethod() + " " + exchange.getRequestURI().getPath() + " "
+                        + read(exchange.getRequestBody()));
+                hold.await(10, TimeUnit.SECONDS);
+                int code = status;
+                if (code < 300) {
+                    code = "POST".equals(exchange.getRequestMethod()) ? 201
+                            : "DELETE".equals(exchange.getRequestMethod()) ? 204 : 200;
+                }
+                exchange.sendResponseHeaders(code, -1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                exchange.close();
+            }
+        });
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.start();
+
+        token = Files.createTempFile("sync", ".token");
+        Files.write(token, "token".getBytes(StandardCharsets.UTF_8));
+        outbox = new MemoryOutbox();
+        providerSync = new ProviderSync(String.format("http://%s:%d", server.getAddress().getHostString(),
+                server.getAddress().getPort()), token.toString(), true);
+        providerSync.restTemplate = new RestTemplate();
+        ReflectionTestUtils.setField(providerSync, "outbox", outbox);
+        ReflectionTestUtils.setField(providerSync, "batchSize", 10);
+        providerSync.init();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        hold.countDown();
+        Files.delete(token);
+        outbox.shutdown();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    public void deliversDirectly() {
+        providerSync.syncAdd(createProvider("Provider"));
+        assertEquals(1, requests.size());
+        assertTrue(requests.get(0).startsWith("POST /provider "));
+        assertEquals(0, outbox.size("/provider"));
+    }
+
+    @Test
+    public void retriesAMergedOperation() throws Exception {
+        status = 500;
+        providerSync.syncAdd(createProvider("Provider"));
+        assertEquals(1, outbox.size("/provider"));
+
+        // not attempted while an operation on the Provider is pending
+        providerSync.syncUpdate(createProvider("Renamed"));
+        assertEquals(1, requests.size());
+
+        status = 200;
+        requests.clear();
+        providerSync.retrySync();
+        awaitEmptyOutbox();
+        assertEquals(1, requests.size());
+        assertTrue(requests.get(0).startsWith("POST /provider "));
+        assertTrue(requests.get(0).contains("\"name\":\"Renamed\""));
+    }
+
+    @Test
+    public void deleteOfAPendingAddIsNeverDelivered() throws Exception {
+        status = 500;
+        providerSync.syncAdd(createProvider("Provider"));
+        providerSync.syncDelete(createProvider("Provider"));
+        assertEquals(0, outbox.size("/provider"));
+
+        status = 200;
+        requests.clear();
+        providerSync.retrySync();
+        outbox.getExecutor().submit(() -> null).get(5, TimeUnit.SECONDS);
+        assertTrue(requests.isEmpty());
+    }
+
+    @Test
+    public void retryDoesNotWaitForTheDeliveries() throws Exception {
+        status = 500;
+        providerSync.syncAdd(createProvider("Provider"));
+
+        status = 200;
+        requests.clear();
+        hold = new CountDownLatch(1);
+        long start = System.currentTimeMillis();
+        providerSync.retrySync();
+        // the entry being delivered is claimed, so it is not handed out again
+        providerSync.retrySync();
+        assertTrue(System.currentTimeMillis() - start < 5000);
+        assertEquals(1, outbox.size("/provider"));
+
+        hold.countDown();
+        awaitEmptyOutbox();
+        assertEquals(1, requests.size());
+    }
+
+    @Test
+    public void failedAddIsRetriedAsAnAddAfterAnUpdateDuringItsDelivery() throws Exception {
+        status = 500;
+        providerSync.syncAdd(createProvider("Provider"));
+
+        requests.clear();
+        hold = new CountDownLatch(1);
+        providerSync.retrySync();
+        long deadline = System.currentTimeMillis() + 10000;
+        while (requests.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        providerSync.syncUpdate(createProvider("Renamed"));
+        hold.countDown();
+        while (outbox.isClaimed("provider") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+
+        status = 200;
+        requests.clear();
+        providerSync.retrySync();
+        awaitEmptyOutbox();
+        assertEquals(1, requests.size());
+        assertTrue(requests.get(0).startsWith("POST /provider "));
+        assertTrue(requests.get(0).contains("\"name\":\"Renamed\""));
+    }
+
+    private void awaitEmptyOutbox() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (outbox.size("/provider") > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(0, outbox.size("/provider"));
+    }
+
+    private static Provider createProvider(String name) {
+        Provider provider = new Provider();
+        provider.setId("provider");
+        provider.setName(name);
+        return provider;
+    }
+
+    private static String read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        for (int read; (read = in.read(buffer)) != -1; ) {
+            out.write(buffer, 0, read);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Outbox keeping its entries in memory instead of the 'sync_outbox' table, with the transitions of
+     * {@link SyncOutbox}.
+     */
+    private static class MemoryOutbox extends SyncOutbox {
+
+        private final ObjectMapper objectMapper = new ObjectMapper();
+        private final Map<String, Row> rows = new LinkedHashMap<>();
+
+        MemoryOutbox() {
+            super(new DriverManagerDataSource(), 2);
+        }
+
+        @Override
+        public synchronized void add(String controller, Identifiable entity, String action) {
+            Row row = rows.get(entity.getId());
+            String merged = row == null ? action
+                    : next(row.action, row.claimedVersion != null, row.claimedVersion != null
+                    && row.claimedVersion != row.version, action);
+            if (merged == null) {
+                rows.remove(entity.getId());
+                return;
+            }
+            if (row == null) {
+                row = new Row();
+                rows.put(entity.getId(), row);
+            } else {
+                row.version++;
+            }
+            row.action = merged;
+            row.entityClass = entity.getClass().getName();
+            try {
+                row.payload = objectMapper.writeValueAsString(entity);
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public synchronized boolean isPending(String controller, String entityId) {
+            return rows.containsKey(entityId);
+        }
+
+        @Override
+        public synchronized List<Entry> getDue(String controller, int limit) {
+            List<Entry> due = new ArrayList<>();
+            for (Map.Entry<String, Row> row : rows.entrySet()) {
+                if (row.getValue().claimedVersion == null && due.size() < limit) {
+                    row.getValue().claimedVersion = row.getValue().version;
+                    due.add(new Entry(controller, row.getKey(), row.getValue().action, row.getValue().entityClass,
+                            row.getValue().payload, row.getValue().version, 0, Instant.now()));
+                }
+            }
+            return due;
+        }
+
+        @Override
+        public synchronized void delivered(Entry entry) {
+            Row row = rows.get(entry.getEntityId());
+            if (row != null && row.version == entry.getVersion()) {
+                rows.remove(entry.getEntityId());
+            } else if (row != null) {
+                row.claimedVersion = null;
+            }
+        }
+
+        @Override
+        public synchronized void failed(Entry entry) {
+            Row row = rows.get(entry.getEntityId());
+            if (row == null) {
+                return;
+            }
+            row.action = row.version == entry.getVersion() ? entry.getAction()
+                    : afterFailure(entry.getAction(), row.action);
+            row.claimedVersion = null;
+            if (row.action == null) {
+                rows.remove(entry.getEntityId());
+            }
+        }
+
+        synchronized boolean isClaimed(String entityId) {
+            Row row = rows.get(entityId);
+            return row != null && row.claimedVersion != null;
+        }
+
+        @Override
+        public synchronized long size(String controller) {
+            return rows.size();
+        }
+    }
+
+    private static class Row {
+        private String action;
+        private String entityClass;
+        private String payload;
+        private long version;
+        private Long claimedVersion;
+    }
+}
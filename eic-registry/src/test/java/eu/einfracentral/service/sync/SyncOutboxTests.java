@@ -0,0 +1,67 @@
+package eu.einfracentral.service.sync;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks how a new operation is merged with the pending operation on the same entity, and how operations added
+ * during a delivery follow the claimed one.
+ */
+public class SyncOutboxTests {
+
+    @Test
+    public void changesOfAPendingAddAreDeliveredAsAnAdd() {
+        assertEquals("add", SyncOutbox.merge("add", "update"));
+        assertEquals("add", SyncOutbox.merge("add", "verify"));
+        assertEquals("add", SyncOutbox.merge("add", "add"));
+    }
+
+    @Test
+    public void deleteOfAPendingAddCancelsBoth() {
+        assertNull(SyncOutbox.merge("add", "delete"));
+    }
+
+    @Test
+    public void otherwiseTheNewerOperationWins() {
+        assertEquals("delete", SyncOutbox.merge("update", "delete"));
+        assertEquals("update", SyncOutbox.merge("verify", "update"));
+        assertEquals("verify", SyncOutbox.merge("update", "verify"));
+        assertEquals("add", SyncOutbox.merge("delete", "add"));
+    }
+
+    @Test
+    public void unclaimedOperationsAreMerged() {
+        assertEquals("add", SyncOutbox.next("add", false, false, "update"));
+        assertNull(SyncOutbox.next("add", false, false, "delete"));
+    }
+
+    @Test
+    public void firstOperationDuringADeliveryFollowsTheClaimedOne() {
+        assertEquals("update", SyncOutbox.next("add", true, false, "update"));
+        assertEquals("delete", SyncOutbox.next("add", true, false, "delete"));
+    }
+
+    @Test
+    public void laterOperationsDuringADeliveryAreMergedWithTheFollowUp() {
+        assertEquals("add", SyncOutbox.next("delete", true, true, "add"));
+        assertEquals("add", SyncOutbox.next("add", true, true, "update"));
+        // the remote entity may exist once the claimed operation is delivered
+        assertEquals("delete", SyncOutbox.next("add", true, true, "delete"));
+    }
+
+    @Test
+    public void failedAddIsRestoredWithItsFollowUp() {
+        // the remote never received the entity
+        assertEquals("add", SyncOutbox.afterFailure("add", "update"));
+        assertEquals("add", SyncOutbox.afterFailure("add", "verify"));
+        assertNull(SyncOutbox.afterFailure("add", "delete"));
+    }
+
+    @Test
+    public void failedOperationIsReplacedByANewerFollowUp() {
+        assertEquals("delete", SyncOutbox.afterFailure("update", "delete"));
+        assertEquals("update", SyncOutbox.afterFailure("verify", "update"));
+        assertEquals("add", SyncOutbox.afterFailure("delete", "add"));
+    }
+}
@@ -0,0 +1,146 @@
+package eu.einfracentral.utils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import eu.einfracentral.domain.*;
+import org.junit.Test;
+
+import java.lang.reflect.*;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that {@link ObjectCopier} copies populated bundles like the JSON round-trip it replaced, and that the
+ * copies share no mutable state with the originals.
+ */
+public class ObjectCopierTests {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void copiesServiceBundlesLikeJson() throws Exception {
+        ServiceBundle serviceBundle = populate(new ServiceBundle());
+        serviceBundle.setService(populate(new Service()));
+        serviceBundle.getService().setTagline(null);
+        serviceBundle.getService().setCategories(null);
+        serviceBundle.getService().getTags().add(null);
+        serviceBundle.getService().getPublicContacts().add(null);
+        serviceBundle.getLoggingInfo().get(1).setComment(null);
+        serviceBundle.setLatestUpdateInfo(null);
+        assertCopiedLikeJson(serviceBundle);
+
+        ServiceBundle copy = ObjectUtils.clone(serviceBundle);
+        assertNotSame(serviceBundle.getService(), copy.getService());
+        assertNotSame(serviceBundle.getService().getMultimedia(), copy.getService().getMultimedia());
+        assertNotSame(serviceBundle.getService().getMultimedia().get(0), copy.getService().getMultimedia().get(0));
+        assertNotSame(serviceBundle.getService().getLastUpdate(), copy.getService().getLastUpdate());
+        assertNotSame(serviceBundle.getLoggingInfo(), copy.getLoggingInfo());
+        assertNotSame(serviceBundle.getResourceExtras().getEoscIFGuidelines(),
+                copy.getResourceExtras().getEoscIFGuidelines());
+
+        copy.getService().getTags().clear();
+        copy.getService().getMainContact().setEmail("changed@example.org");
+        copy.getLoggingInfo().get(0).setComment("changed");
+        assertEquals(3, serviceBundle.getService().getTags().size());
+        assertNotEquals("changed@example.org", serviceBundle.getService().getMainContact().getEmail());
+        assertNotEquals("changed", serviceBundle.getLoggingInfo().get(0).getComment());
+    }
+
+    @Test
+    public void copiesProviderBundlesLikeJson() throws Exception {
+        ProviderBundle providerBundle = populate(new ProviderBundle());
+        providerBundle.setProvider(populate(new Provider()));
+        providerBundle.getProvider().setLocation(null);
+        providerBundle.getProvider().setHostingLegalEntity(null);
+        providerBundle.getProvider().getUsers().add(null);
+        providerBundle.getProvider().getUsers().get(0).setSurname(null);
+        providerBundle.setMetadata(null);
+        providerBundle.setTransferContactInformation(new ArrayList<>());
+        assertCopiedLikeJson(providerBundle);
+
+        ProviderBundle copy = ObjectUtils.clone(providerBundle);
+        assertNotSame(providerBundle.getProvider().getUsers(), copy.getProvider().getUsers());
+        assertNotSame(providerBundle.getProvider().getUsers().get(0), copy.getProvider().getUsers().get(0));
+        assertNull(copy.getProvider().getUsers().get(2));
+        assertNotSame(providerBundle.getTransferContactInformation(), copy.getTransferContactInformation());
+
+        copy.getProvider().getUsers().get(1).setEmail("changed@example.org");
+        copy.getProvider().getMerilScientificDomains().remove(0);
+        assertNotEquals("changed@example.org", providerBundle.getProvider().getUsers().get(1).getEmail());
+        assertEquals(2, providerBundle.getProvider().getMerilScientificDomains().size());
+    }
+
+    @Test
+    public void copiesEmptyBundlesLikeJson() throws Exception {
+        assertCopiedLikeJson(new ServiceBundle(new Service()));
+        assertCopiedLikeJson(new ProviderBundle(new Provider()));
+    }
+
+    private static void assertCopiedLikeJson(Object object) throws JsonProcessingException {
+        JsonNode expected = objectMapper.valueToTree(jsonClone(object));
+        Object copy = ObjectUtils.clone(object);
+        assertNotSame(object, copy);
+        assertSame(object.getClass(), copy.getClass());
+        assertEquals(expected, objectMapper.valueToTree(copy));
+        assertEquals(objectMapper.valueToTree(object), objectMapper.valueToTree(copy));
+    }
+
+    /**
+     * The deep copy previously made by {@link ObjectUtils#clone(Object)}.
+     */
+    private static <T> T jsonClone(T object) throws JsonProcessingException {
+        return (T) objectMapper.readValue(objectMapper.writeValueAsString(object), object.getClass());
+    }
+
+    /**
+     * Sets every field declared in the domain classes to a distinct value, with lists of two elements.
+     */
+    private static <T> T populate(T object) throws Exception {
+        for (Class<?> c = object.getClass(); c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || field.isSynthetic()) {
+                    continue;
+                }
+                field.setAccessible(true);
+                Object value = createValue(field.getGenericType(), field.getName());
+                if (value != null) {
+                    field.set(object, value);
+                }
+            }
+        }
+        return object;
+    }
+
+    private static Object createValue(Type type, String name) throws Exception {
+        if (type instanceof ParameterizedType && ((ParameterizedType) type).getRawType() == List.class) {
+            Type elementType = ((ParameterizedType) type).getActualTypeArguments()[0];
+            List<Object> list = new ArrayList<>();
+            list.add(createValue(elementType, name + "-1"));
+            list.add(createValue(elementType, name + "-2"));
+            return list;
+        } else if (!(type instanceof Class)) {
+            return null;
+        }
+        Class<?> c = (Class<?>) type;
+        if (c == String.class) {
+            return name;
+        } else if (c == URL.class) {
+            return new URL("https://example.org/" + name);
+        } else if (c == Date.class) {
+            return new Date(1600000000000L + name.hashCode());
+        } else if (c == boolean.class || c == Boolean.class) {
+            return true;
+        } else if (c.getName().startsWith("eu.einfracentral.domain.") && !Modifier.isAbstract(c.getModifiers())
+                && !c.isEnum() && !c.isInterface()) {
+            Constructor<?> constructor = c.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return populate(constructor.newInstance());
+        }
+        return null;
+    }
+}
@@ -0,0 +1,105 @@
+package eu.einfracentral.validators;
+
+import eu.einfracentral.domain.Provider;
+import eu.einfracentral.exception.ValidationException;
+import eu.einfracentral.service.search.SearchServiceEIC;
+import org.junit.Test;
+
+import java.net.URL;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Validates many Providers from many threads with a single {@link FieldValidator}, and checks that every
+ * validation only sees its own field locations, referenced ids and URLs.
+ */
+public class FieldValidatorConcurrencyTests {
+
+    private static final int THREADS = 8;
+    private static final int ITERATIONS = 250;
+
+    // the ids and URLs seen by the collaborators while validating, per validating thread
+    private final Map<Thread, Set<Object>> ids = new ConcurrentHashMap<>();
+    private final Map<Thread, Set<URL>> urls = new ConcurrentHashMap<>();
+
+    @Test
+    public void concurrentValidationsDoNotShareState() throws Exception {
+        FieldValidator fieldValidator = FieldValidatorTests.createFieldValidator(new SearchServiceEIC(null, null) {
+            @Override
+            public Set<String> searchExistingIds(String resourceType, Collection<String> requested, int pageSize) {
+                ids.computeIfAbsent(Thread.currentThread(), thread -> ConcurrentHashMap.newKeySet()).addAll(requested);
+                return new HashSet<>(requested);
+            }
+        }, new UrlReachabilityChecker(1, 1, 1000, 1, 1) {
+            @Override
+            public CompletableFuture<UrlCheck> check(URL url) {
+                urls.computeIfAbsent(Thread.currentThread(), thread -> ConcurrentHashMap.newKeySet()).add(url);
+                return CompletableFuture.completedFuture(new UrlCheck(false, 200));
+            }
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CyclicBarrier start = new CyclicBarrier(THREADS);
+        List<Future<?>> results = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            int worker = i;
+            results.add(executor.submit(() -> {
+                start.await();
+                for (int iteration = 0; iteration < ITERATIONS; iteration++) {
+                    validate(fieldValidator, worker, iteration);
+                }
+                return null;
+            }));
+        }
+        try {
+            for (Future<?> result : results) {
+                result.get(2, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Validates a Provider of the worker, valid or missing a nested field depending on the iteration.
+     */
+    private void validate(FieldValidator fieldValidator, int worker, int iteration) throws Exception {
+        Thread thread = Thread.currentThread();
+        ids.remove(thread);
+        urls.remove(thread);
+
+        Provider provider = FieldValidatorTests.createProvider();
+        String catalogueId = "catalogue-" + worker;
+        URL website = new URL(String.format("https://provider-%d.example.org", worker));
+        provider.setCatalogueId(catalogueId);
+        provider.setWebsite(website);
+        URL logo = provider.getLogo();
+
+        switch (iteration % 3) {
+            case 0:
+                fieldValidator.validate(provider);
+                assertEquals(Collections.singleton(catalogueId), ids.get(thread));
+                assertEquals(new HashSet<>(Arrays.asList(website, logo)), urls.get(thread));
+                break;
+            case 1:
+                provider.getLocation().setCity(null);
+                assertError("Field 'location->city' is mandatory.", fieldValidator, provider);
+                break;
+            default:
+                provider.getUsers().get(0).setSurname(null);
+                assertError("Field 'users->surname' is mandatory.", fieldValidator, provider);
+        }
+    }
+
+    private static void assertError(String expected, FieldValidator fieldValidator, Provider provider)
+            throws IllegalAccessException {
+        try {
+            fieldValidator.validate(provider);
+            fail("Expected: " + expected);
+        } catch (ValidationException e) {
+            assertEquals(expected, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package eu.einfracentral.validators;
+
+import eu.einfracentral.domain.*;
+import eu.einfracentral.exception.ValidationException;
+import eu.einfracentral.registry.service.VocabularyService;
+import eu.einfracentral.service.search.SearchServiceEIC;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that validating with the cached per-class validation plans gives the same errors as validating
+ * with plans resolved from the annotations on the spot.
+ */
+public class FieldValidatorTests {
+
+    static final String CATALOGUE_ID = "eosc";
+    static final String COUNTRY_ID = "country-gr";
+    static final String LIFE_CYCLE_STATUS_ID = "provider_life_cycle_status-operational";
+
+    private FieldValidator fieldValidator;
+
+    @Before
+    public void setUp() {
+        fieldValidator = createFieldValidator();
+    }
+
+    @Test
+    public void validProvider() throws Exception {
+        assertNull(validateUncached(createProvider()));
+        assertNull(validate(createProvider()));
+    }
+
+    @Test
+    public void cachedPlansGiveTheSameErrors() throws Exception {
+        Map<String, Consumer<Provider>> invalidProviders = new LinkedHashMap<>();
+        invalidProviders.put("missing name", provider -> provider.setName(null));
+        invalidProviders.put("empty description", provider -> provider.setDescription(""));
+        invalidProviders.put("missing main contact email", provider -> provider.getMainContact().setEmail(null));
+        invalidProviders.put("invalid public contact email", provider -> provider.getPublicContacts().get(0).setEmail("contact"));
+        invalidProviders.put("invalid main contact phone", provider -> provider.getMainContact().setPhone("phone"));
+        invalidProviders.put("missing nested field", provider -> provider.getLocation().setCity(null));
+        invalidProviders.put("missing user surname", provider -> provider.getUsers().get(0).setSurname(null));
+        invalidProviders.put("duplicate tags", provider -> provider.setTags(new ArrayList<>(Arrays.asList("tag", "tag"))));
+        invalidProviders.put("unknown vocabulary", provider -> provider.setLifeCycleStatus("unknown"));
+        invalidProviders.put("vocabulary of another type", provider -> provider.setLifeCycleStatus(COUNTRY_ID));
+        invalidProviders.put("unknown catalogue", provider -> provider.setCatalogueId("unknown"));
+
+        for (Map.Entry<String, Consumer<Provider>> invalidProvider : invalidProviders.entrySet()) {
+            Provider uncached = createProvider();
+            invalidProvider.getValue().accept(uncached);
+            String expected = validateUncached(uncached);
+            assertNotNull(invalidProvider.getKey(), expected);
+
+            Provider cached = createProvider();
+            invalidProvider.getValue().accept(cached);
+            assertEquals(invalidProvider.getKey(), expected, validate(cached));
+        }
+    }
+
+    /**
+     * Validates after dropping the cached plans, so that they are resolved from the annotations again.
+     */
+    private String validateUncached(Object object) throws Exception {
+        Field plans = FieldValidator.class.getDeclaredField("validationPlans");
+        plans.setAccessible(true);
+        ((Map<?, ?>) plans.get(null)).clear();
+        return validate(object);
+    }
+
+    private String validate(Object object) throws IllegalAccessException {
+        try {
+            fieldValidator.validate(object);
+            return null;
+        } catch (ValidationException e) {
+            return e.getMessage();
+        }
+    }
+
+    /**
+     * Creates a FieldValidator whose URLs are all reachable and which knows a single Catalogue and a few
+     * Vocabularies.
+     */
+    static FieldValidator createFieldValidator() {
+        Map<String, Set<String>> resources = new HashMap<>();
+        resources.put("catalogue", Collections.singleton(CATALOGUE_ID));
+        SearchServiceEIC searchService = new SearchServiceEIC(null, null) {
+            @Override
+            public Set<String> searchExistingIds(String resourceType, Collection<String> ids, int pageSize) {
+                Set<String> existing = new HashSet<>(ids);
+                existing.retainAll(resources.getOrDefault(resourceType, Collections.emptySet()));
+                return existing;
+            }
+        };
+
+        UrlReachabilityChecker urlReachabilityChecker = new UrlReachabilityChecker(1, 1, 1000, 1, 1) {
+            @Override
+            public CompletableFuture<UrlCheck> check(URL url) {
+                return CompletableFuture.completedFuture(new UrlCheck(false, 200));
+            }
+        };
+        return createFieldValidator(searchService, urlReachabilityChecker);
+    }
+
+    /**
+     * Creates a FieldValidator with the given search service and URL checker, which knows a few Vocabularies.
+     */
+    static FieldValidator createFieldValidator(SearchServiceEIC searchService,
+                                               UrlReachabilityChecker urlReachabilityChecker) {
+        Map<String, Vocabulary> vocabularies = new HashMap<>();
+        vocabularies.put(COUNTRY_ID, new Vocabulary(COUNTRY_ID, "Greece", null, null,
+                Vocabulary.Type.COUNTRY.getKey(), null));
+        vocabularies.put(LIFE_CYCLE_STATUS_ID, new Vocabulary(LIFE_CYCLE_STATUS_ID, "Operational", null, null,
+                Vocabulary.Type.PROVIDER_LIFE_CYCLE_STATUS.getKey(), null));
+        VocabularyService vocabularyService = (VocabularyService) Proxy.newProxyInstance(
+                VocabularyService.class.getClassLoader(), new Class[]{VocabularyService.class},
+                (proxy, method, args) -> {
+                    if ("getVocabulariesMap".equals(method.getName())) {
+                        return vocabularies;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        return new FieldValidator(vocabularyService, searchService, urlReachabilityChecker);
+    }
+
+    static Provider createProvider() throws MalformedURLException {
+        ProviderLocation location = new ProviderLocation();
+        location.setStreetNameAndNumber("Epidavrou 6");
+        location.setPostalCode("12345");
+        location.setCity("Athens");
+        location.setCountry(COUNTRY_ID);
+
+        ProviderMainContact mainContact = new ProviderMainContact();
+        mainContact.setFirstName("Main");
+        mainContact.setEmail("main@example.org");
+        mainContact.setPhone("0123456789");
+
+        ProviderPublicContact publicContact = new ProviderPublicContact();
+        publicContact.setEmail("public@example.org");
+
+        User user = new User();
+        user.setEmail("user@example.org");
+        user.setName("Name");
+        user.setSurname("Surname");
+
+        Provider provider = new Provider();
+        provider.setId("provider");
+        provider.setAbbreviation("PRV");
+        provider.setName("Provider");
+        provider.setWebsite(new URL("https://provider.example.org"));
+        provider.setLegalEntity(false);
+        provider.setDescription("A provider");
+        provider.setLogo(new URL("https://provider.example.org/logo.png"));
+        provider.setTags(new ArrayList<>(Arrays.asList("tag", "other")));
+        provider.setLifeCycleStatus(LIFE_CYCLE_STATUS_ID);
+        provider.setCatalogueId(CATALOGUE_ID);
+        provider.setLocation(location);
+        provider.setMainContact(mainContact);
+        provider.setPublicContacts(new ArrayList<>(Collections.singletonList(publicContact)));
+        provider.setUsers(new ArrayList<>(Collections.singletonList(user)));
+        return provider;
+    }
+}
@@ -0,0 +1,118 @@
+package eu.einfracentral.validators;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks {@link UrlReachabilityChecker} against a local HTTP server with fast and slow paths.
+ */
+public class UrlReachabilityCheckerTests {
+
+    private static final int TIMEOUT = 300;
+    private static final int SLOW = 1000;
+
+    private final Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+    private final Map<String, Integer> delays = new ConcurrentHashMap<>();
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            requests.computeIfAbsent(path, key -> new AtomicInteger()).incrementAndGet();
+            try {
+                Thread.sleep(delays.getOrDefault(path, 0));
+                exchange.sendResponseHeaders(path.startsWith("/missing") ? 404 : 200, -1);
+            } catch (InterruptedException | IOException e) {
+                // the client gave up
+            } finally {
+                exchange.close();
+            }
+        });
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    public void checksAndCachesReachableUrls() throws Exception {
+        UrlReachabilityChecker checker = new UrlReachabilityChecker(2, 10, TIMEOUT, 1, 60);
+        UrlReachabilityChecker.UrlCheck check = checker.check(url("/ok")).get();
+        assertFalse(check.isTimedOut());
+        assertEquals(200, check.getStatusCode());
+        assertEquals(404, checker.check(url("/missing")).get().getStatusCode());
+
+        assertEquals(200, checker.check(url("/ok")).get().getStatusCode());
+        assertEquals(1, requests.get("/ok").get());
+    }
+
+    @Test
+    public void timeoutsOnlyAffectTheirUrl() throws Exception {
+        UrlReachabilityChecker checker = new UrlReachabilityChecker(2, 10, TIMEOUT, 1, 60);
+        delays.put("/slow", SLOW);
+        assertTrue(checker.check(url("/slow")).get().isTimedOut());
+
+        UrlReachabilityChecker.UrlCheck check = checker.check(url("/ok")).get();
+        assertFalse(check.isTimedOut());
+        assertEquals(200, check.getStatusCode());
+    }
+
+    @Test
+    public void timeoutsAreRememberedBriefly() throws Exception {
+        UrlReachabilityChecker checker = new UrlReachabilityChecker(2, 10, TIMEOUT, 1, 1);
+        delays.put("/flaky", SLOW);
+        assertTrue(checker.check(url("/flaky")).get().isTimedOut());
+        assertTrue(checker.check(url("/flaky")).get().isTimedOut());
+        assertEquals(1, requests.get("/flaky").get());
+
+        delays.remove("/flaky");
+        Thread.sleep(1500);
+        UrlReachabilityChecker.UrlCheck check = checker.check(url("/flaky")).get();
+        assertFalse(check.isTimedOut());
+        assertEquals(2, requests.get("/flaky").get());
+    }
+
+    @Test
+    public void callerChecksWhenAllSlotsAreTaken() throws Exception {
+        UrlReachabilityChecker checker = new UrlReachabilityChecker(1, 1, TIMEOUT, 1, 60);
+        delays.put("/slow-1", SLOW);
+        delays.put("/slow-2", SLOW);
+        delays.put("/slow-3", SLOW);
+        CompletableFuture<UrlReachabilityChecker.UrlCheck> running = checker.check(url("/slow-1"));
+        CompletableFuture<UrlReachabilityChecker.UrlCheck> queued = checker.check(url("/slow-2"));
+
+        // neither thread nor queue slots left: checked on the calling thread, before returning
+        CompletableFuture<UrlReachabilityChecker.UrlCheck> rejected = checker.check(url("/slow-3"));
+        assertTrue(rejected.isDone());
+        assertTrue(rejected.get().isTimedOut());
+
+        assertTrue(running.get(5, TimeUnit.SECONDS).isTimedOut());
+        assertTrue(queued.get(5, TimeUnit.SECONDS).isTimedOut());
+        checker.shutdown();
+    }
+
+    private URL url(String path) throws IOException {
+        return new URL(String.format("http://%s:%d%s", server.getAddress().getHostString(),
+                server.getAddress().getPort(), path));
+    }
+}
@@ -3,12 +3,12 @@ package eu.einfracentral.matomo;
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.i18n.phonenumbers.NumberParseException;
+import eu.einfracentral.domain.Event;
 import eu.einfracentral.registry.service.EventService;
-import eu.openminted.registry.core.exception.ResourceNotFoundException;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -33,7 +33,7 @@ public class DataParser {
     private String serviceVisits;
     private String serviceRatings;
     private String serviceAddToProject;
-    private RestTemplate restTemplate;
+    private final RestTemplate restTemplate;
     private HttpHeaders headers;
     private final EventService eventService;
 
@@ -47,13 +47,13 @@ public class DataParser {
     private String matomoSiteId;
 
     @Autowired
-    DataParser(EventService eventService) {
+    DataParser(EventService eventService, @Qualifier("matomoRestTemplate") RestTemplate restTemplate) {
         this.eventService = eventService;
+        this.restTemplate = restTemplate;
     }
 
     @PostConstruct
     void postConstruct() {
-        restTemplate = new RestTemplate();
         headers = new HttpHeaders();
         String authorizationHeader = "";
         headers.add("Authorization", authorizationHeader);
@@ -84,13 +84,7 @@ public class DataParser {
             }
         }
         int eventType = 1; //visits
-        try {
-            postEventsToDatabase(results, eventType);
-        } catch (ResourceNotFoundException e) {
-            logger.error(e);
-        } catch (NumberParseException e) {
-            logger.error(e);
-        }
+        postEventsToDatabase(results, eventType);
     }
 
     @Scheduled(cron = "0 15 0 * * *")
@@ -114,13 +108,7 @@ public class DataParser {
             }
         }
         int eventType = 3; // ratings
-        try {
-            postEventsToDatabase(results, eventType);
-        } catch (ResourceNotFoundException e) {
-            logger.error(e);
-        } catch (NumberParseException e) {
-            logger.error(e);
-        }
+        postEventsToDatabase(results, eventType);
     }
 
     @Scheduled(cron = "0 20 0 * * *")
@@ -144,13 +132,7 @@ public class DataParser {
             }
         }
         int eventType = 2; // addToProject
-        try {
-            postEventsToDatabase(results, eventType);
-        } catch (ResourceNotFoundException e) {
-            logger.error(e);
-        } catch (NumberParseException e) {
-            logger.error(e);
-        }
+        postEventsToDatabase(results, eventType);
     }
 
     public static JsonNode parse(String json) {
@@ -181,36 +163,23 @@ public class DataParser {
         return "";
     }
 
-    public void postEventsToDatabase(Map<String, Float> events, int eventType) throws ResourceNotFoundException, NumberParseException {
+    public void postEventsToDatabase(Map<String, Float> events, int eventType) {
+        String type;
         if (eventType == 1) {
-            for (Map.Entry<String, Float> entry : events.entrySet()) {
-                logger.info("Posting Visit Event for Service {} with value {}", entry.getKey(), entry.getValue());
-                if (eventService != null) {
-                    eventService.setVisit(entry.getKey(), entry.getValue());
-                } else {
-                    logger.info("Empty Visit View");
-                }
-            }
+            type = Event.UserActionType.VISIT.getKey();
         } else if (eventType == 2) {
-            for (Map.Entry<String, Float> entry : events.entrySet()) {
-                logger.info("Posting AddToProject Event for Service {} with value {}", entry.getKey(), entry.getValue());
-                if (eventService != null) {
-                    eventService.setAddToProject(entry.getKey(), entry.getValue());
-                } else {
-                    logger.info("Empty AddToProject View");
-                }
-            }
+            type = Event.UserActionType.ADD_TO_PROJECT.getKey();
         } else if (eventType == 3) {
-            for (Map.Entry<String, Float> entry : events.entrySet()) {
-                logger.info("Posting Rating Event for Service {} with value {}", entry.getKey(), entry.getValue());
-                if (eventService != null) {
-                    eventService.setScheduledRating(entry.getKey(), entry.getValue());
-                } else {
-                    logger.info("Empty Rating View");
-                }
-            }
+            type = Event.UserActionType.RATING.getKey();
         } else {
             logger.info("No eventType specified or unknown eventType");
+            return;
+        }
+        if (eventService == null) {
+            logger.info("Empty {} View", type);
+            return;
         }
+        logger.info("Posting {} {} Events", events.size(), type);
+        eventService.addScheduledEvents(type, events);
     }
 }
\ No newline at end of file
@@ -7,14 +7,19 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
-import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.client.RestTemplate;
 
 import javax.annotation.PostConstruct;
 import javax.sql.DataSource;
 import java.io.IOException;
+import java.util.*;
+import java.util.stream.Collectors;
 
 @Component
 public class Recdb {
@@ -23,7 +28,10 @@ public class Recdb {
     private static final String SERVICE_VISITS_TEMPLATE = "%s/index.php?module=API&method=%s&flat=1&idSite=%s&period=day&date=%s&format=JSON&token_auth=%s";
     private String serviceEvents;
 
+    @Autowired
+    @Qualifier("matomoRestTemplate")
     private RestTemplate restTemplate;
+
     private HttpHeaders headers;
 
     @Value("${matomoHost:localhost}")
@@ -40,7 +48,6 @@ public class Recdb {
 
     @PostConstruct
     void urlConstruct() {
-        restTemplate = new RestTemplate();
         headers = new HttpHeaders();
         headers.add("Authorization", authorizationHeader);
 
@@ -84,41 +91,95 @@ public class Recdb {
 
         logger.info("Display views \n");
         EventsModel[] day = mapper.readValue(str, EventsModel[].class);
+        importViews(day);
+    }
 
-        JdbcTemplate jdbcTemplate = new JdbcTemplate(recdbDataSource);
-        int user_id = -1;
-        int service_id = -1;
-        String query = "";
-
-        for (EventsModel event : day) {
-            if (event.Events_EventCategory.equals("Recommendations")) {
-
-                String[] data = event.Events_EventAction.split(" ");
-                /* Add user email if it is not in the table */
-                query = "INSERT INTO users (user_email) SELECT ? WHERE NOT EXISTS (SELECT 1 FROM users WHERE  user_email = ?)";
-                jdbcTemplate.update(query, data[0], data[0]);
-                /* Get user id */
-                query = "SELECT user_pk FROM users WHERE user_email = ?;";
-                user_id = jdbcTemplate.queryForObject(query, new Object[]{data[0]}, int.class);
-
-                logger.trace("User id: {}", user_id);
-
-                /* Add service name if it is not in the table */
-                query = "INSERT INTO services (service_name) SELECT ? WHERE NOT EXISTS (SELECT 1 FROM services WHERE  service_name = ?)";
-                jdbcTemplate.update(query, data[1], data[1]);
-                /* Get service id */
-                query = "SELECT service_pk FROM services WHERE service_name = ?;";
-                service_id = jdbcTemplate.queryForObject(query, new Object[]{data[1]}, int.class);
-
-                logger.trace("Service id: {}", service_id);
-                logger.trace("email: {} service id: {} value: {}", data[0], data[1], event.sum_event_value);
-
-                jdbcTemplate.update("UPDATE view_count set visits = visits + ? WHERE user_id = ? " +
-                                "AND service_id = ?; INSERT INTO view_count (user_id, service_id, visits)" +
-                                "SELECT ?,?,? WHERE NOT EXISTS (SELECT 1 FROM view_count WHERE" +
-                                " user_id = ? AND service_id = ?);",
-                        event.sum_event_value, user_id, service_id, user_id, service_id, event.sum_event_value, user_id, service_id);
+    /**
+     * Adds the views of the 'Recommendations' events to the view counts, in a single transaction. The views are
+     * summed per user and service in memory, and the missing users and services, the updated and the new view
+     * counts are each written with a single batch.
+     *
+     * @param events the Matomo events
+     */
+    void importViews(EventsModel[] events) {
+        // <user email, <service name, views>>
+        Map<String, Map<String, Integer>> views = new LinkedHashMap<>();
+        Set<String> serviceNames = new LinkedHashSet<>();
+        for (EventsModel event : events) {
+            if (!"Recommendations".equals(event.Events_EventCategory)) {
+                continue;
+            }
+            String[] data = event.Events_EventAction != null ? event.Events_EventAction.split(" ") : new String[0];
+            if (data.length < 2) {
+                logger.warn("Skipping event with invalid action '{}'", event.Events_EventAction);
+                continue;
             }
+            logger.trace("email: {} service id: {} value: {}", data[0], data[1], event.sum_event_value);
+            views.computeIfAbsent(data[0], email -> new LinkedHashMap<>()).merge(data[1], event.sum_event_value, Integer::sum);
+            serviceNames.add(data[1]);
+        }
+        if (views.isEmpty()) {
+            return;
+        }
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(recdbDataSource));
+        transactionTemplate.executeWithoutResult(status -> {
+            NamedParameterJdbcTemplate jdbcTemplate = new NamedParameterJdbcTemplate(recdbDataSource);
+            Map<String, Integer> userIds = insertAndGetIds(jdbcTemplate, "users", "user_pk", "user_email", views.keySet());
+            Map<String, Integer> serviceIds = insertAndGetIds(jdbcTemplate, "services", "service_pk", "service_name", serviceNames);
+
+            List<MapSqlParameterSource> counts = new ArrayList<>();
+            for (Map.Entry<String, Map<String, Integer>> userViews : views.entrySet()) {
+                for (Map.Entry<String, Integer> serviceViews : userViews.getValue().entrySet()) {
+                    MapSqlParameterSource in = new MapSqlParameterSource();
+                    in.addValue("user_id", userIds.get(userViews.getKey()));
+                    in.addValue("service_id", serviceIds.get(serviceViews.getKey()));
+                    in.addValue("visits", serviceViews.getValue());
+                    counts.add(in);
+                }
+            }
+            int[] updated = jdbcTemplate.batchUpdate("UPDATE view_count SET visits = visits + :visits " +
+                    "WHERE user_id = :user_id AND service_id = :service_id", counts.toArray(new MapSqlParameterSource[0]));
+            List<MapSqlParameterSource> newCounts = new ArrayList<>();
+            for (int i = 0; i < updated.length; i++) {
+                if (updated[i] == 0) {
+                    newCounts.add(counts.get(i));
+                }
+            }
+            if (!newCounts.isEmpty()) {
+                jdbcTemplate.batchUpdate("INSERT INTO view_count (user_id, service_id, visits) " +
+                        "VALUES (:user_id, :service_id, :visits)", newCounts.toArray(new MapSqlParameterSource[0]));
+            }
+            logger.info("Imported views of {} users on {} services ({} updated and {} new view counts)",
+                    userIds.size(), serviceIds.size(), counts.size() - newCounts.size(), newCounts.size());
+        });
+    }
+
+    /**
+     * Inserts the values missing from the table and returns the ids of all values.
+     */
+    private Map<String, Integer> insertAndGetIds(NamedParameterJdbcTemplate jdbcTemplate, String table,
+                                                 String idColumn, String valueColumn, Collection<String> values) {
+        MapSqlParameterSource in = new MapSqlParameterSource("values", values);
+        Map<String, Integer> ids = new HashMap<>();
+        String select = String.format("SELECT %s, %s FROM %s WHERE %s IN (:values)", idColumn, valueColumn, table, valueColumn);
+        jdbcTemplate.query(select, in, rs -> {
+            ids.put(rs.getString(valueColumn), rs.getInt(idColumn));
+        });
+
+        List<MapSqlParameterSource> missing = values.stream()
+                .filter(value -> !ids.containsKey(value))
+                .map(value -> new MapSqlParameterSource("value", value))
+                .collect(Collectors.toList());
+        if (!missing.isEmpty()) {
+            jdbcTemplate.batchUpdate(String.format("INSERT INTO %s (%s) VALUES (:value)", table, valueColumn),
+                    missing.toArray(new MapSqlParameterSource[0]));
+            MapSqlParameterSource inserted = new MapSqlParameterSource("values",
+                    missing.stream().map(value -> value.getValue("value")).collect(Collectors.toList()));
+            jdbcTemplate.query(select, inserted, rs -> {
+                ids.put(rs.getString(valueColumn), rs.getInt(idColumn));
+            });
         }
+        return ids;
     }
 }